@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.arrow;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per row cost of the Arrow converters behind ResultSet.getObject and ResultSet.getString. One
+ * operation is one row, so with the gc profiler gc.alloc.rate.norm is the allocation per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrowConverterBenchmark {
+  private static final int ROW_COUNT = 4096;
+
+  // all converters when no value is given
+  @Param public SyntheticColumn column;
+
+  private BufferAllocator allocator;
+
+  private FieldVector vector;
+
+  private ArrowVectorConverter converter;
+
+  @Setup
+  public void setUp() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    vector = column.createVector("C1", allocator, ROW_COUNT, new Random(42));
+    converter = column.createConverter(vector, 0, new BenchmarkConversionContext());
+  }
+
+  @TearDown
+  public void tearDown() {
+    vector.close();
+    allocator.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void getObject(Blackhole blackhole) throws SFException {
+    for (int i = 0; i < ROW_COUNT; i++) {
+      blackhole.consume(converter.toObject(i));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void getString(Blackhole blackhole) throws SFException {
+    for (int i = 0; i < ROW_COUNT; i++) {
+      blackhole.consume(converter.toString(i));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.arrow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per row cost of sorting the first result chunk on the client. The chunk has the column given by
+ * the parameter as sort key followed by a text column that breaks ties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrowResultChunkIndexSorterBenchmark {
+  private static final int ROW_COUNT = 8192;
+
+  @Param({"TINY_INT_TO_FIXED", "BIG_INT_TO_SCALED_FIXED", "VAR_CHAR", "BIG_INT_TO_TIMESTAMP_NTZ"})
+  public SyntheticColumn sortKey;
+
+  private BufferAllocator allocator;
+
+  private final List<ValueVector> vectors = new ArrayList<>();
+
+  private final List<ArrowVectorConverter> converters = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    BenchmarkConversionContext context = new BenchmarkConversionContext();
+    Random random = new Random(42);
+    SyntheticColumn[] columns = {sortKey, SyntheticColumn.VAR_CHAR};
+    for (int i = 0; i < columns.length; i++) {
+      FieldVector vector = columns[i].createVector("C" + (i + 1), allocator, ROW_COUNT, random);
+      vectors.add(vector);
+      converters.add(columns[i].createConverter(vector, i, context));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    vectors.forEach(ValueVector::close);
+    vectors.clear();
+    converters.clear();
+    allocator.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public int sort() throws SFException {
+    // sorting only permutes the indices, so the same chunk can be sorted again
+    try (IntVector indices = new ArrowResultChunkIndexSorter(vectors, converters).sort()) {
+      return indices.get(0);
+    }
+  }
+}
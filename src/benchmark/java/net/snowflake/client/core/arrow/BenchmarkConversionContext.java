@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.arrow;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import net.snowflake.client.core.DataConversionContext;
+import net.snowflake.client.core.SFSession;
+import net.snowflake.common.core.SFBinaryFormat;
+import net.snowflake.common.core.SnowflakeDateTimeFormat;
+
+/** Conversion context with the default session formats, so that no server is needed */
+public class BenchmarkConversionContext implements DataConversionContext {
+  private final SnowflakeDateTimeFormat dateFormat =
+      SnowflakeDateTimeFormat.fromSqlFormat("YYYY-MM-DD");
+  private final SnowflakeDateTimeFormat timeFormat =
+      SnowflakeDateTimeFormat.fromSqlFormat("HH24:MI:SS");
+  private final SnowflakeDateTimeFormat timestampFormat =
+      SnowflakeDateTimeFormat.fromSqlFormat("DY, DD MON YYYY HH24:MI:SS TZHTZM");
+
+  private final SFSession session = new SFSession();
+
+  // scale of each column, by 1-based column index
+  private final Map<Integer, Integer> scales = new HashMap<>();
+
+  /**
+   * @param columnIndex 1-based column index
+   * @param scale scale of the time and timestamp values of the column
+   */
+  public void setScale(int columnIndex, int scale) {
+    scales.put(columnIndex, scale);
+  }
+
+  @Override
+  public SnowflakeDateTimeFormat getTimestampLTZFormatter() {
+    return timestampFormat;
+  }
+
+  @Override
+  public SnowflakeDateTimeFormat getTimestampNTZFormatter() {
+    return timestampFormat;
+  }
+
+  @Override
+  public SnowflakeDateTimeFormat getTimestampTZFormatter() {
+    return timestampFormat;
+  }
+
+  @Override
+  public SnowflakeDateTimeFormat getDateFormatter() {
+    return dateFormat;
+  }
+
+  @Override
+  public SnowflakeDateTimeFormat getTimeFormatter() {
+    return timeFormat;
+  }
+
+  @Override
+  public SFBinaryFormat getBinaryFormatter() {
+    return SFBinaryFormat.HEX;
+  }
+
+  @Override
+  public int getScale(int columnIndex) {
+    return scales.getOrDefault(columnIndex, 9);
+  }
+
+  @Override
+  public SFSession getSession() {
+    return session;
+  }
+
+  @Override
+  public TimeZone getTimeZone() {
+    return TimeZone.getDefault();
+  }
+
+  @Override
+  public boolean getHonorClientTZForTimestampNTZ() {
+    return true;
+  }
+
+  @Override
+  public long getResultVersion() {
+    return 1;
+  }
+}
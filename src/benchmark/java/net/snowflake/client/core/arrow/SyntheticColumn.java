@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.arrow;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+/**
+ * Column layouts of an Arrow result, one per converter in this package. Each of them builds a
+ * vector with the same Arrow type and field metadata as the server sends, filled with random
+ * values, so that result chunks can be generated locally without a server.
+ */
+public enum SyntheticColumn {
+  TINY_INT_TO_FIXED("FIXED", 0),
+  TINY_INT_TO_SCALED_FIXED("FIXED", 2),
+  SMALL_INT_TO_FIXED("FIXED", 0),
+  SMALL_INT_TO_SCALED_FIXED("FIXED", 4),
+  INT_TO_FIXED("FIXED", 0),
+  INT_TO_SCALED_FIXED("FIXED", 9),
+  BIG_INT_TO_FIXED("FIXED", 0),
+  BIG_INT_TO_SCALED_FIXED("FIXED", 18),
+  DECIMAL_TO_SCALED_FIXED("FIXED", 10),
+  DOUBLE_TO_REAL("REAL", 0),
+  BIT_TO_BOOLEAN("BOOLEAN", 0),
+  DATE("DATE", 0),
+  INT_TO_TIME("TIME", 3),
+  BIG_INT_TO_TIME("TIME", 9),
+  BIG_INT_TO_TIMESTAMP_LTZ("TIMESTAMP_LTZ", 3),
+  BIG_INT_TO_TIMESTAMP_NTZ("TIMESTAMP_NTZ", 3),
+  TWO_FIELD_STRUCT_TO_TIMESTAMP_LTZ("TIMESTAMP_LTZ", 9),
+  TWO_FIELD_STRUCT_TO_TIMESTAMP_NTZ("TIMESTAMP_NTZ", 9),
+  TWO_FIELD_STRUCT_TO_TIMESTAMP_TZ("TIMESTAMP_TZ", 3),
+  THREE_FIELD_STRUCT_TO_TIMESTAMP_TZ("TIMESTAMP_TZ", 9),
+  VAR_CHAR("TEXT", 0),
+  VAR_BINARY_TO_BINARY("BINARY", 0);
+
+  // one in NULL_RATIO values is null
+  private static final int NULL_RATIO = 16;
+
+  // 2020-01-01 in seconds since epoch
+  private static final long EPOCH_SECONDS_2020 = 1577836800L;
+
+  private static final int SECONDS_PER_YEAR = 365 * 24 * 3600;
+
+  private final String logicalType;
+
+  private final int scale;
+
+  SyntheticColumn(String logicalType, int scale) {
+    this.logicalType = logicalType;
+    this.scale = scale;
+  }
+
+  /**
+   * @return scale of the column, for FIXED it is in the field metadata, for time and timestamps it
+   *     must be registered in the conversion context
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * Create a vector with random values
+   *
+   * @param name column name
+   * @param allocator allocator of the vector
+   * @param rowCount number of values
+   * @param random source of the values
+   * @return vector owned by the caller
+   */
+  public FieldVector createVector(
+      String name, BufferAllocator allocator, int rowCount, Random random) {
+    switch (this) {
+      case TINY_INT_TO_FIXED:
+      case TINY_INT_TO_SCALED_FIXED:
+        {
+          TinyIntVector vector =
+              new TinyIntVector(name, fieldType(Types.MinorType.TINYINT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextInt(200) - 100);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case SMALL_INT_TO_FIXED:
+      case SMALL_INT_TO_SCALED_FIXED:
+        {
+          SmallIntVector vector =
+              new SmallIntVector(name, fieldType(Types.MinorType.SMALLINT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextInt(20000) - 10000);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case INT_TO_FIXED:
+      case INT_TO_SCALED_FIXED:
+        {
+          IntVector vector = new IntVector(name, fieldType(Types.MinorType.INT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextInt());
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case BIG_INT_TO_FIXED:
+      case BIG_INT_TO_SCALED_FIXED:
+        {
+          BigIntVector vector =
+              new BigIntVector(name, fieldType(Types.MinorType.BIGINT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextLong());
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case DECIMAL_TO_SCALED_FIXED:
+        {
+          Map<String, String> meta = metadata();
+          meta.put("precision", "38");
+          DecimalVector vector =
+              new DecimalVector(
+                  name,
+                  new FieldType(true, new ArrowType.Decimal(38, scale), null, meta),
+                  allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, BigDecimal.valueOf(random.nextLong(), scale));
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case DOUBLE_TO_REAL:
+        {
+          Float8Vector vector =
+              new Float8Vector(name, fieldType(Types.MinorType.FLOAT8), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextDouble() * 1e6);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case BIT_TO_BOOLEAN:
+        {
+          BitVector vector = new BitVector(name, fieldType(Types.MinorType.BIT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, random.nextBoolean() ? 1 : 0);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case DATE:
+        {
+          DateDayVector vector =
+              new DateDayVector(name, fieldType(Types.MinorType.DATEDAY), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, 18262 + random.nextInt(3650) - 1825);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case INT_TO_TIME:
+        {
+          IntVector vector = new IntVector(name, fieldType(Types.MinorType.INT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              // milliseconds of the day
+              vector.setSafe(i, random.nextInt(86_400_000));
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case BIG_INT_TO_TIME:
+        {
+          BigIntVector vector =
+              new BigIntVector(name, fieldType(Types.MinorType.BIGINT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              // nanoseconds of the day
+              vector.setSafe(i, (long) (random.nextDouble() * 86_400_000_000_000L));
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case BIG_INT_TO_TIMESTAMP_LTZ:
+      case BIG_INT_TO_TIMESTAMP_NTZ:
+        {
+          BigIntVector vector =
+              new BigIntVector(name, fieldType(Types.MinorType.BIGINT), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              // milliseconds since epoch
+              vector.setSafe(i, randomEpochSeconds(random) * 1000 + random.nextInt(1000));
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_LTZ:
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_NTZ:
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_TZ:
+      case THREE_FIELD_STRUCT_TO_TIMESTAMP_TZ:
+        return createTimestampStruct(name, allocator, rowCount, random);
+      case VAR_CHAR:
+        {
+          VarCharVector vector =
+              new VarCharVector(name, fieldType(Types.MinorType.VARCHAR), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              vector.setSafe(i, randomText(random).getBytes(StandardCharsets.UTF_8));
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      case VAR_BINARY_TO_BINARY:
+        {
+          VarBinaryVector vector =
+              new VarBinaryVector(name, fieldType(Types.MinorType.VARBINARY), allocator);
+          for (int i = 0; i < rowCount; i++) {
+            if (!isNull(random)) {
+              byte[] bytes = new byte[1 + random.nextInt(32)];
+              random.nextBytes(bytes);
+              vector.setSafe(i, bytes);
+            }
+          }
+          return finish(vector, rowCount);
+        }
+      default:
+        throw new IllegalStateException("Unknown column " + this);
+    }
+  }
+
+  /**
+   * Create the converter for a vector of this column, as the result chunk would choose it
+   *
+   * @param vector vector created by {@link #createVector(String, BufferAllocator, int, Random)}
+   * @param vectorIndex 0-based index of the column
+   * @param context context to convert with, the scale of the column is registered in it
+   * @return converter over the vector
+   */
+  public ArrowVectorConverter createConverter(
+      FieldVector vector, int vectorIndex, BenchmarkConversionContext context) {
+    context.setScale(vectorIndex + 1, scale);
+    switch (this) {
+      case TINY_INT_TO_FIXED:
+        return new TinyIntToFixedConverter(vector, vectorIndex, context);
+      case TINY_INT_TO_SCALED_FIXED:
+        return new TinyIntToScaledFixedConverter(vector, vectorIndex, context, scale);
+      case SMALL_INT_TO_FIXED:
+        return new SmallIntToFixedConverter(vector, vectorIndex, context);
+      case SMALL_INT_TO_SCALED_FIXED:
+        return new SmallIntToScaledFixedConverter(vector, vectorIndex, context, scale);
+      case INT_TO_FIXED:
+        return new IntToFixedConverter(vector, vectorIndex, context);
+      case INT_TO_SCALED_FIXED:
+        return new IntToScaledFixedConverter(vector, vectorIndex, context, scale);
+      case BIG_INT_TO_FIXED:
+        return new BigIntToFixedConverter(vector, vectorIndex, context);
+      case BIG_INT_TO_SCALED_FIXED:
+        return new BigIntToScaledFixedConverter(vector, vectorIndex, context, scale);
+      case DECIMAL_TO_SCALED_FIXED:
+        return new DecimalToScaledFixedConverter(vector, vectorIndex, context);
+      case DOUBLE_TO_REAL:
+        return new DoubleToRealConverter(vector, vectorIndex, context);
+      case BIT_TO_BOOLEAN:
+        return new BitToBooleanConverter(vector, vectorIndex, context);
+      case DATE:
+        return new DateConverter(vector, vectorIndex, context);
+      case INT_TO_TIME:
+        return new IntToTimeConverter(vector, vectorIndex, context);
+      case BIG_INT_TO_TIME:
+        return new BigIntToTimeConverter(vector, vectorIndex, context);
+      case BIG_INT_TO_TIMESTAMP_LTZ:
+        return new BigIntToTimestampLTZConverter(vector, vectorIndex, context);
+      case BIG_INT_TO_TIMESTAMP_NTZ:
+        return new BigIntToTimestampNTZConverter(vector, vectorIndex, context);
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_LTZ:
+        return new TwoFieldStructToTimestampLTZConverter(vector, vectorIndex, context);
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_NTZ:
+        return new TwoFieldStructToTimestampNTZConverter(vector, vectorIndex, context);
+      case TWO_FIELD_STRUCT_TO_TIMESTAMP_TZ:
+        return new TwoFieldStructToTimestampTZConverter(vector, vectorIndex, context);
+      case THREE_FIELD_STRUCT_TO_TIMESTAMP_TZ:
+        return new ThreeFieldStructToTimestampTZConverter(vector, vectorIndex, context);
+      case VAR_CHAR:
+        return new VarCharConverter(vector, vectorIndex, context);
+      case VAR_BINARY_TO_BINARY:
+        return new VarBinaryToBinaryConverter(vector, vectorIndex, context);
+      default:
+        throw new IllegalStateException("Unknown column " + this);
+    }
+  }
+
+  private FieldVector createTimestampStruct(
+      String name, BufferAllocator allocator, int rowCount, Random random) {
+    boolean hasFraction = this != TWO_FIELD_STRUCT_TO_TIMESTAMP_TZ;
+    boolean hasTimeZone =
+        this == TWO_FIELD_STRUCT_TO_TIMESTAMP_TZ || this == THREE_FIELD_STRUCT_TO_TIMESTAMP_TZ;
+
+    List<Field> children = new ArrayList<>();
+    children.add(
+        new Field(
+            AbstractArrowVectorConverter.FIELD_NAME_EPOCH,
+            fieldType(Types.MinorType.BIGINT),
+            null));
+    if (hasFraction) {
+      children.add(
+          new Field(
+              AbstractArrowVectorConverter.FIELD_NAME_FRACTION,
+              fieldType(Types.MinorType.INT),
+              null));
+    }
+    if (hasTimeZone) {
+      children.add(
+          new Field(
+              AbstractArrowVectorConverter.FIELD_NAME_TIME_ZONE_INDEX,
+              fieldType(Types.MinorType.INT),
+              null));
+    }
+
+    StructVector vector =
+        new StructVector(
+            name,
+            allocator,
+            new FieldType(true, ArrowType.Struct.INSTANCE, null, metadata()),
+            null);
+    vector.initializeChildrenFromFields(children);
+    BigIntVector epochs =
+        vector.getChild(AbstractArrowVectorConverter.FIELD_NAME_EPOCH, BigIntVector.class);
+    IntVector fractions =
+        vector.getChild(AbstractArrowVectorConverter.FIELD_NAME_FRACTION, IntVector.class);
+    IntVector timeZones =
+        vector.getChild(AbstractArrowVectorConverter.FIELD_NAME_TIME_ZONE_INDEX, IntVector.class);
+
+    for (int i = 0; i < rowCount; i++) {
+      if (isNull(random)) {
+        vector.setNull(i);
+        epochs.setNull(i);
+        if (fractions != null) {
+          fractions.setNull(i);
+        }
+        if (timeZones != null) {
+          timeZones.setNull(i);
+        }
+        continue;
+      }
+      vector.setIndexDefined(i);
+      long seconds = randomEpochSeconds(random);
+      if (hasFraction) {
+        epochs.setSafe(i, seconds);
+        fractions.setSafe(i, random.nextInt(1000_000_000));
+      } else {
+        // epoch in milliseconds when there is no separate fraction
+        epochs.setSafe(i, seconds * 1000 + random.nextInt(1000));
+      }
+      if (timeZones != null) {
+        // offset in minutes from UTC, shifted by 1440
+        timeZones.setSafe(i, 1440 + (random.nextInt(25) - 12) * 60);
+      }
+    }
+    epochs.setValueCount(rowCount);
+    if (fractions != null) {
+      fractions.setValueCount(rowCount);
+    }
+    if (timeZones != null) {
+      timeZones.setValueCount(rowCount);
+    }
+    vector.setValueCount(rowCount);
+    return vector;
+  }
+
+  private Map<String, String> metadata() {
+    Map<String, String> meta = new HashMap<>();
+    meta.put("logicalType", logicalType);
+    meta.put("scale", String.valueOf(scale));
+    return meta;
+  }
+
+  private FieldType fieldType(Types.MinorType type) {
+    return new FieldType(true, type.getType(), null, metadata());
+  }
+
+  private static FieldVector finish(FieldVector vector, int rowCount) {
+    vector.setValueCount(rowCount);
+    return vector;
+  }
+
+  private static boolean isNull(Random random) {
+    return random.nextInt(NULL_RATIO) == 0;
+  }
+
+  private static long randomEpochSeconds(Random random) {
+    return EPOCH_SECONDS_2020 + random.nextInt(10 * SECONDS_PER_YEAR) - 5L * SECONDS_PER_YEAR;
+  }
+
+  private static String randomText(Random random) {
+    StringBuilder builder = new StringBuilder();
+    int length = 1 + random.nextInt(40);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + random.nextInt(26)));
+    }
+    return builder.toString();
+  }
+}
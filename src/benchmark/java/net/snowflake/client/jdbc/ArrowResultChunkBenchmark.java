@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.snowflake.client.core.arrow.SyntheticColumn;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per row cost of loading an Arrow result chunk and of merging its record batches into one, as
+ * done before the first chunk is sorted on the client. The chunk is an Arrow IPC stream generated
+ * locally with one column of each common type. One operation is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArrowResultChunkBenchmark {
+  private static final int BATCH_COUNT = 8;
+
+  private static final int ROWS_PER_BATCH = 4096;
+
+  private static final int ROW_COUNT = BATCH_COUNT * ROWS_PER_BATCH;
+
+  private static final SyntheticColumn[] COLUMNS = {
+    SyntheticColumn.BIG_INT_TO_FIXED,
+    SyntheticColumn.INT_TO_SCALED_FIXED,
+    SyntheticColumn.DOUBLE_TO_REAL,
+    SyntheticColumn.BIT_TO_BOOLEAN,
+    SyntheticColumn.VAR_CHAR,
+    SyntheticColumn.TWO_FIELD_STRUCT_TO_TIMESTAMP_NTZ
+  };
+
+  private RootAllocator allocator;
+
+  private byte[] stream;
+
+  /** Chunk loaded before every merge, since merging consumes its batches */
+  @State(Scope.Thread)
+  public static class MergeState {
+    private ArrowResultChunk chunk;
+
+    @Setup(Level.Invocation)
+    public void setUp(ArrowResultChunkBenchmark benchmark) throws IOException {
+      chunk = benchmark.readChunk();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      chunk.freeData();
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    stream = createStream();
+  }
+
+  @TearDown
+  public void tearDown() {
+    allocator.close();
+  }
+
+  private byte[] createStream() throws IOException {
+    Random random = new Random(42);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    VectorSchemaRoot root = null;
+    ArrowStreamWriter writer = null;
+    for (int batch = 0; batch < BATCH_COUNT; batch++) {
+      List<Field> fields = new ArrayList<>();
+      List<FieldVector> vectors = new ArrayList<>();
+      for (int i = 0; i < COLUMNS.length; i++) {
+        FieldVector vector =
+            COLUMNS[i].createVector("C" + (i + 1), allocator, ROWS_PER_BATCH, random);
+        fields.add(vector.getField());
+        vectors.add(vector);
+      }
+
+      try (VectorSchemaRoot batchRoot = new VectorSchemaRoot(fields, vectors, ROWS_PER_BATCH);
+          ArrowRecordBatch recordBatch = new VectorUnloader(batchRoot).getRecordBatch()) {
+        if (root == null) {
+          root = VectorSchemaRoot.create(new Schema(fields), allocator);
+          writer = new ArrowStreamWriter(root, null, out);
+          writer.start();
+        }
+        new VectorLoader(root).load(recordBatch);
+        writer.writeBatch();
+      }
+    }
+    writer.end();
+    root.close();
+    return out.toByteArray();
+  }
+
+  private ArrowResultChunk readChunk() throws IOException {
+    ArrowResultChunk chunk =
+        new ArrowResultChunk("", ROW_COUNT, COLUMNS.length, stream.length, allocator, null);
+    chunk.readArrowStream(new ByteArrayInputStream(stream));
+    return chunk;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void readArrowStream() throws IOException {
+    readChunk().freeData();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void mergeBatchesIntoOne(MergeState state) throws SnowflakeSQLException {
+    state.chunk.mergeBatchesIntoOne();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import static net.snowflake.client.core.Constants.MB;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per row cost of a JSON result chunk: parsing the downloaded bytes with {@link ResultJsonParserV2}
+ * and reading the cells back. The chunk mixes the value shapes of a typical result: numbers,
+ * plain and escaped strings, unicode escapes and nulls. One operation is one row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResultChunkBenchmark {
+  private static final int ROW_COUNT = 10000;
+
+  private static final int COLUMN_COUNT = 6;
+
+  private byte[] data;
+
+  private JsonResultChunk parsedChunk;
+
+  @Setup
+  public void setUp() throws SnowflakeSQLException {
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < ROW_COUNT; i++) {
+      if (i > 0) {
+        builder.append(",\n");
+      }
+      builder
+          .append("[\"")
+          .append(random.nextInt())
+          .append("\",\"")
+          .append(random.nextInt(100000))
+          .append('.')
+          .append(random.nextInt(100))
+          .append("\",\"")
+          .append(Long.toHexString(random.nextLong()))
+          .append(" some text\",\"say \\\"hi\\\" \\u263A\",")
+          .append(random.nextInt(8) == 0 ? "null" : "\"2020-01-0" + (1 + random.nextInt(9)) + "\"")
+          .append(",null]");
+    }
+    data = builder.toString().getBytes(StandardCharsets.UTF_8);
+    parsedChunk = parse();
+  }
+
+  @TearDown
+  public void tearDown() {
+    parsedChunk.freeData();
+  }
+
+  private JsonResultChunk parse() throws SnowflakeSQLException {
+    JsonResultChunk chunk = new JsonResultChunk("", ROW_COUNT, COLUMN_COUNT, data.length, null);
+    ResultJsonParserV2 parser = new ResultJsonParserV2();
+    parser.startParsing(chunk, null);
+    // hand the data over in the buffer size of the chunk downloader
+    for (int offset = 0; offset < data.length; offset += MB) {
+      parser.continueParsing(
+          ByteBuffer.wrap(data, offset, Math.min(MB, data.length - offset)), null);
+    }
+    parser.endParsing(null);
+    return chunk;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void parseChunk(Blackhole blackhole) throws SnowflakeSQLException {
+    JsonResultChunk chunk = parse();
+    blackhole.consume(chunk);
+    chunk.freeData();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public void getCell(Blackhole blackhole) {
+    for (int row = 0; row < ROW_COUNT; row++) {
+      for (int column = 0; column < COLUMN_COUNT; column++) {
+        blackhole.consume(parsedChunk.getCell(row, column));
+      }
+    }
+  }
+}
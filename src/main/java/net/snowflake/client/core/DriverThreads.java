@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
+import java.util.concurrent.ThreadFactory;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Creates the threads running background and transfer work of the driver, e.g. chunk downloads,
+ * file transfers, heartbeats and telemetry.
+ *
+ * <p>With the JVM property net.snowflake.jdbc.useVirtualThreads set to true, virtual threads are
+ * created instead of platform threads, if the JVM supports them. The driver is built for Java 8,
+ * so the virtual thread factory is looked up by reflection once, and platform threads are used
+ * when it is not available.
+ */
+public final class DriverThreads {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(DriverThreads.class);
+
+  /** JVM property to run the driver threads on virtual threads */
+  static final String VIRTUAL_THREADS_PROPERTY = "net.snowflake.jdbc.useVirtualThreads";
+
+  // null unless virtual threads are enabled and supported
+  private static final ThreadFactory virtualThreadFactory = loadThreadFactory();
+
+  private DriverThreads() {}
+
+  /**
+   * Read the JVM property enabling virtual threads
+   *
+   * @return factory of virtual threads, or null if they are not enabled or not supported
+   */
+  static ThreadFactory loadThreadFactory() {
+    return Boolean.parseBoolean(systemGetProperty(VIRTUAL_THREADS_PROPERTY))
+        ? loadVirtualThreadFactory()
+        : null;
+  }
+
+  /**
+   * Look up the factory of Thread.ofVirtual()
+   *
+   * @return factory of virtual threads, or null if the JVM does not support them
+   */
+  static ThreadFactory loadVirtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      ThreadFactory factory =
+          (ThreadFactory)
+              Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+      logger.debug("Driver threads are virtual threads");
+      return factory;
+    } catch (ReflectiveOperationException | RuntimeException ex) {
+      logger.debug("Virtual threads are not supported, using platform threads: {}", ex);
+      return null;
+    }
+  }
+
+  /** @return true if the driver threads are virtual threads */
+  public static boolean isVirtual() {
+    return virtualThreadFactory != null;
+  }
+
+  /**
+   * Create an unstarted thread. Virtual threads are always daemon threads, platform threads
+   * inherit the daemon status of the current thread as with {@link Thread#Thread(Runnable)}.
+   *
+   * @param r task run by the thread
+   * @return new thread
+   */
+  public static Thread newThread(Runnable r) {
+    return virtualThreadFactory != null ? virtualThreadFactory.newThread(r) : new Thread(r);
+  }
+}
@@ -185,7 +185,7 @@ public class EventHandler extends Handler {
             new ThreadFactory() {
               @Override
               public Thread newThread(Runnable r) {
-                Thread t = Executors.defaultThreadFactory().newThread(r);
+                Thread t = DriverThreads.newThread(r);
                 t.setDaemon(true);
                 return t;
               }
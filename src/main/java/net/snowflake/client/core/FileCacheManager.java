@@ -23,6 +23,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Date;
+import java.util.function.Function;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 
@@ -209,6 +210,51 @@ class FileCacheManager {
     }
   }
 
+  /**
+   * Updates the cache file while it is locked, so that the changes written by other processes since
+   * it was read are not lost. Unlike {@link #readCacheFile()}, the current content is used even if
+   * the cache file expired.
+   *
+   * @param update computes the new content from the current one, which is null if there is none
+   * @return true if the cache file was written
+   */
+  boolean updateCacheFile(Function<JsonNode, JsonNode> update) {
+    LOGGER.debug("Updating cache file. File={}", cacheFile);
+    if (cacheFile == null || !tryLockCacheFile()) {
+      // no cache file or it failed to lock file
+      LOGGER.debug("No cache file exists or failed to lock the file. Skipping updating the cache");
+      return false;
+    }
+    // NOTE: must unlock cache file
+    try {
+      JsonNode current = null;
+      if (cacheFile.length() > 0) {
+        try (Reader reader =
+            new InputStreamReader(new FileInputStream(cacheFile), DEFAULT_FILE_ENCODING)) {
+          current = OBJECT_MAPPER.readTree(reader);
+        } catch (IOException ex) {
+          LOGGER.debug("Failed to read the cache file. Overwriting it. File: {}", cacheFile);
+        }
+      }
+      JsonNode output = update.apply(current);
+      if (output == null) {
+        return false;
+      }
+      try (Writer writer =
+          new OutputStreamWriter(new FileOutputStream(cacheFile), DEFAULT_FILE_ENCODING)) {
+        writer.write(output.toString());
+      }
+      return true;
+    } catch (IOException ex) {
+      LOGGER.debug("Failed to write the cache file. File: {}", cacheFile);
+      return false;
+    } finally {
+      if (!unlockCacheFile()) {
+        LOGGER.debug("Failed to unlock cache file");
+      }
+    }
+  }
+
   void deleteCacheFile() {
     LOGGER.debug("Deleting cache file. File={}, Lock File={}", cacheFile, cacheLockFile);
 
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Cache of the digests of local files compared with or uploaded to a stage, persisted across runs
+ * with a {@link FileCacheManager}.
+ *
+ * <p>An entry is keyed by the canonical path of the file and the kind of digest, e.g. the SHA-256
+ * of the gzip compressed content, and is only used as long as the size and the last modification
+ * time of the file are the same as when the digest was computed. Files modified in the last
+ * seconds before their digest was computed are not cached, since a later modification in the same
+ * second would not change their modification time.
+ *
+ * <p>The cache file is shared by all the processes using the cache: the entries read from it are
+ * merged with the ones added since it was read before it is written. When there are too many
+ * entries, the least recently used ones are dropped.
+ *
+ * <p>Enabled by the JVM property net.snowflake.jdbc.fileDigestCache. When disabled, nothing is
+ * cached and the cache file is not touched.
+ */
+public final class FileDigestCache {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(FileDigestCache.class);
+
+  /** JVM property to enable the cache */
+  static final String ENABLED_PROPERTY = "net.snowflake.jdbc.fileDigestCache";
+
+  private static final String CACHE_FILE_NAME = "file_digest_cache.json";
+  private static final String CACHE_DIR_PROP = "net.snowflake.jdbc.fileDigestCacheDir";
+  private static final String CACHE_DIR_ENV = "SF_FILE_DIGEST_CACHE_DIR";
+
+  // entries are validated against the file itself, the cache file does not need to expire
+  private static final long CACHE_EXPIRATION_IN_SECONDS = 365L * 86400L;
+  private static final long CACHE_FILE_LOCK_EXPIRATION_IN_SECONDS = 60L;
+
+  // modification times may only have a precision of one or two seconds
+  static final long RACY_MILLIS = 2000;
+
+  static final int MAX_ENTRIES = 500000;
+
+  // evicting down to less than the limit, so that the entries are not sorted for each new one
+  private static final double EVICTION_RATIO = 0.9;
+
+  private static final ObjectMapper mapper = ObjectMapperFactory.getObjectMapper();
+
+  private static final FileDigestCache INSTANCE =
+      Boolean.parseBoolean(systemGetProperty(ENABLED_PROPERTY))
+          ? new FileDigestCache(
+              FileCacheManager.builder()
+                  .setCacheDirectorySystemProperty(CACHE_DIR_PROP)
+                  .setCacheDirectoryEnvironmentVariable(CACHE_DIR_ENV)
+                  .setBaseCacheFileName(CACHE_FILE_NAME)
+                  .setCacheExpirationInSeconds(CACHE_EXPIRATION_IN_SECONDS)
+                  .setCacheFileLockExpirationInSeconds(CACHE_FILE_LOCK_EXPIRATION_IN_SECONDS)
+                  .build())
+          : new FileDigestCache(null);
+
+  /** Digest of a file of the given size and modification time */
+  private static final class Entry {
+    final long size;
+
+    final long lastModified;
+
+    final String digest;
+
+    // last time the digest was cached or used, in epoch milliseconds
+    volatile long lastUsed;
+
+    Entry(long size, long lastModified, String digest, long lastUsed) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  // null if the cache is disabled
+  private final FileCacheManager fileCacheManager;
+
+  private final int maxEntries;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  // set once the entries of the cache file were added
+  private volatile boolean loaded = false;
+
+  private final AtomicBoolean updated = new AtomicBoolean(false);
+
+  FileDigestCache(FileCacheManager fileCacheManager) {
+    this(fileCacheManager, MAX_ENTRIES);
+  }
+
+  FileDigestCache(FileCacheManager fileCacheManager, int maxEntries) {
+    this.fileCacheManager = fileCacheManager;
+    this.maxEntries = maxEntries;
+  }
+
+  /** @return the cache shared by all file transfers */
+  public static FileDigestCache getInstance() {
+    return INSTANCE;
+  }
+
+  /** @return true if digests are cached */
+  public boolean isEnabled() {
+    return fileCacheManager != null;
+  }
+
+  /**
+   * Get the digest of a file if it did not change since it was cached
+   *
+   * @param file local file
+   * @param kind kind of digest
+   * @return the cached digest, or null if there is none or the file changed
+   */
+  public String get(File file, String kind) {
+    if (!isEnabled()) {
+      return null;
+    }
+    load();
+    Entry entry = entries.get(key(file, kind));
+    if (entry != null && entry.size == file.length() && entry.lastModified == file.lastModified()) {
+      logger.debug("Using cached digest of {}", file);
+      entry.lastUsed = System.currentTimeMillis();
+      return entry.digest;
+    }
+    return null;
+  }
+
+  /**
+   * Cache the digest of a file
+   *
+   * @param file local file
+   * @param kind kind of digest
+   * @param size size of the file before its digest was computed
+   * @param lastModified modification time of the file before its digest was computed
+   * @param digest digest of the file
+   */
+  public void put(File file, String kind, long size, long lastModified, String digest) {
+    long now = System.currentTimeMillis();
+    if (!isEnabled() || lastModified > now - RACY_MILLIS) {
+      return;
+    }
+    load();
+    entries.put(key(file, kind), new Entry(size, lastModified, digest, now));
+    updated.set(true);
+    if (entries.size() > maxEntries) {
+      evict(entries, (int) (maxEntries * EVICTION_RATIO));
+    }
+  }
+
+  /**
+   * Write the cache file if digests were added since it was read. The entries written by other
+   * processes in the meantime are kept, the most recently used entry winning for the same file.
+   */
+  public void save() {
+    if (!isEnabled() || !updated.compareAndSet(true, false)) {
+      return;
+    }
+    boolean saved =
+        fileCacheManager.updateCacheFile(
+            current -> {
+              Map<String, Entry> merged = new HashMap<>();
+              read(current, merged);
+              for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry other = merged.get(e.getKey());
+                if (other == null || other.lastUsed <= e.getValue().lastUsed) {
+                  merged.put(e.getKey(), e.getValue());
+                }
+              }
+              evict(merged, maxEntries);
+              return write(merged);
+            });
+    if (!saved) {
+      // retried by the next save
+      updated.set(true);
+    }
+  }
+
+  /** Read the cache file once, the first callers wait for it instead of seeing an empty cache */
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+      Map<String, Entry> cached = new HashMap<>();
+      read(fileCacheManager.readCacheFile(), cached);
+      for (Map.Entry<String, Entry> e : cached.entrySet()) {
+        entries.putIfAbsent(e.getKey(), e.getValue());
+      }
+      loaded = true;
+      logger.debug("Read {} cached file digests", cached.size());
+    }
+  }
+
+  /** Read the entries of the cache file content, if any */
+  private static void read(JsonNode root, Map<String, Entry> target) {
+    if (root == null || !root.isObject()) {
+      return;
+    }
+    for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+      Map.Entry<String, JsonNode> e = it.next();
+      JsonNode value = e.getValue();
+      // the last use is missing in the files written by older versions
+      if (value.isArray() && (value.size() == 3 || value.size() == 4)) {
+        target.put(
+            e.getKey(),
+            new Entry(
+                value.get(0).asLong(),
+                value.get(1).asLong(),
+                value.get(2).asText(),
+                value.size() == 4 ? value.get(3).asLong() : 0L));
+      }
+    }
+  }
+
+  private static JsonNode write(Map<String, Entry> source) {
+    ObjectNode root = mapper.createObjectNode();
+    for (Map.Entry<String, Entry> e : source.entrySet()) {
+      ArrayNode value = root.putArray(e.getKey());
+      value.add(e.getValue().size);
+      value.add(e.getValue().lastModified);
+      value.add(e.getValue().digest);
+      value.add(e.getValue().lastUsed);
+    }
+    return root;
+  }
+
+  /** Remove the least recently used entries until there are no more than the given number */
+  private static void evict(Map<String, Entry> target, int count) {
+    synchronized (target) {
+      int excess = target.size() - count;
+      if (excess <= 0) {
+        return;
+      }
+      // the last uses are copied, since they may change while sorting
+      List<Map.Entry<String, Long>> lastUses = new ArrayList<>();
+      for (Map.Entry<String, Entry> e : target.entrySet()) {
+        lastUses.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().lastUsed));
+      }
+      lastUses.sort(Map.Entry.comparingByValue());
+      excess = Math.min(excess, lastUses.size());
+      for (int i = 0; i < excess; i++) {
+        target.remove(lastUses.get(i).getKey());
+      }
+      logger.debug("Evicted {} cached file digests", excess);
+    }
+  }
+
+  private static String key(File file, String kind) {
+    String path;
+    try {
+      path = file.getCanonicalPath();
+    } catch (IOException ex) {
+      path = file.getAbsolutePath();
+    }
+    return kind + ":" + path;
+  }
+}
@@ -103,7 +103,7 @@ public class HeartbeatBackground implements Runnable {
               new ThreadFactory() {
                 @Override
                 public Thread newThread(Runnable runnable) {
-                  Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                  Thread thread = DriverThreads.newThread(runnable);
                   thread.setName("heartbeat (" + thread.getId() + ")");
                   thread.setDaemon(true);
                   return thread;
@@ -190,7 +190,9 @@ public class HeartbeatBackground implements Runnable {
     for (SFSession session : sessionsToHeartbeat) {
       try {
         session.heartbeat();
+        session.setHeartbeatFailed(false);
       } catch (Throwable ex) {
+        session.setHeartbeatFailed(true);
         LOGGER.error("heartbeat error - message=" + ex.getMessage(), ex);
       }
     }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Tracks the status of asynchronous queries of all sessions from one scheduler thread.
+ *
+ * <p>Every watched query is polled on its own backoff schedule. At each tick of the scheduler, the
+ * polls that are due are sent together on a small pool of threads. Callers waiting for the same
+ * query share one watch and block on its CompletableFuture instead of sleeping between polls of
+ * their own. Once a query finished, it is removed from the active asynchronous queries of its
+ * session, so that closing the connection does not poll it again.
+ *
+ * <p>The futures are completed on a separate fixed pool of completion threads, so that dependent
+ * stages that run when a query finishes, including blocking calls like fetching the result, never
+ * hold up the poll threads of the other queries. The pool is bounded like the poll threads, a burst
+ * of finished queries waits for a completion thread instead of starting one thread per query.
+ */
+public final class QueryStatusMonitor {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(QueryStatusMonitor.class);
+
+  static final long TICK_MILLIS = 50;
+
+  // delay before the next poll of a query that is still running, by number of polls
+  static final long[] BACKOFF_MILLIS = {250, 250, 500, 750, 1000, 2000};
+
+  // give up on a query the server has no information about after about 2 minutes, which is how long
+  // the 30 polls of the former per result set backoff took
+  static final long NO_DATA_TIMEOUT_MILLIS = 125000;
+
+  private static final int POLL_THREADS = 8;
+
+  private static final int COMPLETION_THREADS = 8;
+
+  private static final QueryStatusMonitor INSTANCE =
+      new QueryStatusMonitor(SFSession::getQueryStatus);
+
+  /** Fetches the status of a query, {@link SFSession#getQueryStatus(String)} unless in tests */
+  interface StatusFetcher {
+    QueryStatus fetch(SFSession session, String queryId) throws SQLException;
+  }
+
+  /** Query being watched and its poll schedule */
+  private static final class Watch {
+    final SFSession session;
+
+    final String queryId;
+
+    final CompletableFuture<QueryStatus> future = new CompletableFuture<>();
+
+    // written by the poll thread and read by the scheduler once polling is reset
+    int polls = 0;
+
+    // time of the first NO_DATA status, or -1
+    long noDataSinceMillis = -1;
+
+    long nextPollMillis = 0;
+
+    volatile boolean polling = false;
+
+    Watch(SFSession session, String queryId) {
+      this.session = session;
+      this.queryId = queryId;
+    }
+  }
+
+  private final StatusFetcher fetcher;
+
+  private final long noDataTimeoutMillis;
+
+  // query ID to watch. Query IDs are unique across sessions
+  private final ConcurrentHashMap<String, Watch> watches = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean tickScheduled = new AtomicBoolean(false);
+
+  private final ScheduledExecutorService scheduler;
+
+  private final ExecutorService pollExecutor;
+
+  private final ExecutorService completionExecutor;
+
+  QueryStatusMonitor(StatusFetcher fetcher) {
+    this(fetcher, NO_DATA_TIMEOUT_MILLIS);
+  }
+
+  QueryStatusMonitor(StatusFetcher fetcher, long noDataTimeoutMillis) {
+    this.fetcher = fetcher;
+    this.noDataTimeoutMillis = noDataTimeoutMillis;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("scheduler"));
+    this.pollExecutor = Executors.newFixedThreadPool(POLL_THREADS, daemonThreadFactory("poll"));
+    this.completionExecutor =
+        Executors.newFixedThreadPool(COMPLETION_THREADS, daemonThreadFactory("completion"));
+  }
+
+  private static ThreadFactory daemonThreadFactory(final String name) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    return r -> {
+      Thread thread = DriverThreads.newThread(r);
+      thread.setName("query-status-" + name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** @return the monitor shared by all sessions */
+  public static QueryStatusMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Watch an asynchronous query until it stops running
+   *
+   * @param session session that submitted the query, used for the status requests
+   * @param queryId query ID
+   * @return future completed with the final status of the query, which is SUCCESS or an error
+   *     status, or completed exceptionally if the status could not be retrieved
+   */
+  public CompletableFuture<QueryStatus> watch(SFSession session, String queryId) {
+    Watch watch = watches.computeIfAbsent(queryId, id -> new Watch(session, id));
+    scheduleTick();
+    return watch.future;
+  }
+
+  /** @return number of queries being watched */
+  int getWatchCount() {
+    return watches.size();
+  }
+
+  /** Stop the threads of a monitor created in tests, the shared monitor runs until the JVM exits */
+  void shutdown() {
+    scheduler.shutdownNow();
+    pollExecutor.shutdownNow();
+    completionExecutor.shutdownNow();
+  }
+
+  private void scheduleTick() {
+    if (tickScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(this::tick, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void tick() {
+    tickScheduled.set(false);
+    long now = System.currentTimeMillis();
+    for (Watch watch : watches.values()) {
+      if (!watch.polling && watch.nextPollMillis <= now) {
+        watch.polling = true;
+        try {
+          pollExecutor.execute(() -> poll(watch));
+        } catch (RuntimeException ex) {
+          watch.polling = false;
+          logger.debug("Failed to schedule status poll of query {}: {}", watch.queryId, ex);
+        }
+      }
+    }
+    if (!watches.isEmpty()) {
+      scheduleTick();
+    }
+  }
+
+  private void poll(Watch watch) {
+    try {
+      QueryStatus status = fetcher.fetch(watch.session, watch.queryId);
+      long now = System.currentTimeMillis();
+      if (status == QueryStatus.NO_DATA && watch.noDataSinceMillis < 0) {
+        watch.noDataSinceMillis = now;
+      }
+      if (status == QueryStatus.NO_DATA && now - watch.noDataSinceMillis >= noDataTimeoutMillis) {
+        finish(
+            watch,
+            null,
+            new SQLException(
+                "Cannot retrieve data on the status of this query. No information returned from"
+                    + " server for queryID="
+                    + watch.queryId
+                    + "."));
+      } else if (!QueryStatus.isStillRunning(status)) {
+        finish(watch, status, null);
+      } else {
+        long delay = BACKOFF_MILLIS[Math.min(watch.polls, BACKOFF_MILLIS.length - 1)];
+        watch.polls++;
+        watch.nextPollMillis = now + delay;
+      }
+    } catch (Throwable ex) {
+      finish(watch, null, ex);
+    } finally {
+      watch.polling = false;
+    }
+  }
+
+  private void finish(Watch watch, QueryStatus status, Throwable error) {
+    watches.remove(watch.queryId, watch);
+    if (watch.session != null) {
+      watch.session.activeAsyncQueries.remove(watch.queryId);
+    }
+    if (error != null) {
+      logger.debug("Failed to get status of query {}: {}", watch.queryId, error.getMessage());
+    } else {
+      logger.debug("Query {} finished with status {}", watch.queryId, status);
+    }
+    try {
+      completionExecutor.execute(() -> complete(watch, status, error));
+    } catch (RuntimeException ex) {
+      logger.debug("Failed to schedule completion of query {}: {}", watch.queryId, ex);
+      complete(watch, status, error);
+    }
+  }
+
+  private static void complete(Watch watch, QueryStatus status, Throwable error) {
+    if (error != null) {
+      watch.future.completeExceptionally(error);
+    } else {
+      watch.future.complete(status);
+    }
+  }
+}
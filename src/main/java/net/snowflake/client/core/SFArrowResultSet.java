@@ -15,6 +15,7 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Base64;
+import java.util.List;
 import java.util.TimeZone;
 import net.snowflake.client.core.arrow.ArrowVectorConverter;
 import net.snowflake.client.jdbc.*;
@@ -48,6 +49,9 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   /** true if sort first chunk */
   private boolean sortResult;
 
+  /** sorts all chunks when the result is sorted and has more than the first chunk */
+  private ArrowResultSorter resultSorter;
+
   /** statement generate current result set */
   protected SFStatement statement;
 
@@ -84,6 +88,11 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
    */
   private boolean treatNTZAsUTC;
 
+  // converters of the current record batch, see getConverter
+  private List<ArrowVectorConverter> cachedConverterList;
+
+  private ArrowVectorConverter[] cachedConverters;
+
   /**
    * Constructor takes a result from the API response that we get from executing a SQL statement.
    *
@@ -167,25 +176,24 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
     // sort result set if needed
     String rowsetBase64 = resultSetSerializable.getFirstChunkStringData();
-    if (rowsetBase64 == null || rowsetBase64.isEmpty()) {
+    boolean emptyFirstChunk = rowsetBase64 == null || rowsetBase64.isEmpty();
+    if (sortResult && chunkCount > 0) {
+      // the chunks are sorted and merged once the first row is fetched, the first rowset of a large
+      // result is often empty
+      this.resultSorter =
+          new ArrowResultSorter(
+              emptyFirstChunk ? null : buildFirstChunk(rowsetBase64),
+              this,
+              rootAllocator,
+              resultSetSerializable.getMemoryLimit(),
+              session);
       this.currentChunkIterator = ArrowResultChunk.getEmptyChunkIterator();
+    } else if (emptyFirstChunk) {
+      this.currentChunkIterator = ArrowResultChunk.getEmptyChunkIterator();
+    } else if (sortResult) {
+      this.currentChunkIterator = getSortedFirstResultChunk(rowsetBase64).getIterator(this);
     } else {
-      if (sortResult) {
-        // we don't support sort result when there are offline chunks
-        if (resultSetSerializable.getChunkFileCount() > 0) {
-          throw new SnowflakeSQLLoggedException(
-              SqlState.FEATURE_NOT_SUPPORTED,
-              ErrorCode.CLIENT_SIDE_SORTING_NOT_SUPPORTED.getMessageCode(),
-              session);
-        }
-
-        this.currentChunkIterator =
-            getSortedFirstResultChunk(resultSetSerializable.getFirstChunkStringData())
-                .getIterator(this);
-      } else {
-        this.currentChunkIterator =
-            buildFirstChunk(resultSetSerializable.getFirstChunkStringData()).getIterator(this);
-      }
+      this.currentChunkIterator = buildFirstChunk(rowsetBase64).getIterator(this);
     }
   }
 
@@ -204,59 +212,63 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
    * @return true if still have rows otherwise false
    */
   private boolean fetchNextRowUnsorted() throws SnowflakeSQLException {
-    boolean hasNext = currentChunkIterator.next();
-
-    if (hasNext) {
-      return true;
-    } else {
-      if (nextChunkIndex < chunkCount) {
-        try {
-          eventHandler.triggerStateTransition(
-              BasicEvent.QueryState.CONSUMING_RESULT,
-              String.format(
-                  BasicEvent.QueryState.CONSUMING_RESULT.getArgString(), queryId, nextChunkIndex));
-
-          ArrowResultChunk nextChunk = (ArrowResultChunk) chunkDownloader.getNextChunkToConsume();
-
-          if (nextChunk == null) {
-            throw new SnowflakeSQLLoggedException(
-                SqlState.INTERNAL_ERROR,
-                ErrorCode.INTERNAL_ERROR.getMessageCode(),
-                session,
-                "Expect chunk but got null for chunk index " + nextChunkIndex);
-          }
+    while (!currentChunkIterator.next()) {
+      if (!moveToNextChunk()) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-          currentChunkIterator.getChunk().freeData();
-          currentChunkIterator = nextChunk.getIterator(this);
-          if (currentChunkIterator.next()) {
+  /**
+   * Free the current chunk and point currentChunkIterator to the next chunk, if any chunk not being
+   * consumed yet.
+   *
+   * @return true if moved to the next chunk, false if there are no more chunks
+   */
+  private boolean moveToNextChunk() throws SnowflakeSQLException {
+    if (nextChunkIndex < chunkCount) {
+      try {
+        eventHandler.triggerStateTransition(
+            BasicEvent.QueryState.CONSUMING_RESULT,
+            String.format(
+                BasicEvent.QueryState.CONSUMING_RESULT.getArgString(), queryId, nextChunkIndex));
 
-            logger.debug(
-                "Moving to chunk index {}, row count={}", nextChunkIndex, nextChunk.getRowCount());
+        ArrowResultChunk nextChunk = (ArrowResultChunk) chunkDownloader.getNextChunkToConsume();
 
-            nextChunkIndex++;
-            return true;
-          } else {
-            return false;
-          }
-        } catch (InterruptedException ex) {
+        if (nextChunk == null) {
           throw new SnowflakeSQLLoggedException(
-              SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
+              SqlState.INTERNAL_ERROR,
+              ErrorCode.INTERNAL_ERROR.getMessageCode(),
+              session,
+              "Expect chunk but got null for chunk index " + nextChunkIndex);
         }
-      } else {
-        // always free current chunk
-        try {
-          currentChunkIterator.getChunk().freeData();
-          if (chunkCount > 0) {
-            logger.debug("End of chunks");
-            DownloaderMetrics metrics = chunkDownloader.terminate();
-            logChunkDownloaderMetrics(metrics);
-          }
-        } catch (InterruptedException e) {
-          throw new SnowflakeSQLLoggedException(
-              SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
+
+        currentChunkIterator.getChunk().freeData();
+        currentChunkIterator = nextChunk.getIterator(this);
+
+        logger.debug(
+            "Moving to chunk index {}, row count={}", nextChunkIndex, nextChunk.getRowCount());
+
+        nextChunkIndex++;
+        return true;
+      } catch (InterruptedException ex) {
+        throw new SnowflakeSQLLoggedException(
+            SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
+      }
+    } else {
+      // always free current chunk
+      try {
+        currentChunkIterator.getChunk().freeData();
+        if (chunkCount > 0) {
+          logger.debug("End of chunks");
+          DownloaderMetrics metrics = chunkDownloader.terminate();
+          logChunkDownloaderMetrics(metrics);
         }
+      } catch (InterruptedException e) {
+        throw new SnowflakeSQLLoggedException(
+            SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
       }
-
       return false;
     }
   }
@@ -301,19 +313,46 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   }
 
   /**
-   * Fetch next row of first chunkd in sorted order. If the result set huge, then rest of the chunks
-   * are ignored.
+   * Fetch next row in sorted order. The first chunk is sorted in place when it is the only chunk,
+   * otherwise the rows are read from the chunks of the sorted result.
    */
   private boolean fetchNextRowSorted() throws SnowflakeSQLException {
-    boolean hasNext = currentChunkIterator.next();
-    if (hasNext) {
-      return true;
-    } else {
+    while (!currentChunkIterator.next()) {
       currentChunkIterator.getChunk().freeData();
+      if (resultSorter == null) {
+        return false;
+      }
 
-      // no more chunks as sorted is only supported
-      // for one chunk
-      return false;
+      if (!resultSorter.isSorted()) {
+        sortAllChunks();
+      }
+      ArrowResultChunk nextChunk = resultSorter.nextSortedChunk();
+      if (nextChunk == null) {
+        resultSorter.close();
+        resultSorter = null;
+        return false;
+      }
+      currentChunkIterator = nextChunk.getIterator(this);
+    }
+    return true;
+  }
+
+  /** Download and sort all chunks, which are then merged by the result sorter */
+  private void sortAllChunks() throws SnowflakeSQLException {
+    try {
+      resultSorter.sort(chunkDownloader, chunkCount);
+    } catch (SnowflakeSQLException ex) {
+      resultSorter.close();
+      resultSorter = null;
+      throw ex;
+    }
+    nextChunkIndex = chunkCount;
+    try {
+      DownloaderMetrics metrics = chunkDownloader.terminate();
+      logChunkDownloaderMetrics(metrics);
+    } catch (InterruptedException ex) {
+      throw new SnowflakeSQLLoggedException(
+          SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
     }
   }
 
@@ -357,9 +396,179 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     }
   }
 
+  /**
+   * Get the next record batch, moving to the next chunk if the current one is exhausted
+   *
+   * @return the next record batch, or null if there are no more rows
+   */
+  @Override
+  public SnowflakeRecordBatch nextRecordBatch() throws SFException, SnowflakeSQLException {
+    if (isClosed()) {
+      return null;
+    }
+    if (sortResult) {
+      throw new SFException(ErrorCode.FEATURE_UNSUPPORTED, "record batches of a sorted result");
+    }
+
+    SnowflakeRecordBatch batch = currentChunkIterator.nextRecordBatch();
+    while (batch == null && moveToNextChunk()) {
+      batch = currentChunkIterator.nextRecordBatch();
+    }
+
+    if (batch != null) {
+      row += batch.getRowCount();
+    } else if (totalRowCountTruncated) {
+      throw (SFException)
+          IncidentUtil.generateIncidentV2WithException(
+              session, new SFException(ErrorCode.MAX_RESULT_LIMIT_EXCEEDED), queryId, null);
+    }
+    return batch;
+  }
+
+  /**
+   * Look up the converter of a column in an array that is rebuilt only when the record batch
+   * changes, instead of going through the chunk iterator on every call.
+   */
+  private ArrowVectorConverter getConverter(int columnIndex) throws SFException {
+    List<ArrowVectorConverter> converters = currentChunkIterator.getCurrentConverters();
+    if (converters != cachedConverterList) {
+      cachedConverters = converters.toArray(new ArrowVectorConverter[0]);
+      cachedConverterList = converters;
+    }
+    if (columnIndex < 1 || columnIndex > cachedConverters.length) {
+      throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIndex);
+    }
+    return cachedConverters[columnIndex - 1];
+  }
+
+  @Override
+  public LongColumnReader getLongColumnReader(int columnIndex) throws SFException {
+    raiseSFExceptionIfColumnDoesNotExist(columnIndex);
+    return new ArrowLongColumnReader(columnIndex, getNumberScale(columnIndex));
+  }
+
+  @Override
+  public DoubleColumnReader getDoubleColumnReader(int columnIndex) throws SFException {
+    raiseSFExceptionIfColumnDoesNotExist(columnIndex);
+    return new ArrowDoubleColumnReader(columnIndex);
+  }
+
+  /**
+   * Reads the current row straight from the converter of the column, which is bound again when
+   * the result set moves to another record batch
+   */
+  private abstract class ArrowColumnReader extends BaseColumnReader {
+    private List<ArrowVectorConverter> boundConverters;
+
+    ArrowVectorConverter converter;
+
+    ArrowColumnReader(int columnIndex) {
+      super(columnIndex);
+    }
+
+    /** @return index of the current row in the record batch */
+    int bind() throws SQLException {
+      raiseSQLExceptionIfResultSetIsClosed();
+      List<ArrowVectorConverter> converters = currentChunkIterator.getCurrentConverters();
+      if (converters != boundConverters) {
+        if (columnIndex > converters.size()) {
+          throw new SnowflakeSQLException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIndex);
+        }
+        converter = converters.get(columnIndex - 1);
+        boundConverters = converters;
+        onBind();
+      }
+      return currentChunkIterator.getCurrentRowInRecordBatch();
+    }
+
+    void onBind() throws SQLException {}
+
+    public boolean isNull() throws SQLException {
+      int index = bind();
+      return converter.isNull(index);
+    }
+  }
+
+  private class ArrowLongColumnReader extends ArrowColumnReader implements LongColumnReader {
+    private final int scale;
+
+    // integer vector holding the unscaled values of a scaled NUMBER column, if any
+    private SnowflakeColumnVector unscaledColumn;
+
+    ArrowLongColumnReader(int columnIndex, int scale) {
+      super(columnIndex);
+      this.scale = scale;
+    }
+
+    @Override
+    void onBind() throws SQLException {
+      unscaledColumn = null;
+      if (scale != 0) {
+        try {
+          SnowflakeColumnVector column = currentChunkIterator.getCurrentColumn(columnIndex - 1);
+          if (column.hasLongValues() && column.getScale() == scale) {
+            unscaledColumn = column;
+          }
+        } catch (SFException ex) {
+          throw toSQLException(ex);
+        }
+      }
+    }
+
+    @Override
+    public long getLong() throws SQLException {
+      int index = bind();
+      try {
+        return converter.toLong(index);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      }
+    }
+
+    @Override
+    public int getScale() {
+      return scale;
+    }
+
+    @Override
+    public long getUnscaledLong() throws SQLException {
+      if (scale == 0) {
+        return getLong();
+      }
+      int index = bind();
+      if (converter.isNull(index)) {
+        return 0;
+      }
+      if (unscaledColumn != null) {
+        return unscaledColumn.getLong(index);
+      }
+      try {
+        return toUnscaledLong(converter.toBigDecimal(index), scale);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      }
+    }
+  }
+
+  private class ArrowDoubleColumnReader extends ArrowColumnReader implements DoubleColumnReader {
+    ArrowDoubleColumnReader(int columnIndex) {
+      super(columnIndex);
+    }
+
+    @Override
+    public double getDouble() throws SQLException {
+      int index = bind();
+      try {
+        return converter.toDouble(index);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      }
+    }
+  }
+
   @Override
   public byte getByte(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toByte(index);
@@ -367,7 +576,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public String getString(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toString(index);
@@ -375,7 +584,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public boolean getBoolean(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toBoolean(index);
@@ -383,7 +592,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public short getShort(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toShort(index);
@@ -391,7 +600,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public int getInt(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toInt(index);
@@ -399,7 +608,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public long getLong(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toLong(index);
@@ -407,7 +616,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public float getFloat(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toFloat(index);
@@ -415,7 +624,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public double getDouble(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toDouble(index);
@@ -423,7 +632,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public byte[] getBytes(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toBytes(index);
@@ -431,7 +640,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public Date getDate(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toDate(index);
@@ -439,7 +648,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public Time getTime(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toTime(index);
@@ -447,7 +656,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public Timestamp getTimestamp(int columnIndex, TimeZone tz) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toTimestamp(index, tz);
@@ -455,7 +664,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public Object getObject(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     converter.setTreatNTZAsUTC(treatNTZAsUTC);
@@ -464,7 +673,7 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public BigDecimal getBigDecimal(int columnIndex) throws SFException {
-    ArrowVectorConverter converter = currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    ArrowVectorConverter converter = getConverter(columnIndex);
     int index = currentChunkIterator.getCurrentRowInRecordBatch();
     wasNull = converter.isNull(index);
     return converter.toBigDecimal(index);
@@ -477,12 +686,16 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
 
   @Override
   public boolean isLast() {
-    return nextChunkIndex == chunkCount && currentChunkIterator.isLast();
+    return nextChunkIndex == chunkCount
+        && currentChunkIterator.isLast()
+        && (resultSorter == null || !resultSorter.hasNext());
   }
 
   @Override
   public boolean isAfterLast() {
-    return nextChunkIndex == chunkCount && currentChunkIterator.isAfterLast();
+    return nextChunkIndex == chunkCount
+        && currentChunkIterator.isAfterLast()
+        && (resultSorter == null || !resultSorter.hasNext());
   }
 
   @Override
@@ -492,6 +705,11 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     // always make sure to free this current chunk
     currentChunkIterator.getChunk().freeData();
 
+    if (resultSorter != null) {
+      resultSorter.close();
+      resultSorter = null;
+    }
+
     try {
       if (chunkDownloader != null) {
         DownloaderMetrics metrics = chunkDownloader.terminate();
@@ -5,6 +5,7 @@
 package net.snowflake.client.core;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
@@ -14,10 +15,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import net.snowflake.client.jdbc.DoubleColumnReader;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.LongColumnReader;
+import net.snowflake.client.jdbc.SnowflakeRecordBatch;
 import net.snowflake.client.jdbc.SnowflakeResultSetSerializable;
 import net.snowflake.client.jdbc.SnowflakeResultSetSerializableV1;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.common.core.SFBinaryFormat;
@@ -176,6 +181,185 @@ public abstract class SFBaseResultSet {
     return false;
   }
 
+  /**
+   * Get the next record batch of the result. Only result sets backed by Arrow chunks support it.
+   *
+   * @return the next record batch, or null if there are no more rows
+   * @throws SFException if the result set does not support record batches
+   * @throws SnowflakeSQLException if fails to fetch the next result chunk
+   */
+  public SnowflakeRecordBatch nextRecordBatch() throws SFException, SnowflakeSQLException {
+    throw new SFException(ErrorCode.FEATURE_UNSUPPORTED, "record batches of a non-Arrow result");
+  }
+
+  /**
+   * Get a reader of a column as primitive long values. This implementation goes through the
+   * getters of the result set, subclasses can read their data directly.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return reader of the column
+   * @throws SFException if the column does not exist
+   */
+  public LongColumnReader getLongColumnReader(int columnIndex) throws SFException {
+    raiseSFExceptionIfColumnDoesNotExist(columnIndex);
+    return new GetterLongColumnReader(columnIndex, getNumberScale(columnIndex));
+  }
+
+  /**
+   * Get a reader of a column as primitive double values, see {@link #getLongColumnReader(int)}.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return reader of the column
+   * @throws SFException if the column does not exist
+   */
+  public DoubleColumnReader getDoubleColumnReader(int columnIndex) throws SFException {
+    raiseSFExceptionIfColumnDoesNotExist(columnIndex);
+    return new GetterDoubleColumnReader(columnIndex);
+  }
+
+  void raiseSFExceptionIfColumnDoesNotExist(int columnIndex) throws SFException {
+    if (columnIndex < 1
+        || (resultSetMetaData != null && columnIndex > resultSetMetaData.getColumnCount())) {
+      throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIndex);
+    }
+  }
+
+  /** @return scale of a NUMBER column, 0 for all other columns */
+  int getNumberScale(int columnIndex) throws SFException {
+    if (resultSetMetaData == null
+        || resultSetMetaData.getColumnType(columnIndex) != java.sql.Types.DECIMAL) {
+      return 0;
+    }
+    return resultSetMetaData.getScale(columnIndex);
+  }
+
+  static SnowflakeSQLException toSQLException(SFException ex) {
+    return new SnowflakeSQLException(
+        ex.getCause(), ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+  }
+
+  /** Common part of the column readers of this result set */
+  abstract class BaseColumnReader {
+    final int columnIndex;
+
+    BaseColumnReader(int columnIndex) {
+      this.columnIndex = columnIndex;
+    }
+
+    void raiseSQLExceptionIfResultSetIsClosed() throws SnowflakeSQLException {
+      if (isClosed) {
+        throw new SnowflakeSQLException(ErrorCode.RESULTSET_ALREADY_CLOSED);
+      }
+    }
+  }
+
+  /** Reads through the getters, restoring wasNull so that the reader has no visible side effect */
+  private class GetterLongColumnReader extends BaseColumnReader implements LongColumnReader {
+    private final int scale;
+
+    GetterLongColumnReader(int columnIndex, int scale) {
+      super(columnIndex);
+      this.scale = scale;
+    }
+
+    @Override
+    public boolean isNull() throws SQLException {
+      raiseSQLExceptionIfResultSetIsClosed();
+      boolean savedWasNull = wasNull;
+      try {
+        return getObject(columnIndex) == null;
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      } finally {
+        wasNull = savedWasNull;
+      }
+    }
+
+    @Override
+    public long getLong() throws SQLException {
+      raiseSQLExceptionIfResultSetIsClosed();
+      boolean savedWasNull = wasNull;
+      try {
+        return SFBaseResultSet.this.getLong(columnIndex);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      } finally {
+        wasNull = savedWasNull;
+      }
+    }
+
+    @Override
+    public int getScale() {
+      return scale;
+    }
+
+    @Override
+    public long getUnscaledLong() throws SQLException {
+      if (scale == 0) {
+        return getLong();
+      }
+      raiseSQLExceptionIfResultSetIsClosed();
+      boolean savedWasNull = wasNull;
+      try {
+        return toUnscaledLong(getBigDecimal(columnIndex), scale);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      } finally {
+        wasNull = savedWasNull;
+      }
+    }
+  }
+
+  /**
+   * @param value value to convert, may be null
+   * @param scale scale of the result
+   * @return the unscaled value, 0 for null
+   * @throws SFException if the unscaled value does not fit into a long
+   */
+  static long toUnscaledLong(BigDecimal value, int scale) throws SFException {
+    if (value == null) {
+      return 0;
+    }
+    try {
+      return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    } catch (ArithmeticException ex) {
+      throw new SFException(
+          ErrorCode.INVALID_VALUE_CONVERT, "NUMBER", SnowflakeUtil.LONG_STR, value);
+    }
+  }
+
+  private class GetterDoubleColumnReader extends BaseColumnReader implements DoubleColumnReader {
+    GetterDoubleColumnReader(int columnIndex) {
+      super(columnIndex);
+    }
+
+    @Override
+    public boolean isNull() throws SQLException {
+      raiseSQLExceptionIfResultSetIsClosed();
+      boolean savedWasNull = wasNull;
+      try {
+        return getObject(columnIndex) == null;
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      } finally {
+        wasNull = savedWasNull;
+      }
+    }
+
+    @Override
+    public double getDouble() throws SQLException {
+      raiseSQLExceptionIfResultSetIsClosed();
+      boolean savedWasNull = wasNull;
+      try {
+        return SFBaseResultSet.this.getDouble(columnIndex);
+      } catch (SFException ex) {
+        throw toSQLException(ex);
+      } finally {
+        wasNull = savedWasNull;
+      }
+    }
+  }
+
   /**
    * Split this whole SnowflakeResultSetSerializable into small pieces based on the user specified
    * data size.
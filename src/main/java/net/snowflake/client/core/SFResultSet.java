@@ -154,7 +154,8 @@ public class SFResultSet extends SFJsonResultSet {
 
     // sort result set if needed
     if (sortResult) {
-      // we don't support sort result when there are offline chunks
+      // we don't support sort result when there are offline chunks, only Arrow results are merged
+      // from sorted chunks, see ArrowResultSorter
       if (chunkCount > 0) {
         throw new SnowflakeSQLLoggedException(
             SqlState.FEATURE_NOT_SUPPORTED,
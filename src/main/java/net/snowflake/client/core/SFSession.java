@@ -17,6 +17,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import net.snowflake.client.jdbc.*;
 import net.snowflake.client.jdbc.telemetry.Telemetry;
@@ -74,6 +75,12 @@ public class SFSession {
   // Any statement execution will sleep for the specified number of milliseconds
   private AtomicInteger _injectedDelay = new AtomicInteger(0);
 
+  // held while logging in or renewing the session, a monitor would pin a virtual thread
+  private final ReentrantLock sessionLock = new ReentrantLock();
+
+  // held while creating the stage of array binds
+  private final ReentrantLock arrayBindStageLock = new ReentrantLock();
+
   private String databaseVersion = null;
   private int databaseMajorVersion = 0;
   private int databaseMinorVersion = 0;
@@ -140,6 +147,9 @@ public class SFSession {
 
   private boolean enableHeartbeat = false;
 
+  // result of the last background heartbeat, set by HeartbeatBackground
+  private volatile boolean heartbeatFailed = false;
+
   private int heartbeatFrequency = 3600;
 
   private AtomicBoolean autoCommit = new AtomicBoolean(true);
@@ -228,24 +238,22 @@ public class SFSession {
    * @return true if it is safe to close this session, false if not
    */
   public boolean isSafeToClose() {
-    boolean canClose = true;
-    // if the set of asynchronous queries is empty, return true
-    if (this.activeAsyncQueries.isEmpty()) {
-      return canClose;
-    }
-    // if the set is not empty, iterate through each query and check its status
-    for (String query : this.activeAsyncQueries) {
+    // queries that finished are removed from the set by QueryStatusMonitor or below, so that they
+    // are not polled again
+    for (Iterator<String> queries = this.activeAsyncQueries.iterator(); queries.hasNext(); ) {
+      String query = queries.next();
       try {
         QueryStatus qStatus = getQueryStatus(query);
         //  if any query is still running, it is not safe to close.
         if (QueryStatus.isStillRunning(qStatus)) {
-          canClose = false;
+          return false;
         }
+        queries.remove();
       } catch (SQLException e) {
         logger.error(e.getMessage());
       }
     }
-    return canClose;
+    return true;
   }
 
   /**
@@ -501,7 +509,16 @@ public class SFSession {
    * @throws SFException this is a runtime exception
    * @throws SnowflakeSQLException exception raised from Snowflake components
    */
-  public synchronized void open() throws SFException, SnowflakeSQLException {
+  public void open() throws SFException, SnowflakeSQLException {
+    sessionLock.lock();
+    try {
+      openLocked();
+    } finally {
+      sessionLock.unlock();
+    }
+  }
+
+  private void openLocked() throws SFException, SnowflakeSQLException {
     performSanityCheckOnProperties();
 
     HttpUtil.configureCustomProxyProperties(connectionPropertiesMap);
@@ -790,7 +807,16 @@ public class SFSession {
    * @throws SnowflakeSQLException if failed to renew the session
    * @throws SFException if failed to renew the session
    */
-  synchronized void renewSession(String prevSessionToken)
+  void renewSession(String prevSessionToken) throws SFException, SnowflakeSQLException {
+    sessionLock.lock();
+    try {
+      renewSessionLocked(prevSessionToken);
+    } finally {
+      sessionLock.unlock();
+    }
+  }
+
+  private void renewSessionLocked(String prevSessionToken)
       throws SFException, SnowflakeSQLException {
     if (sessionToken != null && !sessionToken.equals(prevSessionToken)) {
       logger.debug("not renew session because session token has not been updated.");
@@ -866,6 +892,34 @@ public class SFSession {
     }
   }
 
+  /**
+   * Heartbeat this session while a connection pool holds it, even if client_session_keep_alive is
+   * not set, so that idle sessions do not expire and a failed heartbeat shows that the session can
+   * not be reused.
+   */
+  public void startPoolHeartbeat() {
+    if (!enableHeartbeat && !Strings.isNullOrEmpty(masterToken)) {
+      HeartbeatBackground.getInstance()
+          .addSession(this, masterTokenValidityInSeconds, this.heartbeatFrequency);
+    }
+  }
+
+  /** Stop the heartbeat started by {@link #startPoolHeartbeat()} */
+  public void stopPoolHeartbeat() {
+    if (!enableHeartbeat && !Strings.isNullOrEmpty(masterToken)) {
+      HeartbeatBackground.getInstance().removeSession(this);
+    }
+  }
+
+  /** @return true if the last background heartbeat of this session failed */
+  public boolean isHeartbeatFailed() {
+    return heartbeatFailed;
+  }
+
+  void setHeartbeatFailed(boolean heartbeatFailed) {
+    this.heartbeatFailed = heartbeatFailed;
+  }
+
   /** Stop heartbeat for this session */
   protected void stopHeartbeatForThisSession() {
     if (enableHeartbeat && !Strings.isNullOrEmpty(masterToken)) {
@@ -1252,6 +1306,11 @@ public class SFSession {
     return arrayBindStage;
   }
 
+  /** @return lock to hold while creating the stage of array binds */
+  public ReentrantLock getArrayBindStageLock() {
+    return arrayBindStageLock;
+  }
+
   public void setArrayBindStage(String arrayBindStage) {
     this.arrayBindStage =
         String.format("%s.%s.%s", this.getDatabase(), this.getSchema(), arrayBindStage);
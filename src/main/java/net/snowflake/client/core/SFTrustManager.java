@@ -25,6 +25,7 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
@@ -43,8 +44,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManager;
@@ -197,9 +208,14 @@ public class SFTrustManager extends X509ExtendedTrustManager {
   /** OCSP Response cache */
   private static final Map<OcspResponseCacheKey, SFPair<Long, String>> OCSP_RESPONSE_CACHE =
       new ConcurrentHashMap<>();
-  /** Date and timestamp format */
-  private static final SimpleDateFormat DATE_FORMAT_UTC =
-      new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+  /** Date and timestamp format, per thread since the certificates are checked in parallel */
+  private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT_UTC =
+      ThreadLocal.withInitial(
+          () -> {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format;
+          });
   /** SSD Support management */
   static SSDManager ssdManager = new SSDManager();
   /** OCSP Response Cache server Retry URL pattern */
@@ -213,6 +229,21 @@ public class SFTrustManager extends X509ExtendedTrustManager {
 
   private static final AtomicBoolean WAS_CACHE_UPDATED = new AtomicBoolean();
   private static final AtomicBoolean WAS_CACHE_READ = new AtomicBoolean();
+  /** True while a write of the cache file is queued and has not started yet */
+  private static final AtomicBoolean CACHE_WRITE_PENDING = new AtomicBoolean();
+  /**
+   * Keys of the certificate chains and peer hosts whose revocation status was verified, with the
+   * time in milliseconds of the earliest next update of their OCSP responses
+   */
+  private static final Map<String, Long> VERIFIED_CHAINS = new ConcurrentHashMap<>();
+
+  private static final int MAX_VERIFIED_CHAINS = 1000;
+  /** Maximum number of threads checking certificates and of connections to OCSP responders */
+  private static final int MAX_OCSP_CHECK_THREADS = 10;
+  /** Checks the certificates of a chain in parallel */
+  private static final ExecutorService OCSP_CHECK_EXECUTOR = createOcspCheckExecutor();
+  /** Writes the cache file in the background */
+  private static final ExecutorService CACHE_FILE_WRITER = createCacheFileWriter();
   /** OCSP HTTP client */
   private static Map<Integer, CloseableHttpClient> ocspCacheServerClient =
       new ConcurrentHashMap<>();
@@ -280,8 +311,39 @@ public class SFTrustManager extends X509ExtendedTrustManager {
     }
   }
 
-  static {
-    DATE_FORMAT_UTC.setTimeZone(TimeZone.getTimeZone("UTC"));
+  private static ExecutorService createOcspCheckExecutor() {
+    final AtomicInteger threadCount = new AtomicInteger();
+    // when all threads are busy, e.g. with many handshakes at the same time, the certificate is
+    // checked by the thread of the handshake
+    return new ThreadPoolExecutor(
+        0,
+        MAX_OCSP_CHECK_THREADS,
+        60L,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        r -> {
+          Thread thread = DriverThreads.newThread(r);
+          thread.setName("ocsp-check-worker-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  private static ExecutorService createCacheFileWriter() {
+    // the thread ends as soon as the cache file is written. It is not a daemon thread, so that the
+    // last update of the cache is written even if the application exits right after a handshake
+    return new ThreadPoolExecutor(
+        0,
+        1,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        r -> {
+          Thread thread = new Thread(r, "ocsp-cache-file-writer");
+          thread.setDaemon(false);
+          return thread;
+        });
   }
 
   /** The default JVM Trust manager. */
@@ -322,9 +384,24 @@ public class SFTrustManager extends X509ExtendedTrustManager {
     }
   }
 
-  /** Deletes OCSP response cache file from disk. */
+  /**
+   * Deletes OCSP response cache file from disk. A queued write of the cache file is cancelled, and
+   * the file is deleted once the write in progress, if any, is done, so that it is not written
+   * again right after it was deleted.
+   */
   public static void deleteCache() {
-    fileCacheManager.deleteCacheFile();
+    clearVerifiedChains();
+    WAS_CACHE_UPDATED.set(false);
+    try {
+      // the writer runs one task at a time in order
+      CACHE_FILE_WRITER.submit(fileCacheManager::deleteCacheFile).get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      fileCacheManager.deleteCacheFile();
+    } catch (ExecutionException | RejectedExecutionException ex) {
+      LOGGER.debug("Failed to delete the cache file in the background: {}", ex);
+      fileCacheManager.deleteCacheFile();
+    }
   }
 
   public static void cleanTestSystemParameters() {
@@ -601,8 +678,8 @@ public class SFTrustManager extends X509ExtendedTrustManager {
     // Build a connection manager with enough connections
     PoolingHttpClientConnectionManager connectionManager =
         new PoolingHttpClientConnectionManager(registry);
-    connectionManager.setMaxTotal(1);
-    connectionManager.setDefaultMaxPerRoute(10);
+    connectionManager.setMaxTotal(MAX_OCSP_CHECK_THREADS);
+    connectionManager.setDefaultMaxPerRoute(MAX_OCSP_CHECK_THREADS);
 
     HttpClientBuilder httpClientBuilder =
         HttpClientBuilder.create()
@@ -820,6 +897,15 @@ public class SFTrustManager extends X509ExtendedTrustManager {
    */
   void validateRevocationStatus(X509Certificate[] chain, String peerHost)
       throws CertificateException {
+    // the test parameters inject errors in the checks, which must not be skipped
+    final String verifiedChainKey =
+        isTestParameterEnabled() ? null : getVerifiedChainKey(chain, peerHost);
+    if (verifiedChainKey != null
+        && isVerifiedChain(verifiedChainKey, System.currentTimeMillis())) {
+      LOGGER.debug("The revocation status of the certificate chain was already verified.");
+      return;
+    }
+
     final List<Certificate> bcChain = convertToBouncyCastleCertificate(chain);
     final List<SFPair<Certificate, Certificate>> pairIssuerSubjectList =
         getPairIssuerSubject(bcChain);
@@ -833,8 +919,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
     }
 
     setOCSPResponseCacheServerURL();
-    boolean isCached = isCached(pairIssuerSubjectList);
-    if (useOCSPResponseCacheServer() && !isCached) {
+    if (useOCSPResponseCacheServer() && !isCached(pairIssuerSubjectList)) {
       if (!ocspCacheServer.new_endpoint_enabled) {
         LOGGER.debug(
             "Downloading OCSP response cache from the server. URL: {}",
@@ -856,26 +941,180 @@ public class SFTrustManager extends X509ExtendedTrustManager {
       // if the cache is downloaded from the server, it should be written
       // to the file cache at all times.
     }
-    executeRevocationStatusChecks(pairIssuerSubjectList, peerHost);
-    if (WAS_CACHE_UPDATED.getAndSet(false)) {
-      JsonNode input = encodeCacheToJSON();
-      fileCacheManager.writeCacheFile(input);
+    long validUntil = executeRevocationStatusChecks(pairIssuerSubjectList, peerHost);
+    if (verifiedChainKey != null) {
+      addVerifiedChain(verifiedChainKey, validUntil);
+    }
+    if (WAS_CACHE_UPDATED.get()) {
+      writeCacheFile();
+    }
+  }
+
+  /**
+   * Writes the cache file in the background. The updates made until the write starts are written
+   * together, while one write is queued the next updates do not queue another one.
+   */
+  private static void writeCacheFile() {
+    if (!CACHE_WRITE_PENDING.compareAndSet(false, true)) {
+      return;
+    }
+    CACHE_FILE_WRITER.execute(
+        () -> {
+          CACHE_WRITE_PENDING.set(false);
+          if (WAS_CACHE_UPDATED.getAndSet(false)) {
+            JsonNode input = encodeCacheToJSON();
+            fileCacheManager.writeCacheFile(input);
+          }
+        });
+  }
+
+  /**
+   * Key of a certificate chain checked for a peer host in the verified chains
+   *
+   * @param chain chain of certificates
+   * @param peerHost host name of the server
+   * @return the SHA-256 digest of the host name and the encoded certificates, or null if it is not
+   *     available
+   * @throws CertificateEncodingException if a certificate cannot be encoded
+   */
+  static String getVerifiedChainKey(X509Certificate[] chain, String peerHost)
+      throws CertificateEncodingException {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update(String.valueOf(peerHost).getBytes(StandardCharsets.UTF_8));
+      md.update((byte) 0);
+      for (X509Certificate cert : chain) {
+        md.update(cert.getEncoded());
+      }
+      return Base64.encodeBase64String(md.digest());
+    } catch (NoSuchAlgorithmException ex) {
+      LOGGER.debug("SHA-256 is not available, the verified chains are not cached.");
+      return null;
+    }
+  }
+
+  /**
+   * @param key key of a certificate chain and peer host
+   * @param currentTimeMillis current time
+   * @return true if the revocation status of the chain was verified and did not expire
+   */
+  static boolean isVerifiedChain(String key, long currentTimeMillis) {
+    Long validUntil = VERIFIED_CHAINS.get(key);
+    if (validUntil == null) {
+      return false;
+    }
+    if (currentTimeMillis < validUntil) {
+      return true;
     }
+    VERIFIED_CHAINS.remove(key, validUntil);
+    return false;
   }
 
   /**
-   * Executes the revocation status checks for all chained certificates
+   * Remember a verified chain until the next update of its OCSP responses. The verified chains are
+   * all forgotten when there are too many of them.
+   *
+   * @param key key of a certificate chain and peer host
+   * @param validUntil time in milliseconds until which the verification is valid
+   */
+  static void addVerifiedChain(String key, long validUntil) {
+    if (System.currentTimeMillis() >= validUntil) {
+      return;
+    }
+    if (VERIFIED_CHAINS.size() >= MAX_VERIFIED_CHAINS) {
+      VERIFIED_CHAINS.clear();
+    }
+    VERIFIED_CHAINS.put(key, validUntil);
+  }
+
+  /** Forget all verified chains */
+  static void clearVerifiedChains() {
+    VERIFIED_CHAINS.clear();
+  }
+
+  /** @return true if a test parameter injecting an error in the checks is enabled */
+  private boolean isTestParameterEnabled() {
+    return isEnabledSystemTestParameter(SF_OCSP_TEST_INJECT_VALIDITY_ERROR)
+        || isEnabledSystemTestParameter(SF_OCSP_TEST_INJECT_UNKNOWN_STATUS)
+        || isEnabledSystemTestParameter(SF_OCSP_TEST_INVALID_SIGNING_CERT)
+        || isEnabledSystemTestParameter(SF_OCSP_TEST_NO_OCSP_RESPONDER_URL)
+        || systemGetProperty(SF_OCSP_TEST_RESPONDER_URL) != null
+        || systemGetProperty(SF_OCSP_TEST_OCSP_RESPONDER_TIMEOUT) != null
+        || systemGetProperty(SF_OCSP_TEST_OCSP_RESPONSE_CACHE_SERVER_TIMEOUT) != null;
+  }
+
+  /**
+   * Executes the revocation status checks for all chained certificates. The certificates are
+   * checked in parallel, the first one by the current thread.
    *
    * @param pairIssuerSubjectList a list of pair of issuer and subject certificates.
+   * @return the time in milliseconds of the earliest next update of the OCSP responses, or 0 if
+   *     the status of a certificate was not verified with an OCSP response
    * @throws CertificateException raises if any error occurs.
    */
-  private void executeRevocationStatusChecks(
+  private long executeRevocationStatusChecks(
       List<SFPair<Certificate, Certificate>> pairIssuerSubjectList, String peerHost)
       throws CertificateException {
-    long currentTimeSecond = new Date().getTime() / 1000L;
-    for (SFPair<Certificate, Certificate> pairIssuerSubject : pairIssuerSubjectList) {
-      executeOneRevocationStatusCheck(pairIssuerSubject, currentTimeSecond, peerHost);
+    final long currentTimeSecond = new Date().getTime() / 1000L;
+    List<Callable<Long>> checks = new ArrayList<>(pairIssuerSubjectList.size());
+    for (final SFPair<Certificate, Certificate> pairIssuerSubject : pairIssuerSubjectList) {
+      checks.add(
+          () -> executeOneRevocationStatusCheck(pairIssuerSubject, currentTimeSecond, peerHost));
+    }
+    return runRevocationStatusChecks(checks);
+  }
+
+  /**
+   * Runs revocation status checks in parallel, the first one by the current thread
+   *
+   * @param checks checks returning the time until which their result is valid
+   * @return the earliest time until which the results are valid, or 0 if there is no check, e.g.
+   *     for a chain of self-signed certificates
+   * @throws CertificateException the error of the first failed check in the order of the checks
+   */
+  static long runRevocationStatusChecks(List<Callable<Long>> checks) throws CertificateException {
+    if (checks.isEmpty()) {
+      return 0;
+    }
+    List<Future<Long>> futures = new ArrayList<>(checks.size() - 1);
+    for (Callable<Long> check : checks.subList(1, checks.size())) {
+      futures.add(OCSP_CHECK_EXECUTOR.submit(check));
+    }
+
+    // the errors are raised in the order of the chain
+    CertificateException error = null;
+    long validUntil = 0;
+    try {
+      validUntil = checks.get(0).call();
+    } catch (CertificateException ex) {
+      error = ex;
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      error = new CertificateException(ex.getMessage(), ex);
+    }
+    for (Future<Long> future : futures) {
+      try {
+        validUntil = Math.min(validUntil, future.get());
+      } catch (ExecutionException ex) {
+        if (error == null) {
+          if (ex.getCause() instanceof CertificateException) {
+            error = (CertificateException) ex.getCause();
+          } else if (ex.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) ex.getCause();
+          } else {
+            error = new CertificateException(ex.getCause().getMessage(), ex.getCause());
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new CertificateException("Interrupted while checking the revocation status", ex);
+      }
+    }
+    if (error != null) {
+      throw error;
     }
+    return validUntil;
   }
 
   private String generateFailOpenLog(String logData) {
@@ -891,9 +1130,11 @@ public class SFTrustManager extends X509ExtendedTrustManager {
    *
    * @param pairIssuerSubject a pair of issuer and subject certificate
    * @param currentTimeSecond the current timestamp
+   * @return the time in milliseconds of the next update of the OCSP response, or 0 if the status
+   *     was not verified with an OCSP response
    * @throws CertificateException if certificate exception is raised.
    */
-  private void executeOneRevocationStatusCheck(
+  private long executeOneRevocationStatusCheck(
       SFPair<Certificate, Certificate> pairIssuerSubject, long currentTimeSecond, String peerHost)
       throws CertificateException {
     OCSPReq req;
@@ -915,6 +1156,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
         new DecorrelatedJitterBackoff(sleepTime, MAX_SLEEPING_TIME_IN_MILLISECONDS);
     CertificateException error;
     boolean success = false;
+    long validUntil = 0;
     String ocspLog;
     OCSPTelemetryData telemetryData = new OCSPTelemetryData();
     telemetryData.setSfcPeerHost(peerHost);
@@ -966,7 +1208,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
             LOGGER.debug(
                 "validating. {}", CertificateIDToString(req.getRequestList()[0].getCertID()));
             try {
-              validateRevocationStatusMain(pairIssuerSubject, value0.right);
+              validUntil = validateRevocationStatusMain(pairIssuerSubject, value0.right);
               success = true;
               break;
             } catch (SFOCSPException ex) {
@@ -990,8 +1232,9 @@ public class SFTrustManager extends X509ExtendedTrustManager {
             }
           }
         } catch (CertificateException ex) {
-          WAS_CACHE_UPDATED.set(OCSP_RESPONSE_CACHE.remove(keyOcspResponse) != null);
-          if (WAS_CACHE_UPDATED.get()) {
+          // the other checks of the chain may have updated the cache too
+          if (OCSP_RESPONSE_CACHE.remove(keyOcspResponse) != null) {
+            WAS_CACHE_UPDATED.set(true);
             LOGGER.debug("deleting the invalid OCSP cache.");
           }
 
@@ -1040,6 +1283,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
         throw error;
       }
     }
+    return validUntil;
   }
 
   /*
@@ -1337,7 +1581,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
    * @param ocspRespB64 Base64 encoded OCSP Response object
    * @throws SFOCSPException raises if any other error occurs
    */
-  private void validateRevocationStatusMain(
+  private long validateRevocationStatusMain(
       SFPair<Certificate, Certificate> pairIssuerSubject, String ocspRespB64)
       throws SFOCSPException {
     try {
@@ -1402,7 +1646,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
             ex);
       }
 
-      validateBasicOcspResponse(currentTime, basicOcspResp);
+      return validateBasicOcspResponse(currentTime, basicOcspResp);
     } catch (IOException | OCSPException ex) {
       throw new SFOCSPException(
           OCSPErrorCode.REVOCATION_CHECK_FAILURE, "Failed to check revocation status.", ex);
@@ -1422,10 +1666,12 @@ public class SFTrustManager extends X509ExtendedTrustManager {
    *
    * @param currentTime the current timestamp.
    * @param basicOcspResp BasicOcspResponse data.
+   * @return the time in milliseconds of the earliest next update of the responses
    * @throws SFOCSPException raises if any failure occurs.
    */
-  private void validateBasicOcspResponse(Date currentTime, BasicOCSPResp basicOcspResp)
+  private long validateBasicOcspResponse(Date currentTime, BasicOCSPResp basicOcspResp)
       throws SFOCSPException {
+    long validUntil = 0;
     for (SingleResp singleResps : basicOcspResp.getResponses()) {
       checkCertUnknownTestParameter();
       CertificateStatus certStatus = singleResps.getCertStatus();
@@ -1443,7 +1689,7 @@ public class SFTrustManager extends X509ExtendedTrustManager {
               OCSPErrorCode.CERTIFICATE_STATUS_REVOKED,
               String.format(
                   "The certificate has been revoked. Reason: %d, Time: %s",
-                  reason, DATE_FORMAT_UTC.format(revocationTime)));
+                  reason, DATE_FORMAT_UTC.get().format(revocationTime)));
         } else {
           // Unknown status
           throw new SFOCSPException(
@@ -1465,12 +1711,15 @@ public class SFTrustManager extends X509ExtendedTrustManager {
             String.format(
                 "The OCSP response validity is out of range: "
                     + "Current Time: %s, This Update: %s, Next Update: %s",
-                DATE_FORMAT_UTC.format(currentTime),
-                DATE_FORMAT_UTC.format(thisUpdate),
-                DATE_FORMAT_UTC.format(nextUpdate)));
+                DATE_FORMAT_UTC.get().format(currentTime),
+                DATE_FORMAT_UTC.get().format(thisUpdate),
+                DATE_FORMAT_UTC.get().format(nextUpdate)));
       }
+      validUntil =
+          validUntil == 0 ? nextUpdate.getTime() : Math.min(validUntil, nextUpdate.getTime());
     }
     LOGGER.debug("OK. Verified the certificate revocation status.");
+    return validUntil;
   }
 
   private void checkCertUnknownTestParameter() throws SFOCSPException {
@@ -4,7 +4,6 @@
 package net.snowflake.client.core.arrow;
 
 import java.util.List;
-import java.util.stream.IntStream;
 import net.snowflake.client.core.SFException;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.IntVector;
@@ -13,104 +12,442 @@ import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.FieldType;
 
 /**
- * Use quick sort to sort Arrow result chunk The sorted order is represented in the indices vector
+ * Sort the rows of an Arrow result chunk. The sorted order is represented in the indices vector.
+ *
+ * <p>The rows are compared with {@link ArrowSortKeys}. When the values of the first column can be
+ * compared as longs, e.g. integers, dates or real numbers, the rows are sorted by the first column
+ * with a radix sort, then the rows with the same first value are sorted by the other columns.
+ * Otherwise, the rows are sorted with a pattern-defeating quicksort, which runs in O(n log n) time
+ * even for adversarial inputs and in linear time for sorted inputs.
  */
 public class ArrowResultChunkIndexSorter {
-  private List<ValueVector> resultChunk;
-  private List<ArrowVectorConverter> converters;
-  /** Vector indices to sort. */
-  private IntVector indices;
+  /** ranges smaller than this are sorted with an insertion sort */
+  private static final int INSERTION_SORT_THRESHOLD = 24;
+
+  /** ranges larger than this use the pseudomedian of nine as pivot */
+  private static final int NINTHER_THRESHOLD = 128;
+
+  /** elements moved by the insertion sort of an already partitioned range before giving up */
+  private static final int PARTIAL_INSERTION_SORT_LIMIT = 8;
+
+  /** fewer rows are sorted without the radix sort */
+  static final int RADIX_SORT_THRESHOLD = 256;
+
+  /** Compares two rows by their index */
+  interface RowComparator {
+    int compare(int index1, int index2) throws SFException;
+  }
+
+  private final List<ValueVector> resultChunk;
+
+  private final ArrowSortKeys sortKeys;
+
+  private final int rowCount;
 
   public ArrowResultChunkIndexSorter(
       List<ValueVector> resultChunk, List<ArrowVectorConverter> converters) {
     this.resultChunk = resultChunk;
-    this.converters = converters;
-    initIndices();
+    this.sortKeys = new ArrowSortKeys(resultChunk, converters);
+    this.rowCount = resultChunk.get(0).getValueCount();
   }
 
-  /** initialize original indices */
-  private void initIndices() {
-    BufferAllocator rootAllocator = resultChunk.get(0).getAllocator();
-    FieldType fieldType = new FieldType(true, Types.MinorType.INT.getType(), null, null);
-
-    indices = new IntVector("indices", fieldType, rootAllocator);
-    IntStream.range(0, resultChunk.get(0).getValueCount()).forEach(i -> indices.setSafe(i, i));
+  /** @return the sort keys of the rows */
+  public ArrowSortKeys getSortKeys() {
+    return sortKeys;
   }
 
   /**
    * This method is only used when sf-property sort is on
    *
    * @return sorted indices
-   * @throws SFException
+   * @throws SFException if a value cannot be converted
    */
   public IntVector sort() throws SFException {
-    quickSort(0, resultChunk.get(0).getValueCount() - 1);
+    int[] sortedIndices = sortIndices();
+
+    BufferAllocator rootAllocator = resultChunk.get(0).getAllocator();
+    FieldType fieldType = new FieldType(true, Types.MinorType.INT.getType(), null, null);
+    IntVector indices = new IntVector("indices", fieldType, rootAllocator);
+    indices.allocateNew(rowCount);
+    for (int i = 0; i < rowCount; i++) {
+      indices.set(i, sortedIndices[i]);
+    }
+    indices.setValueCount(rowCount);
     return indices;
   }
 
-  private void quickSort(int low, int high) throws SFException {
-    if (low < high) {
-      int mid = partition(low, high);
-      quickSort(low, mid - 1);
-      quickSort(mid + 1, high);
+  /**
+   * Sort the rows
+   *
+   * @return the indices of the rows in sorted order
+   * @throws SFException if a value cannot be converted
+   */
+  public int[] sortIndices() throws SFException {
+    int[] indices = new int[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      indices[i] = i;
     }
+    if (rowCount >= RADIX_SORT_THRESHOLD) {
+      long[] keys = new long[rowCount];
+      if (sortKeys.getLongKeys(0, rowCount, keys)) {
+        radixSortByFirstColumn(indices, keys);
+        return indices;
+      }
+    }
+    sort(indices, 0, rowCount, sortKeys::compare);
+    return indices;
   }
 
-  private int partition(int low, int high) throws SFException {
-    int pivotIndex = indices.get(low);
+  /**
+   * Sort the rows by the first column with a radix sort, then sort the rows with the same value in
+   * the first column with the other columns
+   */
+  private void radixSortByFirstColumn(int[] indices, long[] keys) throws SFException {
+    // nulls are larger than all the values, move them to the end first
+    int nonNullCount = 0;
+    int[] nulls = new int[rowCount];
+    int nullCount = 0;
+    for (int i = 0; i < rowCount; i++) {
+      if (sortKeys.isNull(0, i)) {
+        nulls[nullCount++] = i;
+      } else {
+        indices[nonNullCount] = i;
+        keys[nonNullCount++] = keys[i];
+      }
+    }
+    System.arraycopy(nulls, 0, indices, nonNullCount, nullCount);
+
+    radixSort(indices, keys, nonNullCount);
 
-    while (low < high) {
-      while (low < high && compare(indices.get(high), pivotIndex) >= 0) {
-        high -= 1;
+    if (sortKeys.getColumnCount() == 1) {
+      return;
+    }
+    RowComparator comparator = sortKeys::compare;
+    int start = 0;
+    for (int i = 1; i <= nonNullCount; i++) {
+      if (i == nonNullCount || keys[i] != keys[start]) {
+        sort(indices, start, i, comparator);
+        start = i;
       }
-      indices.set(low, indices.get(high));
+    }
+    sort(indices, nonNullCount, rowCount, comparator);
+  }
 
-      while (low < high && compare(indices.get(low), pivotIndex) <= 0) {
-        low += 1;
+  /**
+   * Sort indices by signed long keys with a least significant digit radix sort, one byte at a
+   * time. The bytes that are the same for all keys, e.g. the high bytes of small integers, are
+   * skipped.
+   *
+   * @param indices indices to sort
+   * @param keys keys of the indices, sorted with them
+   * @param length number of indices to sort
+   */
+  static void radixSort(int[] indices, long[] keys, int length) {
+    int[][] counts = new int[8][256];
+    for (int i = 0; i < length; i++) {
+      // flip the sign bit so that signed keys are sorted as unsigned
+      long key = keys[i] ^ Long.MIN_VALUE;
+      for (int digit = 0; digit < 8; digit++) {
+        counts[digit][(int) (key >>> (digit << 3)) & 0xff]++;
       }
-      indices.set(high, indices.get(low));
     }
 
-    indices.setSafe(low, pivotIndex);
-    return low;
+    int[] indicesBuffer = null;
+    long[] keysBuffer = null;
+    int[] srcIndices = indices;
+    long[] srcKeys = keys;
+    for (int digit = 0; digit < 8; digit++) {
+      int[] count = counts[digit];
+      int shift = digit << 3;
+      if (length == 0 || count[(int) ((keys[0] ^ Long.MIN_VALUE) >>> shift) & 0xff] == length) {
+        continue;
+      }
+      if (indicesBuffer == null) {
+        indicesBuffer = new int[length];
+        keysBuffer = new long[length];
+      }
+      int[] dstIndices = srcIndices == indices ? indicesBuffer : indices;
+      long[] dstKeys = srcKeys == keys ? keysBuffer : keys;
+
+      int position = 0;
+      for (int b = 0; b < 256; b++) {
+        int c = count[b];
+        count[b] = position;
+        position += c;
+      }
+      for (int i = 0; i < length; i++) {
+        long key = srcKeys[i];
+        int target = count[(int) ((key ^ Long.MIN_VALUE) >>> shift) & 0xff]++;
+        dstIndices[target] = srcIndices[i];
+        dstKeys[target] = key;
+      }
+      srcIndices = dstIndices;
+      srcKeys = dstKeys;
+    }
+    if (srcIndices != indices) {
+      System.arraycopy(srcIndices, 0, indices, 0, length);
+      System.arraycopy(srcKeys, 0, keys, 0, length);
+    }
   }
 
   /**
-   * Implement the same compare method as JSON result
+   * Sort a range of indices with a pattern-defeating quicksort
    *
-   * @throws SFException
+   * @param indices indices to sort
+   * @param begin first index of the range
+   * @param end index after the last index of the range
+   * @param comparator compares the rows of two indices
+   * @throws SFException if a value cannot be converted
    */
-  private int compare(int index1, int index2) throws SFException {
-    int numCols = converters.size();
-    for (int colIdx = 0; colIdx < numCols; colIdx++) {
-      if (converters.get(colIdx).isNull(index1) && converters.get(colIdx).isNull(index2)) {
-        continue;
+  static void sort(int[] indices, int begin, int end, RowComparator comparator)
+      throws SFException {
+    if (end - begin > 1) {
+      new PatternDefeatingQuicksort(indices, comparator)
+          .sort(begin, end, 32 - Integer.numberOfLeadingZeros(end - begin), true);
+    }
+  }
+
+  /**
+   * Pattern-defeating quicksort, as described by Orson Peters. A quicksort that falls back to a
+   * heap sort after too many unbalanced partitions, and that detects already sorted ranges and
+   * ranges of equal elements.
+   */
+  private static final class PatternDefeatingQuicksort {
+    private final int[] a;
+
+    private final RowComparator comparator;
+
+    PatternDefeatingQuicksort(int[] a, RowComparator comparator) {
+      this.a = a;
+      this.comparator = comparator;
+    }
+
+    private boolean less(int x, int y) throws SFException {
+      return comparator.compare(x, y) < 0;
+    }
+
+    private void swap(int i, int j) {
+      int tmp = a[i];
+      a[i] = a[j];
+      a[j] = tmp;
+    }
+
+    private void sort2(int i, int j) throws SFException {
+      if (less(a[j], a[i])) {
+        swap(i, j);
       }
+    }
+
+    private void sort3(int i, int j, int k) throws SFException {
+      sort2(i, j);
+      sort2(j, k);
+      sort2(i, j);
+    }
+
+    /**
+     * @param begin first index of the range
+     * @param end index after the last index of the range
+     * @param badAllowed number of unbalanced partitions allowed before switching to heap sort
+     * @param leftmost true if the range is the leftmost one, otherwise the element before the range
+     *     is not larger than any element of the range
+     */
+    void sort(int begin, int end, int badAllowed, boolean leftmost) throws SFException {
+      while (true) {
+        int size = end - begin;
+        if (size < INSERTION_SORT_THRESHOLD) {
+          insertionSort(begin, end);
+          return;
+        }
 
-      // null is considered bigger than all values
-      if (converters.get(colIdx).isNull(index1)) {
-        return 1;
+        // move the pivot to begin
+        int half = size / 2;
+        if (size > NINTHER_THRESHOLD) {
+          sort3(begin, begin + half, end - 1);
+          sort3(begin + 1, begin + half - 1, end - 2);
+          sort3(begin + 2, begin + half + 1, end - 3);
+          sort3(begin + half - 1, begin + half, begin + half + 1);
+          swap(begin, begin + half);
+        } else {
+          sort3(begin + half, begin, end - 1);
+        }
+
+        // if the pivot is equal to the element before the range, which is not larger than any
+        // element of the range, put all the elements equal to the pivot on the left, they are
+        // sorted
+        if (!leftmost && !less(a[begin - 1], a[begin])) {
+          begin = partitionLeft(begin, end) + 1;
+          continue;
+        }
+
+        int pivotPos = partitionRight(begin, end);
+        boolean alreadyPartitioned = pivotPos < 0;
+        if (alreadyPartitioned) {
+          pivotPos = ~pivotPos;
+        }
+
+        int leftSize = pivotPos - begin;
+        int rightSize = end - (pivotPos + 1);
+        if (leftSize < size / 8 || rightSize < size / 8) {
+          // too unbalanced, shuffle some elements to break patterns
+          if (--badAllowed == 0) {
+            heapSort(begin, end);
+            return;
+          }
+          if (leftSize >= INSERTION_SORT_THRESHOLD) {
+            swap(begin, begin + leftSize / 4);
+            swap(pivotPos - 1, pivotPos - leftSize / 4);
+            if (leftSize > NINTHER_THRESHOLD) {
+              swap(begin + 1, begin + (leftSize / 4 + 1));
+              swap(begin + 2, begin + (leftSize / 4 + 2));
+              swap(pivotPos - 2, pivotPos - (leftSize / 4 + 1));
+              swap(pivotPos - 3, pivotPos - (leftSize / 4 + 2));
+            }
+          }
+          if (rightSize >= INSERTION_SORT_THRESHOLD) {
+            swap(pivotPos + 1, pivotPos + (1 + rightSize / 4));
+            swap(end - 1, end - rightSize / 4);
+            if (rightSize > NINTHER_THRESHOLD) {
+              swap(pivotPos + 2, pivotPos + (2 + rightSize / 4));
+              swap(pivotPos + 3, pivotPos + (3 + rightSize / 4));
+              swap(end - 2, end - (1 + rightSize / 4));
+              swap(end - 3, end - (2 + rightSize / 4));
+            }
+          }
+        } else if (alreadyPartitioned
+            && partialInsertionSort(begin, pivotPos)
+            && partialInsertionSort(pivotPos + 1, end)) {
+          // the range was likely sorted already
+          return;
+        }
+
+        // recurse into the left part, loop on the right part
+        sort(begin, pivotPos, badAllowed, leftmost);
+        begin = pivotPos + 1;
+        leftmost = false;
       }
+    }
 
-      if (converters.get(colIdx).isNull(index2)) {
-        return -1;
+    private void insertionSort(int begin, int end) throws SFException {
+      for (int cur = begin + 1; cur < end; cur++) {
+        int tmp = a[cur];
+        int sift = cur;
+        while (sift > begin && less(tmp, a[sift - 1])) {
+          a[sift] = a[sift - 1];
+          sift--;
+        }
+        a[sift] = tmp;
       }
+    }
 
-      int res =
-          converters
-              .get(colIdx)
-              .toString(index1)
-              .compareTo(converters.get(colIdx).toString(index2));
+    /**
+     * Insertion sort that gives up when it has to move too many elements
+     *
+     * @return true if the range is sorted
+     */
+    private boolean partialInsertionSort(int begin, int end) throws SFException {
+      int moved = 0;
+      for (int cur = begin + 1; cur < end; cur++) {
+        int tmp = a[cur];
+        int sift = cur;
+        while (sift > begin && less(tmp, a[sift - 1])) {
+          a[sift] = a[sift - 1];
+          sift--;
+        }
+        a[sift] = tmp;
+        moved += cur - sift;
+        if (moved > PARTIAL_INSERTION_SORT_LIMIT) {
+          return false;
+        }
+      }
+      return true;
+    }
 
-      // continue to next column if no difference
-      if (res == 0) {
-        continue;
+    /**
+     * Partition the range around the pivot at begin, with the elements equal to the pivot on the
+     * right
+     *
+     * @return the position of the pivot, or its complement if the range was already partitioned
+     */
+    private int partitionRight(int begin, int end) throws SFException {
+      int pivot = a[begin];
+      int first = begin;
+      int last = end;
+
+      // the median of three guarantees that there is an element not less than the pivot at the end
+      while (less(a[++first], pivot)) {}
+      if (first - 1 == begin) {
+        while (first < last && !less(a[--last], pivot)) {}
+      } else {
+        while (!less(a[--last], pivot)) {}
+      }
+
+      boolean alreadyPartitioned = first >= last;
+      while (first < last) {
+        swap(first, last);
+        while (less(a[++first], pivot)) {}
+        while (!less(a[--last], pivot)) {}
+      }
+
+      int pivotPos = first - 1;
+      a[begin] = a[pivotPos];
+      a[pivotPos] = pivot;
+      return alreadyPartitioned ? ~pivotPos : pivotPos;
+    }
+
+    /**
+     * Partition the range around the pivot at begin, with the elements equal to the pivot on the
+     * left
+     *
+     * @return the position of the pivot
+     */
+    private int partitionLeft(int begin, int end) throws SFException {
+      int pivot = a[begin];
+      int first = begin;
+      int last = end;
+
+      while (less(pivot, a[--last])) {}
+      if (last + 1 == end) {
+        while (first < last && !less(pivot, a[++first])) {}
+      } else {
+        while (!less(pivot, a[++first])) {}
       }
 
-      return res;
+      while (first < last) {
+        swap(first, last);
+        while (less(pivot, a[--last])) {}
+        while (!less(pivot, a[++first])) {}
+      }
+
+      a[begin] = a[last];
+      a[last] = pivot;
+      return last;
+    }
+
+    private void heapSort(int begin, int end) throws SFException {
+      int size = end - begin;
+      for (int i = size / 2 - 1; i >= 0; i--) {
+        siftDown(begin, i, size);
+      }
+      for (int i = size - 1; i > 0; i--) {
+        swap(begin, begin + i);
+        siftDown(begin, 0, i);
+      }
     }
 
-    // all columns are the same
-    return 0;
+    private void siftDown(int begin, int node, int size) throws SFException {
+      int value = a[begin + node];
+      while (2 * node + 1 < size) {
+        int child = 2 * node + 1;
+        if (child + 1 < size && less(a[begin + child], a[begin + child + 1])) {
+          child++;
+        }
+        if (!less(value, a[begin + child])) {
+          break;
+        }
+        a[begin + node] = a[begin + child];
+        node = child;
+      }
+      a[begin + node] = value;
+    }
   }
 }
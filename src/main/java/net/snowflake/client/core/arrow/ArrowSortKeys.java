@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core.arrow;
+
+import static net.snowflake.client.core.arrow.AbstractArrowVectorConverter.FIELD_NAME_EPOCH;
+import static net.snowflake.client.core.arrow.AbstractArrowVectorConverter.FIELD_NAME_FRACTION;
+
+import io.netty.buffer.ArrowBuf;
+import java.util.List;
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.StructVector;
+
+/**
+ * Sort keys of the rows of an Arrow record batch, used by the client side sorting of the sort
+ * session property.
+ *
+ * <p>The values are compared where they are stored in the Arrow buffers, without converting them
+ * to Java objects:
+ *
+ * <ul>
+ *   <li>fixed-point numbers, real numbers, booleans, dates and times are compared by value. The
+ *       scale of a column is the same in all the record batches of a result, so the values of
+ *       scaled numbers and times are compared without scaling them
+ *   <li>timestamps are compared by their seconds since epoch and their fraction of a second
+ *   <li>text is compared by its UTF-8 bytes, in the same order as {@link String#compareTo}
+ *   <li>binary values are compared by their unsigned bytes
+ * </ul>
+ *
+ * <p>Values of any other vector are compared by their string value, which is formatted once for
+ * all the rows of the record batch. Nulls are larger than all the other values.
+ */
+public final class ArrowSortKeys {
+  // the string value may be formatted with the formatters of the result set, which are not thread
+  // safe
+  private static final Object FORMAT_LOCK = new Object();
+
+  private final ColumnKey[] columns;
+
+  /**
+   * @param vectors column vectors of a record batch
+   * @param converters converters of the vectors
+   */
+  public ArrowSortKeys(List<ValueVector> vectors, List<ArrowVectorConverter> converters) {
+    columns = new ColumnKey[vectors.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = createKey(vectors.get(i), converters.get(i));
+    }
+  }
+
+  private static ColumnKey createKey(ValueVector vector, ArrowVectorConverter converter) {
+    if (vector instanceof TinyIntVector) {
+      ArrowBuf data = ((TinyIntVector) vector).getDataBuffer();
+      return new LongKey(converter) {
+        @Override
+        long getLong(int index) {
+          return data.getByte(index);
+        }
+      };
+    } else if (vector instanceof SmallIntVector) {
+      ArrowBuf data = ((SmallIntVector) vector).getDataBuffer();
+      return new LongKey(converter) {
+        @Override
+        long getLong(int index) {
+          return data.getShort(index * SmallIntVector.TYPE_WIDTH);
+        }
+      };
+    } else if (vector instanceof IntVector) {
+      return new IntKey(converter, (IntVector) vector);
+    } else if (vector instanceof BigIntVector) {
+      return new BigIntKey(converter, (BigIntVector) vector);
+    } else if (vector instanceof DateDayVector) {
+      ArrowBuf data = ((DateDayVector) vector).getDataBuffer();
+      return new LongKey(converter) {
+        @Override
+        long getLong(int index) {
+          // days since epoch, stored as ints
+          return data.getInt(index * IntVector.TYPE_WIDTH);
+        }
+      };
+    } else if (vector instanceof BitVector) {
+      BitVector bitVector = (BitVector) vector;
+      return new LongKey(converter) {
+        @Override
+        long getLong(int index) {
+          return bitVector.get(index);
+        }
+      };
+    } else if (vector instanceof Float8Vector) {
+      ArrowBuf data = ((Float8Vector) vector).getDataBuffer();
+      return new LongKey(converter) {
+        @Override
+        long getLong(int index) {
+          // the bits of a negative double are flipped so that the signed order of the bits is the
+          // order of Double.compare
+          long bits =
+              Double.doubleToLongBits(data.getDouble(index * Float8Vector.TYPE_WIDTH));
+          return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+      };
+    } else if (vector instanceof DecimalVector) {
+      return new DecimalKey(converter, (DecimalVector) vector);
+    } else if (vector instanceof StructVector) {
+      StructVector structVector = (StructVector) vector;
+      BigIntVector epochs = structVector.getChild(FIELD_NAME_EPOCH, BigIntVector.class);
+      IntVector fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
+      if (epochs != null && fractions != null) {
+        return new TimestampKey(converter, epochs, fractions);
+      } else if (epochs != null) {
+        // the epoch is scaled to the precision of the timestamp, the time zone is not compared
+        return new BigIntKey(converter, epochs);
+      }
+    } else if (vector instanceof BaseVariableWidthVector) {
+      return new BytesKey(
+          converter, (BaseVariableWidthVector) vector, vector instanceof VarCharVector);
+    }
+    return new StringKey(converter, vector.getValueCount());
+  }
+
+  /** @return the number of columns */
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Get the values of a column as longs in the order of the column, if they can be compared that
+   * way
+   *
+   * @param column index of the column
+   * @param rowCount number of rows
+   * @param keys array filled with the value of each row, or with 0 for null values
+   * @return true if the keys were filled, false if the values cannot be compared as longs
+   */
+  boolean getLongKeys(int column, int rowCount, long[] keys) {
+    ColumnKey key = columns[column];
+    if (!(key instanceof LongKey)) {
+      return false;
+    }
+    LongKey longKey = (LongKey) key;
+    for (int i = 0; i < rowCount; i++) {
+      keys[i] = longKey.isNull(i) ? 0 : longKey.getLong(i);
+    }
+    return true;
+  }
+
+  /**
+   * @param column index of the column
+   * @param index index of the row
+   * @return true if the value is null
+   */
+  boolean isNull(int column, int index) {
+    return columns[column].isNull(index);
+  }
+
+  /**
+   * Compare two rows of the same record batch
+   *
+   * @param index1 index of the first row
+   * @param index2 index of the second row
+   * @return a negative integer, zero, or a positive integer as the first row is less than, equal
+   *     to, or greater than the second row
+   * @throws SFException if a value cannot be converted
+   */
+  int compare(int index1, int index2) throws SFException {
+    return compareRows(this, index1, this, index2);
+  }
+
+  /**
+   * Compare two rows, which may belong to different record batches of the same result, e.g. when
+   * sorted chunks are merged.
+   *
+   * @param keys1 sort keys of the record batch of the first row
+   * @param index1 index of the first row in its record batch
+   * @param keys2 sort keys of the record batch of the second row
+   * @param index2 index of the second row in its record batch
+   * @return a negative integer, zero, or a positive integer as the first row is less than, equal
+   *     to, or greater than the second row
+   * @throws SFException if a value cannot be converted
+   */
+  public static int compareRows(ArrowSortKeys keys1, int index1, ArrowSortKeys keys2, int index2)
+      throws SFException {
+    ColumnKey[] columns1 = keys1.columns;
+    ColumnKey[] columns2 = keys2.columns;
+    for (int colIdx = 0; colIdx < columns1.length; colIdx++) {
+      ColumnKey key1 = columns1[colIdx];
+      ColumnKey key2 = columns2[colIdx];
+      boolean null1 = key1.isNull(index1);
+      boolean null2 = key2.isNull(index2);
+      if (null1 || null2) {
+        // null is considered bigger than all values
+        if (null1 != null2) {
+          return null1 ? 1 : -1;
+        }
+        continue;
+      }
+
+      int res = key1.compare(index1, key2, index2);
+      if (res != 0) {
+        return res;
+      }
+    }
+
+    // all columns are the same
+    return 0;
+  }
+
+  /** Values of one column of a record batch */
+  private abstract static class ColumnKey {
+    final ArrowVectorConverter converter;
+
+    ColumnKey(ArrowVectorConverter converter) {
+      this.converter = converter;
+    }
+
+    final boolean isNull(int index) {
+      return converter.isNull(index);
+    }
+
+    /**
+     * Compare two values that are not null. The other key belongs to the same column, but its
+     * vector may have a different type, e.g. an integer column stored in an IntVector in one chunk
+     * and a BigIntVector in another one.
+     */
+    abstract int compare(int index, ColumnKey other, int otherIndex) throws SFException;
+
+    /** Compare two values that are not null by their string value */
+    final int compareStrings(int index, ColumnKey other, int otherIndex) throws SFException {
+      return getString(index).compareTo(other.getString(otherIndex));
+    }
+
+    /** @return the string value, only needed when a column has different vector types */
+    String getString(int index) throws SFException {
+      synchronized (FORMAT_LOCK) {
+        return converter.toString(index);
+      }
+    }
+  }
+
+  /** Values that can be compared as 128 bit integers, the high bits being signed */
+  private abstract static class NumberKey extends ColumnKey {
+    NumberKey(ArrowVectorConverter converter) {
+      super(converter);
+    }
+
+    abstract long getHigh(int index);
+
+    abstract long getLow(int index);
+
+    @Override
+    int compare(int index, ColumnKey other, int otherIndex) throws SFException {
+      if (!(other instanceof NumberKey)) {
+        return compareStrings(index, other, otherIndex);
+      }
+      NumberKey number = (NumberKey) other;
+      int res = Long.compare(getHigh(index), number.getHigh(otherIndex));
+      return res != 0 ? res : Long.compareUnsigned(getLow(index), number.getLow(otherIndex));
+    }
+  }
+
+  /** Values that can be compared as longs */
+  private abstract static class LongKey extends NumberKey {
+    LongKey(ArrowVectorConverter converter) {
+      super(converter);
+    }
+
+    abstract long getLong(int index);
+
+    @Override
+    final long getHigh(int index) {
+      return getLong(index) >> 63;
+    }
+
+    @Override
+    final long getLow(int index) {
+      return getLong(index);
+    }
+
+    @Override
+    final int compare(int index, ColumnKey other, int otherIndex) throws SFException {
+      if (other instanceof LongKey) {
+        return Long.compare(getLong(index), ((LongKey) other).getLong(otherIndex));
+      }
+      return super.compare(index, other, otherIndex);
+    }
+  }
+
+  private static final class IntKey extends LongKey {
+    private final ArrowBuf data;
+
+    IntKey(ArrowVectorConverter converter, IntVector vector) {
+      super(converter);
+      data = vector.getDataBuffer();
+    }
+
+    @Override
+    long getLong(int index) {
+      return data.getInt(index * IntVector.TYPE_WIDTH);
+    }
+  }
+
+  private static final class BigIntKey extends LongKey {
+    private final ArrowBuf data;
+
+    BigIntKey(ArrowVectorConverter converter, BigIntVector vector) {
+      super(converter);
+      data = vector.getDataBuffer();
+    }
+
+    @Override
+    long getLong(int index) {
+      return data.getLong(index * BigIntVector.TYPE_WIDTH);
+    }
+  }
+
+  /** Decimals are 128 bit little-endian two's complement integers */
+  private static final class DecimalKey extends NumberKey {
+    private final ArrowBuf data;
+
+    DecimalKey(ArrowVectorConverter converter, DecimalVector vector) {
+      super(converter);
+      data = vector.getDataBuffer();
+    }
+
+    @Override
+    long getHigh(int index) {
+      return data.getLong(index * DecimalVector.TYPE_WIDTH + 8);
+    }
+
+    @Override
+    long getLow(int index) {
+      return data.getLong(index * DecimalVector.TYPE_WIDTH);
+    }
+  }
+
+  /** Timestamps stored as seconds since epoch and nanoseconds */
+  private static final class TimestampKey extends NumberKey {
+    private final ArrowBuf epochs;
+
+    private final ArrowBuf fractions;
+
+    TimestampKey(ArrowVectorConverter converter, BigIntVector epochs, IntVector fractions) {
+      super(converter);
+      this.epochs = epochs.getDataBuffer();
+      this.fractions = fractions.getDataBuffer();
+    }
+
+    @Override
+    long getHigh(int index) {
+      return epochs.getLong(index * BigIntVector.TYPE_WIDTH);
+    }
+
+    @Override
+    long getLow(int index) {
+      return fractions.getInt(index * IntVector.TYPE_WIDTH);
+    }
+  }
+
+  /** Text or binary values, compared byte by byte */
+  private static final class BytesKey extends ColumnKey {
+    private final ArrowBuf offsets;
+
+    private final ArrowBuf data;
+
+    private final boolean utf8;
+
+    BytesKey(ArrowVectorConverter converter, BaseVariableWidthVector vector, boolean utf8) {
+      super(converter);
+      this.offsets = vector.getOffsetBuffer();
+      this.data = vector.getDataBuffer();
+      this.utf8 = utf8;
+    }
+
+    @Override
+    int compare(int index, ColumnKey other, int otherIndex) throws SFException {
+      if (!(other instanceof BytesKey)) {
+        return compareStrings(index, other, otherIndex);
+      }
+      BytesKey bytes = (BytesKey) other;
+      int start1 = getOffset(index);
+      int start2 = bytes.getOffset(otherIndex);
+      return compareBytes(
+          data,
+          start1,
+          getOffset(index + 1) - start1,
+          bytes.data,
+          start2,
+          bytes.getOffset(otherIndex + 1) - start2,
+          utf8);
+    }
+
+    private int getOffset(int index) {
+      return offsets.getInt(index * BaseVariableWidthVector.OFFSET_WIDTH);
+    }
+  }
+
+  /** Values compared by their string value */
+  private static final class StringKey extends ColumnKey {
+    private final int valueCount;
+
+    // formatted with one lock for all the rows, so that the comparisons do not wait for each other
+    private volatile String[] strings;
+
+    StringKey(ArrowVectorConverter converter, int valueCount) {
+      super(converter);
+      this.valueCount = valueCount;
+    }
+
+    @Override
+    String getString(int index) throws SFException {
+      String[] values = strings;
+      if (values == null) {
+        values = formatStrings();
+      }
+      return values[index];
+    }
+
+    private String[] formatStrings() throws SFException {
+      synchronized (FORMAT_LOCK) {
+        if (strings == null) {
+          String[] values = new String[valueCount];
+          for (int i = 0; i < valueCount; i++) {
+            if (!converter.isNull(i)) {
+              values[i] = converter.toString(i);
+            }
+          }
+          strings = values;
+        }
+        return strings;
+      }
+    }
+
+    @Override
+    int compare(int index, ColumnKey other, int otherIndex) throws SFException {
+      return compareStrings(index, other, otherIndex);
+    }
+  }
+
+  /**
+   * Compare two byte sequences in unsigned lexicographical order, eight bytes at a time
+   *
+   * @param utf8 true if the bytes are UTF-8 text, to compare it in the UTF-16 order of {@link
+   *     String#compareTo}
+   */
+  static int compareBytes(
+      ArrowBuf data1,
+      int start1,
+      int length1,
+      ArrowBuf data2,
+      int start2,
+      int length2,
+      boolean utf8) {
+    int length = Math.min(length1, length2);
+    int i = 0;
+    for (; i + 8 <= length; i += 8) {
+      long word1 = data1.getLong(start1 + i);
+      long word2 = data2.getLong(start2 + i);
+      if (word1 != word2) {
+        // the buffers are little-endian, the first different byte is the lowest one
+        i += Long.numberOfTrailingZeros(word1 ^ word2) >>> 3;
+        return compareByte(data1.getByte(start1 + i), data2.getByte(start2 + i), utf8);
+      }
+    }
+    for (; i < length; i++) {
+      byte b1 = data1.getByte(start1 + i);
+      byte b2 = data2.getByte(start2 + i);
+      if (b1 != b2) {
+        return compareByte(b1, b2, utf8);
+      }
+    }
+    return Integer.compare(length1, length2);
+  }
+
+  /**
+   * Compare the first different bytes of two byte sequences. In UTF-8, the characters from U+E000
+   * to U+FFFF start with 0xEE or 0xEF and the supplementary characters with 0xF0 to 0xF4, but in
+   * UTF-16 the supplementary characters are surrogate pairs, which are smaller than U+E000.
+   */
+  static int compareByte(byte b1, byte b2, boolean utf8) {
+    int v1 = b1 & 0xff;
+    int v2 = b2 & 0xff;
+    if (utf8 && v1 >= 0xee && v2 >= 0xee) {
+      v1 = v1 <= 0xef ? v1 + 0x10 : v1;
+      v2 = v2 <= 0xef ? v2 + 0x10 : v2;
+    }
+    return v1 - v2;
+  }
+}
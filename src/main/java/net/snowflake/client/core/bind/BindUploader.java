@@ -18,6 +18,7 @@ import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -157,7 +158,7 @@ public class BindUploader implements Closeable {
    * @return BindUploader instance
    * @throws BindException if temporary directory could not be created
    */
-  public static synchronized BindUploader newInstance(SFSession session, String stageDir)
+  public static BindUploader newInstance(SFSession session, String stageDir)
       throws BindException {
     try {
       Path bindDir = Files.createTempDirectory(PREFIX);
@@ -190,8 +191,8 @@ public class BindUploader implements Closeable {
    */
   private void serializeBinds(Map<String, ParameterBindingDTO> bindValues) throws BindException {
     List<ColumnTypeDataPair> columns = getColumnValues(bindValues);
-    List<String[]> rows = buildRows(columns);
-    writeRowsToCSV(rows);
+    int numRows = getRowCount(columns);
+    writeRowsToCSV(columns, numRows);
   }
 
   /**
@@ -219,6 +220,11 @@ public class BindUploader implements Closeable {
       try {
         String type = value.getType();
         List<?> list = (List<?>) value.getValue();
+        if (list instanceof LongBindColumn) {
+          // written to the CSV file straight from the long values
+          columns.add(i - 1, new ColumnTypeDataPair(type, (LongBindColumn) list));
+          continue;
+        }
         List<String> convertedList = new ArrayList<>(list.size());
         if ("TIMESTAMP_LTZ".equals(type) || "TIMESTAMP_NTZ".equals(type)) {
           for (Object e : list) {
@@ -243,15 +249,13 @@ public class BindUploader implements Closeable {
   }
 
   /**
-   * Transpose a list of columns and their values to a list of rows
+   * Check that all columns have the same number of values
    *
-   * @param columns the list of columns to transpose
-   * @return list of rows
+   * @param columns the list of columns to check
+   * @return number of rows
    * @throws BindException if columns improperly formed
    */
-  private List<String[]> buildRows(List<ColumnTypeDataPair> columns) throws BindException {
-    List<String[]> rows = new ArrayList<>();
-
+  private int getRowCount(List<ColumnTypeDataPair> columns) throws BindException {
     int numColumns = columns.size();
     // columns should have binds
     if (columns.get(0).data.isEmpty()) {
@@ -271,38 +275,33 @@ public class BindUploader implements Closeable {
       }
     }
 
-    for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-      String[] row = new String[numColumns];
-      for (int colIdx = 0; colIdx < numColumns; colIdx++) {
-        row[colIdx] = columns.get(colIdx).data.get(rowIdx);
-      }
-      rows.add(row);
-    }
-
-    return rows;
+    return numRows;
   }
 
   /**
-   * Write the list of rows to compressed CSV files in the temporary directory
+   * Write the rows of the columns to compressed CSV files in the temporary directory
    *
-   * @param rows the list of rows to write out to a file
+   * @param columns the columns to write out, read row by row
+   * @param numRows number of rows in every column
    * @throws BindException if exception occurs while writing rows out
    */
-  private void writeRowsToCSV(List<String[]> rows) throws BindException {
+  private void writeRowsToCSV(List<ColumnTypeDataPair> columns, int numRows)
+      throws BindException {
     int numBytes;
     int rowNum = 0;
     int fileCount = 0;
+    CSVRecordBuffer record = new CSVRecordBuffer();
 
-    while (rowNum < rows.size()) {
+    while (rowNum < numRows) {
       File file = getFile(++fileCount);
 
       try (OutputStream out = openFile(file)) {
         // until we reach the last row or the file is too big, write to the file
         numBytes = 0;
-        while (numBytes < fileSize && rowNum < rows.size()) {
-          byte[] csv = createCSVRecord(rows.get(rowNum));
-          numBytes += csv.length;
-          out.write(csv);
+        while (numBytes < fileSize && rowNum < numRows) {
+          createCSVRecord(columns, rowNum, record);
+          numBytes += record.length;
+          out.write(record.bytes, 0, record.length);
           rowNum++;
         }
       } catch (IOException ex) {
@@ -341,22 +340,176 @@ public class BindUploader implements Closeable {
   }
 
   /**
-   * Serialize row to a csv Duplicated from StreamLoader class
+   * Serialize row to a csv, escaping strings like the StreamLoader class
    *
-   * @param data the row to create a csv record from
-   * @return serialized csv for row
+   * @param columns the columns to take the row from
+   * @param rowIdx index of the row
+   * @param record buffer to write the serialized csv for row to
    */
-  private byte[] createCSVRecord(String[] data) {
-    StringBuilder sb = new StringBuilder(1024);
-
-    for (int i = 0; i < data.length; ++i) {
+  private void createCSVRecord(
+      List<ColumnTypeDataPair> columns, int rowIdx, CSVRecordBuffer record) {
+    record.length = 0;
+    for (int i = 0; i < columns.size(); ++i) {
       if (i > 0) {
-        sb.append(',');
+        record.append((byte) ',');
+      }
+      ColumnTypeDataPair column = columns.get(i);
+      if (column.data instanceof LongBindColumn) {
+        appendLongBind(column.type, (LongBindColumn) column.data, rowIdx, record);
+      } else {
+        record.append(SnowflakeType.escapeForCSV(column.data.get(rowIdx)).getBytes(UTF_8));
+      }
+    }
+    record.append((byte) '\n');
+  }
+
+  /**
+   * Write a value of a LongBindColumn in the same form as the string conversion in
+   * getColumnValues. Dates and timestamps are formatted directly in the proleptic Gregorian
+   * calendar, values before the Gregorian cutover or after year 9999 go through the date formats
+   * which use the Julian calendar before the cutover.
+   */
+  private void appendLongBind(
+      String type, LongBindColumn column, int rowIdx, CSVRecordBuffer record) {
+    if (column.isNull(rowIdx)) {
+      return; // null => an empty string without quotes
+    }
+    long value = column.getLong(rowIdx);
+    if ("DATE".equals(type)) {
+      if (!record.appendDate(value)) {
+        record.append(synchronizedDateFormat(Long.toString(value)).getBytes(UTF_8));
+      }
+    } else if ("TIMESTAMP_LTZ".equals(type) || "TIMESTAMP_NTZ".equals(type)) {
+      if (!record.appendTimestamp(value)) {
+        record.append(synchronizedTimestampFormat(Long.toString(value)).getBytes(UTF_8));
+      }
+    } else {
+      record.appendLong(value);
+    }
+  }
+
+  /** Growable buffer holding one CSV record, reused for all rows of an upload */
+  static final class CSVRecordBuffer {
+    // 1582-10-15T00:00:00Z, the first day of the Gregorian calendar
+    private static final long GREGORIAN_CUTOVER_SECONDS = -12219292800L;
+
+    // 10000-01-01T00:00:00Z
+    private static final long YEAR_10000_SECONDS = 253402300800L;
+
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private static final byte[] TIMESTAMP_SUFFIX = " +00:00".getBytes(UTF_8);
+
+    byte[] bytes = new byte[1024];
+
+    int length;
+
+    private void ensureCapacity(int extra) {
+      if (length + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+      }
+    }
+
+    void append(byte b) {
+      ensureCapacity(1);
+      bytes[length++] = b;
+    }
+
+    void append(byte[] value) {
+      ensureCapacity(value.length);
+      System.arraycopy(value, 0, bytes, length, value.length);
+      length += value.length;
+    }
+
+    void appendLong(long value) {
+      if (value == Long.MIN_VALUE) {
+        append(Long.toString(value).getBytes(UTF_8));
+        return;
+      }
+      ensureCapacity(20);
+      if (value < 0) {
+        bytes[length++] = '-';
+        value = -value;
+      }
+      int start = length;
+      do {
+        bytes[length++] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value != 0);
+      // digits were written from the least significant one
+      for (int i = start, j = length - 1; i < j; i++, j--) {
+        byte tmp = bytes[i];
+        bytes[i] = bytes[j];
+        bytes[j] = tmp;
       }
-      sb.append(SnowflakeType.escapeForCSV(data[i]));
     }
-    sb.append('\n');
-    return sb.toString().getBytes(UTF_8);
+
+    private void appendDigits(long value, int width) {
+      for (int i = length + width - 1; i >= length; i--) {
+        bytes[i] = (byte) ('0' + value % 10);
+        value /= 10;
+      }
+      length += width;
+    }
+
+    /** Append yyyy-MM-dd of the day, which must be between the cutover and year 9999 */
+    private void appendDay(long epochDay) {
+      // civil date from days since 1970-01-01, shifted to eras of 400 years starting in March
+      long days = epochDay + 719468;
+      long era = Math.floorDiv(days, 146097);
+      long dayOfEra = days - era * 146097;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      long shiftedMonth = (5 * dayOfYear + 2) / 153;
+      long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+      long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+      long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+      ensureCapacity(10);
+      appendDigits(year, 4);
+      bytes[length++] = '-';
+      appendDigits(month, 2);
+      bytes[length++] = '-';
+      appendDigits(day, 2);
+    }
+
+    /**
+     * @param epochMillis DATE bind value
+     * @return false if the date is out of the range that is formatted here
+     */
+    boolean appendDate(long epochMillis) {
+      long seconds = Math.floorDiv(epochMillis, 1000L);
+      if (seconds < GREGORIAN_CUTOVER_SECONDS || seconds >= YEAR_10000_SECONDS) {
+        return false;
+      }
+      appendDay(Math.floorDiv(seconds, SECONDS_PER_DAY));
+      return true;
+    }
+
+    /**
+     * @param epochNanos TIMESTAMP_LTZ or TIMESTAMP_NTZ bind value
+     * @return false if the timestamp is out of the range that is formatted here
+     */
+    boolean appendTimestamp(long epochNanos) {
+      long seconds = Math.floorDiv(epochNanos, 1000000000L);
+      long nanos = Math.floorMod(epochNanos, 1000000000L);
+      if (seconds < GREGORIAN_CUTOVER_SECONDS || seconds >= YEAR_10000_SECONDS) {
+        return false;
+      }
+      long secondOfDay = Math.floorMod(seconds, SECONDS_PER_DAY);
+      appendDay(Math.floorDiv(seconds, SECONDS_PER_DAY));
+      ensureCapacity(19 + TIMESTAMP_SUFFIX.length);
+      bytes[length++] = ' ';
+      appendDigits(secondOfDay / 3600, 2);
+      bytes[length++] = ':';
+      appendDigits(secondOfDay / 60 % 60, 2);
+      bytes[length++] = ':';
+      appendDigits(secondOfDay % 60, 2);
+      bytes[length++] = '.';
+      appendDigits(nanos, 9);
+      append(TIMESTAMP_SUFFIX);
+      return true;
+    }
   }
 
   /**
@@ -417,7 +570,8 @@ public class BindUploader implements Closeable {
     if (session.getArrayBindStage() != null) {
       return;
     }
-    synchronized (session) {
+    session.getArrayBindStageLock().lock();
+    try {
       // another thread may have created the session by the time we enter this block
       if (session.getArrayBindStage() == null) {
         try {
@@ -434,6 +588,8 @@ public class BindUploader implements Closeable {
               BindException.Type.UPLOAD);
         }
       }
+    } finally {
+      session.getArrayBindStageLock().unlock();
     }
   }
 
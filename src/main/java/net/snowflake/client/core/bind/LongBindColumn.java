@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.bind;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+/**
+ * Values of one array bind column whose bind representation is an integer: whole FIXED numbers,
+ * DATE as epoch milliseconds and TIMESTAMP_LTZ/NTZ as epoch nanoseconds.
+ *
+ * <p>The values are kept in a long array and a null bitmap instead of a String per value. The list
+ * view formats a value only when it is read, so the JSON bind path works unchanged, while {@link
+ * BindUploader} writes the values to the CSV files without creating strings.
+ */
+public final class LongBindColumn extends AbstractList<String> implements RandomAccess {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final String type;
+
+  private long[] values = new long[INITIAL_CAPACITY];
+
+  private final BitSet nulls = new BitSet();
+
+  private int size;
+
+  /** @param type Snowflake type of the column, see {@link #isSupportedType(String)} */
+  public LongBindColumn(String type) {
+    this.type = type;
+  }
+
+  /**
+   * @param type Snowflake type name of a bind
+   * @return true if the binds of the type can be stored in a LongBindColumn
+   */
+  public static boolean isSupportedType(String type) {
+    return "FIXED".equals(type)
+        || "DATE".equals(type)
+        || "TIMESTAMP_LTZ".equals(type)
+        || "TIMESTAMP_NTZ".equals(type);
+  }
+
+  /** @return Snowflake type of the column */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Add a bind value if it has an exact long representation. A value that does not, like a
+   * BigDecimal with a fraction, leaves the column unchanged so that the caller can copy the column
+   * into a list of strings instead.
+   *
+   * @param value bind value as the prepared statement formats it, or null
+   * @return true if the value was added
+   */
+  public boolean tryAdd(String value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    if (value == null) {
+      nulls.set(size++);
+      return true;
+    }
+    if (!parseCanonicalLong(value)) {
+      return false;
+    }
+    size++;
+    return true;
+  }
+
+  /**
+   * Parse a value that Long.toString would produce into values[size], rejecting other forms like
+   * leading zeros or a plus sign so that reading the value back gives the original string.
+   */
+  private boolean parseCanonicalLong(String value) {
+    int length = value.length();
+    boolean negative = length > 0 && value.charAt(0) == '-';
+    int start = negative ? 1 : 0;
+    if (length == start
+        || length - start > 19
+        || (value.charAt(start) == '0' && (length - start > 1 || negative))) {
+      return false;
+    }
+    // accumulate negatively to cover Long.MIN_VALUE
+    long result = 0;
+    for (int i = start; i < length; i++) {
+      int digit = value.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || result < (Long.MIN_VALUE + digit) / 10) {
+        return false;
+      }
+      result = result * 10 - digit;
+    }
+    if (!negative) {
+      if (result == Long.MIN_VALUE) {
+        return false;
+      }
+      result = -result;
+    }
+    values[size] = result;
+    return true;
+  }
+
+  @Override
+  public boolean add(String value) {
+    if (!tryAdd(value)) {
+      throw new IllegalArgumentException("Not an integer bind value: " + value);
+    }
+    return true;
+  }
+
+  /**
+   * @param index row index, starting from 0
+   * @return true if the bind value is null
+   */
+  public boolean isNull(int index) {
+    checkIndex(index);
+    return nulls.get(index);
+  }
+
+  /**
+   * @param index row index, starting from 0
+   * @return the bind value, 0 if it is null
+   */
+  public long getLong(int index) {
+    checkIndex(index);
+    return nulls.get(index) ? 0 : values[index];
+  }
+
+  @Override
+  public String get(int index) {
+    checkIndex(index);
+    return nulls.get(index) ? null : Long.toString(values[index]);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
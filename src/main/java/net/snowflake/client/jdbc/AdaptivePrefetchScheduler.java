@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+/**
+ * Decides how many result chunks the chunk downloader keeps in flight.
+ *
+ * <p>The scheduler keeps an exponentially weighted moving average of the time the download threads
+ * need to fetch and parse a chunk and of the time the consumer spends draining a chunk. By Little's
+ * law the number of chunks that must be in flight for the consumer to never wait is roughly the
+ * fetch time divided by the drain time, plus one chunk that is being consumed. Every time the
+ * consumer still stalls, the target is pushed up by one slot; the boost decays once the consumer
+ * is fed again. The target never exceeds the configured prefetch slots, so the memory bound of the
+ * downloader is unchanged.
+ *
+ * <p>This class is thread safe: fetch statistics are recorded by the download threads and drain
+ * statistics by the consumer thread.
+ */
+class AdaptivePrefetchScheduler {
+  // weight of the newest sample in the moving averages
+  private static final double SMOOTHING_FACTOR = 0.3;
+
+  // lower bound of the in-flight target
+  private final int minSlots;
+
+  // upper bound of the in-flight target, i.e. the configured prefetch slots
+  private final int maxSlots;
+
+  // moving average of millis needed to download and parse one chunk
+  private double avgFetchMillis = -1;
+
+  // moving average of millis the consumer spends on one chunk
+  private double avgDrainMillis = -1;
+
+  // extra slots granted because the consumer had to wait for a chunk
+  private int stallBoost = 0;
+
+  /**
+   * @param minSlots minimum number of chunks to keep in flight
+   * @param maxSlots maximum number of chunks to keep in flight
+   */
+  AdaptivePrefetchScheduler(int minSlots, int maxSlots) {
+    this.maxSlots = Math.max(1, maxSlots);
+    this.minSlots = Math.max(1, Math.min(minSlots, this.maxSlots));
+  }
+
+  /**
+   * Record the time a download thread spent on one chunk
+   *
+   * @param downloadMillis millis spent receiving the chunk
+   * @param parseMillis millis spent parsing the chunk
+   */
+  synchronized void recordChunkFetched(long downloadMillis, long parseMillis) {
+    avgFetchMillis = smooth(avgFetchMillis, downloadMillis + parseMillis);
+  }
+
+  /**
+   * Record the time the consumer spent on one chunk, excluding the time it waited for it
+   *
+   * @param drainMillis millis between handing out two consecutive chunks
+   */
+  synchronized void recordChunkDrained(long drainMillis) {
+    avgDrainMillis = smooth(avgDrainMillis, drainMillis);
+    if (stallBoost > 0) {
+      stallBoost--;
+    }
+  }
+
+  /** Record that the consumer had to wait because the next chunk was not ready yet */
+  synchronized void recordConsumerStall() {
+    if (getTargetInFlightInternal() < maxSlots) {
+      stallBoost++;
+    }
+  }
+
+  /** @return the number of chunks that should be downloading or waiting to be consumed */
+  synchronized int getTargetInFlight() {
+    return getTargetInFlightInternal();
+  }
+
+  private int getTargetInFlightInternal() {
+    if (avgFetchMillis < 0 || avgDrainMillis < 0) {
+      // no measurement yet, behave like a fixed prefetch window
+      return maxSlots;
+    }
+    // avoid dividing by zero for consumers that drain chunks instantly
+    double drainMillis = Math.max(avgDrainMillis, 1.0);
+    long needed = (long) Math.ceil(avgFetchMillis / drainMillis) + 1 + stallBoost;
+    return (int) Math.max(minSlots, Math.min(maxSlots, needed));
+  }
+
+  private static double smooth(double average, long sample) {
+    return average < 0 ? sample : average + SMOOTHING_FACTOR * (sample - average);
+  }
+}
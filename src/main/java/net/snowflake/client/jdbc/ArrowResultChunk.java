@@ -57,10 +57,45 @@ public class ArrowResultChunk extends SnowflakeResultChunk {
     this.session = session;
   }
 
-  private void addBatchData(List<ValueVector> batch) {
+  void addBatchData(List<ValueVector> batch) {
     batchOfVectors.add(batch);
   }
 
+  /** @return number of record batches in this chunk */
+  int getBatchCount() {
+    return batchOfVectors.size();
+  }
+
+  /**
+   * @param index index of the record batch
+   * @return column vectors of the record batch
+   */
+  List<ValueVector> getBatch(int index) {
+    return batchOfVectors.get(index);
+  }
+
+  /**
+   * Move the record batches of this chunk to a new chunk without copying them, so that they are
+   * kept once this chunk is freed by the chunk downloader
+   *
+   * @return chunk owning the data of this chunk
+   */
+  ArrowResultChunk transferBatches() {
+    ArrowResultChunk target =
+        new ArrowResultChunk(
+            getUrl(), getRowCount(), getColCount(), getUncompressedSize(), rootAllocator, session);
+    for (List<ValueVector> batch : batchOfVectors) {
+      List<ValueVector> transferred = new ArrayList<>(batch.size());
+      for (ValueVector vector : batch) {
+        TransferPair t = vector.getTransferPair(rootAllocator);
+        t.transfer();
+        transferred.add(t.getTo());
+      }
+      target.addBatchData(transferred);
+    }
+    return target;
+  }
+
   /**
    * Read an inputStream of arrow data bytes and load them into java vectors of value. Note, there
    * is no copy of data involved once data is loaded into memory. a.k.a ArrowStreamReader originally
@@ -145,7 +180,7 @@ public class ArrowResultChunk extends SnowflakeResultChunk {
    * @param vectors list of arrow vectors
    * @return list of converters on top of each converters
    */
-  private static List<ArrowVectorConverter> initConverters(
+  static List<ArrowVectorConverter> initConverters(
       List<ValueVector> vectors, DataConversionContext context) throws SnowflakeSQLException {
     List<ArrowVectorConverter> converters = new ArrayList<>();
     for (int i = 0; i < vectors.size(); i++) {
@@ -406,6 +441,30 @@ public class ArrowResultChunk extends SnowflakeResultChunk {
       return false;
     }
 
+    /**
+     * Skip to the end of the next record batch and return it as a whole
+     *
+     * @return the next record batch, or null if the chunk has no more record batches
+     */
+    public SnowflakeRecordBatch nextRecordBatch() throws SnowflakeSQLException {
+      if (resultChunk.sortFirstResultChunkEnabled()) {
+        throw new SnowflakeSQLException(
+            ErrorCode.FEATURE_UNSUPPORTED, "record batches of a sorted result");
+      }
+      if (currentRecordBatchIndex + 1 >= totalRecordBatch) {
+        // move past the last row so that the iterator is exhausted
+        currentRecordBatchIndex = totalRecordBatch;
+        currentRowInRecordBatch = rowCountInCurrentRecordBatch;
+        return null;
+      }
+      currentRecordBatchIndex++;
+      List<ValueVector> vectors = resultChunk.batchOfVectors.get(currentRecordBatchIndex);
+      this.rowCountInCurrentRecordBatch = vectors.get(0).getValueCount();
+      this.currentRowInRecordBatch = rowCountInCurrentRecordBatch - 1;
+      currentConverters = initConverters(vectors, dataConversionContext);
+      return new SnowflakeRecordBatch(vectors);
+    }
+
     public boolean isLast() {
       return currentRecordBatchIndex + 1 == totalRecordBatch
           && currentRowInRecordBatch + 1 == rowCountInCurrentRecordBatch;
@@ -428,6 +487,23 @@ public class ArrowResultChunk extends SnowflakeResultChunk {
       return currentConverters.get(columnIdx);
     }
 
+    /** @return converters of the current record batch, replaced when the batch changes */
+    public List<ArrowVectorConverter> getCurrentConverters() {
+      return currentConverters;
+    }
+
+    /**
+     * @param columnIdx column index, starting from 0
+     * @return view of the column in the current record batch
+     */
+    public SnowflakeColumnVector getCurrentColumn(int columnIdx) throws SFException {
+      if (columnIdx < 0 || columnIdx >= currentConverters.size()) {
+        throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIdx + 1);
+      }
+      return new SnowflakeColumnVector(
+          resultChunk.batchOfVectors.get(currentRecordBatchIndex).get(columnIdx));
+    }
+
     /** @return index of row in current record batch */
     public int getCurrentRowInRecordBatch() {
       if (resultChunk.sortFirstResultChunkEnabled() && currentRecordBatchIndex == 0) {
@@ -442,7 +518,7 @@ public class ArrowResultChunk extends SnowflakeResultChunk {
    * merge arrow result chunk with more than one batches into one record batch (Only used for the
    * first chunk when client side sorting is required)
    */
-  private void mergeBatchesIntoOne() throws SnowflakeSQLException {
+  void mergeBatchesIntoOne() throws SnowflakeSQLException {
     try {
       List<ValueVector> first = batchOfVectors.get(0);
       for (int i = 1; i < batchOfVectors.size(); i++) {
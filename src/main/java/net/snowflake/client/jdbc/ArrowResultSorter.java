@@ -0,0 +1,725 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import net.snowflake.client.core.ChunkDownloader;
+import net.snowflake.client.core.DataConversionContext;
+import net.snowflake.client.core.SFException;
+import net.snowflake.client.core.SFSession;
+import net.snowflake.client.core.arrow.ArrowResultChunkIndexSorter;
+import net.snowflake.client.core.arrow.ArrowSortKeys;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+import net.snowflake.common.core.SqlState;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
+
+/**
+ * Sorts all the chunks of an Arrow result for the client side sorting of the sort session
+ * property.
+ *
+ * <p>Each chunk is moved out of the chunk downloader as soon as it is downloaded, without copying,
+ * and sorted on a worker thread while the next chunks are downloaded. No more chunks than worker
+ * threads are taken before they are sorted, so that the chunks waiting to be sorted, which are no
+ * longer counted by the chunk downloader, stay bounded. A sorted chunk is a sorted
+ * run: it is kept in memory as long as all runs in memory fit in half of the memory limit,
+ * otherwise it is written in sorted order to an Arrow IPC file in a temporary directory. The runs
+ * in memory are counted in the memory usage of the chunk downloaders, so that the sort and the
+ * downloads of all result sets stay within the memory limit together. Once all chunks are
+ * sorted, the runs are merged with a k-way merge into chunks of the sorted result, which are read
+ * like the chunks of an unsorted result. When there are too many runs on disk to read them all at
+ * once, groups of them are first merged into longer runs on disk.
+ */
+public class ArrowResultSorter {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(ArrowResultSorter.class);
+
+  /** number of rows in each chunk of the sorted result and in each record batch on disk */
+  static final int BATCH_ROW_COUNT = 4096;
+
+  /** maximum number of runs on disk that are read at the same time */
+  static final int MAX_MERGE_WIDTH = 64;
+
+  // the values are compared in the Arrow buffers, so several chunks can be sorted at the same time
+  private static final int SORT_THREADS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  private static final String SPILL_DIR_PREFIX = "sf_sort_";
+
+  private final DataConversionContext context;
+
+  private final RootAllocator rootAllocator;
+
+  private final SFSession session;
+
+  // memory limit of the result set, the runs in memory take up to half of it
+  private final long memoryLimit;
+
+  // bytes of the runs in memory
+  private final AtomicLong memoryUsage = new AtomicLong();
+
+  // first chunk of the result, owned by the sorter until it is sorted
+  private ArrowResultChunk firstChunk;
+
+  // fields of the columns, set by the first run
+  private List<Field> fields;
+
+  private Path spillDirectory;
+
+  private final List<Run> runs = new ArrayList<>();
+
+  private RunHeap heap;
+
+  private int spilledRunCount = 0;
+
+  // set when the sort failed, the chunks that are not sorted yet are only freed
+  private volatile boolean aborted = false;
+
+  /**
+   * @param firstChunk first chunk of the result, freed by the sorter, or null if it has no rows
+   * @param context formatters of the result set, used to compare values
+   * @param rootAllocator allocator of the result set
+   * @param memoryLimit memory limit of the result set, see {@link
+   *     SnowflakeChunkDownloader#tryReserveMemory(long, long)}
+   * @param session session of the result set, may be null
+   */
+  public ArrowResultSorter(
+      ArrowResultChunk firstChunk,
+      DataConversionContext context,
+      RootAllocator rootAllocator,
+      long memoryLimit,
+      SFSession session) {
+    this.firstChunk = firstChunk;
+    this.context = context;
+    this.rootAllocator = rootAllocator;
+    this.memoryLimit = memoryLimit;
+    this.session = session;
+  }
+
+  /** @return true once all chunks are sorted */
+  public boolean isSorted() {
+    return heap != null;
+  }
+
+  /** @return true if the sorted result has rows that were not returned yet */
+  public boolean hasNext() {
+    return heap != null && !heap.isEmpty();
+  }
+
+  /**
+   * Take all the chunks of the chunk downloader and sort them. Blocks until every chunk is
+   * downloaded and sorted.
+   *
+   * @param chunkDownloader downloader of the chunks after the first chunk
+   * @param chunkCount number of chunks of the downloader
+   * @throws SnowflakeSQLException if a chunk could not be downloaded or sorted
+   */
+  public void sort(ChunkDownloader chunkDownloader, long chunkCount)
+      throws SnowflakeSQLException {
+    ExecutorService executor =
+        SnowflakeUtil.createDefaultExecutorService("arrow-sort-worker-", SORT_THREADS);
+    // chunks taken from the downloader and not sorted yet
+    Semaphore unsorted = new Semaphore(SORT_THREADS);
+    List<Future<Run>> sortedChunks = new ArrayList<>();
+    try {
+      if (firstChunk != null) {
+        final ArrowResultChunk first = firstChunk;
+        firstChunk = null;
+        unsorted.acquire();
+        sortedChunks.add(submitSortChunk(executor, unsorted, first));
+      }
+
+      for (long i = 0; i < chunkCount; i++) {
+        unsorted.acquire();
+        ArrowResultChunk chunk = (ArrowResultChunk) chunkDownloader.getNextChunkToConsume();
+        if (chunk == null) {
+          throw new SnowflakeSQLLoggedException(
+              SqlState.INTERNAL_ERROR,
+              ErrorCode.INTERNAL_ERROR.getMessageCode(),
+              session,
+              "Expect chunk but got null for chunk index " + i);
+        }
+        // the downloader frees the chunk when the next one is consumed
+        sortedChunks.add(submitSortChunk(executor, unsorted, chunk.transferBatches()));
+      }
+
+      for (Future<Run> sortedChunk : sortedChunks) {
+        Run run = sortedChunk.get();
+        if (run != null) {
+          runs.add(run);
+        }
+      }
+      sortedChunks.clear();
+
+      mergeSpilledRuns();
+
+      RunHeap runHeap = new RunHeap(runs.size());
+      for (Run run : runs) {
+        if (run.next()) {
+          runHeap.add(run);
+        }
+      }
+      heap = runHeap;
+      logger.debug(
+          "Sorted {} chunks into {} runs, {} on disk",
+          chunkCount + 1,
+          runs.size(),
+          spilledRunCount);
+    } catch (SFException | IOException ex) {
+      throw new SnowflakeSQLLoggedException(
+          ex,
+          SqlState.INTERNAL_ERROR,
+          ErrorCode.INTERNAL_ERROR.getMessageCode(),
+          session,
+          "Failed to merge sorted result chunks: " + ex.getMessage());
+    } catch (InterruptedException ex) {
+      throw new SnowflakeSQLLoggedException(
+          SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof SnowflakeSQLException) {
+        throw (SnowflakeSQLException) ex.getCause();
+      }
+      throw new SnowflakeSQLLoggedException(
+          ex.getCause(),
+          SqlState.INTERNAL_ERROR,
+          ErrorCode.INTERNAL_ERROR.getMessageCode(),
+          session,
+          "Failed to sort result chunk: " + ex.getCause().getMessage());
+    } finally {
+      if (!sortedChunks.isEmpty()) {
+        // the sort failed, free the runs that are not referenced by the sorter
+        aborted = true;
+        for (Future<Run> sortedChunk : sortedChunks) {
+          try {
+            Run run = sortedChunk.get();
+            if (run != null && !runs.contains(run)) {
+              run.close();
+            }
+          } catch (ExecutionException ex) {
+            logger.debug("Failed to sort result chunk: {}", ex.getMessage());
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Merge the next rows of the sorted runs
+   *
+   * @return next chunk of the sorted result, owned by the caller, or null if all rows were
+   *     returned
+   * @throws SnowflakeSQLException if the rows could not be read
+   */
+  public ArrowResultChunk nextSortedChunk() throws SnowflakeSQLException {
+    if (!hasNext()) {
+      return null;
+    }
+    BatchBuilder builder = new BatchBuilder();
+    try {
+      while (builder.getRowCount() < BATCH_ROW_COUNT && !heap.isEmpty()) {
+        builder.append(heap.peek());
+        heap.advance();
+      }
+      int rowCount = builder.getRowCount();
+      ArrowResultChunk chunk =
+          new ArrowResultChunk("", rowCount, fields.size(), 0, rootAllocator, session);
+      chunk.addBatchData(new ArrayList<>(builder.finish()));
+      return chunk;
+    } catch (SFException | IOException ex) {
+      throw new SnowflakeSQLLoggedException(
+          ex,
+          SqlState.INTERNAL_ERROR,
+          ErrorCode.INTERNAL_ERROR.getMessageCode(),
+          session,
+          "Failed to merge sorted result chunks: " + ex.getMessage());
+    } finally {
+      builder.close();
+    }
+  }
+
+  /** Free the sorted runs and delete the runs on disk */
+  public void close() {
+    if (firstChunk != null) {
+      firstChunk.freeData();
+      firstChunk = null;
+    }
+    runs.forEach(Run::close);
+    runs.clear();
+    if (heap != null) {
+      heap.clear();
+    }
+    if (spillDirectory != null) {
+      try {
+        Files.deleteIfExists(spillDirectory);
+      } catch (IOException ex) {
+        logger.debug("Failed to delete directory {}: {}", spillDirectory, ex.getMessage());
+      }
+      spillDirectory = null;
+    }
+  }
+
+  private Future<Run> submitSortChunk(
+      ExecutorService executor, Semaphore unsorted, ArrowResultChunk chunk) {
+    try {
+      return executor.submit(
+          () -> {
+            try {
+              return sortChunk(chunk);
+            } finally {
+              unsorted.release();
+            }
+          });
+    } catch (RuntimeException ex) {
+      chunk.freeData();
+      throw ex;
+    }
+  }
+
+  /**
+   * Sort a chunk into a run, kept in memory if it fits in the memory limit, otherwise written to
+   * disk. Runs on a worker thread.
+   *
+   * @param chunk chunk owned by the sorter
+   * @return run of the sorted rows, or null if the chunk has no rows
+   */
+  private Run sortChunk(ArrowResultChunk chunk) throws SnowflakeSQLException, SFException {
+    if (aborted) {
+      chunk.freeData();
+      return null;
+    }
+    try {
+      return createRun(chunk);
+    } catch (SnowflakeSQLException | SFException | RuntimeException ex) {
+      chunk.freeData();
+      throw ex;
+    }
+  }
+
+  private Run createRun(ArrowResultChunk chunk) throws SnowflakeSQLException, SFException {
+    if (chunk.getBatchCount() == 0 || chunk.getBatch(0).isEmpty()) {
+      chunk.freeData();
+      return null;
+    }
+    if (chunk.getBatchCount() > 1) {
+      chunk.mergeBatchesIntoOne();
+    }
+    List<ValueVector> vectors = chunk.getBatch(0);
+    int rowCount = vectors.get(0).getValueCount();
+    if (rowCount == 0) {
+      chunk.freeData();
+      return null;
+    }
+    setFields(vectors);
+
+    ArrowResultChunkIndexSorter sorter =
+        new ArrowResultChunkIndexSorter(
+            vectors, ArrowResultChunk.initConverters(vectors, context));
+    int[] order = sorter.sortIndices();
+
+    long size = 0;
+    for (ValueVector vector : vectors) {
+      size += vector.getBufferSize();
+    }
+    MemoryRun run = new MemoryRun(chunk, vectors, sorter.getSortKeys(), order, size);
+    if (reserveMemory(size)) {
+      return run;
+    }
+    run.size = 0;
+    try {
+      List<Run> toSpill = new ArrayList<>();
+      toSpill.add(run);
+      return spill(toSpill);
+    } catch (IOException ex) {
+      throw new SnowflakeSQLLoggedException(
+          ex,
+          SqlState.INTERNAL_ERROR,
+          ErrorCode.INTERNAL_ERROR.getMessageCode(),
+          session,
+          "Failed to write sorted result chunk to disk: " + ex.getMessage());
+    } finally {
+      run.close();
+    }
+  }
+
+  /** @return true if a run of the given size may be kept in memory */
+  private boolean reserveMemory(long size) {
+    if (memoryUsage.addAndGet(size) <= memoryLimit / 2
+        && SnowflakeChunkDownloader.tryReserveMemory(size, memoryLimit)) {
+      return true;
+    }
+    memoryUsage.addAndGet(-size);
+    return false;
+  }
+
+  private synchronized void setFields(List<ValueVector> vectors) {
+    if (fields == null) {
+      fields = new ArrayList<>(vectors.size());
+      for (ValueVector vector : vectors) {
+        fields.add(vector.getField());
+      }
+    }
+  }
+
+  /** Merge groups of runs on disk until all of them can be read at the same time */
+  private void mergeSpilledRuns() throws SnowflakeSQLException {
+    while (spilledRunCount > MAX_MERGE_WIDTH) {
+      List<Run> group = new ArrayList<>(MAX_MERGE_WIDTH);
+      for (Run run : runs) {
+        if (run instanceof SpilledRun) {
+          group.add(run);
+          if (group.size() == MAX_MERGE_WIDTH) {
+            break;
+          }
+        }
+      }
+      try {
+        Run merged = spill(group);
+        runs.removeAll(group);
+        runs.add(merged);
+        spilledRunCount -= group.size();
+      } catch (SFException | IOException ex) {
+        throw new SnowflakeSQLLoggedException(
+            ex,
+            SqlState.INTERNAL_ERROR,
+            ErrorCode.INTERNAL_ERROR.getMessageCode(),
+            session,
+            "Failed to merge sorted result chunks on disk: " + ex.getMessage());
+      } finally {
+        group.forEach(Run::close);
+      }
+    }
+  }
+
+  /**
+   * Merge runs into a new run on disk
+   *
+   * @param toMerge runs to merge, positioned before their first row. Closed by the caller
+   * @return run on disk
+   */
+  private Run spill(List<Run> toMerge) throws SFException, IOException {
+    Path file = Files.createTempFile(getSpillDirectory(), "run", ".arrow");
+    RunHeap mergeHeap = new RunHeap(toMerge.size());
+    for (Run run : toMerge) {
+      if (run.next()) {
+        mergeHeap.add(run);
+      }
+    }
+
+    List<FieldVector> rootVectors = new ArrayList<>(fields.size());
+    for (Field field : fields) {
+      rootVectors.add(field.createVector(rootAllocator));
+    }
+    BatchBuilder builder = new BatchBuilder();
+    try (VectorSchemaRoot root = new VectorSchemaRoot(fields, rootVectors, 0);
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+        ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out)) {
+      writer.start();
+      while (!mergeHeap.isEmpty()) {
+        while (builder.getRowCount() < BATCH_ROW_COUNT && !mergeHeap.isEmpty()) {
+          builder.append(mergeHeap.peek());
+          mergeHeap.advance();
+        }
+        int rowCount = builder.getRowCount();
+        List<FieldVector> batch = builder.finish();
+        for (int i = 0; i < batch.size(); i++) {
+          // move the rows to the vectors written by the writer without copying them
+          batch.get(i).makeTransferPair(rootVectors.get(i)).transfer();
+          batch.get(i).close();
+        }
+        root.setRowCount(rowCount);
+        writer.writeBatch();
+        root.clear();
+      }
+      writer.end();
+    } catch (SFException | IOException | RuntimeException ex) {
+      Files.deleteIfExists(file);
+      throw ex;
+    } finally {
+      builder.close();
+    }
+    synchronized (this) {
+      spilledRunCount++;
+    }
+    return new SpilledRun(file);
+  }
+
+  private synchronized Path getSpillDirectory() throws IOException {
+    if (spillDirectory == null) {
+      spillDirectory = Files.createTempDirectory(SPILL_DIR_PREFIX);
+      logger.debug("Writing sorted result chunks to {}", spillDirectory);
+    }
+    return spillDirectory;
+  }
+
+  /** Sorted rows, positioned on the current row */
+  private abstract static class Run {
+    /** column vectors of the record batch of the current row */
+    List<ValueVector> vectors;
+
+    ArrowSortKeys sortKeys;
+
+    /** index of the current row in its record batch */
+    int row;
+
+    /** copies the rows from the record batch to the vectors of a BatchBuilder */
+    TransferPair[] transferPairs;
+
+    List<FieldVector> transferTarget;
+
+    /**
+     * Move to the next row
+     *
+     * @return false if there are no more rows
+     */
+    abstract boolean next() throws SnowflakeSQLException, IOException;
+
+    abstract void close();
+  }
+
+  /** Sorted chunk in memory */
+  private final class MemoryRun extends Run {
+    private final ArrowResultChunk chunk;
+
+    // row indices in sorted order
+    private final int[] sortedRows;
+
+    private int position = -1;
+
+    long size;
+
+    MemoryRun(
+        ArrowResultChunk chunk,
+        List<ValueVector> vectors,
+        ArrowSortKeys sortKeys,
+        int[] sortedRows,
+        long size) {
+      this.chunk = chunk;
+      this.vectors = vectors;
+      this.sortKeys = sortKeys;
+      this.sortedRows = sortedRows;
+      this.size = size;
+    }
+
+    @Override
+    boolean next() {
+      if (++position < sortedRows.length) {
+        row = sortedRows[position];
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    void close() {
+      chunk.freeData();
+      if (size > 0) {
+        memoryUsage.addAndGet(-size);
+        SnowflakeChunkDownloader.releaseMemory(size);
+        size = 0;
+      }
+    }
+  }
+
+  /** Sorted rows in a file, read one record batch at a time */
+  private final class SpilledRun extends Run {
+    private final Path file;
+
+    private ArrowStreamReader reader;
+
+    private int rowCount = 0;
+
+    SpilledRun(Path file) {
+      this.file = file;
+    }
+
+    @Override
+    boolean next() throws SnowflakeSQLException, IOException {
+      if (++row < rowCount) {
+        return true;
+      }
+      if (reader == null) {
+        reader =
+            new ArrowStreamReader(
+                new BufferedInputStream(Files.newInputStream(file)), rootAllocator);
+      }
+      while (reader.loadNextBatch()) {
+        VectorSchemaRoot root = reader.getVectorSchemaRoot();
+        if (root.getRowCount() > 0) {
+          vectors = new ArrayList<>(root.getFieldVectors());
+          sortKeys =
+              new ArrowSortKeys(vectors, ArrowResultChunk.initConverters(vectors, context));
+          transferPairs = null;
+          rowCount = root.getRowCount();
+          row = 0;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    void close() {
+      try {
+        if (reader != null) {
+          reader.close();
+          reader = null;
+        }
+      } catch (IOException ex) {
+        logger.debug("Failed to close {}: {}", file, ex.getMessage());
+      }
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException ex) {
+        logger.debug("Failed to delete {}: {}", file, ex.getMessage());
+      }
+    }
+  }
+
+  /** Copies rows of runs into new record batches */
+  private final class BatchBuilder {
+    private List<FieldVector> vectors = newVectors();
+
+    private int rowCount = 0;
+
+    private List<FieldVector> newVectors() {
+      List<FieldVector> result = new ArrayList<>(fields.size());
+      for (Field field : fields) {
+        result.add(field.createVector(rootAllocator));
+      }
+      return result;
+    }
+
+    int getRowCount() {
+      return rowCount;
+    }
+
+    /** Copy the current row of a run */
+    void append(Run run) {
+      if (run.transferPairs == null || run.transferTarget != vectors) {
+        run.transferPairs = new TransferPair[vectors.size()];
+        for (int i = 0; i < vectors.size(); i++) {
+          run.transferPairs[i] = run.vectors.get(i).makeTransferPair(vectors.get(i));
+        }
+        run.transferTarget = vectors;
+      }
+      for (TransferPair transferPair : run.transferPairs) {
+        transferPair.copyValueSafe(run.row, rowCount);
+      }
+      rowCount++;
+    }
+
+    /** @return the rows copied since the last call, owned by the caller */
+    List<FieldVector> finish() {
+      List<FieldVector> batch = vectors;
+      for (FieldVector vector : batch) {
+        vector.setValueCount(rowCount);
+      }
+      vectors = newVectors();
+      rowCount = 0;
+      return batch;
+    }
+
+    void close() {
+      vectors.forEach(FieldVector::close);
+    }
+  }
+
+  /** Binary min-heap of runs ordered by their current row */
+  private static final class RunHeap {
+    private final Run[] runs;
+
+    private int size = 0;
+
+    RunHeap(int capacity) {
+      runs = new Run[capacity];
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    Run peek() {
+      return runs[0];
+    }
+
+    void add(Run run) throws SFException {
+      runs[size] = run;
+      siftUp(size++);
+    }
+
+    /** Move the run with the smallest row to its next row */
+    void advance() throws SFException, IOException, SnowflakeSQLException {
+      if (!runs[0].next()) {
+        runs[0] = runs[--size];
+        runs[size] = null;
+      }
+      if (size > 0) {
+        siftDown(0);
+      }
+    }
+
+    void clear() {
+      for (int i = 0; i < size; i++) {
+        runs[i] = null;
+      }
+      size = 0;
+    }
+
+    private void siftUp(int index) throws SFException {
+      Run run = runs[index];
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (compare(run, runs[parent]) >= 0) {
+          break;
+        }
+        runs[index] = runs[parent];
+        index = parent;
+      }
+      runs[index] = run;
+    }
+
+    private void siftDown(int index) throws SFException {
+      Run run = runs[index];
+      int half = size >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        if (child + 1 < size && compare(runs[child + 1], runs[child]) < 0) {
+          child++;
+        }
+        if (compare(run, runs[child]) <= 0) {
+          break;
+        }
+        runs[index] = runs[child];
+        index = child;
+      }
+      runs[index] = run;
+    }
+
+    private static int compare(Run run1, Run run2) throws SFException {
+      return ArrowSortKeys.compareRows(run1.sortKeys, run1.row, run2.sortKeys, run2.row);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the current row of a result set as a primitive double, see {@link
+ * SnowflakeResultSet#getDoubleColumnReader(int)}. Like {@link LongColumnReader} it follows the
+ * cursor of its result set and does not change {@link java.sql.ResultSet#wasNull()}.
+ */
+public interface DoubleColumnReader {
+  /**
+   * @return true if the value in the current row is SQL NULL
+   * @throws SQLException if the result set is closed or not positioned on a row
+   */
+  boolean isNull() throws SQLException;
+
+  /**
+   * @return the value in the current row as {@link java.sql.ResultSet#getDouble(int)} returns it,
+   *     0 if the value is SQL NULL
+   * @throws SQLException if the value can not be converted to double
+   */
+  double getDouble() throws SQLException;
+}
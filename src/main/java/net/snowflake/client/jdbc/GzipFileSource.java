@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import com.google.common.io.ByteSource;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP compressed content of a file, compressed while it is read.
+ *
+ * <p>Each stream opened from the source reads the file again and compresses it chunk by chunk, so
+ * a file can be uploaded compressed without keeping the compressed content in memory or in a
+ * temporary file. The compression is deterministic: as long as the file does not change, every
+ * stream returns the same bytes, which are the bytes written by a {@link GZIPOutputStream} the file
+ * is copied to. The size and the digest of the compressed content can be computed by reading one
+ * stream before the upload, and an upload can be retried by opening another stream. The streams are
+ * independent of each other, and each one is closed by the code that opened it.
+ */
+final class GzipFileSource extends ByteSource {
+  private final File file;
+
+  GzipFileSource(File file) {
+    this.file = file;
+  }
+
+  @Override
+  public InputStream openStream() throws IOException {
+    return new GzipCompressingInputStream(new FileInputStream(file));
+  }
+
+  @Override
+  public String toString() {
+    return "GzipFileSource(" + file + ")";
+  }
+
+  /** Compresses the data read from another stream */
+  static final class GzipCompressingInputStream extends InputStream {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /** Compressed bytes of the last chunk, ByteArrayOutputStream that exposes its internals */
+    private static final class ChunkOutput extends ByteArrayOutputStream {
+      ChunkOutput() {
+        super(CHUNK_SIZE);
+      }
+
+      byte[] getBuffer() {
+        return buf;
+      }
+
+      int getCount() {
+        return count;
+      }
+    }
+
+    private final InputStream in;
+
+    private final ChunkOutput chunk = new ChunkOutput();
+
+    private final GZIPOutputStream gzip;
+
+    private final byte[] readBuffer = new byte[CHUNK_SIZE];
+
+    // next byte of the chunk to return
+    private int pos = 0;
+
+    private boolean finished = false;
+
+    private boolean closed = false;
+
+    GzipCompressingInputStream(InputStream in) throws IOException {
+      this.in = in;
+      // writes the GZIP header to the first chunk
+      this.gzip = new GZIPOutputStream(chunk, true);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (len == 0) {
+        return 0;
+      }
+      while (pos == chunk.getCount()) {
+        if (finished) {
+          return -1;
+        }
+        compressNextChunk();
+      }
+      int n = Math.min(len, chunk.getCount() - pos);
+      System.arraycopy(chunk.getBuffer(), pos, b, off, n);
+      pos += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return closed ? 0 : chunk.getCount() - pos;
+    }
+
+    private void compressNextChunk() throws IOException {
+      chunk.reset();
+      pos = 0;
+      int n = in.read(readBuffer);
+      if (n < 0) {
+        // writes the remaining compressed data and the GZIP trailer, and releases the deflater
+        // and the file as soon as the last byte was read
+        gzip.close();
+        in.close();
+        finished = true;
+      } else {
+        gzip.write(readBuffer, 0, n);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        in.close();
+      } finally {
+        if (!finished) {
+          gzip.close();
+        }
+      }
+    }
+  }
+}
@@ -4,8 +4,12 @@
 
 package net.snowflake.client.jdbc;
 
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import java.lang.ref.SoftReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -21,6 +25,12 @@ public class JsonResultChunk extends SnowflakeResultChunk {
 
   private static final SFLogger logger = SFLoggerFactory.getLogger(JsonResultChunk.class);
 
+  /** JVM property to store the chunk data in pooled direct buffers instead of the Java heap */
+  static final String OFF_HEAP_PROPERTY = "net.snowflake.jdbc.jsonResultChunkOffHeap";
+
+  private static final boolean offHeapEnabled =
+      Boolean.parseBoolean(systemGetProperty(OFF_HEAP_PROPERTY));
+
   private ResultChunkData data;
 
   private int currentRow;
@@ -30,10 +40,21 @@ public class JsonResultChunk extends SnowflakeResultChunk {
   public JsonResultChunk(
       String url, int rowCount, int colCount, int uncompressedSize, SFSession session) {
     super(url, rowCount, colCount, uncompressedSize);
-    data = new BlockResultChunkDataV2(computeCharactersNeeded(), rowCount, colCount, session);
+    if (offHeapEnabled) {
+      data =
+          new OffHeapBlockResultChunkData(
+              computeCharactersNeeded(), rowCount, colCount, OffHeapChunkBufferPool.getInstance());
+    } else {
+      data = new BlockResultChunkDataV2(computeCharactersNeeded(), rowCount, colCount, session);
+    }
     this.session = session;
   }
 
+  /** @return true if chunk data is stored in pooled direct buffers */
+  static boolean isOffHeapEnabled() {
+    return offHeapEnabled;
+  }
+
   public static Object extractCell(JsonNode resultData, int rowIdx, int colIdx) {
     JsonNode currentRow = resultData.get(rowIdx);
 
@@ -50,8 +71,11 @@ public class JsonResultChunk extends SnowflakeResultChunk {
   }
 
   public void tryReuse(ResultChunkDataCache cache) {
-    // Allocate chunk data, double necessary amount for later reuse
-    cache.reuseOrCreateResultData(data);
+    // off-heap data is recycled by the buffer pool instead
+    if (data instanceof BlockResultChunkDataV2) {
+      // Allocate chunk data, double necessary amount for later reuse
+      cache.reuseOrCreateResultData(data);
+    }
   }
 
   /**
@@ -464,6 +488,222 @@ public class JsonResultChunk extends SnowflakeResultChunk {
     private int nextIndex = 0;
   }
 
+  /**
+   * OffHeapBlockResultChunkData: Same layout as BlockResultChunkDataV2, but the string bytes,
+   * offsets and null bitmaps live in direct buffers leased from {@link OffHeapChunkBufferPool}. The
+   * buffers go back to the pool when the chunk data is freed, so they are recycled across chunks
+   * and result sets without creating garbage for the Java heap.
+   *
+   * <p>A chunk is written by one download thread and then read by one consumer thread, so the
+   * position of the leased buffers can be used for bulk copies.
+   */
+  private static class OffHeapBlockResultChunkData implements ResultChunkData {
+    OffHeapBlockResultChunkData(
+        int totalLength, int rowCount, int colCount, OffHeapChunkBufferPool pool) {
+      this.totalLength = totalLength;
+      this.blockCount = getBlock(totalLength - 1) + 1;
+      this.rowCount = rowCount;
+      this.colCount = colCount;
+      this.metaBlockCount = getMetaBlock(this.rowCount * this.colCount - 1) + 1;
+      this.pool = pool;
+    }
+
+    @Override
+    public void reset() {
+      freeData();
+      this.lastLength = 0;
+      this.nextIndex = 0;
+    }
+
+    @Override
+    public void addOffset(int offset) {
+      if (data.size() < blockCount || offsets.size() < metaBlockCount) {
+        allocateArrays();
+      }
+      offsets.get(getMetaBlock(nextIndex)).putInt(getMetaBlockIndex(nextIndex) << 2, offset);
+    }
+
+    @Override
+    public void setIsNull() {
+      ByteBuffer nulls = isNulls.get(getMetaBlock(nextIndex));
+      int bit = getMetaBlockIndex(nextIndex);
+      nulls.put(bit >> 3, (byte) (nulls.get(bit >> 3) | (1 << (bit & 7))));
+    }
+
+    @Override
+    public void setLastLength(int len) {
+      lastLength = len;
+    }
+
+    @Override
+    public byte getByte(int offset) {
+      return data.get(getBlock(offset)).get(getBlockOffset(offset));
+    }
+
+    @Override
+    public void addByte(byte b, int pos) {
+      if (data.size() < blockCount || offsets.size() < metaBlockCount) {
+        allocateArrays();
+      }
+      data.get(getBlock(pos)).put(getBlockOffset(pos), b);
+    }
+
+    @Override
+    public void addBytes(byte[] src, int src_offset, int pos, int length) {
+      if (data.size() < blockCount || offsets.size() < metaBlockCount) {
+        allocateArrays();
+      }
+
+      int copied = 0;
+      while (copied < length) {
+        final int copySize = Math.min(length - copied, spaceLeftOnBlock(pos + copied));
+        ByteBuffer block = data.get(getBlock(pos + copied));
+        ((Buffer) block).position(getBlockOffset(pos + copied));
+        block.put(src, src_offset + copied, copySize);
+        copied += copySize;
+      }
+    }
+
+    @Override
+    public void nextIndex() {
+      nextIndex++;
+    }
+
+    @Override
+    public void add(String string) throws SnowflakeSQLException {
+      throw new SnowflakeSQLException(
+          SqlState.INTERNAL_ERROR, ErrorCode.INTERNAL_ERROR.getMessageCode(), "Unimplemented");
+    }
+
+    private int getOffset(int index) {
+      return offsets.get(getMetaBlock(index)).getInt(getMetaBlockIndex(index) << 2);
+    }
+
+    private int getLength(int index, int offset) {
+      if (index == rowCount * colCount - 1) {
+        // last one
+        return lastLength;
+      } else {
+        return getOffset(index + 1) - offset;
+      }
+    }
+
+    @Override
+    public String get(int index) {
+      final int bit = getMetaBlockIndex(index);
+      final boolean isNull =
+          (isNulls.get(getMetaBlock(index)).get(bit >> 3) & (1 << (bit & 7))) != 0;
+      if (isNull) {
+        return null;
+      }
+      final int offset = getOffset(index);
+      final int length = getLength(index, offset);
+
+      byte[] cell = new byte[length];
+      int copied = 0;
+      while (copied < length) {
+        final int copySize = Math.min(length - copied, spaceLeftOnBlock(offset + copied));
+        ByteBuffer block = data.get(getBlock(offset + copied));
+        ((Buffer) block).position(getBlockOffset(offset + copied));
+        block.get(cell, copied, copySize);
+        copied += copySize;
+      }
+      return new String(cell, StandardCharsets.UTF_8);
+    }
+
+    private int getBlockSize(int block) {
+      if (block < blockCount - 1) {
+        return BlockResultChunkDataV2.blockLength;
+      }
+      // the last block only needs to hold the remaining bytes
+      return OffHeapChunkBufferPool.getSizeClassCapacity(
+          totalLength - block * BlockResultChunkDataV2.blockLength);
+    }
+
+    @Override
+    public long computeNeededChunkMemory() {
+      long dataRequirement =
+          (blockCount - 1) * (long) BlockResultChunkDataV2.blockLength
+              + getBlockSize(blockCount - 1);
+      long metadataRequirement =
+          metaBlockCount
+              * (long)
+                  (OffHeapChunkBufferPool.getSizeClassCapacity(offsetsBlockBytes)
+                      + OffHeapChunkBufferPool.getSizeClassCapacity(nullsBlockBytes));
+
+      return dataRequirement + metadataRequirement;
+    }
+
+    @Override
+    public void freeData() {
+      for (ByteBuffer buffer : data) {
+        pool.release(buffer);
+      }
+      for (ByteBuffer buffer : offsets) {
+        pool.release(buffer);
+      }
+      for (ByteBuffer buffer : isNulls) {
+        pool.release(buffer);
+      }
+      data.clear();
+      offsets.clear();
+      isNulls.clear();
+    }
+
+    private static int getBlock(int offset) {
+      return BlockResultChunkDataV2.getBlock(offset);
+    }
+
+    private static int getBlockOffset(int offset) {
+      return BlockResultChunkDataV2.getBlockOffset(offset);
+    }
+
+    private static int spaceLeftOnBlock(int offset) {
+      return BlockResultChunkDataV2.spaceLeftOnBlock(offset);
+    }
+
+    private static int getMetaBlock(int index) {
+      return BlockResultChunkDataV2.getMetaBlock(index);
+    }
+
+    private static int getMetaBlockIndex(int index) {
+      return BlockResultChunkDataV2.getMetaBlockIndex(index);
+    }
+
+    private void allocateArrays() {
+      logger.debug("allocating {} B off-heap for ResultChunk", computeNeededChunkMemory());
+      while (data.size() < blockCount) {
+        data.add(pool.acquire(getBlockSize(data.size())));
+      }
+      while (offsets.size() < metaBlockCount) {
+        offsets.add(pool.acquire(offsetsBlockBytes));
+        ByteBuffer nulls = pool.acquire(nullsBlockBytes);
+        // pooled buffers are not zeroed
+        for (int i = 0; i < nullsBlockBytes; i += 8) {
+          nulls.putLong(i, 0L);
+        }
+        isNulls.add(nulls);
+      }
+    }
+
+    private final OffHeapChunkBufferPool pool;
+
+    // blocks for storing the string data
+    private final int totalLength;
+    private final int blockCount;
+    private final ArrayList<ByteBuffer> data = new ArrayList<>();
+
+    // blocks for storing offsets and null bitmaps
+    private final int metaBlockCount;
+    private static final int offsetsBlockBytes = BlockResultChunkDataV2.metaBlockLength * 4;
+    private static final int nullsBlockBytes = BlockResultChunkDataV2.metaBlockLength / 8;
+    private final ArrayList<ByteBuffer> offsets = new ArrayList<>();
+    private final ArrayList<ByteBuffer> isNulls = new ArrayList<>();
+    private int lastLength;
+    private final int rowCount, colCount;
+    private int nextIndex = 0;
+  }
+
   /** Cache the data, offset and length blocks */
   static class ResultChunkDataCache {
     /**
@@ -472,7 +712,12 @@ public class JsonResultChunk extends SnowflakeResultChunk {
      * @param chunk add this to the cache
      */
     void add(JsonResultChunk chunk) {
-      cache.add(new SoftReference<>(chunk.data));
+      if (chunk.data instanceof BlockResultChunkDataV2) {
+        cache.add(new SoftReference<>(chunk.data));
+      } else if (chunk.data != null) {
+        // hand the buffers back to the pool right away, a soft reference would leak them
+        chunk.data.freeData();
+      }
       chunk.data = null;
     }
 
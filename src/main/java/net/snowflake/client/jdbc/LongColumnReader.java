@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Reads one column of the current row of a result set as a primitive long, see {@link
+ * SnowflakeResultSet#getLongColumnReader(int)}.
+ *
+ * <p>A reader is obtained once and follows the cursor of its result set, so it can be used for
+ * every row without looking up the column again and without boxing the values. Reading through a
+ * reader does not change {@link java.sql.ResultSet#wasNull()}.
+ */
+public interface LongColumnReader {
+  /**
+   * @return true if the value in the current row is SQL NULL
+   * @throws SQLException if the result set is closed or not positioned on a row
+   */
+  boolean isNull() throws SQLException;
+
+  /**
+   * @return the value in the current row as {@link java.sql.ResultSet#getLong(int)} returns it, 0
+   *     if the value is SQL NULL
+   * @throws SQLException if the value can not be converted to long
+   */
+  long getLong() throws SQLException;
+
+  /** @return scale of a NUMBER column, 0 for all other column types */
+  int getScale();
+
+  /**
+   * Get the value as fixed-point number, i.e. the value multiplied by 10 to the power of {@link
+   * #getScale()}. Reading NUMBER columns with a scale this way avoids creating a BigDecimal per
+   * value.
+   *
+   * @return unscaled value in the current row, 0 if the value is SQL NULL
+   * @throws SQLException if the unscaled value does not fit into a long
+   */
+  long getUnscaledLong() throws SQLException;
+}
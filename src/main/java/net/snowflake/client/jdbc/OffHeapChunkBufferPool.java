@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import static net.snowflake.client.core.Constants.MB;
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Process-wide pool of direct ByteBuffers used to keep JSON result chunk data off the Java heap.
+ *
+ * <p>Buffers are handed out in power-of-two size classes between {@link #MIN_BUFFER_SIZE} and
+ * {@link #MAX_BUFFER_SIZE}. Released buffers are kept for reuse by any result set in the JVM as
+ * long as the idle bytes stay below the configured limit.
+ *
+ * <p>Idle pooled buffers count towards the JVM wide chunk memory usage tracked by {@link
+ * SnowflakeChunkDownloader}, so memory parked in the pool is never invisible to the memory limit.
+ * When a downloader runs out of budget it asks the pool to drop idle buffers first.
+ */
+class OffHeapChunkBufferPool {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(OffHeapChunkBufferPool.class);
+
+  /** JVM property to set the maximum idle bytes, in MB, kept by the pool */
+  static final String MAX_IDLE_MB_PROPERTY = "net.snowflake.jdbc.offHeapBufferPoolMaxIdleMB";
+
+  private static final long DEFAULT_MAX_IDLE_BYTES = 256L * MB;
+
+  private static final int MIN_BUFFER_SIZE_BITS = 12;
+  private static final int MAX_BUFFER_SIZE_BITS = 23;
+
+  static final int MIN_BUFFER_SIZE = 1 << MIN_BUFFER_SIZE_BITS;
+  static final int MAX_BUFFER_SIZE = 1 << MAX_BUFFER_SIZE_BITS;
+
+  private static final OffHeapChunkBufferPool INSTANCE =
+      new OffHeapChunkBufferPool(getMaxIdleBytesFromProperty());
+
+  // idle buffers per size class
+  private final ConcurrentLinkedDeque<ByteBuffer>[] idleBuffers;
+
+  private final long maxIdleBytes;
+
+  // bytes sitting in the pool waiting for reuse
+  private final AtomicLong idleBytes = new AtomicLong();
+
+  // bytes handed out and not returned yet
+  private final AtomicLong leasedBytes = new AtomicLong();
+
+  @SuppressWarnings("unchecked")
+  OffHeapChunkBufferPool(long maxIdleBytes) {
+    this.maxIdleBytes = maxIdleBytes;
+    this.idleBuffers = new ConcurrentLinkedDeque[MAX_BUFFER_SIZE_BITS - MIN_BUFFER_SIZE_BITS + 1];
+    for (int i = 0; i < idleBuffers.length; i++) {
+      idleBuffers[i] = new ConcurrentLinkedDeque<>();
+    }
+  }
+
+  static OffHeapChunkBufferPool getInstance() {
+    return INSTANCE;
+  }
+
+  private static long getMaxIdleBytesFromProperty() {
+    String maxIdleMB = systemGetProperty(MAX_IDLE_MB_PROPERTY);
+    if (maxIdleMB != null) {
+      try {
+        return Long.parseLong(maxIdleMB) * MB;
+      } catch (NumberFormatException ex) {
+        logger.debug("Invalid value for {}: {}", MAX_IDLE_MB_PROPERTY, maxIdleMB);
+      }
+    }
+    return DEFAULT_MAX_IDLE_BYTES;
+  }
+
+  /**
+   * Compute the capacity of the buffer handed out for a request
+   *
+   * @param size requested size in bytes
+   * @return the size class capacity in bytes
+   */
+  static int getSizeClassCapacity(int size) {
+    return 1 << (getSizeClass(size) + MIN_BUFFER_SIZE_BITS);
+  }
+
+  private static int getSizeClass(int size) {
+    if (size > MAX_BUFFER_SIZE) {
+      throw new IllegalArgumentException(
+          "Requested off-heap buffer of " + size + " bytes exceeds " + MAX_BUFFER_SIZE);
+    }
+    int bits = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+    return Math.max(bits, MIN_BUFFER_SIZE_BITS) - MIN_BUFFER_SIZE_BITS;
+  }
+
+  /**
+   * Get a cleared direct buffer with at least the requested capacity
+   *
+   * @param size requested size in bytes
+   * @return direct buffer, either reused or newly allocated
+   */
+  ByteBuffer acquire(int size) {
+    int sizeClass = getSizeClass(size);
+    ByteBuffer buffer = idleBuffers[sizeClass].pollFirst();
+    if (buffer != null) {
+      idleBytes.addAndGet(-buffer.capacity());
+      // the buffer leaves the pool, it is accounted by the chunk from now on
+      SnowflakeChunkDownloader.addIdlePooledMemory(-buffer.capacity());
+      ((Buffer) buffer).clear();
+    } else {
+      buffer = ByteBuffer.allocateDirect(1 << (sizeClass + MIN_BUFFER_SIZE_BITS));
+    }
+    leasedBytes.addAndGet(buffer.capacity());
+    return buffer;
+  }
+
+  /**
+   * Return a buffer obtained from {@link #acquire(int)}. The caller must not use it afterwards.
+   *
+   * @param buffer buffer to return
+   */
+  void release(ByteBuffer buffer) {
+    leasedBytes.addAndGet(-buffer.capacity());
+    // reserve the idle bytes before the buffer is added, concurrent releases must not overfill the
+    // pool
+    long idle;
+    do {
+      idle = idleBytes.get();
+      if (idle + buffer.capacity() > maxIdleBytes) {
+        // pool is full, leave it to GC
+        return;
+      }
+    } while (!idleBytes.compareAndSet(idle, idle + buffer.capacity()));
+    SnowflakeChunkDownloader.addIdlePooledMemory(buffer.capacity());
+    idleBuffers[getSizeClass(buffer.capacity())].offerFirst(buffer);
+  }
+
+  /**
+   * Drop idle buffers so that their memory can be used for new chunks
+   *
+   * @param bytes the number of bytes that should be freed
+   * @return the number of bytes actually dropped from the pool
+   */
+  long releaseIdleBuffers(long bytes) {
+    long released = 0;
+    // drop the largest buffers first, they free the budget fastest
+    for (int sizeClass = idleBuffers.length - 1; sizeClass >= 0 && released < bytes; sizeClass--) {
+      ByteBuffer buffer;
+      while (released < bytes && (buffer = idleBuffers[sizeClass].pollLast()) != null) {
+        released += buffer.capacity();
+      }
+    }
+    if (released > 0) {
+      idleBytes.addAndGet(-released);
+      SnowflakeChunkDownloader.addIdlePooledMemory(-released);
+      logger.debug("Released {} bytes of idle off-heap chunk buffers", released);
+    }
+    return released;
+  }
+
+  long getIdleBytes() {
+    return idleBytes.get();
+  }
+
+  long getLeasedBytes() {
+    return leasedBytes.get();
+  }
+}
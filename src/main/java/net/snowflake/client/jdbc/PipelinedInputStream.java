@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Input stream that reads its source on another thread.
+ *
+ * <p>A producer task keeps reading the source into fixed size blocks and hands them over through a
+ * bounded queue, so the reader of this stream and the reader of the source work at the same time.
+ * Chaining two of them around a decompressing stream turns a chunk download into three overlapped
+ * stages: network receive, inflate and parse. At most {@code maxBlocks} filled blocks wait in the
+ * queue; blocks are recycled once the consumer is done with them.
+ *
+ * <p>The source is owned by the producer and closed by it once it is exhausted, fails, or this
+ * stream is closed.
+ */
+class PipelinedInputStream extends InputStream {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(PipelinedInputStream.class);
+
+  // marks the end of the source in the filled queue
+  private static final ByteBuffer END_OF_STREAM = ByteBuffer.allocate(0);
+
+  private final InputStream source;
+
+  private final int blockSize;
+
+  // blocks filled by the producer, in source order
+  private final BlockingQueue<ByteBuffer> filled;
+
+  // blocks returned by the consumer for reuse
+  private final BlockingQueue<ByteBuffer> free;
+
+  private final Future<?> producer;
+
+  // failure of the producer, reported once all blocks before it are consumed
+  private volatile IOException error;
+
+  private volatile boolean closed = false;
+
+  // set by the producer when it starts, or by close() if it never started, to close the source
+  private final AtomicBoolean started = new AtomicBoolean(false);
+
+  // block the consumer is reading from
+  private ByteBuffer current;
+
+  /**
+   * @param source stream to read on another thread
+   * @param blockSize size of each hand-off block
+   * @param maxBlocks maximum number of filled blocks waiting for the consumer
+   * @param executor executor running the producer task
+   */
+  PipelinedInputStream(InputStream source, int blockSize, int maxBlocks, ExecutorService executor) {
+    this.source = source;
+    this.blockSize = blockSize;
+    // one more slot for END_OF_STREAM
+    this.filled = new ArrayBlockingQueue<>(maxBlocks + 1);
+    this.free = new ArrayBlockingQueue<>(maxBlocks + 2);
+    this.producer = executor.submit(this::produce);
+  }
+
+  private void produce() {
+    if (!started.compareAndSet(false, true)) {
+      // closed before the producer started, the source was closed by close()
+      return;
+    }
+    try {
+      while (!closed) {
+        ByteBuffer block = free.poll();
+        if (block == null) {
+          block = ByteBuffer.allocate(blockSize);
+        }
+
+        // fill the whole block unless the source ends, fewer hand-offs for the consumer
+        byte[] array = block.array();
+        int len = 0;
+        int read = 0;
+        try {
+          while (len < array.length
+              && (read = source.read(array, len, array.length - len)) != -1) {
+            len += read;
+          }
+        } catch (IOException ex) {
+          // hand over what was read before the failure, so the error shows up at the same offset
+          if (len > 0) {
+            ((Buffer) block).limit(len);
+            filled.put(block);
+          }
+          throw ex;
+        }
+        if (len > 0) {
+          ((Buffer) block).limit(len);
+          filled.put(block);
+        }
+        if (read == -1) {
+          break;
+        }
+      }
+    } catch (InterruptedException ex) {
+      // the consumer closed the stream
+      return;
+    } catch (IOException ex) {
+      error = ex;
+    } catch (Throwable ex) {
+      // the consumer must get the error or the end of the stream, or it waits forever
+      error = new IOException(ex);
+    } finally {
+      closeSource();
+    }
+
+    try {
+      filled.put(END_OF_STREAM);
+    } catch (InterruptedException ex) {
+      // the consumer closed the stream and won't wait for the end
+    }
+  }
+
+  private void closeSource() {
+    try {
+      source.close();
+    } catch (IOException ex) {
+      logger.debug("Failed to close pipelined source: {}", ex.getMessage());
+    }
+  }
+
+  /** @return the block to read from, or null at the end of the stream */
+  private ByteBuffer currentBlock() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (current != null && current.hasRemaining()) {
+      return current;
+    }
+    if (current == END_OF_STREAM) {
+      return null;
+    }
+    if (current != null) {
+      ((Buffer) current).clear();
+      free.offer(current);
+    }
+    try {
+      current = filled.take();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for pipelined data");
+    }
+    if (current == END_OF_STREAM) {
+      if (error != null) {
+        throw error;
+      }
+      return null;
+    }
+    return current;
+  }
+
+  @Override
+  public int read() throws IOException {
+    ByteBuffer block = currentBlock();
+    return block == null ? -1 : block.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    ByteBuffer block = currentBlock();
+    if (block == null) {
+      return -1;
+    }
+    int n = Math.min(len, block.remaining());
+    block.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current == null || current == END_OF_STREAM ? 0 : current.remaining();
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // wakes up the producer if it waits for space, it closes the source on its way out. A
+    // producer blocked in a socket read only stops once the read returns or times out
+    producer.cancel(true);
+    if (started.compareAndSet(false, true)) {
+      // the producer never runs, e.g. the stream was closed while the task was queued
+      closeSource();
+    }
+    filled.clear();
+    free.clear();
+    current = null;
+  }
+}
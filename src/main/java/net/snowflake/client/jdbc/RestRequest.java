@@ -19,6 +19,7 @@ import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.client.util.DecorrelatedJitterBackoff;
 import net.snowflake.client.util.SecretDetector;
 import net.snowflake.common.core.SqlState;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
@@ -208,7 +209,7 @@ public class RestRequest {
           msg = rootCause.getMessage();
         }
 
-        if (response == null || response.getStatusLine().getStatusCode() != 200) {
+        if (!isSuccessResponse(httpRequest, response)) {
           logger.debug(
               "Error response not retryable, " + msg + ", request: {}", requestInfoScrubbed);
           EventUtil.triggerBasicEvent(
@@ -339,13 +340,13 @@ public class RestRequest {
       } else {
         logger.error("Returning null response for request: {}", requestInfoScrubbed);
       }
-    } else if (response.getStatusLine().getStatusCode() != 200) {
+    } else if (!isSuccessResponse(httpRequest, response)) {
       logger.error(
           "Error response: HTTP Response code: {}, request: {}",
           response.getStatusLine().getStatusCode(),
           requestInfoScrubbed);
     }
-    if ((response == null || response.getStatusLine().getStatusCode() != 200)) {
+    if (!isSuccessResponse(httpRequest, response)) {
 
       String eventName;
       if (response == null) {
@@ -386,6 +387,20 @@ public class RestRequest {
     return response;
   }
 
+  /**
+   * @param httpRequest request
+   * @param response response to the request, may be null
+   * @return true for a 200 response, or the 206 Partial Content response of a range request
+   */
+  static boolean isSuccessResponse(HttpRequestBase httpRequest, CloseableHttpResponse response) {
+    if (response == null || response.getStatusLine() == null) {
+      return false;
+    }
+    int statusCode = response.getStatusLine().getStatusCode();
+    return statusCode == 200
+        || (statusCode == 206 && httpRequest.containsHeader(HttpHeaders.RANGE));
+  }
+
   static boolean isRetryableHTTPCode(CloseableHttpResponse response, boolean retryHTTP403) {
     return response != null
         && (response.getStatusLine().getStatusCode() < 500
@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.snowflake.client.core.Constants.MB;
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.zip.CRC32;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Local cache of the decompressed result chunks, shared by the processes using the same cache
+ * directory, so that the chunks of a result read again, e.g. by another execution of a result scan
+ * or by reopening a {@link SnowflakeResultSetSerializable}, are not downloaded again.
+ *
+ * <p>A chunk is stored in one file named after a digest of the query id and the index of the
+ * chunk. The file starts with a header holding the length and the CRC-32 of the content, which are
+ * checked when the file is read, and a file not matching them is deleted. A chunk is written to a
+ * temporary file while it is downloaded and parsed, and only moved in place once it was parsed
+ * successfully. Files are memory mapped when read. Files last read the longest time ago are
+ * deleted when the cache gets larger than its maximum size.
+ *
+ * <p>Enabled by the JVM property net.snowflake.jdbc.resultChunkCache. The chunks are stored in
+ * clear text, in the directory given by net.snowflake.jdbc.resultChunkCacheDir or
+ * SF_RESULT_CHUNK_CACHE_DIR, by default a directory of the user in the temporary directory. The
+ * cache is disabled if the directory is not owned by the user or is accessible by other users.
+ * Failures of the cache are logged and never fail the download of a chunk.
+ */
+public final class ResultChunkCache {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(ResultChunkCache.class);
+
+  /** JVM property to enable the cache */
+  static final String ENABLED_PROPERTY = "net.snowflake.jdbc.resultChunkCache";
+
+  /** JVM property with the maximum size of the cache in MB, 1024 by default */
+  static final String MAX_SIZE_PROPERTY = "net.snowflake.jdbc.resultChunkCacheSizeMB";
+
+  private static final String CACHE_DIR_PROP = "net.snowflake.jdbc.resultChunkCacheDir";
+  private static final String CACHE_DIR_ENV = "SF_RESULT_CHUNK_CACHE_DIR";
+  private static final String DEFAULT_CACHE_DIR_NAME = "snowflake_result_chunks";
+
+  private static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+  static final String FILE_SUFFIX = ".chunk";
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+
+  // temporary files older than that were left by a process which did not finish writing them
+  private static final long STALE_TMP_FILE_MILLIS = 3600 * 1000;
+
+  // magic, length of the content and CRC-32 of the content
+  private static final byte[] MAGIC = "SFCHUNK1".getBytes(UTF_8);
+  static final int HEADER_SIZE = MAGIC.length + 8 + 8;
+
+  // larger chunks cannot be mapped in one buffer
+  private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - HEADER_SIZE;
+
+  private static final ResultChunkCache INSTANCE = createInstance();
+
+  // null if the cache is disabled
+  private final File cacheDir;
+
+  private final long maxSize;
+
+  ResultChunkCache(File cacheDir, long maxSize) {
+    this.cacheDir = cacheDir;
+    this.maxSize = maxSize;
+  }
+
+  private static ResultChunkCache createInstance() {
+    if (!Boolean.parseBoolean(systemGetProperty(ENABLED_PROPERTY))) {
+      return new ResultChunkCache(null, 0);
+    }
+    long maxSizeMB = DEFAULT_MAX_SIZE_MB;
+    String maxSizeProperty = systemGetProperty(MAX_SIZE_PROPERTY);
+    if (maxSizeProperty != null) {
+      try {
+        maxSizeMB = Long.parseLong(maxSizeProperty.trim());
+      } catch (NumberFormatException ex) {
+        logger.debug("Invalid {}: {}", MAX_SIZE_PROPERTY, maxSizeProperty);
+      }
+    }
+
+    String cacheDirPath = systemGetProperty(CACHE_DIR_PROP);
+    if (cacheDirPath == null) {
+      try {
+        cacheDirPath = System.getenv(CACHE_DIR_ENV);
+      } catch (Throwable ex) {
+        logger.debug("Cannot get environment variable for the result chunk cache directory");
+      }
+    }
+    // the temporary directory is shared by all users, each one gets its own cache directory
+    File cacheDir =
+        cacheDirPath != null
+            ? new File(cacheDirPath)
+            : new File(
+                systemGetProperty("java.io.tmpdir"),
+                DEFAULT_CACHE_DIR_NAME
+                    + "_"
+                    + String.valueOf(systemGetProperty("user.name"))
+                        .replaceAll("[^A-Za-z0-9._-]", "_"));
+    if (!cacheDir.exists()) {
+      try {
+        Files.createDirectories(
+            cacheDir.toPath(),
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      } catch (UnsupportedOperationException ex) {
+        cacheDir.mkdirs();
+      } catch (IOException ex) {
+        logger.debug("Cannot create the result chunk cache directory {}", cacheDir);
+      }
+    }
+    // a directory created by another user could be read or filled with forged chunks by them
+    if (!isPrivateDirectory(cacheDir)) {
+      logger.debug(
+          "The result chunk cache directory {} is not a directory only accessible by its owner,"
+              + " the result chunk cache is disabled",
+          cacheDir);
+      return new ResultChunkCache(null, 0);
+    }
+    logger.debug("Result chunk cache in {}, max size {}MB", cacheDir, maxSizeMB);
+    return new ResultChunkCache(cacheDir, maxSizeMB * MB);
+  }
+
+  /**
+   * Check that a directory is owned by the current user and that other users have no permission on
+   * it. On file systems without POSIX permissions, e.g. on Windows where the temporary directory
+   * is private to the user, only checks that it is a directory.
+   *
+   * @param dir directory
+   * @return true if only the current user can access the directory
+   */
+  static boolean isPrivateDirectory(File dir) {
+    Path path = dir.toPath();
+    try {
+      // a symbolic link could be replaced by its owner to point elsewhere
+      PosixFileAttributes attributes =
+          Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      UserPrincipal currentUser =
+          path.getFileSystem()
+              .getUserPrincipalLookupService()
+              .lookupPrincipalByName(systemGetProperty("user.name"));
+      return attributes.isDirectory()
+          && attributes.owner().equals(currentUser)
+          && Collections.disjoint(
+              attributes.permissions(),
+              EnumSet.of(
+                  PosixFilePermission.GROUP_READ,
+                  PosixFilePermission.GROUP_WRITE,
+                  PosixFilePermission.GROUP_EXECUTE,
+                  PosixFilePermission.OTHERS_READ,
+                  PosixFilePermission.OTHERS_WRITE,
+                  PosixFilePermission.OTHERS_EXECUTE));
+    } catch (UnsupportedOperationException ex) {
+      return dir.isDirectory();
+    } catch (IOException | SecurityException ex) {
+      logger.debug("Cannot check the owner of {}: {}", dir, ex.getMessage());
+      return false;
+    }
+  }
+
+  /** @return the cache shared by all chunk downloaders */
+  public static ResultChunkCache getInstance() {
+    return INSTANCE;
+  }
+
+  /** @return true if chunks are cached */
+  public boolean isEnabled() {
+    return cacheDir != null;
+  }
+
+  /**
+   * Open a cached chunk
+   *
+   * @param key key of the chunk, e.g. the query id and the index of the chunk
+   * @return a stream of the decompressed chunk, or null if it is not cached
+   */
+  public InputStream open(String key) {
+    if (!isEnabled()) {
+      return null;
+    }
+    File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    ByteBuffer content;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      long size = channel.size();
+      content =
+          size >= HEADER_SIZE && size - HEADER_SIZE <= MAX_CHUNK_SIZE
+              ? verify(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+              : null;
+    } catch (IOException ex) {
+      logger.debug("Cannot read the cached chunk {}: {}", file, ex.getMessage());
+      return null;
+    }
+    if (content == null) {
+      logger.debug("Deleting the corrupted cached chunk {}", file);
+      file.delete();
+      return null;
+    }
+    // the files read the longest time ago are evicted first
+    file.setLastModified(System.currentTimeMillis());
+    logger.debug("Reading cached chunk {}", file);
+    return new ByteBufferInputStream(content);
+  }
+
+  /** @return the content of a cached chunk, or null if the header does not match it */
+  private static ByteBuffer verify(MappedByteBuffer buffer) {
+    byte[] magic = new byte[MAGIC.length];
+    buffer.get(magic);
+    long length = buffer.getLong();
+    long checksum = buffer.getLong();
+    if (!Arrays.equals(magic, MAGIC) || length != buffer.remaining()) {
+      return null;
+    }
+    ByteBuffer content = ((ByteBuffer) buffer).slice();
+    CRC32 crc = new CRC32();
+    crc.update(content.duplicate());
+    return crc.getValue() == checksum ? content : null;
+  }
+
+  /**
+   * Record a chunk while it is read. The chunk is only cached once {@link
+   * RecordingInputStream#commit()} was called, after the chunk was read successfully.
+   *
+   * @param key key of the chunk
+   * @param in stream of the decompressed chunk
+   * @return a stream returning the same bytes as the given stream
+   */
+  public RecordingInputStream record(String key, InputStream in) {
+    File tmpFile = null;
+    OutputStream out = null;
+    if (isEnabled()) {
+      try {
+        tmpFile = File.createTempFile("chunk", TMP_FILE_SUFFIX, cacheDir);
+        out = new BufferedOutputStream(new FileOutputStream(tmpFile));
+        // the header is written once the length and the checksum are known
+        out.write(new byte[HEADER_SIZE]);
+      } catch (IOException ex) {
+        logger.debug("Cannot cache chunk: {}", ex.getMessage());
+        closeQuietly(out);
+        deleteQuietly(tmpFile);
+        tmpFile = null;
+        out = null;
+      }
+    }
+    return new RecordingInputStream(in, getFile(key), tmpFile, out);
+  }
+
+  /** Stream copying the bytes read to a temporary file, moved into the cache on commit */
+  public final class RecordingInputStream extends FilterInputStream {
+    private final File file;
+
+    private final CRC32 crc = new CRC32();
+
+    // null once the chunk is committed or is not cached anymore
+    private File tmpFile;
+
+    private OutputStream out;
+
+    private long length;
+
+    private RecordingInputStream(InputStream in, File file, File tmpFile, OutputStream out) {
+      super(in);
+      this.file = file;
+      this.tmpFile = tmpFile;
+      this.out = out;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b >= 0) {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = in.read(b, off, len);
+      if (n > 0) {
+        write(b, off, n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // skipped bytes must be recorded as well
+      byte[] buf = new byte[(int) Math.min(n, 8192)];
+      long skipped = 0;
+      while (skipped < n) {
+        int len = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+        if (len < 0) {
+          break;
+        }
+        skipped += len;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void write(byte[] b, int off, int len) {
+      if (out == null) {
+        return;
+      }
+      try {
+        if (length + len > MAX_CHUNK_SIZE) {
+          throw new IOException("chunk too large");
+        }
+        out.write(b, off, len);
+        crc.update(b, off, len);
+        length += len;
+      } catch (IOException ex) {
+        logger.debug("Cannot cache chunk {}: {}", file, ex.getMessage());
+        discard();
+      }
+    }
+
+    /**
+     * Cache the chunk. The rest of the stream, e.g. after the end of an Arrow stream, is read so
+     * that the cached chunk has all the bytes of the stream. The chunk was already read, so if the
+     * rest of the stream cannot be read, the chunk is only not cached.
+     */
+    public void commit() {
+      if (out == null) {
+        return;
+      }
+      byte[] buf = new byte[8192];
+      try {
+        while (read(buf, 0, buf.length) >= 0) {
+          // recorded by read
+        }
+      } catch (IOException ex) {
+        logger.debug("Cannot cache chunk {}: {}", file, ex.getMessage());
+        discard();
+        return;
+      }
+      if (out == null) {
+        return;
+      }
+      File committedFile = tmpFile;
+      try {
+        out.close();
+        out = null;
+        try (RandomAccessFile raf = new RandomAccessFile(committedFile, "rw")) {
+          raf.write(MAGIC);
+          raf.writeLong(length);
+          raf.writeLong(crc.getValue());
+        }
+        try {
+          Files.move(
+              committedFile.toPath(),
+              file.toPath(),
+              StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+          Files.move(committedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        tmpFile = null;
+        logger.debug("Cached chunk {}, {} bytes", file, length);
+      } catch (IOException ex) {
+        logger.debug("Cannot cache chunk {}: {}", file, ex.getMessage());
+        discard();
+        return;
+      }
+      evict();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        discard();
+      }
+    }
+
+    private void discard() {
+      closeQuietly(out);
+      out = null;
+      deleteQuietly(tmpFile);
+      tmpFile = null;
+    }
+  }
+
+  /**
+   * Delete the files read the longest time ago until the cache is 10% smaller than its maximum
+   * size, and the temporary files left by other processes
+   */
+  synchronized void evict() {
+    File[] files = cacheDir.listFiles();
+    if (files == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long totalSize = 0;
+    int count = 0;
+    for (File f : files) {
+      if (f.getName().endsWith(FILE_SUFFIX)) {
+        totalSize += f.length();
+        files[count++] = f;
+      } else if (f.getName().endsWith(TMP_FILE_SUFFIX)
+          && f.lastModified() < now - STALE_TMP_FILE_MILLIS) {
+        deleteQuietly(f);
+      }
+    }
+    if (totalSize <= maxSize) {
+      return;
+    }
+    File[] chunkFiles = Arrays.copyOf(files, count);
+    long[] lastModified = new long[count];
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      lastModified[i] = chunkFiles[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(i -> lastModified[i]));
+    long targetSize = maxSize / 10 * 9;
+    for (int i = 0; i < count && totalSize > targetSize; i++) {
+      File f = chunkFiles[order[i]];
+      long size = f.length();
+      // a file still mapped may not be deleted on Windows, it is evicted later
+      if (f.delete()) {
+        totalSize -= size;
+        logger.debug("Evicted cached chunk {}", f);
+      }
+    }
+  }
+
+  File getFile(String key) {
+    String name;
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      StringBuilder sb = new StringBuilder();
+      for (byte b : md.digest(key.getBytes(UTF_8))) {
+        sb.append(String.format("%02x", b));
+      }
+      name = sb.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      // every JVM supports SHA-256
+      throw new IllegalStateException(ex);
+    }
+    return new File(cacheDir, name + FILE_SUFFIX);
+  }
+
+  private static void closeQuietly(OutputStream out) {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException ex) {
+        logger.debug("Cannot close a cached chunk: {}", ex.getMessage());
+      }
+    }
+  }
+
+  private static void deleteQuietly(File file) {
+    if (file != null && !file.delete() && file.exists()) {
+      logger.debug("Cannot delete {}", file);
+    }
+  }
+
+  /** Stream reading a buffer */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      ((Buffer) buffer).position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
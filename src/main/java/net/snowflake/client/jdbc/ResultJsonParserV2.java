@@ -24,6 +24,13 @@ public class ResultJsonParserV2 {
   }
 
   private static final byte[] BNULL = {0x6e, 0x75, 0x6c, 0x6c};
+
+  // masks to look for a byte in eight bytes at once
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long QUOTES = ONES * 0x22;
+  private static final long BACKSLASHES = ONES * 0x5c;
+
   private State state = State.UNINITIALIZED;
   private int currentColumn;
   private int outputCurValuePosition;
@@ -246,42 +253,41 @@ public class ResultJsonParserV2 {
               break;
             default:
               outputCurValuePosition = outputPosition;
-              // write
               resultChunk.addOffset(outputPosition);
-              addByteToOutput(in.get(((Buffer) in).position() - 1));
-
               state = State.IN_VALUE;
-              break;
+              // copy this char together with the rest of the value in IN_VALUE
+              ((Buffer) in).position(((Buffer) in).position() - 1);
+              continue;
           }
           break;
         case IN_VALUE:
-          switch (in.get()) {
-            case 0x20: // ' '
-            case 0x9: // '\t'
-            case 0xa: // '\n'
-            case 0xd: // '\r\
-            case 0x2c: // ','
-            case 0x5d: // ']'
-              {
-                // value ended
-                int length = outputPosition - outputCurValuePosition;
-
-                // Check if value is null
-                if (length == 4 && isNull()) {
-                  resultChunk.setIsNull();
-                  outputPosition = outputCurValuePosition;
-                } else {
-                  resultChunk.setLastLength(length);
-                }
-                state = State.WAIT_FOR_NEXT;
-                ((Buffer) in).position(((Buffer) in).position() - 1);
-                continue; // reread this char in WAIT_FOR_NEXT
-              }
-            default:
-              addByteToOutput(in.get(((Buffer) in).position() - 1));
+          {
+            // copy the whole run of value chars with one call
+            int valueStart = ((Buffer) in).position();
+            int valueEnd = findValueEnd(in);
+            if (valueEnd > valueStart) {
+              addByteArrayToOutput(
+                  in.array(), in.arrayOffset() + valueStart, valueEnd - valueStart);
+            }
+            ((Buffer) in).position(valueEnd);
+            if (valueEnd == ((Buffer) in).limit()) {
+              // value continues in the next data
               break;
+            }
+
+            // value ended
+            int length = outputPosition - outputCurValuePosition;
+
+            // Check if value is null
+            if (length == 4 && isNull()) {
+              resultChunk.setIsNull();
+              outputPosition = outputCurValuePosition;
+            } else {
+              resultChunk.setLastLength(length);
+            }
+            state = State.WAIT_FOR_NEXT;
+            continue; // read the delimiter in WAIT_FOR_NEXT
           }
-          break;
         case IN_STRING:
           switch (in.get()) {
             case 0x22: // '"'
@@ -295,25 +301,16 @@ public class ResultJsonParserV2 {
               // Check how many characters don't have escape characters
               // copy those with one memcpy
               int inputPositionStart = ((Buffer) in).position() - 1;
-              while (in.hasRemaining()) {
-                byte cur = in.get();
-
-                if (cur == 0x22 /* '"' */ || cur == 0x5c /* '\\' */) {
-                  // end of string chunk
-                  ((Buffer) in).position(((Buffer) in).position() - 1);
-                  break;
-                }
-              }
+              int stringEnd = findStringEnd(in);
 
               addByteArrayToOutput(
                   in.array(),
                   in.arrayOffset() + inputPositionStart,
-                  ((Buffer) in).position() - inputPositionStart);
+                  stringEnd - inputPositionStart);
+              ((Buffer) in).position(stringEnd);
 
-              if (in.hasRemaining()
-                  && (in.get(((Buffer) in).position()) == 0x22 /* '"' */
-                      || in.get(((Buffer) in).position()) == 0x5c /* '\\' */)) {
-                // Those need special parsing
+              if (in.hasRemaining()) {
+                // '"' or '\\' need special parsing
                 continue;
               }
           }
@@ -436,6 +433,63 @@ public class ResultJsonParserV2 {
     }
   }
 
+  /**
+   * Find the end of an unquoted value, i.e. the next whitespace, ',' or ']'
+   *
+   * @param in data positioned inside the value
+   * @return absolute index of the delimiter, or the limit if the value doesn't end in this data
+   */
+  private static int findValueEnd(ByteBuffer in) {
+    byte[] src = in.array();
+    int offset = in.arrayOffset();
+    int limit = ((Buffer) in).limit();
+    for (int pos = ((Buffer) in).position(); pos < limit; pos++) {
+      switch (src[offset + pos]) {
+        case 0x20: // ' '
+        case 0x9: // '\t'
+        case 0xa: // '\n'
+        case 0xd: // '\r'
+        case 0x2c: // ','
+        case 0x5d: // ']'
+          return pos;
+        default:
+          break;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * Find the next '"' or '\\' in a string. The data is checked eight bytes at a time, only the word
+   * that contains a match is looked at byte by byte.
+   *
+   * @param in data positioned inside a string
+   * @return absolute index of the '"' or '\\', or the limit if there is none in this data
+   */
+  private static int findStringEnd(ByteBuffer in) {
+    int pos = ((Buffer) in).position();
+    int limit = ((Buffer) in).limit();
+    while (pos + 8 <= limit) {
+      long word = in.getLong(pos);
+      if (hasZeroByte(word ^ QUOTES) || hasZeroByte(word ^ BACKSLASHES)) {
+        break;
+      }
+      pos += 8;
+    }
+    for (; pos < limit; pos++) {
+      byte cur = in.get(pos);
+      if (cur == 0x22 /* '"' */ || cur == 0x5c /* '\\' */) {
+        return pos;
+      }
+    }
+    return limit;
+  }
+
+  /** @return true if any of the eight bytes of the word is zero */
+  private static boolean hasZeroByte(long word) {
+    return ((word - ONES) & ~word & HIGH_BITS) != 0;
+  }
+
   private boolean isNull() throws SnowflakeSQLException {
     int pos = outputPosition;
     if (resultChunk.get(--pos) == BNULL[3]
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+import net.snowflake.client.util.DecorrelatedJitterBackoff;
+
+/**
+ * Input stream of a download that continues where it stopped when the connection fails.
+ *
+ * <p>When reading the current source fails, or the source ends before the expected length, the
+ * source is closed and the rest of the content is requested from the number of bytes already
+ * returned, e.g. with an HTTP Range request, instead of downloading the whole content again. The
+ * attempts after the first one are delayed with a decorrelated jitter backoff. The failure is
+ * raised once the maximum number of resumes is reached, or if the thread is interrupted.
+ */
+class ResumableInputStream extends InputStream {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(ResumableInputStream.class);
+
+  /** Opens the rest of the content */
+  interface Resumer {
+    /**
+     * @param offset number of bytes already read
+     * @return a stream of the content from the offset
+     * @throws IOException if the rest of the content cannot be opened
+     */
+    InputStream resume(long offset) throws IOException;
+  }
+
+  private final long length;
+
+  private final Resumer resumer;
+
+  private final int maxResumes;
+
+  private final DecorrelatedJitterBackoff backoff;
+
+  private long backoffInMillis;
+
+  private InputStream source;
+
+  private long position = 0;
+
+  private int resumes = 0;
+
+  /**
+   * @param source stream of the content
+   * @param length length of the content, or -1 if it is unknown
+   * @param resumer opens the rest of the content
+   * @param maxResumes maximum number of times the content is resumed
+   * @param minBackoffInMillis delay before the second attempt to resume
+   * @param maxBackoffInMillis maximum delay between two attempts to resume
+   */
+  ResumableInputStream(
+      InputStream source,
+      long length,
+      Resumer resumer,
+      int maxResumes,
+      long minBackoffInMillis,
+      long maxBackoffInMillis) {
+    this.source = source;
+    this.length = length;
+    this.resumer = resumer;
+    this.maxResumes = maxResumes;
+    this.backoff = new DecorrelatedJitterBackoff(minBackoffInMillis, maxBackoffInMillis);
+    this.backoffInMillis = minBackoffInMillis;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n;
+    while ((n = read(b, 0, 1)) == 0) {
+      // read until a byte or the end of the content
+    }
+    return n < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (true) {
+      try {
+        int n = source.read(b, off, len);
+        if (n < 0 && length >= 0 && position < length) {
+          throw new EOFException(
+              "Premature end of content after " + position + " of " + length + " bytes");
+        }
+        if (n > 0) {
+          position += n;
+        }
+        return n;
+      } catch (IOException ex) {
+        resume(ex);
+      }
+    }
+  }
+
+  private void resume(IOException cause) throws IOException {
+    closeSource();
+    IOException error = cause;
+    while (resumes < maxResumes && !Thread.currentThread().isInterrupted()) {
+      if (resumes > 0) {
+        try {
+          Thread.sleep(backoffInMillis);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        backoffInMillis = backoff.nextSleepTime(backoffInMillis);
+      }
+      resumes++;
+      logger.debug(
+          "Resuming download at {} bytes, attempt {}: {}", position, resumes, error.getMessage());
+      try {
+        source = resumer.resume(position);
+        return;
+      } catch (IOException ex) {
+        error = ex;
+      }
+    }
+    throw error;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return source.available();
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  private void closeSource() {
+    try {
+      source.close();
+    } catch (IOException ex) {
+      logger.debug("Failed to close the interrupted download: {}", ex.getMessage());
+    }
+  }
+}
@@ -27,8 +27,12 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import net.snowflake.client.core.QueryStatus;
+import net.snowflake.client.core.QueryStatusMonitor;
 import net.snowflake.client.core.SFBaseResultSet;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.core.SFSession;
@@ -43,6 +47,9 @@ class SFAsyncResultSet extends SnowflakeBaseResultSet implements SnowflakeResult
   private SFSession session;
   private Statement extraStatement;
 
+  // completed once the query stopped running, shared by all callers
+  private CompletableFuture<QueryStatus> statusFuture;
+
   /**
    * Constructor takes an inputstream from the API response that we get from executing a SQL
    * statement.
@@ -123,6 +130,43 @@ class SFAsyncResultSet extends SnowflakeBaseResultSet implements SnowflakeResult
     return session.getQueryStatus(this.queryID);
   }
 
+  @Override
+  public synchronized CompletableFuture<QueryStatus> getStatusFuture() throws SQLException {
+    if (session == null) {
+      throw new SQLException("Session not set");
+    }
+    if (this.queryID == null) {
+      throw new SQLException("QueryID unknown");
+    }
+    if (statusFuture == null) {
+      statusFuture = QueryStatusMonitor.getInstance().watch(session, this.queryID);
+    }
+    return statusFuture;
+  }
+
+  /**
+   * @return future completed with this result set once the query succeeded, or completed
+   *     exceptionally with a SQLException if it failed
+   * @throws SQLException if the status of the query can not be watched
+   */
+  CompletableFuture<ResultSet> whenSucceeded() throws SQLException {
+    return getStatusFuture()
+        .thenApply(
+            qs -> {
+              if (qs != QueryStatus.SUCCESS) {
+                throw new CompletionException(queryNotSucceeded(qs));
+              }
+              return this;
+            });
+  }
+
+  private SQLException queryNotSucceeded(QueryStatus qs) {
+    return new SQLException(
+        "Status of query associated with resultSet is "
+            + qs.getDescription()
+            + ". Results not generated.");
+  }
+
   /**
    * helper function for next() and getMetaData(). Calls result_scan to get resultSet after
    * asynchronous query call
@@ -131,41 +175,22 @@ class SFAsyncResultSet extends SnowflakeBaseResultSet implements SnowflakeResult
    */
   private void getRealResults() throws SQLException {
     if (!resultSetForNextInitialized) {
-      QueryStatus qs = this.getStatus();
-      int noDataRetry = 0;
-      final int noDataMaxRetries = 30;
-      final int[] retryPattern = {1, 1, 2, 3, 4, 8, 10};
-      final int maxIndex = retryPattern.length - 1;
-      int retry = 0;
-      while (qs != QueryStatus.SUCCESS) {
-        // if query is not running due to a failure (Aborted, failed with error, etc), generate
-        // exception
-        if (!QueryStatus.isStillRunning(qs) && qs.getValue() != QueryStatus.SUCCESS.getValue()) {
-          throw new SQLException(
-              "Status of query associated with resultSet is "
-                  + qs.getDescription()
-                  + ". Results not generated.");
-        }
-        // if no data about the query is returned after about 2 minutes, give up
-        if (qs == QueryStatus.NO_DATA) {
-          noDataRetry++;
-          if (noDataRetry >= noDataMaxRetries) {
-            throw new SQLException(
-                "Cannot retrieve data on the status of this query. No information returned from server for queryID={}.",
-                this.queryID);
-          }
+      QueryStatus qs;
+      try {
+        qs = getStatusFuture().get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new SnowflakeSQLException(ex, ErrorCode.INTERRUPTED);
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof SQLException) {
+          throw (SQLException) ex.getCause();
         }
-        try {
-          // Sleep for an amount before trying again. Exponential backoff up to 5 seconds
-          // implemented.
-          Thread.sleep(500 * retryPattern[retry]);
-        } catch (InterruptedException e) {
-          e.printStackTrace();
-        }
-        if (retry < maxIndex) {
-          retry++;
-        }
-        qs = this.getStatus();
+        throw new SnowflakeSQLException(
+            ex.getCause(), ErrorCode.INTERNAL_ERROR, ex.getCause().getMessage());
+      }
+      // the query is not running anymore, and failed unless the status is SUCCESS
+      if (qs != QueryStatus.SUCCESS) {
+        throw queryNotSucceeded(qs);
       }
       resultSetForNext =
           extraStatement.executeQuery("select * from table(result_scan('" + this.queryID + "'))");
@@ -382,6 +407,27 @@ class SFAsyncResultSet extends SnowflakeBaseResultSet implements SnowflakeResult
     return sfBaseResultSet.getResultSetSerializables(maxSizeInBytes);
   }
 
+  @Override
+  public SnowflakeRecordBatch nextRecordBatch() throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    getRealResults();
+    return resultSetForNext.unwrap(SnowflakeResultSet.class).nextRecordBatch();
+  }
+
+  @Override
+  public LongColumnReader getLongColumnReader(int columnIndex) throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    getRealResults();
+    return resultSetForNext.unwrap(SnowflakeResultSet.class).getLongColumnReader(columnIndex);
+  }
+
+  @Override
+  public DoubleColumnReader getDoubleColumnReader(int columnIndex) throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    getRealResults();
+    return resultSetForNext.unwrap(SnowflakeResultSet.class).getDoubleColumnReader(columnIndex);
+  }
+
   /** Empty result set */
   static class EmptyResultSet implements ResultSet {
     private boolean isClosed;
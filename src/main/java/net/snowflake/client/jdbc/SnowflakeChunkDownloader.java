@@ -5,6 +5,7 @@
 package net.snowflake.client.jdbc;
 
 import static net.snowflake.client.core.Constants.MB;
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
@@ -23,6 +24,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
@@ -30,7 +32,10 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.GZIPInputStream;
 import net.snowflake.client.core.*;
 import net.snowflake.client.jdbc.SnowflakeResultChunk.DownloadState;
@@ -44,6 +49,7 @@ import org.apache.arrow.memory.RootAllocator;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -71,12 +77,48 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
   private static final SFLogger logger = SFLoggerFactory.getLogger(SnowflakeChunkDownloader.class);
   private static final int STREAM_BUFFER_SIZE = MB;
   private static final long SHUTDOWN_TIME = 3;
+
+  /**
+   * JVM property to overlap network receive, decompression and parsing of a chunk on separate
+   * threads instead of doing all three one after the other on the download thread
+   */
+  static final String PIPELINED_DOWNLOAD_PROPERTY = "net.snowflake.jdbc.pipelinedChunkDownload";
+
+  private static final boolean pipelinedDownloadEnabled =
+      Boolean.parseBoolean(systemGetProperty(PIPELINED_DOWNLOAD_PROPERTY));
+
+  /**
+   * JVM property to continue a chunk download interrupted by a network error with a range request
+   * from the bytes already received, instead of downloading the whole chunk again
+   */
+  static final String RESUMABLE_DOWNLOAD_PROPERTY = "net.snowflake.jdbc.resumableChunkDownload";
+
+  private static final boolean resumableDownloadEnabled =
+      Boolean.parseBoolean(systemGetProperty(RESUMABLE_DOWNLOAD_PROPERTY));
+
+  // number of times a chunk download is continued before the whole chunk is retried
+  private static final int MAX_NUM_OF_RESUMES = 5;
+
+  // backoff between the attempts to resume the download of a chunk
+  private static final long MIN_RESUME_BACKOFF_IN_MILLIS = 100;
+
+  private static final long MAX_RESUME_BACKOFF_IN_MILLIS = 4000;
+
+  // size and number of the blocks buffered between two pipeline stages
+  private static final int PIPELINE_BLOCK_SIZE = 256 * 1024;
+  private static final int PIPELINE_MAX_BLOCKS = 4;
+
+  // threads of the pipeline stages, shared by all downloaders since they only live per chunk
+  private static ExecutorService pipelineExecutor;
   private final SnowflakeConnectString snowflakeConnectionString;
   private final OCSPMode ocspMode;
 
   // Session object, used solely for throwing exceptions. CAUTION: MAY BE NULL!
   private SFSession session;
 
+  // prefix of the keys of the chunks in the result chunk cache, null if they are not cached
+  private final String chunkCacheKeyPrefix;
+
   private JsonResultChunk.ResultChunkDataCache chunkDataCache =
       new JsonResultChunk.ResultChunkDataCache();
   private List<SnowflakeResultChunk> chunks;
@@ -90,6 +132,12 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
   // number of prefetch slots
   private final int prefetchSlots;
 
+  // decides how many of the prefetch slots are used based on measured throughput
+  private final AdaptivePrefetchScheduler prefetchScheduler;
+
+  // time when the last chunk was handed to the consumer, 0 if none yet
+  private long lastChunkConsumedTime = 0;
+
   // thread pool
   private final ThreadPoolExecutor executor;
 
@@ -117,6 +165,10 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
   // the current memory usage across JVM
   private static final AtomicLong currentMemoryUsage = new AtomicLong();
 
+  // lock and condition used to wake up downloaders waiting for memory across JVM
+  private static final ReentrantLock memoryLock = new ReentrantLock();
+  private static final Condition memoryReleased = memoryLock.newCondition();
+
   // used to track the downloading threads
   private Map<Integer, Future> downloaderFutures = new ConcurrentHashMap<>();
 
@@ -132,6 +184,47 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
     }
   }
 
+  /**
+   * Account for memory parked in or taken out of the off-heap chunk buffer pool
+   *
+   * @param delta positive when buffers become idle, negative when they leave the pool
+   */
+  static void addIdlePooledMemory(long delta) {
+    currentMemoryUsage.addAndGet(delta);
+    if (delta < 0) {
+      signalMemoryReleased();
+    }
+  }
+
+  /**
+   * Reserve memory held outside of the chunks of a downloader, like the sorted runs of a result
+   * sorted on the client, so that the downloaders of all result sets stay within the memory limit.
+   *
+   * @param size bytes to reserve
+   * @param memoryLimit memory limit of the result set
+   * @return true if the memory was reserved, false if it would exceed the memory limit
+   */
+  static boolean tryReserveMemory(long size, long memoryLimit) {
+    long curMem;
+    do {
+      curMem = currentMemoryUsage.get();
+      if (curMem + size > memoryLimit) {
+        return false;
+      }
+    } while (!currentMemoryUsage.compareAndSet(curMem, curMem + size));
+    return true;
+  }
+
+  /**
+   * Release memory reserved by {@link #tryReserveMemory(long, long)}
+   *
+   * @param size bytes to release
+   */
+  static void releaseMemory(long size) {
+    currentMemoryUsage.addAndGet(-size);
+    signalMemoryReleased();
+  }
+
   // The parameters used to wait for available memory:
   // starting waiting time will be BASE_WAITING_MS * WAITING_SECS_MULTIPLIER = 100 ms
   private long BASE_WAITING_MS = 50;
@@ -160,27 +253,46 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
    */
   private static ThreadPoolExecutor createChunkDownloaderExecutorService(
       final String threadNamePrefix, final int parallel) {
-    ThreadFactory threadFactory =
-        new ThreadFactory() {
-          private int threadCount = 1;
+    return (ThreadPoolExecutor)
+        Executors.newFixedThreadPool(parallel, createThreadFactory(threadNamePrefix));
+  }
 
-          public Thread newThread(final Runnable r) {
-            final Thread thread = new Thread(r);
-            thread.setName(threadNamePrefix + threadCount++);
+  /**
+   * Create a factory of daemon threads.
+   *
+   * @param threadNamePrefix name of threads created by the factory
+   * @return new thread factory
+   */
+  private static ThreadFactory createThreadFactory(final String threadNamePrefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger threadCount = new AtomicInteger(1);
 
-            thread.setUncaughtExceptionHandler(
-                new Thread.UncaughtExceptionHandler() {
-                  public void uncaughtException(Thread t, Throwable e) {
-                    logger.error("uncaughtException in thread: " + t + " {}", e);
-                  }
-                });
+      public Thread newThread(final Runnable r) {
+        final Thread thread = DriverThreads.newThread(r);
+        thread.setName(threadNamePrefix + threadCount.getAndIncrement());
 
-            thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(
+            new Thread.UncaughtExceptionHandler() {
+              public void uncaughtException(Thread t, Throwable e) {
+                logger.error("uncaughtException in thread: " + t + " {}", e);
+              }
+            });
 
-            return thread;
-          }
-        };
-    return (ThreadPoolExecutor) Executors.newFixedThreadPool(parallel, threadFactory);
+        thread.setDaemon(true);
+
+        return thread;
+      }
+    };
+  }
+
+  /** @return executor running the stages of pipelined chunk downloads */
+  private static synchronized ExecutorService getPipelineExecutor() {
+    if (pipelineExecutor == null) {
+      // idle threads are let go, the pool only grows while chunks are downloaded
+      pipelineExecutor =
+          Executors.newCachedThreadPool(createThreadFactory("result-chunk-pipeline-"));
+    }
+    return pipelineExecutor;
   }
 
   /**
@@ -206,6 +318,20 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
             ? resultSetSerializable.getSession().orElse(null)
             : null;
 
+    // the chunks of a query are the same for every execution of a result scan and every
+    // reopening of the result set serializable
+    String queryId = resultSetSerializable.getQueryId();
+    SnowflakeConnectString connectString = resultSetSerializable.getSnowflakeConnectString();
+    this.chunkCacheKeyPrefix =
+        ResultChunkCache.getInstance().isEnabled() && queryId != null && !queryId.isEmpty()
+            ? (connectString != null ? connectString.getHost() : "")
+                + "/"
+                + queryId
+                + "/"
+                + queryResultFormat.name()
+                + "/"
+            : null;
+
     // create the chunks array
     this.chunks = new ArrayList<>(resultSetSerializable.getChunkFileCount());
 
@@ -274,6 +400,8 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         prefetchSlots,
         effectiveThreads);
 
+    this.prefetchScheduler = new AdaptivePrefetchScheduler(effectiveThreads, prefetchSlots);
+
     // create thread pool
     executor = createChunkDownloaderExecutorService("result-chunk-downloader-", effectiveThreads);
 
@@ -288,13 +416,17 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
     }
   }
 
-  /** Submit download chunk tasks to executor. Number depends on thread and memory limit */
+  /**
+   * Submit download chunk tasks to executor. Number depends on thread and memory limit and on the
+   * in-flight target of the adaptive prefetch scheduler
+   */
   private void startNextDownloaders() throws SnowflakeSQLException {
     long waitingTime = BASE_WAITING_MS;
+    final int targetInFlight = prefetchScheduler.getTargetInFlight();
 
     // submit the chunks to be downloaded up to the prefetch slot capacity
     // and limited by memory
-    while (nextChunkToDownload - nextChunkToConsume < prefetchSlots
+    while (nextChunkToDownload - nextChunkToConsume < targetInFlight
         && nextChunkToDownload < chunks.size()) {
       // check if memory limit allows more prefetching
       final SnowflakeResultChunk nextChunk = chunks.get(nextChunkToDownload);
@@ -313,6 +445,14 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
 
       // try to reserve the needed memory
       long curMem = currentMemoryUsage.addAndGet(neededChunkMemory);
+
+      // idle off-heap buffers are only a cache, drop them before giving up on prefetching
+      if (curMem > memoryLimit
+          && JsonResultChunk.isOffHeapEnabled()
+          && OffHeapChunkBufferPool.getInstance().releaseIdleBuffers(curMem - memoryLimit) > 0) {
+        currentMemoryUsage.addAndGet(-neededChunkMemory);
+        continue;
+      }
       // no memory allocate when memory is not enough for prefetch
       if (curMem > memoryLimit && nextChunkToDownload - nextChunkToConsume > 0) {
         // cancel the reserved memory and this downloader too
@@ -336,9 +476,10 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
             neededChunkMemory);
 
         logger.debug(
-            "submit chunk #{} for downloading, url={}",
+            "submit chunk #{} for downloading, url={}, targetInFlight={}",
             this.nextChunkToDownload,
-            nextChunk.getScrubbedUrl());
+            nextChunk.getScrubbedUrl(),
+            targetInFlight);
 
         Future downloaderFuture =
             executor.submit(
@@ -362,7 +503,9 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         curMem = currentMemoryUsage.addAndGet(-neededChunkMemory);
       }
 
-      // waiting when nextChunkToDownload is equal to nextChunkToConsume but reach memory limit
+      // waiting when nextChunkToDownload is equal to nextChunkToConsume but reach memory limit.
+      // The wait ends as soon as any result set in the JVM releases chunk memory; the backoff
+      // time only bounds the wait.
       try {
         waitingTime *= WAITING_SECS_MULTIPLIER;
         waitingTime = waitingTime > MAX_WAITING_MS ? MAX_WAITING_MS : waitingTime;
@@ -379,7 +522,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
               nextChunkToDownload,
               nextChunkToConsume);
         }
-        Thread.sleep(waitingTime);
+        awaitMemoryRelease(neededChunkMemory, waitingTime);
       } catch (InterruptedException ie) {
         throw new SnowflakeSQLException(
             SqlState.INTERNAL_ERROR,
@@ -393,6 +536,36 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
     chunkDataCache.clear();
   }
 
+  /**
+   * Wait until chunk memory is released by any downloader in the JVM or until the timeout expires
+   *
+   * @param neededChunkMemory memory needed by the next chunk
+   * @param timeoutInMillis maximum time to wait
+   * @throws InterruptedException if the waiting thread was interrupted
+   */
+  private void awaitMemoryRelease(long neededChunkMemory, long timeoutInMillis)
+      throws InterruptedException {
+    memoryLock.lock();
+    try {
+      // re-check under the lock so that a release right before waiting is not missed
+      if (currentMemoryUsage.get() + neededChunkMemory > memoryLimit) {
+        memoryReleased.await(timeoutInMillis, TimeUnit.MILLISECONDS);
+      }
+    } finally {
+      memoryLock.unlock();
+    }
+  }
+
+  /** wake up all downloaders waiting for chunk memory */
+  private static void signalMemoryReleased() {
+    memoryLock.lock();
+    try {
+      memoryReleased.signalAll();
+    } finally {
+      memoryLock.unlock();
+    }
+  }
+
   /**
    * release the memory usage from currentMemoryUsage
    *
@@ -417,6 +590,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
           optionalReleaseSize.isPresent(),
           Runtime.getRuntime().freeMemory());
       chunks.get(chunkId).setReleased();
+      signalMemoryReleased();
     }
   }
 
@@ -445,6 +619,11 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
    */
   public SnowflakeResultChunk getNextChunkToConsume()
       throws InterruptedException, SnowflakeSQLException {
+    // the time since the previous chunk was handed out is the time the consumer needed to drain it
+    if (lastChunkConsumedTime > 0) {
+      prefetchScheduler.recordChunkDrained(System.currentTimeMillis() - lastChunkConsumedTime);
+    }
+
     // free previous chunk data and submit a new chunk for downloading
     if (this.nextChunkToConsume > 0) {
       int prevChunk = this.nextChunkToConsume - 1;
@@ -498,8 +677,12 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         // make sure to release the last chunk
         releaseCurrentMemoryUsage(nextChunkToConsume - 1, Optional.empty());
       }
+      lastChunkConsumedTime = System.currentTimeMillis();
       return currentChunk;
     } else {
+      // the consumer is faster than the downloaders, ask for more chunks in flight
+      prefetchScheduler.recordConsumerStall();
+
       // the chunk we want to consume is not ready yet, wait for it
       currentChunk.getLock().lock();
       try {
@@ -529,6 +712,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         logger.debug("#chunk{} is ready to consume", nextChunkToConsume);
 
         nextChunkToConsume++;
+        lastChunkConsumedTime = System.currentTimeMillis();
 
         // next chunk to consume is ready for consumption
         return currentChunk;
@@ -751,6 +935,28 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
     this.totalMillisParsingChunks.addAndGet(parsingTime);
   }
 
+  /**
+   * Only a part of the same object starting at the offset can continue a chunk whose download
+   * failed. When no byte was received yet, the whole object is accepted too.
+   *
+   * @param response response to the range request of the rest of the chunk, may be null
+   * @param offset number of bytes of the chunk already received
+   * @return true if the response is the content of the chunk from the offset
+   */
+  static boolean isResumedContent(HttpResponse response, long offset) {
+    if (response == null) {
+      return false;
+    }
+    if (offset == 0 && response.getStatusLine().getStatusCode() == 200) {
+      return true;
+    }
+    if (response.getStatusLine().getStatusCode() != 206) {
+      return false;
+    }
+    Header contentRange = response.getFirstHeader("Content-Range");
+    return contentRange != null && contentRange.getValue().startsWith("bytes " + offset + "-");
+  }
+
   /**
    * Create a download callable that will be run in download thread
    *
@@ -781,7 +987,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
       private InputStream getInputStream() throws SnowflakeSQLException {
         HttpResponse response;
         try {
-          response = getResultChunk(resultChunk.getUrl());
+          response = getResultChunk(resultChunk.getUrl(), -1, null);
         } catch (URISyntaxException | IOException ex) {
           throw new SnowflakeSQLLoggedException(
               SqlState.IO_ERROR,
@@ -815,8 +1021,42 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         InputStream inputStream;
         final HttpEntity entity = response.getEntity();
         try {
+          InputStream content = entity.getContent();
+          if (resumableDownloadEnabled) {
+            // the rest of the chunk must be the same object
+            Header etag = response.getFirstHeader("ETag");
+            final String etagValue = etag != null ? etag.getValue() : null;
+            content =
+                new ResumableInputStream(
+                    content,
+                    entity.getContentLength(),
+                    offset -> resumeResultChunk(offset, etagValue),
+                    MAX_NUM_OF_RESUMES,
+                    MIN_RESUME_BACKOFF_IN_MILLIS,
+                    MAX_RESUME_BACKOFF_IN_MILLIS);
+          }
+
           // read the chunk data
-          inputStream = detectContentEncodingAndGetInputStream(response, entity.getContent());
+          if (pipelinedDownloadEnabled) {
+            // receive and inflate on their own threads, this thread only parses
+            ExecutorService pipeline = getPipelineExecutor();
+            PipelinedInputStream received =
+                new PipelinedInputStream(
+                    content, PIPELINE_BLOCK_SIZE, PIPELINE_MAX_BLOCKS, pipeline);
+            InputStream inflated;
+            try {
+              inflated = detectContentEncodingAndGetInputStream(response, received);
+            } catch (Exception ex) {
+              // stops the receiving stage, which closes the HTTP content
+              received.close();
+              throw ex;
+            }
+            inputStream =
+                new PipelinedInputStream(
+                    inflated, PIPELINE_BLOCK_SIZE, PIPELINE_MAX_BLOCKS, pipeline);
+          } else {
+            inputStream = detectContentEncodingAndGetInputStream(response, content);
+          }
         } catch (Exception ex) {
           logger.error("Failed to decompress data: {}", response);
 
@@ -888,6 +1128,10 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
           } else {
             parseJsonToChunkV2(inputStream, resultChunk);
           }
+          // the chunk is only cached once it was parsed successfully
+          if (inputStream instanceof ResultChunkCache.RecordingInputStream) {
+            ((ResultChunkCache.RecordingInputStream) inputStream).commit();
+          }
         } catch (Exception ex) {
           logger.debug(
               "Thread {} Exception when parsing result #chunk{}: {}",
@@ -922,6 +1166,9 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         // add parsing time
         resultChunk.setParseTime(System.currentTimeMillis() - startTime);
         downloader.addParsingTime(resultChunk.getParseTime());
+
+        downloader.prefetchScheduler.recordChunkFetched(
+            resultChunk.getDownloadTime(), resultChunk.getParseTime());
       }
 
       private long startTime;
@@ -947,7 +1194,20 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         TelemetryService.getInstance().updateContext(downloader.snowflakeConnectionString);
 
         try {
-          InputStream is = getInputStream();
+          InputStream is = null;
+          String cacheKey =
+              downloader.chunkCacheKeyPrefix != null
+                  ? downloader.chunkCacheKeyPrefix + chunkIndex
+                  : null;
+          if (cacheKey != null) {
+            is = ResultChunkCache.getInstance().open(cacheKey);
+          }
+          if (is == null) {
+            is = getInputStream();
+            if (cacheKey != null) {
+              is = ResultChunkCache.getInstance().record(cacheKey, is);
+            }
+          }
           logger.debug(
               "Thread {} start downloading #chunk{}", Thread.currentThread().getId(), chunkIndex);
           downloadAndParseChunk(is);
@@ -1036,12 +1296,55 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
         jp.endParsing(session);
       }
 
-      private HttpResponse getResultChunk(String chunkUrl)
+      /**
+       * Step 1b. get the rest of the chunk after a network error
+       *
+       * @param offset number of bytes of the chunk already received
+       * @param etag ETag of the chunk when its download started, or null
+       * @return the content of the chunk from the offset
+       * @throws IOException if the rest of the chunk cannot be downloaded
+       */
+      private InputStream resumeResultChunk(long offset, String etag) throws IOException {
+        CloseableHttpResponse response;
+        try {
+          response = getResultChunk(resultChunk.getUrl(), offset, etag);
+        } catch (URISyntaxException | SnowflakeSQLException ex) {
+          throw new IOException(ex);
+        }
+        if (!isResumedContent(response, offset)) {
+          if (response != null) {
+            // closing without reading, the rejected content may be the whole chunk
+            response.close();
+          }
+          throw new IOException(
+              "Cannot resume the download of #chunk"
+                  + chunkIndex
+                  + ": HTTP status="
+                  + (response != null ? response.getStatusLine().getStatusCode() : "null"));
+        }
+        return response.getEntity().getContent();
+      }
+
+      /**
+       * @param chunkUrl URL of the chunk
+       * @param offset offset in the chunk to download from, or -1 for the whole chunk
+       * @param etag ETag the chunk must still have, or null
+       * @return the response
+       */
+      private CloseableHttpResponse getResultChunk(String chunkUrl, long offset, String etag)
           throws URISyntaxException, IOException, SnowflakeSQLException {
         URIBuilder uriBuilder = new URIBuilder(chunkUrl);
 
         HttpGet httpRequest = new HttpGet(uriBuilder.build());
 
+        // a resume asks for a range even from the start, the whole chunk could be sent otherwise
+        if (offset >= 0) {
+          httpRequest.addHeader("Range", "bytes=" + offset + "-");
+          if (etag != null) {
+            httpRequest.addHeader("If-Match", etag);
+          }
+        }
+
         if (chunkHeadersMap != null && chunkHeadersMap.size() != 0) {
           for (Map.Entry<String, String> entry : chunkHeadersMap.entrySet()) {
             logger.debug("Adding header key={}, value={}", entry.getKey(), entry.getValue());
@@ -1063,10 +1366,14 @@ public class SnowflakeChunkDownloader implements ChunkDownloader {
 
         // TODO move this s3 request to HttpUtil class. In theory, upper layer
         // TODO does not need to know about http client
-        CloseableHttpClient httpClient = HttpUtil.getHttpClient(downloader.getOCSPMode());
+        // a range is an offset in the chunk as it is stored, the client must not decompress it
+        CloseableHttpClient httpClient =
+            resumableDownloadEnabled
+                ? HttpUtil.getHttpClientWithoutDecompression(downloader.getOCSPMode())
+                : HttpUtil.getHttpClient(downloader.getOCSPMode());
 
         // fetch the result chunk
-        HttpResponse response =
+        CloseableHttpResponse response =
             RestRequest.execute(
                 httpClient,
                 httpRequest,
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import io.netty.buffer.ArrowBuf;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.Types;
+
+/**
+ * Read-only view of one column of a {@link SnowflakeRecordBatch}.
+ *
+ * <p>The view reads directly from the Arrow buffers downloaded by the driver, no value is
+ * materialized unless it is requested. Numeric columns can be copied in bulk into primitive arrays
+ * with {@link #getLongs(long[])} and {@link #getDoubles(double[])}; text and binary columns expose
+ * their values as byte ranges of a single data buffer. Values of null rows are undefined, use
+ * {@link #isNull(int)} or {@link #getValidityBitmap()} to tell them apart.
+ *
+ * <p>Integer values are returned as stored by Snowflake: FIXED columns hold the unscaled value,
+ * see {@link #getScale()}, DATE columns hold days since epoch and TIME or TIMESTAMP columns stored
+ * as a single number hold the scaled time since epoch.
+ */
+public final class SnowflakeColumnVector {
+  private final ValueVector vector;
+
+  private final Types.MinorType type;
+
+  private final SnowflakeType logicalType;
+
+  private final int scale;
+
+  private final int rowCount;
+
+  SnowflakeColumnVector(ValueVector vector) {
+    this.vector = vector;
+    this.type = Types.getMinorTypeForArrowType(vector.getField().getType());
+    this.rowCount = vector.getValueCount();
+
+    Map<String, String> customMeta = vector.getField().getMetadata();
+    String logicalTypeStr = customMeta.get("logicalType");
+    String scaleStr = customMeta.get("scale");
+    if (type == Types.MinorType.DECIMAL) {
+      this.logicalType = SnowflakeType.FIXED;
+      this.scale = ((DecimalVector) vector).getScale();
+    } else {
+      this.logicalType = logicalTypeStr == null ? null : SnowflakeType.valueOf(logicalTypeStr);
+      this.scale = scaleStr == null ? 0 : Integer.parseInt(scaleStr);
+    }
+  }
+
+  /** @return column name */
+  public String getName() {
+    return vector.getField().getName();
+  }
+
+  /** @return Snowflake logical type of the column, or null if the server did not send it */
+  public SnowflakeType getLogicalType() {
+    return logicalType;
+  }
+
+  /** @return scale of FIXED, TIME and TIMESTAMP columns, otherwise 0 */
+  public int getScale() {
+    return scale;
+  }
+
+  /** @return number of rows in the column */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** @return number of null rows in the column */
+  public int getNullCount() {
+    return vector.getNullCount();
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return true if the value is null
+   */
+  public boolean isNull(int row) {
+    return vector.isNull(row);
+  }
+
+  /**
+   * Copy the validity bitmap of the column. Bit {@code row % 8} of byte {@code row / 8} is set if
+   * the row is not null, i.e. the Arrow validity layout.
+   *
+   * @return validity bitmap with at least {@code (getRowCount() + 7) / 8} bytes
+   */
+  public byte[] getValidityBitmap() {
+    byte[] bitmap = new byte[(rowCount + 7) / 8];
+    ArrowBuf validity = vector.getValidityBuffer();
+    if (validity != null && validity.capacity() >= bitmap.length) {
+      validity.getBytes(0, bitmap);
+    } else {
+      for (int row = 0; row < rowCount; row++) {
+        if (!vector.isNull(row)) {
+          bitmap[row >> 3] |= (byte) (1 << (row & 7));
+        }
+      }
+    }
+    return bitmap;
+  }
+
+  /** @return true if the column can be read with {@link #getLong(int)} */
+  public boolean hasLongValues() {
+    switch (type) {
+      case TINYINT:
+      case SMALLINT:
+      case INT:
+      case BIGINT:
+      case DATEDAY:
+      case BIT:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** @return true if the column can be read with {@link #getDouble(int)} */
+  public boolean hasDoubleValues() {
+    return hasLongValues() || type == Types.MinorType.FLOAT4 || type == Types.MinorType.FLOAT8;
+  }
+
+  /** @return true if the column can be read with {@link #getBytes(int)} */
+  public boolean hasByteValues() {
+    return vector instanceof BaseVariableWidthVector;
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return integer value stored in the row
+   * @throws SQLException if the column is not stored as integers
+   */
+  public long getLong(int row) throws SQLException {
+    ArrowBuf data = vector.getDataBuffer();
+    switch (type) {
+      case TINYINT:
+        return data.getByte(row * TinyIntVector.TYPE_WIDTH);
+      case SMALLINT:
+        return data.getShort(row * SmallIntVector.TYPE_WIDTH);
+      case INT:
+      case DATEDAY:
+        return data.getInt(row * IntVector.TYPE_WIDTH);
+      case BIGINT:
+        return data.getLong(row * BigIntVector.TYPE_WIDTH);
+      case BIT:
+        return BitVectorHelper.get(data, row);
+      default:
+        throw unsupportedView("long");
+    }
+  }
+
+  /**
+   * Copy all integer values of the column into an array
+   *
+   * @param target array with at least {@link #getRowCount()} elements, reused across batches by
+   *     the caller to avoid allocations
+   * @return the target array
+   * @throws SQLException if the column is not stored as integers
+   */
+  public long[] getLongs(long[] target) throws SQLException {
+    ArrowBuf data = vector.getDataBuffer();
+    switch (type) {
+      case TINYINT:
+        for (int row = 0; row < rowCount; row++) {
+          target[row] = data.getByte(row);
+        }
+        break;
+      case SMALLINT:
+        for (int row = 0; row < rowCount; row++) {
+          target[row] = data.getShort(row * SmallIntVector.TYPE_WIDTH);
+        }
+        break;
+      case INT:
+      case DATEDAY:
+        for (int row = 0; row < rowCount; row++) {
+          target[row] = data.getInt(row * IntVector.TYPE_WIDTH);
+        }
+        break;
+      case BIGINT:
+        for (int row = 0; row < rowCount; row++) {
+          target[row] = data.getLong(row * BigIntVector.TYPE_WIDTH);
+        }
+        break;
+      default:
+        for (int row = 0; row < rowCount; row++) {
+          target[row] = getLong(row);
+        }
+    }
+    return target;
+  }
+
+  /**
+   * @return new array with all integer values of the column
+   * @throws SQLException if the column is not stored as integers
+   */
+  public long[] getLongs() throws SQLException {
+    return getLongs(new long[rowCount]);
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return floating point value of the row; integers are divided by 10^scale
+   * @throws SQLException if the column is not numeric
+   */
+  public double getDouble(int row) throws SQLException {
+    switch (type) {
+      case FLOAT4:
+        return vector.getDataBuffer().getFloat(row * Float4Vector.TYPE_WIDTH);
+      case FLOAT8:
+        return vector.getDataBuffer().getDouble(row * Float8Vector.TYPE_WIDTH);
+      default:
+        if (!hasLongValues()) {
+          throw unsupportedView("double");
+        }
+        return scale == 0 ? getLong(row) : getLong(row) / Math.pow(10, scale);
+    }
+  }
+
+  /**
+   * Copy all values of the column into an array of doubles
+   *
+   * @param target array with at least {@link #getRowCount()} elements, reused across batches by
+   *     the caller to avoid allocations
+   * @return the target array
+   * @throws SQLException if the column is not numeric
+   */
+  public double[] getDoubles(double[] target) throws SQLException {
+    if (type == Types.MinorType.FLOAT8) {
+      ArrowBuf data = vector.getDataBuffer();
+      for (int row = 0; row < rowCount; row++) {
+        target[row] = data.getDouble(row * Float8Vector.TYPE_WIDTH);
+      }
+    } else if (type == Types.MinorType.BIGINT) {
+      ArrowBuf data = vector.getDataBuffer();
+      double divisor = Math.pow(10, scale);
+      for (int row = 0; row < rowCount; row++) {
+        target[row] = data.getLong(row * BigIntVector.TYPE_WIDTH) / divisor;
+      }
+    } else {
+      for (int row = 0; row < rowCount; row++) {
+        target[row] = getDouble(row);
+      }
+    }
+    return target;
+  }
+
+  /**
+   * @return new array with all values of the column as doubles
+   * @throws SQLException if the column is not numeric
+   */
+  public double[] getDoubles() throws SQLException {
+    return getDoubles(new double[rowCount]);
+  }
+
+  /**
+   * Get the buffer holding the values of a text or binary column. The value of a row is the range
+   * [{@link #getValueOffset(int)}, {@link #getValueOffset(int)} + {@link #getValueLength(int)}).
+   * The buffer shares memory with the batch and is only valid as long as the batch is.
+   *
+   * @return read-only view of the data buffer
+   * @throws SQLException if the column is not a text or binary column
+   */
+  public ByteBuffer getDataBuffer() throws SQLException {
+    if (!hasByteValues()) {
+      throw unsupportedView("bytes");
+    }
+    int length = rowCount == 0 ? 0 : getValueOffset(rowCount);
+    return vector.getDataBuffer().nioBuffer(0, length).asReadOnlyBuffer();
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return start of the value in {@link #getDataBuffer()}
+   */
+  public int getValueOffset(int row) {
+    return vector.getOffsetBuffer().getInt(row * BaseVariableWidthVector.OFFSET_WIDTH);
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return length in bytes of the value in {@link #getDataBuffer()}
+   */
+  public int getValueLength(int row) {
+    ArrowBuf offsets = vector.getOffsetBuffer();
+    return offsets.getInt((row + 1) * BaseVariableWidthVector.OFFSET_WIDTH)
+        - offsets.getInt(row * BaseVariableWidthVector.OFFSET_WIDTH);
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return copy of the bytes of a text or binary value, null for null rows
+   * @throws SQLException if the column is not a text or binary column
+   */
+  public byte[] getBytes(int row) throws SQLException {
+    if (!hasByteValues()) {
+      throw unsupportedView("bytes");
+    }
+    if (vector.isNull(row)) {
+      return null;
+    }
+    byte[] bytes = new byte[getValueLength(row)];
+    vector.getDataBuffer().getBytes(getValueOffset(row), bytes);
+    return bytes;
+  }
+
+  /**
+   * @param row row index in the batch, starting from 0
+   * @return text value decoded as UTF-8, null for null rows
+   * @throws SQLException if the column is not a text or binary column
+   */
+  public String getString(int row) throws SQLException {
+    byte[] bytes = getBytes(row);
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the underlying Arrow vector. The vector is owned by the driver and is released when the
+   * batch is no longer valid.
+   *
+   * @return Arrow vector backing this column
+   */
+  public ValueVector getValueVector() {
+    return vector;
+  }
+
+  private SQLException unsupportedView(String view) {
+    return new SnowflakeSQLException(
+        ErrorCode.FEATURE_UNSUPPORTED,
+        view + " view of " + (logicalType == null ? type : logicalType) + " column");
+  }
+}
@@ -967,6 +967,13 @@ public class SnowflakeConnectionV1 implements Connection, SnowflakeConnection {
     transferAgent.execute();
 
     stmt.close();
+
+    // the upload runs on a worker thread that only records its error
+    String uploadError = transferAgent.getStreamUploadError();
+    if (uploadError != null) {
+      throw new SnowflakeSQLLoggedException(
+          ErrorCode.IO_ERROR, sfSession, "Failed to upload stream: " + uploadError);
+    }
   }
 
   /**
@@ -12,6 +12,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CountingOutputStream;
 import java.io.*;
@@ -24,7 +25,10 @@ import java.sql.SQLException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 import net.snowflake.client.core.*;
@@ -58,10 +62,22 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
   // We will allow buffering of upto 128M data before spilling to disk during
   // compression and digest computation
   static final int MAX_BUFFER_SIZE = 1 << 27;
+
+  /** JVM property to compress big files while they are uploaded instead of into a temp file */
+  static final String STREAMING_COMPRESSION_PROPERTY = "net.snowflake.jdbc.streamingCompression";
+
+  private static final boolean streamingCompression =
+      Boolean.parseBoolean(systemGetProperty(STREAMING_COMPRESSION_PROPERTY));
+
   public static final String SRC_FILE_NAME_FOR_STREAM = "stream";
 
   private static final String FILE_PROTOCOL = "file://";
 
+  // kinds of digests of local files, see FileDigestCache
+  private static final String SHA256_DIGEST = "sha256";
+  private static final String MD5_DIGEST = "md5";
+  private static final String GZIP_DIGEST_SUFFIX = "-gzip";
+
   private static String localFSFileSep = systemGetProperty("file.separator");
   private static int DEFAULT_PARALLEL = 10;
 
@@ -478,6 +494,10 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
     }
   }
 
+  private static ByteSource asByteSource(FileBackedOutputStream fileBackedOutputStream) {
+    return fileBackedOutputStream != null ? fileBackedOutputStream.asByteSource() : null;
+  }
+
   private static InputStreamWithMetadata computeDigest(InputStream is, boolean resetStream)
       throws NoSuchAlgorithmException, IOException {
     MessageDigest md = MessageDigest.getInstance("SHA-256");
@@ -579,10 +599,31 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
         // Temp file that needs to be cleaned up when upload was successful
         FileBackedOutputStream fileBackedOutputStream = null;
 
+        // source of the compressed stream if the file is compressed while it is uploaded
+        ByteSource compressedSource = null;
+
         // SNOW-16082: we should catpure exception if we fail to compress or
         // calcuate digest.
         try {
-          if (metadata.requireCompress) {
+          if (metadata.requireCompress
+              && streamingCompression
+              && !sourceFromStream
+              && srcFile.length() > MAX_BUFFER_SIZE
+              && stage.getStageType() != StageInfo.StageType.LOCAL_FS) {
+            // the compressed file would spill to a temp file, which would be written and read
+            // again. Compress the file once to get the size and digest needed before the upload
+            // starts, and again while it is uploaded
+            compressedSource = new GzipFileSource(srcFile);
+            InputStreamWithMetadata result;
+            try (InputStream compressedStream = compressedSource.openStream()) {
+              result = computeDigest(compressedStream, /* resetStream = */ false);
+            }
+
+            uploadSize = result.size;
+            digest = encMat == null ? null : result.digest;
+
+            logger.debug("New size after compression: {}", uploadSize);
+          } else if (metadata.requireCompress) {
             InputStreamWithMetadata compressedSizeAndStream =
                 (encMat == null
                     ? compressStreamWithGZIPNoDigest(uploadStream, session)
@@ -603,15 +644,27 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
             // If it's not local_fs, we store our digest in the metadata
             // In local_fs, we don't need digest, and if we turn it on, we will consume whole
             // uploadStream, which local_fs uses.
-            InputStreamWithMetadata result = computeDigest(uploadStream, sourceFromStream);
-            digest = result.digest;
-            fileBackedOutputStream = result.fileBackedOutputStream;
-            uploadSize = result.size;
-
-            if (!sourceFromStream) {
+            FileDigestCache digestCache = FileDigestCache.getInstance();
+            String cachedDigest =
+                sourceFromStream ? null : digestCache.get(srcFile, SHA256_DIGEST);
+            if (cachedDigest != null) {
+              // the file is uploaded from the file itself, it does not need to be read here
+              digest = cachedDigest;
+              uploadSize = srcFile.length();
               fileToUpload = srcFile;
-            } else if (result.fileBackedOutputStream.getFile() != null) {
-              fileToUpload = result.fileBackedOutputStream.getFile();
+            } else {
+              long lastModified = sourceFromStream ? 0 : srcFile.lastModified();
+              InputStreamWithMetadata result = computeDigest(uploadStream, sourceFromStream);
+              digest = result.digest;
+              fileBackedOutputStream = result.fileBackedOutputStream;
+              uploadSize = result.size;
+
+              if (!sourceFromStream) {
+                fileToUpload = srcFile;
+                digestCache.put(srcFile, SHA256_DIGEST, uploadSize, lastModified, digest);
+              } else if (result.fileBackedOutputStream.getFile() != null) {
+                fileToUpload = result.fileBackedOutputStream.getFile();
+              }
             }
           } else {
             if (!sourceFromStream && (srcFile != null)) {
@@ -660,7 +713,9 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
                   stage,
                   destFileName,
                   uploadStream,
-                  fileBackedOutputStream,
+                  compressedSource != null
+                      ? compressedSource
+                      : asByteSource(fileBackedOutputStream),
                   uploadSize,
                   digest,
                   metadata.destCompressionType,
@@ -1328,6 +1383,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
       if (storageClient != null) {
         storageClient.shutdown();
       }
+      FileDigestCache.getInstance().save();
     }
   }
 
@@ -1767,7 +1823,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
       StageInfo stage,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutStr,
+      ByteSource uploadSource,
       long uploadSize,
       String digest,
       FileCompressionType compressionType,
@@ -1828,7 +1884,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
           srcFile,
           destFileName,
           inputStream,
-          fileBackedOutStr,
+          uploadSource,
           meta,
           stage.getRegion(),
           presignedUrl);
@@ -1922,7 +1978,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
           metadata.getStageInfo(),
           metadata.getPresignedUrlFileName(),
           uploadStream,
-          fileBackedOutputStream,
+          asByteSource(fileBackedOutputStream),
           uploadSize,
           digest,
           (requireCompress ? FileCompressionType.GZIP : null),
@@ -1958,7 +2014,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
       StageInfo stage,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutStr,
+      ByteSource uploadSource,
       long uploadSize,
       String digest,
       FileCompressionType compressionType,
@@ -2007,7 +2063,7 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
           srcFile,
           destFileName,
           inputStream,
-          fileBackedOutStr,
+          uploadSource,
           meta,
           stage.getRegion(),
           presignedUrl);
@@ -2171,6 +2227,9 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
         }
       } while (retryCount <= storageClient.getMaxRetries());
 
+      // local files whose digest is compared with the remote digest or MD5
+      List<DigestComparison> comparisons = new ArrayList<>();
+
       for (StorageObjectSummary obj : objectSummaries) {
         logger.debug(
             "Existing object: key={} size={} md5={}", obj.getKey(), obj.getSize(), obj.getMD5());
@@ -2191,149 +2250,117 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
             mappedSrcFile,
             objFileName);
 
-        String localFile = null;
-        final boolean remoteEncrypted;
-
-        try {
-          localFile =
-              (commandType == CommandType.UPLOAD) ? mappedSrcFile : (localLocation + objFileName);
-
-          if (commandType == CommandType.DOWNLOAD && !(new File(localFile)).exists()) {
-            logger.debug("File does not exist locally, will download {}", mappedSrcFile);
-            continue;
-          }
-
-          // if it's an upload and there's already a file existing remotely with the same name, skip
-          // uploading it
-          if (commandType == CommandType.UPLOAD
-              && objFileName.equals(fileMetadataMap.get(mappedSrcFile).destFileName)) {
-            skipFile(mappedSrcFile, objFileName);
-            continue;
-          }
+        String localFile =
+            (commandType == CommandType.UPLOAD) ? mappedSrcFile : (localLocation + objFileName);
 
-          // Check file size first, if their difference is bigger than the block
-          // size, we don't need to compare digests
-          if (!fileMetadataMap.get(mappedSrcFile).requireCompress
-              && Math.abs(obj.getSize() - (new File(localFile)).length()) > 16) {
-            logger.debug(
-                "Size diff between remote and local, will {} {}",
-                commandType.name().toLowerCase(),
-                mappedSrcFile);
-            continue;
-          }
+        if (commandType == CommandType.DOWNLOAD && !(new File(localFile)).exists()) {
+          logger.debug("File does not exist locally, will download {}", mappedSrcFile);
+          continue;
+        }
 
-          // Get object metadata from remote storage
-          //
-          StorageObjectMetadata meta;
+        // if it's an upload and there's already a file existing remotely with the same name, skip
+        // uploading it
+        if (commandType == CommandType.UPLOAD
+            && objFileName.equals(fileMetadataMap.get(mappedSrcFile).destFileName)) {
+          skipFile(mappedSrcFile, objFileName);
+          continue;
+        }
 
-          try {
-            meta = storageClient.getObjectMetadata(obj.getLocation(), obj.getKey());
-          } catch (StorageProviderException spEx) {
-            // SNOW-14521: when file is not found, ok to upload
-            if (spEx.isServiceException404()) {
-              // log it
-              logger.debug(
-                  "File returned from listing but found missing {} when getting its"
-                      + " metadata. Location={}, key={}",
-                  obj.getLocation(),
-                  obj.getKey());
+        // Check file size first, if their difference is bigger than the block
+        // size, we don't need to compare digests
+        if (!fileMetadataMap.get(mappedSrcFile).requireCompress
+            && Math.abs(obj.getSize() - (new File(localFile)).length()) > 16) {
+          logger.debug(
+              "Size diff between remote and local, will {} {}",
+              commandType.name().toLowerCase(),
+              mappedSrcFile);
+          continue;
+        }
 
-              // the file is not found, ok to upload
-              continue;
-            }
+        // Get object metadata from remote storage
+        //
+        StorageObjectMetadata meta;
 
-            // for any other exception, log an error
-            logger.error("Fetching object metadata encountered exception: {}", spEx.getMessage());
+        try {
+          meta = storageClient.getObjectMetadata(obj.getLocation(), obj.getKey());
+        } catch (StorageProviderException spEx) {
+          // SNOW-14521: when file is not found, ok to upload
+          if (spEx.isServiceException404()) {
+            // log it
+            logger.debug(
+                "File returned from listing but found missing {} when getting its"
+                    + " metadata. Location={}, key={}",
+                obj.getLocation(),
+                obj.getKey());
 
-            throw spEx;
+            // the file is not found, ok to upload
+            continue;
           }
 
-          String objDigest = storageClient.getDigestMetadata(meta);
+          // for any other exception, log an error
+          logger.error("Fetching object metadata encountered exception: {}", spEx.getMessage());
 
-          remoteEncrypted =
-              MatDesc.parse(meta.getUserMetadata().get(storageClient.getMatdescKey())) != null;
-
-          // calculate the digest hash of the local file
-          InputStream fileStream = null;
-          String hashText = null;
+          throw spEx;
+        }
 
-          // Streams (potentially with temp files) to clean up
-          final List<FileBackedOutputStream> fileBackedOutputStreams = new ArrayList<>();
-          try {
-            fileStream = new FileInputStream(localFile);
-            if (fileMetadataMap.get(mappedSrcFile).requireCompress) {
-              logger.debug("Compressing stream for digest check");
+        String objDigest = storageClient.getDigestMetadata(meta);
 
-              InputStreamWithMetadata res = compressStreamWithGZIP(fileStream, session);
+        boolean remoteEncrypted =
+            MatDesc.parse(meta.getUserMetadata().get(storageClient.getMatdescKey())) != null;
 
-              fileStream = res.fileBackedOutputStream.asByteSource().openStream();
-              fileBackedOutputStreams.add(res.fileBackedOutputStream);
-            }
+        // If the remote file has our digest, compute the SHA-256
+        // for the local file
+        // If the remote file does not have our digest but is unencrypted,
+        // we compare the MD5 of the unencrypted local file to the ETag
+        // of the S3 file.
+        // Otherwise (remote file is encrypted, but has no sfc-digest),
+        // no comparison is performed
+        if (objDigest == null && remoteEncrypted) {
+          logger.debug(
+              "remote store file is encrypted and has no digest, will {} {}",
+              commandType.name().toLowerCase(),
+              mappedSrcFile);
+          continue;
+        }
 
-            // If the remote file has our digest, compute the SHA-256
-            // for the local file
-            // If the remote file does not have our digest but is unencrypted,
-            // we compare the MD5 of the unencrypted local file to the ETag
-            // of the S3 file.
-            // Otherwise (remote file is encrypted, but has no sfc-digest),
-            // no comparison is performed
-            if (objDigest != null) {
-              InputStreamWithMetadata res = computeDigest(fileStream, false);
-              hashText = res.digest;
-              fileBackedOutputStreams.add(res.fileBackedOutputStream);
-
-            } else if (!remoteEncrypted) {
-              hashText = DigestUtils.md5Hex(fileStream);
-            }
-          } finally {
-            if (fileStream != null) {
-              fileStream.close();
-            }
+        comparisons.add(
+            new DigestComparison(
+                mappedSrcFile,
+                objFileName,
+                new File(localFile),
+                fileMetadataMap.get(mappedSrcFile).requireCompress,
+                objDigest == null,
+                objDigest != null ? objDigest : obj.getMD5()));
+      }
 
-            for (FileBackedOutputStream stream : fileBackedOutputStreams) {
-              if (stream != null) {
-                try {
-                  stream.reset();
-                } catch (IOException ex) {
-                  logger.debug("failed to clean up temp file: {}", ex);
-                }
-              }
-            }
-          }
+      // the local files are read in parallel, unless their digest is cached
+      digestLocalFiles(comparisons);
 
-          // continue so that we will upload the file
-          if (hashText == null
-              || // remote is encrypted & has no digest
-              (objDigest != null && !hashText.equals(objDigest))
-              || // digest mismatch
-              (objDigest == null && !hashText.equals(obj.getMD5()))) // ETag/MD5 mismatch
-          {
-            logger.debug(
-                "digest diff between remote store and local, will {} {}, "
-                    + "local digest: {}, remote store md5: {}",
-                commandType.name().toLowerCase(),
-                mappedSrcFile,
-                hashText,
-                obj.getMD5());
-            continue;
-          }
-        } catch (IOException | NoSuchAlgorithmException ex) {
-          throw new SnowflakeSQLLoggedException(
-              ex,
-              SqlState.INTERNAL_ERROR,
-              ErrorCode.INTERNAL_ERROR.getMessageCode(),
-              session,
-              "Error reading: " + localFile);
+      for (DigestComparison comparison : comparisons) {
+        // continue so that we will upload the file
+        if (!comparison.localDigest.equals(comparison.stageDigest)) {
+          logger.debug(
+              "digest diff between remote store and local, will {} {}, "
+                  + "local digest: {}, remote store digest: {}",
+              commandType.name().toLowerCase(),
+              comparison.srcFile,
+              comparison.localDigest,
+              comparison.stageDigest);
+          continue;
         }
 
         logger.debug(
             "digest same between remote store and local, will not upload {} {}",
             commandType.name().toLowerCase(),
-            mappedSrcFile);
+            comparison.srcFile);
 
-        skipFile(mappedSrcFile, objFileName);
+        skipFile(comparison.srcFile, comparison.stageFileName);
       }
     } else if (stageInfo.getStageType() == StageInfo.StageType.LOCAL_FS) {
+      // local files and the stage files they are compared with
+      List<DigestComparison> comparisons = new ArrayList<>();
+      List<DigestComparison> stageDigests = new ArrayList<>();
+
       for (String stageFileName : stageFileNames) {
         String stageFilePath =
             SnowflakeUtil.concatFilePathNames(
@@ -2377,91 +2404,184 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
         // stage file eixst and either we will be compressing or
         // the dest file has same size as the source file size we will
         // compare digest values below
-        String localFileHashText = null;
-        String stageFileHashText = null;
-
-        List<FileBackedOutputStream> fileBackedOutputStreams = new ArrayList<>();
-        InputStream localFileStream = null;
-        try {
-          // calculate the digest hash of the local file
-          localFileStream = new FileInputStream(localFile);
+        comparisons.add(
+            new DigestComparison(
+                mappedSrcFile,
+                stageFileName,
+                new File(localFile),
+                fileMetadataMap.get(mappedSrcFile).requireCompress,
+                false,
+                null));
+        stageDigests.add(
+            new DigestComparison(mappedSrcFile, stageFileName, stageFile, false, false, null));
+      }
 
-          if (fileMetadataMap.get(mappedSrcFile).requireCompress) {
-            logger.debug("Compressing stream for digest check");
+      List<DigestComparison> allDigests = new ArrayList<>(comparisons);
+      allDigests.addAll(stageDigests);
+      digestLocalFiles(allDigests);
 
-            InputStreamWithMetadata res = compressStreamWithGZIP(localFileStream, session);
-            fileBackedOutputStreams.add(res.fileBackedOutputStream);
+      for (int i = 0; i < comparisons.size(); i++) {
+        DigestComparison comparison = comparisons.get(i);
 
-            localFileStream = res.fileBackedOutputStream.asByteSource().openStream();
-          }
+        // continue if digest is different so that we will process the file
+        if (!stageDigests.get(i).localDigest.equals(comparison.localDigest)) {
+          logger.debug(
+              "digest diff between local and stage, will {} {}",
+              commandType.name().toLowerCase(),
+              comparison.srcFile);
+          continue;
+        } else {
+          logger.debug(
+              "digest matches between local and stage, will skip {}", comparison.srcFile);
 
-          InputStreamWithMetadata res = computeDigest(localFileStream, false);
-          localFileHashText = res.digest;
-          fileBackedOutputStreams.add(res.fileBackedOutputStream);
-        } catch (IOException | NoSuchAlgorithmException ex) {
-          throw new SnowflakeSQLLoggedException(
-              ex,
-              SqlState.INTERNAL_ERROR,
-              ErrorCode.INTERNAL_ERROR.getMessageCode(),
-              session,
-              "Error reading local file: " + localFile);
-        } finally {
-          for (FileBackedOutputStream stream : fileBackedOutputStreams) {
-            if (stream != null) {
-              try {
-                stream.reset();
-              } catch (IOException ex) {
-                logger.debug("failed to clean up temp file: {}", ex);
-              }
-            }
-          }
-          IOUtils.closeQuietly(localFileStream);
+          // skip the file given that the check sum is the same b/w source
+          // and destination
+          skipFile(comparison.srcFile, comparison.stageFileName);
         }
+      }
+    }
+  }
 
-        FileBackedOutputStream fileBackedOutputStream = null;
-        InputStream stageFileStream = null;
-        try {
-          // calculate digst for stage file
-          stageFileStream = new FileInputStream(stageFilePath);
+  /** Digest of a local file to compare with the digest of a file on the stage */
+  private static class DigestComparison {
+    final String srcFile;
 
-          InputStreamWithMetadata res = computeDigest(stageFileStream, false);
-          stageFileHashText = res.digest;
-          fileBackedOutputStream = res.fileBackedOutputStream;
+    final String stageFileName;
 
-        } catch (IOException | NoSuchAlgorithmException ex) {
+    final File localFile;
+
+    // whether the digest is of the gzip compressed content
+    final boolean compress;
+
+    // whether the digest is the hex MD5 instead of the base64 SHA-256
+    final boolean md5;
+
+    final String stageDigest;
+
+    String localDigest;
+
+    DigestComparison(
+        String srcFile,
+        String stageFileName,
+        File localFile,
+        boolean compress,
+        boolean md5,
+        String stageDigest) {
+      this.srcFile = srcFile;
+      this.stageFileName = stageFileName;
+      this.localFile = localFile;
+      this.compress = compress;
+      this.md5 = md5;
+      this.stageDigest = stageDigest;
+    }
+  }
+
+  /**
+   * Compute the digests of local files on the transfer threads
+   *
+   * @param comparisons local files, whose localDigest is set
+   * @throws SnowflakeSQLException if a file could not be read
+   */
+  private void digestLocalFiles(List<DigestComparison> comparisons) throws SnowflakeSQLException {
+    if (comparisons.isEmpty()) {
+      return;
+    }
+    ExecutorService executor =
+        comparisons.size() > 1 && parallel > 1
+            ? SnowflakeUtil.createDefaultExecutorService(
+                "sf-file-digest-worker-", Math.min(parallel, comparisons.size()))
+            : null;
+    try {
+      List<Future<String>> digests = new ArrayList<>(comparisons.size());
+      for (final DigestComparison comparison : comparisons) {
+        Callable<String> digestFile =
+            () -> digestLocalFile(comparison.localFile, comparison.compress, comparison.md5);
+        if (executor != null) {
+          digests.add(executor.submit(digestFile));
+        } else {
+          FutureTask<String> task = new FutureTask<>(digestFile);
+          task.run();
+          digests.add(task);
+        }
+      }
+      for (int i = 0; i < comparisons.size(); i++) {
+        DigestComparison comparison = comparisons.get(i);
+        try {
+          comparison.localDigest = digests.get(i).get();
+        } catch (ExecutionException ex) {
+          if (ex.getCause() instanceof SnowflakeSQLException) {
+            throw (SnowflakeSQLException) ex.getCause();
+          }
           throw new SnowflakeSQLLoggedException(
-              ex,
+              ex.getCause(),
               SqlState.INTERNAL_ERROR,
               ErrorCode.INTERNAL_ERROR.getMessageCode(),
               session,
-              "Error reading stage file: " + stageFilePath);
-        } finally {
-          try {
-            if (fileBackedOutputStream != null) {
-              fileBackedOutputStream.reset();
-            }
-          } catch (IOException ex) {
-            logger.debug("failed to clean up temp file: {}", ex);
-          }
-          IOUtils.closeQuietly(stageFileStream);
+              "Error reading: " + comparison.localFile);
+        } catch (InterruptedException ex) {
+          throw new SnowflakeSQLLoggedException(
+              SqlState.QUERY_CANCELED, ErrorCode.INTERRUPTED.getMessageCode(), session);
         }
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
 
-        // continue if digest is different so that we will process the file
-        if (!stageFileHashText.equals(localFileHashText)) {
-          logger.debug(
-              "digest diff between local and stage, will {} {}",
-              commandType.name().toLowerCase(),
-              mappedSrcFile);
-          continue;
-        } else {
-          logger.debug("digest matches between local and stage, will skip {}", mappedSrcFile);
+  /**
+   * Compute the digest of a local file, or get it from the digest cache if the file did not change
+   * since the last transfer
+   *
+   * @param file local file
+   * @param compress whether to compute the digest of the gzip compressed content
+   * @param md5 whether to compute the hex MD5 instead of the base64 SHA-256
+   * @return digest of the file
+   * @throws IOException if the file could not be read
+   * @throws NoSuchAlgorithmException if SHA-256 is not available
+   * @throws SnowflakeSQLException if the file could not be compressed
+   */
+  private String digestLocalFile(File file, boolean compress, boolean md5)
+      throws IOException, NoSuchAlgorithmException, SnowflakeSQLException {
+    FileDigestCache cache = FileDigestCache.getInstance();
+    String kind = (md5 ? MD5_DIGEST : SHA256_DIGEST) + (compress ? GZIP_DIGEST_SUFFIX : "");
+    String digest = cache.get(file, kind);
+    if (digest != null) {
+      return digest;
+    }
 
-          // skip the file given that the check sum is the same b/w source
-          // and destination
-          skipFile(mappedSrcFile, stageFileName);
+    long size = file.length();
+    long lastModified = file.lastModified();
+    InputStream fileStream = new FileInputStream(file);
+    FileBackedOutputStream compressedStream = null;
+    try {
+      if (compress) {
+        logger.debug("Compressing stream for digest check");
+
+        InputStreamWithMetadata res = compressStreamWithGZIP(fileStream, session);
+        compressedStream = res.fileBackedOutputStream;
+        if (!md5) {
+          digest = res.digest;
+        } else {
+          fileStream = compressedStream.asByteSource().openStream();
+        }
+      }
+      if (digest == null) {
+        digest = md5 ? DigestUtils.md5Hex(fileStream) : computeDigest(fileStream, false).digest;
+      }
+    } finally {
+      IOUtils.closeQuietly(fileStream);
+      if (compressedStream != null) {
+        try {
+          compressedStream.reset();
+        } catch (IOException ex) {
+          logger.debug("failed to clean up temp file: {}", ex);
         }
       }
     }
+    cache.put(file, kind, size, lastModified, digest);
+    return digest;
   }
 
   private void skipFile(String srcFilePath, String destFileName) {
@@ -2915,6 +3035,19 @@ public class SnowflakeFileTransferAgent implements SnowflakeFixedView {
     this.compressSourceFromStream = compressSourceFromStream;
   }
 
+  /**
+   * @return error details if the upload from a stream failed, see {@link
+   *     #setSourceStream(InputStream)}, otherwise null
+   */
+  String getStreamUploadError() {
+    FileMetadata metadata =
+        fileMetadataMap == null ? null : fileMetadataMap.get(SRC_FILE_NAME_FOR_STREAM);
+    if (metadata != null && metadata.resultStatus == ResultStatus.ERROR) {
+      return metadata.errorDetails;
+    }
+    return null;
+  }
+
   /*
    * Handles an InvalidKeyException which indicates that the JCE component
    * is not installed properly
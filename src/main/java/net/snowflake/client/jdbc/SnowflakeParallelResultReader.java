@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Consumes a result with several worker threads.
+ *
+ * <p>The result is split into pieces of one result chunk each, see {@link
+ * SnowflakeResultSet#getResultSetSerializables(long)}. Worker threads claim the next unprocessed
+ * piece from a shared counter as soon as they are done with their previous one, so a slow chunk
+ * never holds back the other workers. Each worker opens the piece it will process next before
+ * working on the current one, which starts downloading the next chunk while the rows of the current
+ * chunk are being converted.
+ *
+ * <p>The value computed for every piece is handed to a sink on the calling thread, either in chunk
+ * order or as soon as it is available.
+ */
+public class SnowflakeParallelResultReader {
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(SnowflakeParallelResultReader.class);
+
+  /**
+   * Work to do on the rows of one piece of the result. Called concurrently from several worker
+   * threads, each time with a different result set.
+   *
+   * @param <T> type of the value computed for a piece
+   */
+  public interface PieceProcessor<T> {
+    /**
+     * @param resultSet rows of one piece, closed by the reader once this method returns
+     * @return value passed to the sink
+     * @throws SQLException if fails to process the rows
+     */
+    T process(ResultSet resultSet) throws SQLException;
+  }
+
+  private final List<SnowflakeResultSetSerializable> pieces;
+
+  private final int parallelism;
+
+  private final Properties info;
+
+  /**
+   * @param pieces pieces of a result, in result order
+   * @param parallelism number of worker threads
+   * @param info the proxy server information if proxy is necessary, may be null
+   */
+  public SnowflakeParallelResultReader(
+      List<SnowflakeResultSetSerializable> pieces, int parallelism, Properties info) {
+    this.pieces = pieces;
+    this.parallelism = Math.max(1, Math.min(parallelism, pieces.size()));
+    this.info = info;
+  }
+
+  /**
+   * Create a reader over all chunks of a result set. The result set itself must not be read.
+   *
+   * @param resultSet result set of a query
+   * @param parallelism number of worker threads
+   * @return reader with one piece per result chunk
+   * @throws SQLException if the result set can not be split
+   */
+  public static SnowflakeParallelResultReader create(ResultSet resultSet, int parallelism)
+      throws SQLException {
+    // the smallest size puts every chunk in its own piece
+    List<SnowflakeResultSetSerializable> pieces =
+        resultSet.unwrap(SnowflakeResultSet.class).getResultSetSerializables(1);
+    return new SnowflakeParallelResultReader(pieces, parallelism, null);
+  }
+
+  /** @return number of pieces the result is split into */
+  public int getPieceCount() {
+    return pieces.size();
+  }
+
+  /**
+   * Process all pieces and wait until all of them are done
+   *
+   * @param processor work done on the rows of each piece
+   * @param sink receives the value of each piece on the calling thread
+   * @param ordered true to pass the values to the sink in result order, false to pass them in
+   *     completion order
+   * @param <T> type of the value computed for a piece
+   * @throws SQLException if any piece fails, the remaining pieces are abandoned
+   */
+  public <T> void process(PieceProcessor<T> processor, Consumer<? super T> sink, boolean ordered)
+      throws SQLException {
+    if (pieces.isEmpty()) {
+      return;
+    }
+
+    BlockingQueue<PieceResult<T>> results = new LinkedBlockingQueue<>();
+    AtomicInteger nextPiece = new AtomicInteger();
+    ExecutorService executor =
+        SnowflakeUtil.createDefaultExecutorService("result-parallel-reader-", parallelism);
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        executor.submit(() -> runWorker(processor, nextPiece, results));
+      }
+
+      // values that completed ahead of their turn in ordered mode
+      Map<Integer, T> pending = new HashMap<>();
+      int nextToDeliver = 0;
+      for (int done = 0; done < pieces.size(); done++) {
+        PieceResult<T> result = results.take();
+        if (result.error != null) {
+          throw result.error;
+        }
+        if (!ordered) {
+          sink.accept(result.value);
+          continue;
+        }
+        pending.put(result.index, result.value);
+        while (pending.containsKey(nextToDeliver)) {
+          sink.accept(pending.remove(nextToDeliver++));
+        }
+      }
+    } catch (InterruptedException ex) {
+      throw new SnowflakeSQLException(ErrorCode.INTERRUPTED);
+    } finally {
+      // interrupts the workers if processing is abandoned
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Process all pieces and collect their values in result order
+   *
+   * @param processor work done on the rows of each piece
+   * @param <T> type of the value computed for a piece
+   * @return value of each piece, in result order
+   * @throws SQLException if any piece fails
+   */
+  public <T> List<T> process(PieceProcessor<T> processor) throws SQLException {
+    List<T> values = new ArrayList<>(pieces.size());
+    process(processor, values::add, true);
+    return values;
+  }
+
+  private <T> void runWorker(
+      PieceProcessor<T> processor, AtomicInteger nextPiece, BlockingQueue<PieceResult<T>> results) {
+    int nextIndex = nextPiece.getAndIncrement();
+    ResultSet next = null;
+    // piece being opened or processed, the one a failure is reported for
+    int failingIndex = nextIndex;
+    try {
+      next = open(nextIndex);
+      while (next != null && !Thread.currentThread().isInterrupted()) {
+        int index = nextIndex;
+        ResultSet current = next;
+        next = null;
+
+        // claim and open the following piece so that its download overlaps with processing
+        nextIndex = nextPiece.getAndIncrement();
+        try {
+          failingIndex = nextIndex;
+          next = open(nextIndex);
+          failingIndex = index;
+          results.add(new PieceResult<>(index, processor.process(current), null));
+        } finally {
+          current.close();
+        }
+      }
+    } catch (SQLException ex) {
+      logger.debug("Failed to process result piece {}", failingIndex);
+      results.add(new PieceResult<T>(failingIndex, null, ex));
+    } catch (Throwable ex) {
+      // any failure must be reported, or the caller waits forever for the piece
+      logger.debug("Failed to process result piece {}", failingIndex);
+      results.add(
+          new PieceResult<T>(
+              failingIndex,
+              null,
+              new SnowflakeSQLException(
+                  ex, ErrorCode.INTERNAL_ERROR, "Failed to process result piece: " + ex)));
+    } finally {
+      closeQuietly(next);
+    }
+  }
+
+  private ResultSet open(int index) throws SQLException {
+    return index < pieces.size() ? pieces.get(index).getResultSet(info) : null;
+  }
+
+  private static void closeQuietly(ResultSet resultSet) {
+    if (resultSet != null) {
+      try {
+        resultSet.close();
+      } catch (SQLException ex) {
+        logger.debug("Failed to close result piece", ex);
+      }
+    }
+  }
+
+  /** Outcome of one piece */
+  private static class PieceResult<T> {
+    final int index;
+
+    final T value;
+
+    final SQLException error;
+
+    PieceResult(int index, T value, SQLException error) {
+      this.index = index;
+      this.value = value;
+      this.error = error;
+    }
+  }
+}
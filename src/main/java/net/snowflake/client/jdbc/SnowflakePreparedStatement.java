@@ -2,6 +2,8 @@ package net.snowflake.client.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.CompletableFuture;
 
 public interface SnowflakePreparedStatement {
   /** @return the Snowflake query ID of the latest executed query */
@@ -14,4 +16,16 @@ public interface SnowflakePreparedStatement {
    * @throws SQLException
    */
   ResultSet executeAsyncQuery() throws SQLException;
+
+  /**
+   * Execute a query asynchronously without blocking a thread until it finishes, see {@link
+   * SnowflakeStatement#executeQueryAsyncFuture(String)}
+   *
+   * @return future completed with the ResultSet once the query succeeded, or completed
+   *     exceptionally with a SQLException if it failed
+   * @throws SQLException if the query could not be submitted
+   */
+  default CompletableFuture<ResultSet> executeQueryAsyncFuture() throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
 }
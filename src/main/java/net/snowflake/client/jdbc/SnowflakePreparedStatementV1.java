@@ -4,6 +4,8 @@
 
 package net.snowflake.client.jdbc;
 
+import static net.snowflake.client.jdbc.SnowflakeUtil.systemGetProperty;
+
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -11,7 +13,9 @@ import java.net.URL;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import net.snowflake.client.core.*;
+import net.snowflake.client.core.bind.LongBindColumn;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.common.core.SFBinary;
@@ -37,6 +41,15 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
               ERROR_CODE_OBJECT_BIND_NOT_SET,
               ERROR_CODE_FORMAT_ARGUMENT_NOT_STRING));
 
+  /**
+   * System property to keep integer, date and timestamp batch binds in long arrays, see {@link
+   * LongBindColumn}, instead of a String per value
+   */
+  static final String COLUMNAR_ARRAY_BIND_PROPERTY = "net.snowflake.jdbc.columnarArrayBind";
+
+  private static final boolean columnarArrayBindEnabled =
+      Boolean.parseBoolean(systemGetProperty(COLUMNAR_ARRAY_BIND_PROPERTY));
+
   private final String sql;
 
   private boolean showStatementParameters;
@@ -132,6 +145,11 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
     return executeQueryInternal(sql, true, parameterBindings);
   }
 
+  @Override
+  public CompletableFuture<ResultSet> executeQueryAsyncFuture() throws SQLException {
+    return ((SFAsyncResultSet) executeAsyncQuery()).whenSucceeded();
+  }
+
   @Override
   public long executeLargeUpdate() throws SQLException {
     logger.debug("executeLargeUpdate()");
@@ -445,7 +463,11 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
         // create binding value and type for the first time
         if (bindingValueAndType == null) {
           // create the value list
-          values = new ArrayList<>();
+          String type = binding.getValue().getType();
+          values =
+              columnarArrayBindEnabled && LongBindColumn.isSupportedType(type)
+                  ? new LongBindColumn(type)
+                  : new ArrayList<>();
 
           bindingValueAndType = new ParameterBindingDTO(binding.getValue().getType(), values);
 
@@ -495,7 +517,13 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
         }
 
         // add the value to the list of values in batch binding map
-        values.add((String) newValue);
+        if (!(values instanceof LongBindColumn)) {
+          values.add((String) newValue);
+        } else if (!((LongBindColumn) values).tryAdd((String) newValue)) {
+          // e.g. a BigDecimal with a fraction, keep the column as strings from now on
+          values = new ArrayList<>(values);
+          values.add((String) newValue);
+        }
         bindingValueAndType.setValue(values);
       }
       batchSize++;
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
+
+/**
+ * One Arrow record batch of a result set, returned by {@link
+ * SnowflakeResultSet#nextRecordBatch()}.
+ *
+ * <p>A batch gives columnar access to the rows without going through the row cursor and the per
+ * cell converters. The memory of a batch belongs to its result chunk: the batch is valid until the
+ * result set moves on to the next result chunk or is closed, so callers must copy anything they
+ * want to keep beyond that point, or take the vectors over with {@link
+ * #transferTo(BufferAllocator)}.
+ *
+ * <p>Snowflake picks the narrowest Arrow type per result chunk, e.g. a NUMBER column can be an
+ * INT vector in one batch and a BIGINT vector in the next one. Consumers of the Arrow export should
+ * not assume that all batches of a result share one schema.
+ */
+public final class SnowflakeRecordBatch {
+  private final List<ValueVector> vectors;
+
+  private final List<SnowflakeColumnVector> columns;
+
+  private final int rowCount;
+
+  private boolean transferred = false;
+
+  SnowflakeRecordBatch(List<ValueVector> vectors) {
+    this.vectors = vectors;
+    this.columns = new ArrayList<>(vectors.size());
+    for (ValueVector vector : vectors) {
+      columns.add(new SnowflakeColumnVector(vector));
+    }
+    this.rowCount = vectors.isEmpty() ? 0 : vectors.get(0).getValueCount();
+  }
+
+  /** @return number of rows in the batch */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** @return number of columns in the batch */
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  /**
+   * @param columnIndex column index, starting from 1 as in {@link java.sql.ResultSet}
+   * @return view of the column
+   * @throws SnowflakeSQLException if the column does not exist or the batch was transferred
+   */
+  public SnowflakeColumnVector getColumn(int columnIndex) throws SnowflakeSQLException {
+    raiseSQLExceptionIfTransferred();
+    if (columnIndex < 1 || columnIndex > columns.size()) {
+      throw new SnowflakeSQLException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIndex);
+    }
+    return columns.get(columnIndex - 1);
+  }
+
+  /**
+   * Get the allocator that owns the memory of the batch. Allocators created as children of it can
+   * take the batch over without copying, see {@link #transferTo(BufferAllocator)}.
+   *
+   * @return allocator of the result set, or null for a batch without columns
+   */
+  public BufferAllocator getAllocator() {
+    return vectors.isEmpty() ? null : vectors.get(0).getAllocator();
+  }
+
+  /**
+   * Hand the vectors of the batch over to a caller owned allocator. If the allocator shares the
+   * root with {@link #getAllocator()} the buffers change owner without any copy, otherwise the
+   * batch is copied through the Arrow IPC format. Either way the batch itself can no longer be read
+   * afterwards and the caller is responsible for closing the returned root.
+   *
+   * @param allocator allocator that owns the vectors from now on
+   * @return the batch as VectorSchemaRoot
+   * @throws SnowflakeSQLException if the batch was already transferred or fails to copy it
+   */
+  public VectorSchemaRoot transferTo(BufferAllocator allocator) throws SnowflakeSQLException {
+    raiseSQLExceptionIfTransferred();
+    VectorSchemaRoot result;
+    BufferAllocator batchAllocator = getAllocator();
+    if (batchAllocator == null || getRoot(allocator) == getRoot(batchAllocator)) {
+      result = transfer(vectors, allocator, rowCount);
+    } else {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      writeArrowStream(out);
+      try (ArrowStreamReader reader =
+          new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+        reader.loadNextBatch();
+        VectorSchemaRoot copy = reader.getVectorSchemaRoot();
+        // move the vectors out of the reader, it clears its root on close
+        result = transfer(new ArrayList<>(copy.getFieldVectors()), allocator, copy.getRowCount());
+      } catch (IOException ex) {
+        throw new SnowflakeSQLException(
+            ex, ErrorCode.INTERNAL_ERROR, "Failed to copy record batch: " + ex.getMessage());
+      }
+      vectors.forEach(ValueVector::clear);
+    }
+    transferred = true;
+    return result;
+  }
+
+  /**
+   * Write the batch as a self-contained Arrow IPC stream, i.e. the schema followed by one record
+   * batch and the end of stream marker. The batch can still be read afterwards.
+   *
+   * @param out stream to write to, it is not closed
+   * @throws SnowflakeSQLException if the batch was transferred or fails to write it
+   */
+  public void writeArrowStream(OutputStream out) throws SnowflakeSQLException {
+    raiseSQLExceptionIfTransferred();
+    List<Field> fields = new ArrayList<>(vectors.size());
+    List<FieldVector> fieldVectors = new ArrayList<>(vectors.size());
+    for (ValueVector vector : vectors) {
+      fields.add(vector.getField());
+      fieldVectors.add((FieldVector) vector);
+    }
+
+    // the root only borrows the vectors of the chunk, so it must not be closed
+    VectorSchemaRoot root = new VectorSchemaRoot(fields, fieldVectors, rowCount);
+    ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out);
+    try {
+      writer.start();
+      writer.writeBatch();
+      writer.end();
+      out.flush();
+    } catch (IOException ex) {
+      throw new SnowflakeSQLException(
+          ex, ErrorCode.IO_ERROR, "Failed to write record batch: " + ex.getMessage());
+    }
+  }
+
+  private static BufferAllocator getRoot(BufferAllocator allocator) {
+    while (allocator.getParentAllocator() != null) {
+      allocator = allocator.getParentAllocator();
+    }
+    return allocator;
+  }
+
+  private static VectorSchemaRoot transfer(
+      List<? extends ValueVector> from, BufferAllocator allocator, int rowCount) {
+    List<Field> fields = new ArrayList<>(from.size());
+    List<FieldVector> to = new ArrayList<>(from.size());
+    for (ValueVector vector : from) {
+      // transfer will not copy data but move the ownership of the buffers
+      TransferPair t = vector.getTransferPair(allocator);
+      t.transfer();
+      fields.add(t.getTo().getField());
+      to.add((FieldVector) t.getTo());
+    }
+    return new VectorSchemaRoot(fields, to, rowCount);
+  }
+
+  private void raiseSQLExceptionIfTransferred() throws SnowflakeSQLException {
+    if (transferred) {
+      throw new SnowflakeSQLException(
+          ErrorCode.FEATURE_UNSUPPORTED, "reading a record batch after it was transferred");
+    }
+  }
+}
@@ -5,7 +5,9 @@
 package net.snowflake.client.jdbc;
 
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import net.snowflake.client.core.QueryStatus;
 
 /** This interface defines Snowflake specific APIs for ResultSet */
@@ -25,6 +27,20 @@ public interface SnowflakeResultSet {
    */
   QueryStatus getStatus() throws SQLException;
 
+  /**
+   * Get the status of an asynchronous query once it stopped running, without polling the status in
+   * the calling thread. The statuses of all asynchronous queries are polled by one monitor, so this
+   * scales to many outstanding queries. The future is completed on a completion thread of the
+   * driver, see {@link SnowflakeStatement#executeQueryAsyncFuture(String)}.
+   *
+   * @return future completed with SUCCESS or the error status of the query, or completed
+   *     exceptionally if the status could not be retrieved
+   * @throws SQLException if the result set is not from an asynchronous query
+   */
+  default CompletableFuture<QueryStatus> getStatusFuture() throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
   /**
    * Get a list of ResultSetSerializables for the ResultSet in order to parallel processing
    *
@@ -38,4 +54,39 @@ public interface SnowflakeResultSet {
    */
   List<SnowflakeResultSetSerializable> getResultSetSerializables(long maxSizeInBytes)
       throws SQLException;
+
+  /**
+   * Get the next Arrow record batch of the result as one columnar batch. Rows of the current
+   * record batch that were not visited by next() yet are skipped. Afterwards the cursor is
+   * positioned on the last row of the returned batch. Only supported for results in Arrow format.
+   *
+   * @return the next record batch, or null if there are no more rows
+   * @throws SQLException if the result is not in Arrow format or fails to fetch the next chunk
+   */
+  default SnowflakeRecordBatch nextRecordBatch() throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  /**
+   * Get a reader of a column as primitive long values. Unlike getObject() and getBigDecimal() the
+   * reader does not allocate per value, which matters when draining wide numeric results.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return reader that returns the values of the column in the current row
+   * @throws SQLException if the column does not exist or the result set is closed
+   */
+  default LongColumnReader getLongColumnReader(int columnIndex) throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  /**
+   * Get a reader of a column as primitive double values, see {@link #getLongColumnReader(int)}.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return reader that returns the values of the column in the current row
+   * @throws SQLException if the column does not exist or the result set is closed
+   */
+  default DoubleColumnReader getDoubleColumnReader(int columnIndex) throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
 }
@@ -263,6 +263,10 @@ public class SnowflakeResultSetSerializableV1
     this.chunkDownloader = chunkDownloader;
   }
 
+  public void setMemoryLimit(long memoryLimit) {
+    this.memoryLimit = memoryLimit;
+  }
+
   public SFResultSetMetaData getSFResultSetMetaData() {
     return resultSetMetaData;
   }
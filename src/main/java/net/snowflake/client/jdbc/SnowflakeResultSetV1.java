@@ -28,6 +28,7 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
 import net.snowflake.client.core.QueryStatus;
 import net.snowflake.client.core.SFBaseResultSet;
 import net.snowflake.client.core.SFException;
@@ -72,6 +73,17 @@ class SnowflakeResultSetV1 extends SnowflakeBaseResultSet implements SnowflakeRe
     throw new SQLFeatureNotSupportedException();
   }
 
+  /**
+   * This function is not supported for synchronous queries
+   *
+   * @return no return value; exception is always thrown
+   * @throws SQLFeatureNotSupportedException
+   */
+  @Override
+  public CompletableFuture<QueryStatus> getStatusFuture() throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
   /**
    * Constructor takes a result set serializable object to create a sessionless result set.
    *
@@ -369,6 +381,39 @@ class SnowflakeResultSetV1 extends SnowflakeBaseResultSet implements SnowflakeRe
     return sfBaseResultSet.getResultSetSerializables(maxSizeInBytes);
   }
 
+  @Override
+  public SnowflakeRecordBatch nextRecordBatch() throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try {
+      return sfBaseResultSet.nextRecordBatch();
+    } catch (SFException ex) {
+      throw new SnowflakeSQLException(
+          ex.getCause(), ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  public LongColumnReader getLongColumnReader(int columnIndex) throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try {
+      return sfBaseResultSet.getLongColumnReader(columnIndex);
+    } catch (SFException ex) {
+      throw new SnowflakeSQLException(
+          ex.getCause(), ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  public DoubleColumnReader getDoubleColumnReader(int columnIndex) throws SQLException {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try {
+      return sfBaseResultSet.getDoubleColumnReader(columnIndex);
+    } catch (SFException ex) {
+      throw new SnowflakeSQLException(
+          ex.getCause(), ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
   /** Empty result set */
   static class EmptyResultSet implements ResultSet {
     private boolean isClosed;
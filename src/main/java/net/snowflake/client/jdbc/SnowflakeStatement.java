@@ -6,7 +6,9 @@ package net.snowflake.client.jdbc;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /** This interface defines Snowflake specific APIs for Statement */
 public interface SnowflakeStatement {
@@ -32,4 +34,23 @@ public interface SnowflakeStatement {
    * @throws SQLException if @link{#executeQueryInternal(String, Map)} throws an exception
    */
   ResultSet executeAsyncQuery(String sql) throws SQLException;
+
+  /**
+   * Execute SQL query asynchronously without blocking a thread until it finishes. The query is
+   * submitted like {@link #executeAsyncQuery(String)}, and its status is then polled by a monitor
+   * shared by all queries instead of the calling thread.
+   *
+   * <p>The future is completed on one of a few completion threads of the driver, not on a thread
+   * polling the query status, so dependent stages may block, e.g. to read the result. The
+   * completion threads are shared by all queries, so long running stages should use an executor of
+   * the application, like {@code thenApplyAsync(fn, executor)}.
+   *
+   * @param sql sql statement
+   * @return future completed with the ResultSet once the query succeeded, or completed
+   *     exceptionally with a SQLException if it failed
+   * @throws SQLException if the query could not be submitted
+   */
+  default CompletableFuture<ResultSet> executeQueryAsyncFuture(String sql) throws SQLException {
+    throw new SQLFeatureNotSupportedException();
+  }
 }
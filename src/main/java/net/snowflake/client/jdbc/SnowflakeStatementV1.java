@@ -19,6 +19,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import net.snowflake.client.core.ParameterBindingDTO;
 import net.snowflake.client.core.ResultUtil;
@@ -161,6 +162,11 @@ class SnowflakeStatementV1 implements Statement, SnowflakeStatement {
     return executeQueryInternal(sql, true, null);
   }
 
+  @Override
+  public CompletableFuture<ResultSet> executeQueryAsyncFuture(String sql) throws SQLException {
+    return ((SFAsyncResultSet) executeAsyncQuery(sql)).whenSucceeded();
+  }
+
   /**
    * Execute an update statement
    *
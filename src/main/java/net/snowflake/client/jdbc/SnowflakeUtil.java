@@ -12,6 +12,7 @@ import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import net.snowflake.client.core.DriverThreads;
 import net.snowflake.client.core.HttpUtil;
 import net.snowflake.client.core.SFSession;
 import net.snowflake.client.core.SFSessionProperty;
@@ -424,7 +425,7 @@ public class SnowflakeUtil {
           private int threadCount = 1;
 
           public Thread newThread(Runnable r) {
-            Thread thread = new Thread(r);
+            Thread thread = DriverThreads.newThread(r);
             thread.setName(threadNamePrefix + threadCount++);
             return thread;
           }
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteSource;
 import com.microsoft.azure.storage.*;
 import com.microsoft.azure.storage.StorageCredentials;
 import com.microsoft.azure.storage.StorageCredentialsAnonymous;
@@ -424,8 +425,8 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
    * @param remoteStorageLocation storage container name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on remote storage after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl Unused in Azure
@@ -441,7 +442,7 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -456,7 +457,7 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
             inputStream,
             meta,
             originalContentLength,
-            fileBackedOutputStream,
+            uploadSource,
             toClose);
 
     if (!(meta instanceof CommonObjectMetadata)) {
@@ -488,12 +489,19 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
 
         // close any open streams in the "toClose" list and return
         for (FileInputStream is : toClose) IOUtils.closeQuietly(is);
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
 
         return;
       } catch (Exception ex) {
+        // streams opened from the upload source are not shared by the attempts
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
         handleAzureException(ex, ++retryCount, "upload", session, command, this);
 
-        if (uploadFromStream && fileBackedOutputStream == null) {
+        if (uploadFromStream && uploadSource == null) {
           throw new SnowflakeSQLException(
               ex,
               SqlState.SYSTEM_ERROR,
@@ -509,7 +517,7 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
                 inputStream,
                 meta,
                 originalContentLength,
-                fileBackedOutputStream,
+                uploadSource,
                 toClose);
       }
 
@@ -547,7 +555,7 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
       InputStream inputStream,
       StorageObjectMetadata meta,
       long originalContentLength,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       List<FileInputStream> toClose)
       throws SnowflakeSQLException {
     logger.debug(
@@ -556,7 +564,7 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
         srcFile,
         uploadFromStream,
         inputStream,
-        fileBackedOutputStream,
+        uploadSource,
         toClose);
 
     final InputStream stream;
@@ -566,8 +574,8 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
         try {
           final InputStream uploadStream =
               uploadFromStream
-                  ? (fileBackedOutputStream != null
-                      ? fileBackedOutputStream.asByteSource().openStream()
+                  ? (uploadSource != null
+                      ? uploadSource.openStream()
                       : inputStream)
                   : (srcFileStream = new FileInputStream(srcFile));
           toClose.add(srcFileStream);
@@ -589,8 +597,8 @@ public class SnowflakeAzureClient implements SnowflakeStorageClient {
         }
       } else {
         if (uploadFromStream) {
-          if (fileBackedOutputStream != null) {
-            stream = fileBackedOutputStream.asByteSource().openStream();
+          if (uploadSource != null) {
+            stream = uploadSource.openStream();
           } else {
             stream = inputStream;
           }
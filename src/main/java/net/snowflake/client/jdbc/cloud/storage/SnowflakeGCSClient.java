@@ -16,6 +16,7 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.*;
 import com.google.cloud.storage.Storage.BlobListOption;
 import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
 import java.io.*;
 import java.net.SocketTimeoutException;
 import java.net.URISyntaxException;
@@ -480,8 +481,8 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
    * @param remoteStorageLocation s3 bucket name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on remote storage after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl presigned URL for upload. Used by GCP.
@@ -497,7 +498,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -512,7 +513,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
             inputStream,
             meta,
             originalContentLength,
-            fileBackedOutputStream,
+            uploadSource,
             toClose);
 
     if (!(meta instanceof CommonObjectMetadata)) {
@@ -524,18 +525,23 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
     }
 
     logger.debug("Starting upload");
-    uploadWithPresignedUrl(
-        networkTimeoutInMilli,
-        meta.getContentEncoding(),
-        meta.getUserMetadata(),
-        uploadStreamInfo.left,
-        presignedUrl,
-        ocspMode);
-    logger.debug("Upload successful");
-
-    // close any open streams in the "toClose" list and return
-    for (FileInputStream is : toClose) {
-      IOUtils.closeQuietly(is);
+    try {
+      uploadWithPresignedUrl(
+          networkTimeoutInMilli,
+          meta.getContentEncoding(),
+          meta.getUserMetadata(),
+          uploadStreamInfo.left,
+          presignedUrl,
+          ocspMode);
+      logger.debug("Upload successful");
+    } finally {
+      // close any open streams in the "toClose" list and the stream opened from the source
+      for (FileInputStream is : toClose) {
+        IOUtils.closeQuietly(is);
+      }
+      if (uploadSource != null) {
+        IOUtils.closeQuietly(uploadStreamInfo.left);
+      }
     }
   }
 
@@ -549,8 +555,8 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
    * @param remoteStorageLocation storage container name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on remote storage after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl Credential used for upload of a file
@@ -566,7 +572,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -581,7 +587,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
             inputStream,
             meta,
             originalContentLength,
-            fileBackedOutputStream,
+            uploadSource,
             toClose);
 
     if (!(meta instanceof CommonObjectMetadata)) {
@@ -590,17 +596,22 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
 
     if (!Strings.isNullOrEmpty(presignedUrl)) {
       logger.debug("Starting upload");
-      uploadWithPresignedUrl(
-          session.getNetworkTimeoutInMilli(),
-          meta.getContentEncoding(),
-          meta.getUserMetadata(),
-          uploadStreamInfo.left,
-          presignedUrl,
-          session.getOCSPMode());
-      logger.debug("Upload successful");
-
-      // close any open streams in the "toClose" list and return
-      for (FileInputStream is : toClose) IOUtils.closeQuietly(is);
+      try {
+        uploadWithPresignedUrl(
+            session.getNetworkTimeoutInMilli(),
+            meta.getContentEncoding(),
+            meta.getUserMetadata(),
+            uploadStreamInfo.left,
+            presignedUrl,
+            session.getOCSPMode());
+        logger.debug("Upload successful");
+      } finally {
+        // close any open streams in the "toClose" list and the stream opened from the source
+        for (FileInputStream is : toClose) IOUtils.closeQuietly(is);
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
+      }
 
       return;
     }
@@ -625,12 +636,19 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
 
         // close any open streams in the "toClose" list and return
         for (FileInputStream is : toClose) IOUtils.closeQuietly(is);
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
 
         return;
       } catch (Exception ex) {
+        // streams opened from the upload source are not shared by the attempts
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
         handleStorageException(ex, ++retryCount, "upload", session, command);
 
-        if (uploadFromStream && fileBackedOutputStream == null) {
+        if (uploadFromStream && uploadSource == null) {
           throw new SnowflakeSQLLoggedException(
               ex,
               SqlState.SYSTEM_ERROR,
@@ -647,7 +665,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
                 inputStream,
                 meta,
                 originalContentLength,
-                fileBackedOutputStream,
+                uploadSource,
                 toClose);
       }
 
@@ -759,7 +777,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
       InputStream inputStream,
       StorageObjectMetadata meta,
       long originalContentLength,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       List<FileInputStream> toClose)
       throws SnowflakeSQLException {
     logger.debug(
@@ -768,7 +786,7 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
         srcFile,
         uploadFromStream,
         inputStream,
-        fileBackedOutputStream,
+        uploadSource,
         toClose);
 
     final InputStream stream;
@@ -778,8 +796,8 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
         try {
           final InputStream uploadStream =
               uploadFromStream
-                  ? (fileBackedOutputStream != null
-                      ? fileBackedOutputStream.asByteSource().openStream()
+                  ? (uploadSource != null
+                      ? uploadSource.openStream()
                       : inputStream)
                   : (srcFileStream = new FileInputStream(srcFile));
           toClose.add(srcFileStream);
@@ -801,8 +819,8 @@ public class SnowflakeGCSClient implements SnowflakeStorageClient {
         }
       } else {
         if (uploadFromStream) {
-          if (fileBackedOutputStream != null) {
-            stream = fileBackedOutputStream.asByteSource().openStream();
+          if (uploadSource != null) {
+            stream = uploadSource.openStream();
           } else {
             stream = inputStream;
           }
@@ -26,6 +26,7 @@ import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.util.Base64;
+import com.google.common.io.ByteSource;
 import java.io.*;
 import java.net.SocketTimeoutException;
 import java.security.InvalidKeyException;
@@ -423,8 +424,8 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
    * @param remoteStorageLocation s3 bucket name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on s3 after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl Not used in S3
@@ -440,7 +441,7 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -452,7 +453,7 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
             srcFile,
             uploadFromStream,
             inputStream,
-            fileBackedOutputStream,
+            uploadSource,
             ((S3ObjectMetadata) meta).getS3ObjectMetadata(),
             originalContentLength,
             toClose);
@@ -502,11 +503,18 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
 
         // get out
         for (FileInputStream is : toClose) IOUtils.closeQuietly(is);
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
         return;
       } catch (Exception ex) {
+        // streams opened from the upload source are not shared by the attempts
+        if (uploadSource != null) {
+          IOUtils.closeQuietly(uploadStreamInfo.left);
+        }
 
         handleS3Exception(ex, ++retryCount, "upload", session, command, this);
-        if (uploadFromStream && fileBackedOutputStream == null) {
+        if (uploadFromStream && uploadSource == null) {
           throw new SnowflakeSQLException(
               ex,
               SqlState.SYSTEM_ERROR,
@@ -520,7 +528,7 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
                 srcFile,
                 uploadFromStream,
                 inputStream,
-                fileBackedOutputStream,
+                uploadSource,
                 s3Meta,
                 originalContentLength,
                 toClose);
@@ -544,7 +552,7 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
       File srcFile,
       boolean uploadFromStream,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       ObjectMetadata meta,
       long originalContentLength,
       List<FileInputStream> toClose)
@@ -555,7 +563,7 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
         srcFile,
         uploadFromStream,
         inputStream,
-        fileBackedOutputStream,
+        uploadSource,
         meta,
         toClose,
         this.getEncryptionKeySize());
@@ -565,8 +573,8 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
       try {
         final InputStream uploadStream =
             uploadFromStream
-                ? (fileBackedOutputStream != null
-                    ? fileBackedOutputStream.asByteSource().openStream()
+                ? (uploadSource != null
+                    ? uploadSource.openStream()
                     : inputStream)
                 : (srcFileStream = new FileInputStream(srcFile));
         toClose.add(srcFileStream);
@@ -591,8 +599,8 @@ public class SnowflakeS3Client implements SnowflakeStorageClient {
       try {
         result =
             uploadFromStream
-                ? (fileBackedOutputStream != null
-                    ? fileBackedOutputStream.asByteSource().openStream()
+                ? (uploadSource != null
+                    ? uploadSource.openStream()
                     : inputStream)
                 : (srcFileStream = new FileInputStream(srcFile));
         toClose.add(srcFileStream);
@@ -3,6 +3,7 @@
  */
 package net.snowflake.client.jdbc.cloud.storage;
 
+import com.google.common.io.ByteSource;
 import java.io.File;
 import java.io.InputStream;
 import java.util.Map;
@@ -138,8 +139,8 @@ public interface SnowflakeStorageClient {
    * @param remoteStorageLocation s3 bucket name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on remote storage after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl presigned URL for upload. Used by GCP.
@@ -154,7 +155,7 @@ public interface SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -172,8 +173,8 @@ public interface SnowflakeStorageClient {
    * @param remoteStorageLocation s3 bucket name
    * @param srcFile source file if not uploading from a stream
    * @param destFileName file name on remote storage after upload
-   * @param inputStream stream used for uploading if fileBackedOutputStream is null
-   * @param fileBackedOutputStream stream used for uploading if not null
+   * @param inputStream stream used for uploading if uploadSource is null
+   * @param uploadSource stream used for uploading if not null, opened again on retries
    * @param meta object meta data
    * @param stageRegion region name where the stage persists
    * @param presignedUrl presigned URL for upload. Used by GCP.
@@ -188,7 +189,7 @@ public interface SnowflakeStorageClient {
       File srcFile,
       String destFileName,
       InputStream inputStream,
-      FileBackedOutputStream fileBackedOutputStream,
+      ByteSource uploadSource,
       StorageObjectMetadata meta,
       String stageRegion,
       String presignedUrl)
@@ -2,10 +2,13 @@ package net.snowflake.client.jdbc.telemetryOOB;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import net.snowflake.client.core.DriverThreads;
 
 /**
  * A singleton class which wrapped the ExecutorService, which is used to submit telemetry data
@@ -28,14 +31,16 @@ public class TelemetryThreadPool {
   }
 
   private TelemetryThreadPool() {
+    ThreadFactory threadFactory =
+        DriverThreads.isVirtual() ? DriverThreads::newThread : Executors.defaultThreadFactory();
     uploader =
         new ThreadPoolExecutor(
             0, // core size
             10, // max size
             1, // keep alive time
             TimeUnit.SECONDS,
-            new LinkedBlockingQueue<>() // work queue
-            );
+            new LinkedBlockingQueue<>(), // work queue
+            threadFactory);
   }
 
   public void execute(Runnable task) {
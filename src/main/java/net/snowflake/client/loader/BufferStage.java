@@ -7,13 +7,19 @@ package net.snowflake.client.loader;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 import net.snowflake.client.log.SFLogger;
@@ -83,9 +89,90 @@ public class BufferStage {
   // Current file
   private File _file = null;
 
+  // Content of the current file if the loader uploads from memory, the file is not created then
+  private StageBuffer _buffer = null;
+
   // List of all scheduled uploaders
   private ArrayList<FileUploader> _uploaders = new ArrayList<>();
 
+  // largest array most JVMs can allocate
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Content of a data file that is uploaded from memory instead of being written to disk. It holds
+   * memory reserved from the loader until it is released once uploaded.
+   *
+   * <p>The buffer is allocated with the reserved size up front, since a ByteArrayOutputStream
+   * growing by doubling could take up to twice the reserved memory. The last rows written to a file
+   * may still exceed its size, the buffer then only grows by what is written and the growth is
+   * counted in the memory of the loader.
+   */
+  static class StageBuffer extends ByteArrayOutputStream {
+    private final StreamLoader loader;
+
+    private long reserved;
+
+    StageBuffer(StreamLoader loader, long reserved) {
+      super((int) reserved);
+      this.loader = loader;
+      this.reserved = reserved;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+      ensureCapacity(count + 1);
+      super.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      ensureCapacity(count + len);
+      super.write(b, off, len);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > buf.length) {
+        loader.addUploadMemory(capacity - buf.length);
+        reserved += capacity - buf.length;
+        buf = Arrays.copyOf(buf, capacity);
+      }
+    }
+
+    /** @return stream over the content without copying it */
+    InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    /** Return the reserved memory to the loader, the buffer must not be used anymore */
+    void release() {
+      loader.releaseUploadMemory(reserved);
+    }
+  }
+
+  /** File written by one encoder thread, see {@link #stageSegment(byte[], int)} */
+  private static class SegmentFile {
+    final File file;
+
+    final StageBuffer buffer;
+
+    final OutputStream outstream;
+
+    // Data bytes (uncompressed)
+    long size = 0;
+
+    SegmentFile(File file, StageBuffer buffer, OutputStream outstream) {
+      this.file = file;
+      this.buffer = buffer;
+      this.outstream = outstream;
+    }
+  }
+
+  // Files of the encoder threads that are not being written
+  private final ConcurrentLinkedQueue<SegmentFile> _segmentFiles = new ConcurrentLinkedQueue<>();
+
+  // Rows written by the encoder threads
+  private final AtomicInteger _segmentRowCount = new AtomicInteger();
+
   BufferStage(StreamLoader loader, Operation op, long csvFileBucketSize, long csvFileSize) {
     LOGGER.debug("Operation: {}", op);
 
@@ -117,7 +204,7 @@ public class BufferStage {
     String localStageDirectory = _loader.getBase() + File.separatorChar + _location;
 
     _directory = new File(localStageDirectory);
-    if (!_directory.mkdirs()) {
+    if (!_loader._uploadFromMemory && !_directory.mkdirs()) {
       RuntimeException ex =
           new RuntimeException(
               "Could not initialize the local staging area. "
@@ -136,38 +223,65 @@ public class BufferStage {
   /** Create local file for caching data before upload */
   private synchronized void openFile() {
     try {
-      String fName =
-          _directory.getAbsolutePath()
-              + File.separatorChar
-              + StreamLoader.FILE_PREFIX
-              + _stamp
-              + _fileCount;
-      if (_loader._compressDataBeforePut) {
-        fName += StreamLoader.FILE_SUFFIX;
-      }
-      LOGGER.debug("openFile: {}", fName);
-
-      OutputStream fileStream = new FileOutputStream(fName);
-      if (_loader._compressDataBeforePut) {
-        OutputStream gzipOutputStream =
-            new GZIPOutputStream(fileStream, 64 * 1024, true) {
-              {
-                def.setLevel((int) _loader._compressLevel);
-              }
-            };
-        _outstream = new BufferedOutputStream(gzipOutputStream);
-      } else {
-        _outstream = new BufferedOutputStream(fileStream);
-      }
-
-      _file = new File(fName);
-
-      _fileCount++;
+      _file = newFile();
+      _buffer = newBuffer();
+      _outstream = newOutputStream(_file, _buffer);
     } catch (IOException ex) {
       _loader.abort(new Loader.ConnectionError(Utils.getCause(ex)));
     }
   }
 
+  private synchronized File newFile() {
+    String fName =
+        _directory.getAbsolutePath()
+            + File.separatorChar
+            + StreamLoader.FILE_PREFIX
+            + _stamp
+            + _fileCount;
+    if (_loader._compressDataBeforePut) {
+      fName += StreamLoader.FILE_SUFFIX;
+    }
+    LOGGER.debug("openFile: {}", fName);
+    _fileCount++;
+    return new File(fName);
+  }
+
+  /**
+   * @return the buffer of a new file uploaded from memory, or null if the file is written to the
+   *     local stage directory, also when too many files are waiting for upload already
+   */
+  private StageBuffer newBuffer() throws IOException {
+    if (!_loader._uploadFromMemory) {
+      return null;
+    }
+    if (_csvFileSize <= MAX_BUFFER_SIZE && _loader.reserveUploadMemory(_csvFileSize)) {
+      return new StageBuffer(_loader, _csvFileSize);
+    }
+    LOGGER.debug("Upload memory limit reached, writing the file to {}", _directory);
+    if (!_directory.mkdirs() && !_directory.isDirectory()) {
+      throw new IOException(
+          "Could not initialize the local staging area. "
+              + "Make sure the directory is writable and readable: "
+              + _directory.getAbsolutePath());
+    }
+    return null;
+  }
+
+  private OutputStream newOutputStream(File file, StageBuffer buffer) throws IOException {
+    OutputStream fileStream = buffer != null ? buffer : new FileOutputStream(file);
+    if (_loader._compressDataBeforePut) {
+      OutputStream gzipOutputStream =
+          new GZIPOutputStream(fileStream, 64 * 1024, true) {
+            {
+              def.setLevel((int) _loader._compressLevel);
+            }
+          };
+      return new BufferedOutputStream(gzipOutputStream);
+    } else {
+      return new BufferedOutputStream(fileStream);
+    }
+  }
+
   private static byte[] newLineBytes = "\n".getBytes(UTF_8);
 
   // not thread safe
@@ -201,7 +315,7 @@ public class BufferStage {
       _outstream.flush();
       _outstream.close();
       _outstream = null;
-      FileUploader fu = new FileUploader(_loader, _location, _file);
+      FileUploader fu = newUploader(_file, _buffer);
       fu.upload();
       _uploaders.add(fu);
       openFile();
@@ -211,6 +325,57 @@ public class BufferStage {
     return _fileCount > this._csvFileBucketSize;
   }
 
+  /**
+   * Write rows encoded by an encoder thread. Each call takes a file no other thread is writing, or
+   * opens a new one, so that the compression of several encoder threads runs in parallel. Like
+   * {@link #stageData(byte[])}, a file is uploaded once it reaches the CSV file size.
+   *
+   * @param lines CSV lines, each terminated by a new line
+   * @param rowCount number of rows in lines
+   * @return true if the stage has reached its file bucket size
+   * @throws IOException raises an exception if IO error occurs
+   */
+  boolean stageSegment(final byte[] lines, int rowCount) throws IOException {
+    SegmentFile segmentFile = _segmentFiles.poll();
+    if (segmentFile == null) {
+      File file = newFile();
+      StageBuffer buffer = newBuffer();
+      segmentFile = new SegmentFile(file, buffer, newOutputStream(file, buffer));
+    }
+    segmentFile.outstream.write(lines);
+    segmentFile.size += lines.length;
+    _segmentRowCount.addAndGet(rowCount);
+
+    if (segmentFile.size >= this._csvFileSize) {
+      LOGGER.debug(
+          "name: {}, currentSize: {}, Threshold: {}",
+          segmentFile.file.getAbsolutePath(),
+          segmentFile.size,
+          this._csvFileSize);
+      segmentFile.outstream.close();
+      FileUploader fu = newUploader(segmentFile.file, segmentFile.buffer);
+      fu.upload();
+      synchronized (this) {
+        _uploaders.add(fu);
+      }
+    } else {
+      _segmentFiles.add(segmentFile);
+    }
+    return isFull();
+  }
+
+  private FileUploader newUploader(File file, StageBuffer buffer) {
+    if (buffer != null) {
+      return new FileUploader(_loader, _location, file.getName(), buffer);
+    }
+    return new FileUploader(_loader, _location, file);
+  }
+
+  /** @return true if the stage has reached its file bucket size */
+  synchronized boolean isFull() {
+    return _fileCount > this._csvFileBucketSize;
+  }
+
   /**
    * Wait for all files to finish uploading and schedule stage for processing
    *
@@ -229,12 +394,30 @@ public class BufferStage {
     _outstream.close();
     // last file
     if (_currentSize > 0) {
-      FileUploader fu = new FileUploader(_loader, _location, _file);
+      FileUploader fu = newUploader(_file, _buffer);
       fu.upload();
       _uploaders.add(fu);
     } else {
       // delete empty file
       _file.delete();
+      if (_buffer != null) {
+        _buffer.release();
+      }
+    }
+
+    SegmentFile segmentFile;
+    while ((segmentFile = _segmentFiles.poll()) != null) {
+      segmentFile.outstream.close();
+      if (segmentFile.size > 0) {
+        FileUploader fu = newUploader(segmentFile.file, segmentFile.buffer);
+        fu.upload();
+        _uploaders.add(fu);
+      } else {
+        segmentFile.file.delete();
+        if (segmentFile.buffer != null) {
+          segmentFile.buffer.release();
+        }
+      }
     }
 
     for (FileUploader fu : _uploaders) {
@@ -243,10 +426,12 @@ public class BufferStage {
     }
 
     // Delete the directory once we are done (for easier tracking
-    // of what is going on)
-    _directory.deleteOnExit();
+    // of what is going on), it is created on demand if the files are uploaded from memory
+    if (_directory.exists()) {
+      _directory.deleteOnExit();
+    }
 
-    if (this._rowCount == 0) {
+    if (getRowCount() == 0) {
       setState(State.EMPTY);
     }
   }
@@ -288,7 +473,7 @@ public class BufferStage {
   }
 
   int getRowCount() {
-    return _rowCount;
+    return _rowCount + _segmentRowCount.get();
   }
 
   // convert any back slashes to forward slashes if necessary when converting
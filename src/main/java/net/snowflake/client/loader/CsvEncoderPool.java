@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.loader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.snowflake.client.core.DriverThreads;
+import net.snowflake.client.jdbc.SnowflakeType;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Encodes submitted rows to CSV on a pool of worker threads.
+ *
+ * <p>Rows are collected into segments that circulate through a bounded ring of free segments, so
+ * the submitting thread blocks once every segment is queued or being encoded. A worker encodes a
+ * whole segment with its own copies of the date formats and compresses it into a file of the
+ * BufferStage the segment was submitted for. Each worker writes to a different file of the stage,
+ * so encoding and compression run concurrently.
+ *
+ * <p>submit, flush and shutdown are called by the thread that submits the rows only.
+ */
+class CsvEncoderPool {
+  private static final SFLogger LOGGER = SFLoggerFactory.getLogger(CsvEncoderPool.class);
+
+  static final int SEGMENT_ROWS = 1024;
+
+  private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+  /** Batch of rows encoded by one worker */
+  private static class Segment {
+    final Object[][] rows = new Object[SEGMENT_ROWS][];
+
+    int size = 0;
+
+    void clear() {
+      Arrays.fill(rows, 0, size, null);
+      size = 0;
+    }
+  }
+
+  /** Date formats and buffer of one worker thread, DateFormat is not thread safe */
+  private static class RowEncoder {
+    private final DateFormat _dateFormat;
+
+    private final DateFormat _timeFormat;
+
+    private final DateFormat _timestampFormat;
+
+    private final DateFormat _timestampTzFormat;
+
+    private final StringBuilder _sb = new StringBuilder();
+
+    RowEncoder(RowEncoder template) {
+      _dateFormat = (DateFormat) template._dateFormat.clone();
+      // TIME may share the DATE format, see mapTimeToTimestamp
+      _timeFormat =
+          template._timeFormat == template._dateFormat
+              ? _dateFormat
+              : (DateFormat) template._timeFormat.clone();
+      _timestampFormat = (DateFormat) template._timestampFormat.clone();
+      _timestampTzFormat = (DateFormat) template._timestampTzFormat.clone();
+    }
+
+    RowEncoder(
+        DateFormat dateFormat,
+        DateFormat timeFormat,
+        DateFormat timestampFormat,
+        DateFormat timestampTzFormat) {
+      _dateFormat = dateFormat;
+      _timeFormat = timeFormat;
+      _timestampFormat = timestampFormat;
+      _timestampTzFormat = timestampTzFormat;
+    }
+
+    /** @return the rows of the segment as CSV lines */
+    byte[] encode(Segment segment) {
+      _sb.setLength(0);
+      for (int r = 0; r < segment.size; r++) {
+        Object[] data = segment.rows[r];
+        for (int i = 0; i < data.length; ++i) {
+          if (i > 0) {
+            _sb.append(',');
+          }
+          _sb.append(
+              SnowflakeType.escapeForCSV(
+                  SnowflakeType.lexicalValue(
+                      data[i], _dateFormat, _timeFormat, _timestampFormat, _timestampTzFormat)));
+        }
+        _sb.append('\n');
+      }
+      return _sb.toString().getBytes(UTF_8);
+    }
+  }
+
+  private final StreamLoader _loader;
+
+  private final ExecutorService _executor;
+
+  private final ArrayBlockingQueue<Segment> _freeSegments;
+
+  // the formats are cloned from the template once per worker thread
+  private final ThreadLocal<RowEncoder> _encoders;
+
+  // segments not yet written to their stage
+  private final List<Future<?>> _pending = new ArrayList<>();
+
+  private Segment _current = null;
+
+  CsvEncoderPool(
+      StreamLoader loader,
+      int threads,
+      DateFormat dateFormat,
+      DateFormat timeFormat,
+      DateFormat timestampFormat,
+      DateFormat timestampTzFormat) {
+    LOGGER.debug("Encoder threads: {}", threads);
+    _loader = loader;
+
+    DateFormat dateFormatCopy = (DateFormat) dateFormat.clone();
+    final RowEncoder template =
+        new RowEncoder(
+            dateFormatCopy,
+            timeFormat == dateFormat ? dateFormatCopy : (DateFormat) timeFormat.clone(),
+            (DateFormat) timestampFormat.clone(),
+            (DateFormat) timestampTzFormat.clone());
+    _encoders =
+        ThreadLocal.withInitial(
+            () -> {
+              synchronized (template) {
+                return new RowEncoder(template);
+              }
+            });
+
+    // two segments per worker, one being encoded and one being filled or waiting
+    _freeSegments = new ArrayBlockingQueue<>(2 * threads);
+    for (int i = 0; i < 2 * threads; i++) {
+      _freeSegments.add(new Segment());
+    }
+
+    final int poolId = POOL_COUNT.incrementAndGet();
+    _executor =
+        Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactory() {
+              private final AtomicInteger threadCount = new AtomicInteger();
+
+              @Override
+              public Thread newThread(Runnable r) {
+                Thread thread = DriverThreads.newThread(r);
+                thread.setName(
+                    "StreamLoaderEncoder-" + poolId + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+  }
+
+  /**
+   * Add a row to the current segment, and hand the segment to a worker once it is full
+   *
+   * @param row row values, not to be modified by the caller afterwards
+   * @param stage stage the row belongs to
+   * @return true if a segment was handed to a worker
+   * @throws InterruptedException if interrupted while waiting for a free segment
+   */
+  boolean submit(Object[] row, BufferStage stage) throws InterruptedException {
+    if (_current == null) {
+      _current = _freeSegments.take();
+    }
+    _current.rows[_current.size++] = row;
+    if (_current.size == SEGMENT_ROWS) {
+      dispatch(stage);
+      return true;
+    }
+    return false;
+  }
+
+  private void dispatch(final BufferStage stage) {
+    final Segment segment = _current;
+    _current = null;
+    _pending.removeIf(Future::isDone);
+    _pending.add(
+        _executor.submit(
+            () -> {
+              try {
+                if (!_loader.isAborted()) {
+                  stage.stageSegment(_encoders.get().encode(segment), segment.size);
+                }
+              } catch (Exception ex) {
+                LOGGER.error(ex.getMessage(), ex);
+                _loader.abort(
+                    new Loader.ConnectionError("Encoding rows to CSV", Utils.getCause(ex)));
+              } finally {
+                segment.clear();
+                _freeSegments.add(segment);
+              }
+            }));
+  }
+
+  /**
+   * Encode the rows submitted so far and wait until they are written to the stage. Must be called
+   * before the stage is queued for upload.
+   *
+   * @param stage stage the rows belong to
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  void flush(BufferStage stage) throws InterruptedException {
+    if (_current != null && _current.size > 0) {
+      dispatch(stage);
+    }
+    for (Future<?> future : _pending) {
+      try {
+        future.get();
+      } catch (ExecutionException ex) {
+        // errors are reported to the loader by the task itself
+        LOGGER.debug("Encoding task failed: {}", ex.getMessage());
+      }
+    }
+    _pending.clear();
+  }
+
+  /**
+   * Stop the workers once the queued segments are done. Segments queued after the loader was
+   * aborted are skipped, but still go back to the free segments so that a waiting submit returns.
+   */
+  void shutdown() {
+    _executor.shutdown();
+  }
+}
@@ -5,8 +5,11 @@
 package net.snowflake.client.loader;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import net.snowflake.client.core.DriverThreads;
 import net.snowflake.client.jdbc.SnowflakeConnectionV1;
 import net.snowflake.client.jdbc.SnowflakeFileTransferAgent;
 import net.snowflake.client.log.SFLogger;
@@ -22,16 +25,34 @@ public class FileUploader implements Runnable {
   private final String _stage;
   private final File _file;
 
+  // Name and content of a file uploaded from memory, see LoaderProperty.uploadFromMemory
+  private final String _fileName;
+
+  private BufferStage.StageBuffer _buffer;
+
   FileUploader(StreamLoader loader, String stage, File file) {
     LOGGER.debug("");
     _loader = loader;
-    _thread = new Thread(this);
+    _thread = DriverThreads.newThread(this);
     _thread.setName("FileUploaderThread");
     _stage = stage;
     _file = file;
+    _fileName = null;
+    _buffer = null;
   }
 
-  public synchronized void upload() {
+  FileUploader(StreamLoader loader, String stage, String fileName, BufferStage.StageBuffer buffer) {
+    LOGGER.debug("");
+    _loader = loader;
+    _thread = DriverThreads.newThread(this);
+    _thread.setName("FileUploaderThread");
+    _stage = stage;
+    _file = null;
+    _fileName = fileName;
+    _buffer = buffer;
+  }
+
+  public void upload() {
     // throttle up will wait if too many files are uploading
     LOGGER.debug("");
     _loader.throttleUp();
@@ -52,7 +73,7 @@ public class FileUploader implements Runnable {
                     String.format(
                         "File could not be uploaded to remote stage "
                             + "after retrying %d times: %s",
-                        RETRY, _file.getCanonicalPath()),
+                        RETRY, getSourceName()),
                     Utils.getCause(previousException)));
           } else {
             _loader.abort(
@@ -60,7 +81,7 @@ public class FileUploader implements Runnable {
                     String.format(
                         "File could not be uploaded to remote stage "
                             + "after retrying %d times: %s",
-                        RETRY, _file.getCanonicalPath())));
+                        RETRY, getSourceName())));
           }
           break;
         }
@@ -77,7 +98,7 @@ public class FileUploader implements Runnable {
             _loader
                 .getPutConnection()
                 .unwrap(SnowflakeConnectionV1.class)
-                .setInjectFileUploadFailure(_file.getName());
+                .setInjectFileUploadFailure(getFileName());
           } else {
             // so that retry now succeeds.
             _loader
@@ -87,6 +108,24 @@ public class FileUploader implements Runnable {
           }
         }
 
+        if (_buffer != null) {
+          try {
+            uploadFromMemory();
+            // release the content, the uploader is referenced until the stage is complete
+            _buffer.release();
+            _buffer = null;
+            break;
+          } catch (Throwable t) {
+            LOGGER.error(
+                String.format(
+                    "Failed to upload stream on attempt: attempt=[%s], " + "Message=[%s]",
+                    attempt, t.getMessage()),
+                t.getCause());
+            previousException = t;
+            continue;
+          }
+        }
+
         // Upload local files to a remote stage
 
         // No double quote is added _loader.getRemoteStage(), since
@@ -164,10 +203,41 @@ public class FileUploader implements Runnable {
       LOGGER.error("PUT exception", t);
       _loader.abort(new Loader.ConnectionError(t.getMessage(), t.getCause()));
     } finally {
+      if (_buffer != null) {
+        // failed to upload
+        _buffer.release();
+        _buffer = null;
+      }
       _loader.throttleDown();
     }
   }
 
+  /**
+   * Upload the file content through the stream upload of the connection, so that no local file is
+   * written and read again.
+   */
+  private void uploadFromMemory() throws Exception {
+    // compressed by the loader already, or compressed on upload like PUT auto_compress=true
+    boolean compressData = !_loader._compressDataBeforePut && _loader._compressFileByPut;
+    try (InputStream in = _buffer.toInputStream()) {
+      LOGGER.debug("Stream upload start: {}", _fileName);
+      _loader
+          .getPutConnection()
+          .unwrap(SnowflakeConnectionV1.class)
+          .uploadStream(
+              _loader.getRemoteStage(), remoteSeparator(_stage), in, _fileName, compressData);
+      LOGGER.debug("Stream upload end: {}", _fileName);
+    }
+  }
+
+  private String getFileName() {
+    return _file != null ? _file.getName() : _fileName;
+  }
+
+  private String getSourceName() throws IOException {
+    return _file != null ? _file.getCanonicalPath() : _fileName;
+  }
+
   public void join() {
     LOGGER.debug("");
     try {
@@ -24,6 +24,7 @@ public enum LoaderProperty {
   onError, // on_error option                                            String
   csvFileBucketSize, // File bucket size. 64 by default.                           Long
   csvFileSize, // File size. 50MB by default.                                Long
+  encoderThreads, // Threads encoding and compressing CSV. 1 by default.          Long
   preserveStageFile, // Preserve stage files if error occurs                       Boolean
   useLocalTimezone, // Use local timezone in converting TIMESTAMP                 Boolean
   compressFileByPut, // Compress file by PUT. false by default                     Boolean
@@ -31,6 +32,9 @@ public enum LoaderProperty {
   compressLevel, // Compress level: 1 (Speed) to 9 (Compression) for
   // compressDataBeforePut option. No impact to
   // compressFileByPut.  1 by default.                          Long
+  uploadFromMemory, // Upload files from memory, no local files. false by default Boolean
+  pipelineProcessing, // Ingest a batch while the next is copied. Not with
+  // startTransaction. false by default.                       Boolean
 
   // compatibility parameters
   mapTimeToTimestamp, // map TIME data type to TIMESTAMP. Informatica v1
@@ -8,14 +8,26 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.snowflake.client.core.DriverThreads;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 
 /**
  * This class is responsible for processing a collection of uploaded data files represented by
  * BufferStage class
+ *
+ * <p>The uploaded files are copied into a temporary table, which is created once per loader and
+ * emptied for every further stage, and then ingested into the target table. With pipelined
+ * processing, the ingest statement of a stage runs on another thread while the next stage is copied
+ * into a second temporary table; the ingest statements still run one after another in stage order.
  */
 public class ProcessQueue implements Runnable {
   private static final SFLogger LOGGER = SFLoggerFactory.getLogger(ProcessQueue.class);
@@ -24,17 +36,55 @@ public class ProcessQueue implements Runnable {
 
   private final StreamLoader _loader;
 
+  // runs the ingest statements if the processing is pipelined, otherwise null
+  private final ExecutorService _ingestExecutor;
+
+  // ingest statement that may still run, with its stage
+  private Future<Integer> _pendingIngest = null;
+
+  private BufferStage _pendingStage = null;
+
+  private String _pendingRemoteStage = null;
+
+  private String _pendingCommand = null;
+
+  // number of stages copied, alternates the temporary tables when pipelined
+  private int _copiedStages = 0;
+
   public ProcessQueue(StreamLoader loader) {
     LOGGER.debug("");
 
     _loader = loader;
-    _thread = new Thread(this);
+    _ingestExecutor =
+        loader.isPipelineProcessing()
+            ? Executors.newSingleThreadExecutor(
+                r -> {
+                  Thread thread = DriverThreads.newThread(r);
+                  thread.setName("ProcessQueueIngestThread");
+                  thread.setDaemon(true);
+                  return thread;
+                })
+            : null;
+    _thread = DriverThreads.newThread(this);
     _thread.setName("ProcessQueueThread");
     _thread.start();
   }
 
   @Override
   public void run() {
+    try {
+      processStages();
+    } finally {
+      if (_ingestExecutor != null) {
+        synchronized (_loader) {
+          completePendingIngest(_loader.getProcessConnection());
+        }
+        _ingestExecutor.shutdown();
+      }
+    }
+  }
+
+  private void processStages() {
 
     while (true) {
 
@@ -69,16 +119,8 @@ public class ProcessQueue implements Runnable {
           }
 
           if (_loader.isAborted()) {
-            if (!_loader._preserveStageFile) {
-              currentCommand = "RM '" + remoteStage + "'";
-              LOGGER.debug(currentCommand);
-              conn.createStatement().execute(currentCommand);
-            } else {
-              LOGGER.debug(
-                  "Error occurred. The remote stage is preserved for "
-                      + "further investigation: {}",
-                  remoteStage);
-            }
+            currentCommand = "RM '" + remoteStage + "'";
+            removeAbortedStage(conn, remoteStage);
             if (stage.isTerminate()) {
               break;
             } else {
@@ -94,37 +136,21 @@ public class ProcessQueue implements Runnable {
           int errorCount = 0;
           String lastErrorRow = "";
 
-          // Create temp table to load data (may has a subset of columns)
-          LOGGER.debug("Creating Temporary Table: name={}", stage.getId());
+          // Get temp table to load data (may has a subset of columns)
           currentState = State.CREATE_TEMP_TABLE;
-          List<String> allColumns = getAllColumns(conn);
-
-          // use like to make sure columns in temporary table
-          // contains properties (e.g., NOT NULL) from the source table
-          currentCommand =
-              "CREATE TEMPORARY TABLE \"" + stage.getId() + "\" LIKE " + _loader.getFullTableName();
-          List<String> selectedColumns = _loader.getColumns();
-          conn.createStatement().execute(currentCommand);
-
-          // the temp table can contain only a subset of columns
-          // so remove unselected columns
-          for (String col : allColumns) {
-            if (!selectedColumns.contains(col)) {
-              String dropUnSelectedColumn =
-                  "alter table \"" + stage.getId() + "\" drop column \"" + col + "\"";
-              conn.createStatement().execute(dropUnSelectedColumn);
-            }
-          }
+          currentCommand = null;
+          int slot = _ingestExecutor != null ? _copiedStages++ % 2 : 0;
+          String tempTable = prepareTempTable(conn, stage, slot);
 
           // Load data there
           LOGGER.debug(
               "COPY data in the stage to table:" + " stage={}," + " name={}",
               remoteStage,
-              stage.getId());
+              tempTable);
           currentState = State.COPY_INTO_TABLE;
           currentCommand =
               "COPY INTO \""
-                  + stage.getId()
+                  + tempTable
                   + "\" FROM '"
                   + remoteStage
                   + "' on_error='"
@@ -170,7 +196,7 @@ public class ProcessQueue implements Runnable {
               currentState = State.COPY_INTO_TABLE_ERROR;
               currentCommand =
                   "COPY INTO \""
-                      + stage.getId()
+                      + tempTable
                       + "\" FROM '"
                       + remoteStage
                       + "' validation_mode='return_all_errors'"
@@ -204,15 +230,7 @@ public class ProcessQueue implements Runnable {
                 // stop operation and raise the error
                 _loader.abort(dataError);
 
-                if (!_loader._preserveStageFile) {
-                  LOGGER.debug("RM: {}", remoteStage);
-                  conn.createStatement().execute("RM '" + remoteStage + "'");
-                } else {
-                  LOGGER.error(
-                      "Error occurred. The remote stage is preserved for "
-                          + "further investigation: {}",
-                      remoteStage);
-                }
+                removeAbortedStage(conn, remoteStage);
                 if (stage.isTerminate()) {
                   break;
                 } else {
@@ -263,7 +281,7 @@ public class ProcessQueue implements Runnable {
                         + _loader.getColumnsAsString()
                         + ")"
                         + " SELECT * FROM \""
-                        + stage.getId()
+                        + tempTable
                         + "\"";
                 break;
               }
@@ -273,7 +291,7 @@ public class ProcessQueue implements Runnable {
                     "DELETE FROM "
                         + _loader.getFullTableName()
                         + " T USING \""
-                        + stage.getId()
+                        + tempTable
                         + "\" AS S WHERE "
                         + updateKeys;
                 break;
@@ -284,7 +302,7 @@ public class ProcessQueue implements Runnable {
                     "MERGE INTO "
                         + _loader.getFullTableName()
                         + " T USING \""
-                        + stage.getId()
+                        + tempTable
                         + "\" AS S ON "
                         + updateKeys
                         + " WHEN MATCHED THEN UPDATE SET "
@@ -297,7 +315,7 @@ public class ProcessQueue implements Runnable {
                     "MERGE INTO "
                         + _loader.getFullTableName()
                         + " T USING \""
-                        + stage.getId()
+                        + tempTable
                         + "\" AS S ON "
                         + updateKeys
                         + " WHEN MATCHED THEN UPDATE SET "
@@ -315,35 +333,37 @@ public class ProcessQueue implements Runnable {
 
           LOGGER.debug("Load Statement: {}", loadStatement);
           Statement s = conn.createStatement();
-          s.execute(loadStatement);
-
-          stage.setState(BufferStage.State.PROCESSED);
-          currentState = State.FINISH;
-          currentCommand = null;
-          switch (stage.getOp()) {
-            case INSERT:
-            case UPSERT:
-              {
-                _loader.getListener().addProcessedRecordCount(stage.getOp(), stage.getRowCount());
-
-                _loader.getListener().addOperationRecordCount(stage.getOp(), s.getUpdateCount());
-                break;
-              }
-            case DELETE:
-            case MODIFY:
-              {
-                // the number of successful DELETE is the number
-                // of processed rows and not the number of given
-                // rows.
-                _loader.getListener().addProcessedRecordCount(stage.getOp(), s.getUpdateCount());
-
-                _loader.getListener().addOperationRecordCount(stage.getOp(), s.getUpdateCount());
+          if (_ingestExecutor != null) {
+            // the previous stage is ingested before this one, and the temp table of the stage
+            // before it is free for the next stage then
+            if (!completePendingIngest(conn)) {
+              removeAbortedStage(conn, remoteStage);
+              if (stage.isTerminate()) {
                 break;
+              } else {
+                continue;
               }
+            }
+            _pendingIngest =
+                _ingestExecutor.submit(
+                    () -> {
+                      s.execute(loadStatement);
+                      return s.getUpdateCount();
+                    });
+            _pendingStage = stage;
+            _pendingRemoteStage = remoteStage;
+            _pendingCommand = loadStatement;
+            if (stage.isTerminate()) {
+              // finished by run()
+              break;
+            }
+            continue;
           }
+          s.execute(loadStatement);
 
-          // delete stage file if all success
-          conn.createStatement().execute("RM '" + remoteStage + "'");
+          currentState = State.FINISH;
+          currentCommand = null;
+          finishStage(conn, stage, remoteStage, s.getUpdateCount());
 
           if (stage.isTerminate()) {
             break;
@@ -364,6 +384,144 @@ public class ProcessQueue implements Runnable {
     }
   }
 
+  /**
+   * Get an empty temporary table with the loaded columns of the target table. The table is created
+   * for the first stage of the loader and emptied for the further stages, instead of creating a
+   * table per stage.
+   *
+   * @param conn process connection, temporary tables are visible in its session only
+   * @param stage stage to copy into the table
+   * @param slot 0, or 1 for the second table if the processing is pipelined
+   * @return name of the temporary table
+   * @throws SQLException if the table could not be created or emptied
+   */
+  private String prepareTempTable(Connection conn, BufferStage stage, int slot)
+      throws SQLException {
+    String target = _loader.getFullTableName() + _loader.getColumns();
+    if (!target.equals(_loader._tempTableTarget)) {
+      // the loader was started again for another table or other columns
+      Arrays.fill(_loader._tempTables, null);
+      _loader._tempTableTarget = target;
+    }
+
+    String tempTable = _loader._tempTables[slot];
+    if (tempTable != null) {
+      LOGGER.debug("Reusing Temporary Table: name={}", tempTable);
+      conn.createStatement().execute("DELETE FROM \"" + tempTable + "\"");
+      return tempTable;
+    }
+
+    tempTable = stage.getId();
+    LOGGER.debug("Creating Temporary Table: name={}", tempTable);
+    List<String> allColumns = getAllColumns(conn);
+
+    // use like to make sure columns in temporary table
+    // contains properties (e.g., NOT NULL) from the source table
+    conn.createStatement()
+        .execute(
+            "CREATE TEMPORARY TABLE \""
+                + tempTable
+                + "\" LIKE "
+                + _loader.getFullTableName());
+
+    // the temp table can contain only a subset of columns
+    // so remove unselected columns in one statement
+    List<String> selectedColumns = _loader.getColumns();
+    List<String> unselectedColumns = new ArrayList<>();
+    for (String col : allColumns) {
+      if (!selectedColumns.contains(col)) {
+        unselectedColumns.add("\"" + col + "\"");
+      }
+    }
+    if (!unselectedColumns.isEmpty()) {
+      conn.createStatement()
+          .execute(
+              "alter table \""
+                  + tempTable
+                  + "\" drop column "
+                  + String.join(", ", unselectedColumns));
+    }
+
+    _loader._tempTables[slot] = tempTable;
+    return tempTable;
+  }
+
+  /** Record the result of the ingest statement and remove the files of the stage */
+  private void finishStage(
+      Connection conn, BufferStage stage, String remoteStage, int updateCount)
+      throws SQLException {
+    stage.setState(BufferStage.State.PROCESSED);
+    switch (stage.getOp()) {
+      case INSERT:
+      case UPSERT:
+        {
+          _loader.getListener().addProcessedRecordCount(stage.getOp(), stage.getRowCount());
+
+          _loader.getListener().addOperationRecordCount(stage.getOp(), updateCount);
+          break;
+        }
+      case DELETE:
+      case MODIFY:
+        {
+          // the number of successful DELETE is the number
+          // of processed rows and not the number of given
+          // rows.
+          _loader.getListener().addProcessedRecordCount(stage.getOp(), updateCount);
+
+          _loader.getListener().addOperationRecordCount(stage.getOp(), updateCount);
+          break;
+        }
+    }
+
+    // delete stage file if all success
+    conn.createStatement().execute("RM '" + remoteStage + "'");
+  }
+
+  /**
+   * Wait for the ingest statement submitted for the previous stage and finish that stage. A failed
+   * statement aborts the loader. Errors are not raised by the ingest thread itself, as it must not
+   * wait for the loader lock this thread may hold.
+   *
+   * @return false if the loader was aborted
+   */
+  private boolean completePendingIngest(Connection conn) {
+    if (_pendingIngest == null) {
+      return !_loader.isAborted();
+    }
+    String command = _pendingCommand;
+    try {
+      int updateCount = _pendingIngest.get();
+      command = null;
+      finishStage(conn, _pendingStage, _pendingRemoteStage, updateCount);
+    } catch (Exception ex) {
+      Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+      String msg =
+          String.format(
+              "State: %s, %s, %s",
+              command != null ? State.INGEST_DATA : State.FINISH, command, cause.getMessage());
+      _loader.abort(new Loader.ConnectionError(msg, Utils.getCause(cause)));
+      LOGGER.error(msg);
+    } finally {
+      _pendingIngest = null;
+      _pendingStage = null;
+      _pendingRemoteStage = null;
+      _pendingCommand = null;
+    }
+    return !_loader.isAborted();
+  }
+
+  /** Remove the files of a stage that is not processed since the loader was aborted */
+  private void removeAbortedStage(Connection conn, String remoteStage) throws SQLException {
+    if (!_loader._preserveStageFile) {
+      LOGGER.debug("RM: {}", remoteStage);
+      conn.createStatement().execute("RM '" + remoteStage + "'");
+    } else {
+      LOGGER.error(
+          "Error occurred. The remote stage is preserved for " + "further investigation: {}",
+          remoteStage);
+    }
+  }
+
   private List<String> getAllColumns(final Connection conn) throws SQLException {
     List<String> columns = new LinkedList<>();
     ResultSet result =
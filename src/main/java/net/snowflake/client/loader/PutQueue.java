@@ -5,6 +5,7 @@
 package net.snowflake.client.loader;
 
 import java.io.IOException;
+import net.snowflake.client.core.DriverThreads;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 
@@ -22,7 +23,7 @@ public class PutQueue implements Runnable {
   public PutQueue(StreamLoader loader) {
     LOGGER.debug("");
     _loader = loader;
-    _thread = new Thread(this);
+    _thread = DriverThreads.newThread(this);
     _thread.setName("PutQueueThread");
     _thread.start();
   }
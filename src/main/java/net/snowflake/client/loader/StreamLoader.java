@@ -22,7 +22,9 @@ import java.util.TimeZone;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.Deflater;
+import net.snowflake.client.core.DriverThreads;
 import net.snowflake.client.jdbc.SnowflakeType;
 import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.log.SFLogger;
@@ -95,6 +97,11 @@ public class StreamLoader implements Loader, Runnable {
 
   private long _csvFileSize = BufferStage.FILE_SIZE;
 
+  private long _encoderThreads = 1; // threads encoding and compressing CSV, 1 for the caller only
+
+  // encodes rows on worker threads when more than one encoder thread is configured
+  private CsvEncoderPool _encoder = null;
+
   boolean _testRemoteBadCSV = false; // TEST: inject bad csv in remote stage
 
   boolean _preserveStageFile = false; // reserve stage file
@@ -110,6 +117,19 @@ public class StreamLoader implements Loader, Runnable {
 
   long _compressLevel = Deflater.BEST_SPEED; // compression level used to compress data before PUT
 
+  boolean _uploadFromMemory = false; // upload data files from memory, no local files
+
+  // data files held in memory, beyond this they are written to local files, see uploadFromMemory
+  long _uploadMemoryLimit = Runtime.getRuntime().maxMemory() / 4;
+
+  private boolean _pipelineProcessing = false; // ingest a stage while the next one is copied
+
+  // temporary tables of the process connection, reused by the stages, see ProcessQueue
+  final String[] _tempTables = new String[2];
+
+  // target table and columns of the temporary tables
+  String _tempTableTarget = null;
+
   String _onError = OnError.DEFAULT;
 
   boolean _copyEmptyFieldAsEmpty = false; // COPY command option to set EMPTY_FIELD_AS_NULL = false
@@ -129,6 +149,9 @@ public class StreamLoader implements Loader, Runnable {
 
   private AtomicInteger _throttleCounter = new AtomicInteger(0);
 
+  // bytes reserved by the data files held in memory until they are uploaded
+  private final AtomicLong _uploadMemory = new AtomicLong(0);
+
   private final GregorianCalendar _calendarUTC = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
 
   private GregorianCalendar _calendarLocal;
@@ -225,6 +248,9 @@ public class StreamLoader implements Loader, Runnable {
       case csvFileBucketSize:
         _csvFileBucketSize = parseLongValue(LoaderProperty.csvFileBucketSize, value);
         break;
+      case encoderThreads:
+        _encoderThreads = parseLongValue(LoaderProperty.encoderThreads, value);
+        break;
       case csvFileSize:
         _csvFileSize = parseLongValue(LoaderProperty.csvFileSize, value);
         break;
@@ -256,6 +282,12 @@ public class StreamLoader implements Loader, Runnable {
           throw new IllegalArgumentException("invalid compression level");
         }
         break;
+      case pipelineProcessing:
+        _pipelineProcessing = Boolean.valueOf(String.valueOf(value));
+        break;
+      case uploadFromMemory:
+        _uploadFromMemory = Boolean.valueOf(String.valueOf(value));
+        break;
       case onError:
         String v = String.valueOf(value);
         _onError = OnError.validate(v) ? v : OnError.DEFAULT;
@@ -290,6 +322,10 @@ public class StreamLoader implements Loader, Runnable {
     final String COMPRESS_DATA_BEFORE_PUT_KEY = SYSTEM_PARAMETER_PREFIX + "compressDataBeforePut";
     final String COMPRESS_FILE_BY_PUT_KEY = SYSTEM_PARAMETER_PREFIX + "compressFileByPut";
     final String COMPRESS_LEVEL = SYSTEM_PARAMETER_PREFIX + "compressLevel";
+    final String ENCODER_THREADS = SYSTEM_PARAMETER_PREFIX + "encoderThreads";
+    final String UPLOAD_FROM_MEMORY = SYSTEM_PARAMETER_PREFIX + "uploadFromMemory";
+    final String UPLOAD_MEMORY_LIMIT = SYSTEM_PARAMETER_PREFIX + "uploadMemoryLimit";
+    final String PIPELINE_PROCESSING = SYSTEM_PARAMETER_PREFIX + "pipelineProcessing";
 
     Properties props = System.getProperties();
     for (String propKey : props.stringPropertyNames()) {
@@ -306,6 +342,14 @@ public class StreamLoader implements Loader, Runnable {
         _compressFileByPut = Boolean.valueOf(value);
       } else if (COMPRESS_LEVEL.equals(propKey)) {
         _compressLevel = Long.valueOf(value);
+      } else if (ENCODER_THREADS.equals(propKey)) {
+        _encoderThreads = parseLongValue(LoaderProperty.encoderThreads, value);
+      } else if (UPLOAD_FROM_MEMORY.equals(propKey)) {
+        _uploadFromMemory = Boolean.valueOf(value);
+      } else if (UPLOAD_MEMORY_LIMIT.equals(propKey)) {
+        _uploadMemoryLimit = Long.valueOf(value);
+      } else if (PIPELINE_PROCESSING.equals(propKey)) {
+        _pipelineProcessing = Boolean.valueOf(value);
       }
     }
   }
@@ -394,7 +438,8 @@ public class StreamLoader implements Loader, Runnable {
             + "CSV File Bucket Size: {}, CSV File Size: {}, Preserve Stage File: {}, "
             + "Use Local TimeZone: {}, Copy Empty Field As Empty: {}, "
             + "MapTimeToTimestamp: {}, Compress Data before PUT: {}, "
-            + "Compress File By Put: {}, Compress Level: {}, OnError: {}",
+            + "Compress File By Put: {}, Compress Level: {}, OnError: {}, "
+            + "Encoder Threads: {}, Upload From Memory: {}, Pipeline Processing: {}",
         _database,
         _schema,
         _table,
@@ -417,7 +462,20 @@ public class StreamLoader implements Loader, Runnable {
         _compressDataBeforePut,
         _compressFileByPut,
         _compressLevel,
-        _onError);
+        _onError,
+        _encoderThreads,
+        _uploadFromMemory,
+        _pipelineProcessing);
+  }
+
+  /**
+   * Statements of a transaction can not overlap, so the processing is pipelined only if every
+   * statement commits on its own.
+   *
+   * @return true if a stage may be ingested while the next one is copied
+   */
+  boolean isPipelineProcessing() {
+    return _pipelineProcessing && !_startTransaction;
   }
 
   String getNoise() {
@@ -482,21 +540,37 @@ public class StreamLoader implements Loader, Runnable {
         return;
       }
 
-      data = createCSVRecord(row);
+      if (_encoder != null) {
+        // encoded later on a worker thread, so keep the values the caller passed
+        boolean dispatched = _encoder.submit(row.clone(), _stage);
+        _listener.addSubmittedRowCount(1);
 
+        if (_listener.needSuccessRecords()) {
+          _listener.recordProvided(_op, row);
+        }
+        if (dispatched && !_oneBatch && _stage.isFull()) {
+          _encoder.flush(_stage);
+          queuePut(_stage);
+          _stage = new BufferStage(this, _op, _csvFileBucketSize, _csvFileSize);
+        }
+      } else {
+        data = createCSVRecord(row);
+      }
     } catch (Exception ex) {
       abort(new Loader.ConnectionError("Creating data set for CSV", Utils.getCause(ex)));
     }
 
-    try {
-      writeBytes(data);
-      _listener.addSubmittedRowCount(1);
+    if (data != null) {
+      try {
+        writeBytes(data);
+        _listener.addSubmittedRowCount(1);
 
-      if (_listener.needSuccessRecords()) {
-        _listener.recordProvided(_op, row);
+        if (_listener.needSuccessRecords()) {
+          _listener.recordProvided(_op, row);
+        }
+      } catch (Exception ex) {
+        abort(new Loader.ConnectionError("Writing Bytes to CSV files", Utils.getCause(ex)));
       }
-    } catch (Exception ex) {
-      abort(new Loader.ConnectionError("Writing Bytes to CSV files", Utils.getCause(ex)));
     }
 
     if (_batchRowSize > 0
@@ -535,12 +609,24 @@ public class StreamLoader implements Loader, Runnable {
 
     // Start queue. NOTE: This is not actively used
     _queueData = new ArrayBlockingQueue<>(1024);
-    _thread = new Thread(this);
+    _thread = DriverThreads.newThread(this);
     _thread.setName("StreamLoaderThread");
     _thread.start();
 
     // Create stage
     _stage = new BufferStage(this, _op, _csvFileBucketSize, _csvFileSize);
+
+    // The injected bad rows of the test are written by the caller thread
+    if (_encoderThreads > 1 && !_testRemoteBadCSV) {
+      _encoder =
+          new CsvEncoderPool(
+              this,
+              (int) _encoderThreads,
+              _dateFormat,
+              _timeFormat,
+              _timestampFormat,
+              _timestampTzFormat);
+    }
   }
 
   /** Flushes data by joining PUT and PROCESS queues */
@@ -692,6 +778,19 @@ public class StreamLoader implements Loader, Runnable {
       _stage = new BufferStage(this, Operation.INSERT, _csvFileBucketSize, _csvFileSize);
     }
 
+    if (_encoder != null) {
+      // when aborted, possibly by an encoder thread, the data is rolled back anyway
+      try {
+        if (!_aborted.get()) {
+          _encoder.flush(_stage);
+        }
+      } catch (InterruptedException ex) {
+        LOGGER.error("Unknown Error", ex);
+      }
+      _encoder.shutdown();
+      _encoder = null;
+    }
+
     _stage.setTerminate(true);
 
     try {
@@ -718,6 +817,10 @@ public class StreamLoader implements Loader, Runnable {
 
     if (_stage != null) {
       try {
+        if (_encoder != null) {
+          // the rows of the previous operation go to the previous stage
+          _encoder.flush(_stage);
+        }
         queuePut(_stage);
       } catch (InterruptedException ex) {
         LOGGER.error(_stage.getId(), ex);
@@ -815,6 +918,39 @@ public class StreamLoader implements Loader, Runnable {
     }
   }
 
+  /**
+   * Reserve memory for a data file uploaded from memory. Once the files waiting for upload reach
+   * the limit, new files are written to the local stage directory instead, so the heap stays
+   * bounded when the encoders run ahead of the uploads.
+   *
+   * @param bytes size of the data file
+   * @return true if the file may be held in memory
+   */
+  boolean reserveUploadMemory(long bytes) {
+    long used;
+    do {
+      used = _uploadMemory.get();
+      if (used + bytes > _uploadMemoryLimit) {
+        return false;
+      }
+    } while (!_uploadMemory.compareAndSet(used, used + bytes));
+    return true;
+  }
+
+  /**
+   * Count memory of a data file uploaded from memory that is already in use, even if the limit is
+   * reached
+   *
+   * @param bytes memory in use
+   */
+  void addUploadMemory(long bytes) {
+    _uploadMemory.addAndGet(bytes);
+  }
+
+  void releaseUploadMemory(long bytes) {
+    _uploadMemory.addAndGet(-bytes);
+  }
+
   void throttleDown() {
     int throttleLevel = this._throttleCounter.decrementAndGet();
     LOGGER.debug("PUT Throttle Down: {}", throttleLevel);
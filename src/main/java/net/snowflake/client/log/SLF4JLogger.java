@@ -49,139 +49,128 @@ public class SLF4JLogger implements SFLogger {
   }
 
   public void debug(String msg) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.DEBUG_INT, msg, null, null);
-    } else {
-      slf4jLogger.debug(msg);
+    if (isDebugEnabled()) {
+      log(LocationAwareLogger.DEBUG_INT, msg, null);
     }
   }
 
   public void debug(String msg, Object... arguments) {
-    // use this as format example for JDK14Logger.
     if (isDebugEnabled()) {
-      FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
-      this.debug(SecretDetector.maskSecrets(ft.getMessage()));
+      log(LocationAwareLogger.DEBUG_INT, format(msg, arguments), null);
     }
   }
 
   public void debug(String msg, Throwable t) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.DEBUG_INT, msg, null, t);
-    } else {
-      slf4jLogger.debug(msg, t);
+    if (isDebugEnabled()) {
+      log(LocationAwareLogger.DEBUG_INT, msg, t);
     }
   }
 
   public void error(String msg) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.ERROR_INT, msg, null, null);
-    } else {
-      slf4jLogger.error(msg);
+    if (isErrorEnabled()) {
+      log(LocationAwareLogger.ERROR_INT, msg, null);
     }
   }
 
   public void error(String msg, Object... arguments) {
     if (isErrorEnabled()) {
-      FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
-      this.error(SecretDetector.maskSecrets(ft.getMessage()));
+      log(LocationAwareLogger.ERROR_INT, format(msg, arguments), null);
     }
   }
 
   public void error(String msg, Throwable t) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.ERROR_INT, msg, null, t);
-    } else {
-      slf4jLogger.error(msg, t);
+    if (isErrorEnabled()) {
+      log(LocationAwareLogger.ERROR_INT, msg, t);
     }
   }
 
   public void info(String msg) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.INFO_INT, msg, null, null);
-    } else {
-      slf4jLogger.info(msg);
+    if (isInfoEnabled()) {
+      log(LocationAwareLogger.INFO_INT, msg, null);
     }
   }
 
   public void info(String msg, Object... arguments) {
     if (isInfoEnabled()) {
-      FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
-      this.info(SecretDetector.maskSecrets(ft.getMessage()));
+      log(LocationAwareLogger.INFO_INT, format(msg, arguments), null);
     }
   }
 
   public void info(String msg, Throwable t) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.INFO_INT, msg, null, t);
-    } else {
-      slf4jLogger.error(msg, t);
+    if (isInfoEnabled()) {
+      log(LocationAwareLogger.INFO_INT, msg, t);
     }
   }
 
   public void trace(String msg) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.TRACE_INT, msg, null, null);
-    } else {
-      slf4jLogger.trace(msg);
+    if (isTraceEnabled()) {
+      log(LocationAwareLogger.TRACE_INT, msg, null);
     }
   }
 
   public void trace(String msg, Object... arguments) {
     if (isTraceEnabled()) {
-      FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
-      this.trace(SecretDetector.maskSecrets(ft.getMessage()));
+      log(LocationAwareLogger.TRACE_INT, format(msg, arguments), null);
     }
   }
 
   public void trace(String msg, Throwable t) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.TRACE_INT, msg, null, t);
-    } else {
-      slf4jLogger.trace(msg, t);
+    if (isTraceEnabled()) {
+      log(LocationAwareLogger.TRACE_INT, msg, t);
     }
   }
 
   public void warn(String msg) {
-    msg = SecretDetector.maskSecrets(msg);
-    if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.WARN_INT, msg, null, null);
-    } else {
-      slf4jLogger.error(msg);
+    if (isWarnEnabled()) {
+      log(LocationAwareLogger.WARN_INT, msg, null);
     }
   }
 
   public void warn(String msg, Object... arguments) {
     if (isWarnEnabled()) {
-      FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
-      this.warn(SecretDetector.maskSecrets(ft.getMessage()));
+      log(LocationAwareLogger.WARN_INT, format(msg, arguments), null);
     }
   }
 
   public void warn(String msg, Throwable t) {
+    if (isWarnEnabled()) {
+      log(LocationAwareLogger.WARN_INT, msg, t);
+    }
+  }
+
+  /**
+   * Mask the secrets in a message and log it. Called once the level is known to be enabled, so
+   * that messages which are not logged are neither formatted nor masked.
+   */
+  private void log(int level, String msg, Throwable t) {
     msg = SecretDetector.maskSecrets(msg);
     if (isLocationAwareLogger) {
-      ((LocationAwareLogger) slf4jLogger)
-          .log(null, FQCN, LocationAwareLogger.WARN_INT, msg, null, t);
-    } else {
-      slf4jLogger.error(msg, t);
-    }
+      ((LocationAwareLogger) slf4jLogger).log(null, FQCN, level, msg, null, t);
+      return;
+    }
+    switch (level) {
+      case LocationAwareLogger.TRACE_INT:
+        slf4jLogger.trace(msg, t);
+        break;
+      case LocationAwareLogger.DEBUG_INT:
+        slf4jLogger.debug(msg, t);
+        break;
+      case LocationAwareLogger.INFO_INT:
+        slf4jLogger.info(msg, t);
+        break;
+      case LocationAwareLogger.WARN_INT:
+        slf4jLogger.warn(msg, t);
+        break;
+      default:
+        slf4jLogger.error(msg, t);
+        break;
+    }
+  }
+
+  private static String format(String msg, Object... arguments) {
+    // use this as format example for JDK14Logger.
+    FormattingTuple ft = MessageFormatter.arrayFormat(msg, evaluateLambdaArgs(arguments));
+    return ft.getMessage();
   }
 
   private static Object[] evaluateLambdaArgs(Object... args) {
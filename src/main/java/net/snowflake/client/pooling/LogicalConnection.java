@@ -148,8 +148,8 @@ class LogicalConnection implements Connection {
     if (isClosed) {
       return;
     }
-    pooledConnection.fireConnectionCloseEvent();
     isClosed = true;
+    pooledConnection.fireConnectionCloseEvent();
   }
 
   @Override
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.pooling;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.snowflake.client.core.SFSession;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeConnectionV1;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+/**
+ * Pool of physical connections behind {@link SnowflakeConnectionPoolDataSource}.
+ *
+ * <p>Idle connections are kept in a lock-free deque and reused last in, first out, so that the
+ * most recently used sessions stay warm and the others age out. A semaphore bounds the number of
+ * connections that are handed out. When a connection comes back, its transaction is rolled back and
+ * role, warehouse, database and schema are set back to the values right after login. Pooled
+ * sessions are heartbeated in the background, and a session whose heartbeat failed is closed
+ * instead of being reused.
+ */
+class SnowflakeConnectionPool {
+  private static final SFLogger logger = SFLoggerFactory.getLogger(SnowflakeConnectionPool.class);
+
+  /** Opens a new physical connection */
+  interface ConnectionFactory {
+    Connection newConnection() throws SQLException;
+  }
+
+  /** Physical connection held by the pool with the session state it had after login */
+  static final class Entry {
+    final Connection connection;
+
+    final SFSession session;
+
+    // role, warehouse, database and schema after login, in the order they are reset
+    final String[] initialObjects;
+
+    volatile long idleSinceMillis;
+
+    Entry(Connection connection, SFSession session) {
+      this.connection = connection;
+      this.session = session;
+      this.initialObjects = currentObjects(session);
+    }
+  }
+
+  private static final String[] USE_COMMANDS = {
+    "USE ROLE IDENTIFIER(?)",
+    "USE WAREHOUSE IDENTIFIER(?)",
+    "USE DATABASE IDENTIFIER(?)",
+    "USE SCHEMA IDENTIFIER(?)"
+  };
+
+  private final ConnectionFactory factory;
+
+  private final int maxIdleConnections;
+
+  private final long maxIdleTimeMillis;
+
+  private final int waitTimeoutSeconds;
+
+  private final ConcurrentLinkedDeque<Entry> idle = new ConcurrentLinkedDeque<>();
+
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  // one permit per connection that may be handed out
+  private final Semaphore permits;
+
+  private final AtomicInteger activeCount = new AtomicInteger();
+
+  private final AtomicLong createdCount = new AtomicLong();
+
+  private final AtomicLong closedCount = new AtomicLong();
+
+  private final AtomicLong borrowCount = new AtomicLong();
+
+  private final AtomicLong reuseCount = new AtomicLong();
+
+  private final AtomicLong resetCount = new AtomicLong();
+
+  private final AtomicLong invalidCount = new AtomicLong();
+
+  private final AtomicLong waitTimeoutCount = new AtomicLong();
+
+  private volatile boolean closed = false;
+
+  /**
+   * @param factory opens the physical connections
+   * @param maxPoolSize maximum number of connections handed out at the same time
+   * @param maxIdleConnections maximum number of idle connections kept for reuse
+   * @param maxIdleTimeSeconds idle connections older than this are closed, 0 for no limit
+   * @param waitTimeoutSeconds how long a borrow waits for a connection when all are in use
+   */
+  SnowflakeConnectionPool(
+      ConnectionFactory factory,
+      int maxPoolSize,
+      int maxIdleConnections,
+      int maxIdleTimeSeconds,
+      int waitTimeoutSeconds) {
+    this.factory = factory;
+    this.permits = new Semaphore(maxPoolSize, true);
+    this.maxIdleConnections = maxIdleConnections;
+    this.maxIdleTimeMillis = TimeUnit.SECONDS.toMillis(maxIdleTimeSeconds);
+    this.waitTimeoutSeconds = waitTimeoutSeconds;
+  }
+
+  /**
+   * Take an idle connection, or open a new one if none is left
+   *
+   * @return pooled connection that goes back to the pool when it is closed
+   * @throws SQLException if the pool is closed, no connection became available in time or opening
+   *     a new connection failed
+   */
+  SnowflakePooledConnection borrow() throws SQLException {
+    if (closed) {
+      throw new SnowflakeSQLException(ErrorCode.CONNECTION_CLOSED);
+    }
+    try {
+      if (!permits.tryAcquire(waitTimeoutSeconds, TimeUnit.SECONDS)) {
+        waitTimeoutCount.incrementAndGet();
+        throw new SnowflakeSQLException(ErrorCode.CONNECTION_POOL_EXHAUSTED, waitTimeoutSeconds);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SnowflakeSQLException(ex, ErrorCode.INTERRUPTED);
+    }
+
+    try {
+      Entry entry;
+      while ((entry = idle.pollFirst()) != null) {
+        idleCount.decrementAndGet();
+        if (isReusable(entry)) {
+          reuseCount.incrementAndGet();
+          return handOut(entry);
+        }
+        invalidCount.incrementAndGet();
+        closePhysicalConnection(entry);
+      }
+      return handOut(open());
+    } catch (SQLException | RuntimeException ex) {
+      permits.release();
+      throw ex;
+    }
+  }
+
+  private SnowflakePooledConnection handOut(Entry entry) {
+    borrowCount.incrementAndGet();
+    activeCount.incrementAndGet();
+    return new SnowflakePooledConnection(entry.connection, this, entry);
+  }
+
+  private Entry open() throws SQLException {
+    Connection connection = factory.newConnection();
+    SFSession session = connection.unwrap(SnowflakeConnectionV1.class).getSfSession();
+    session.startPoolHeartbeat();
+    createdCount.incrementAndGet();
+    logger.debug("Opened pooled connection, {} connections created", createdCount.get());
+    return new Entry(connection, session);
+  }
+
+  private boolean isReusable(Entry entry) {
+    if (entry.session.isClosed() || entry.session.isHeartbeatFailed()) {
+      return false;
+    }
+    return maxIdleTimeMillis <= 0
+        || System.currentTimeMillis() - entry.idleSinceMillis <= maxIdleTimeMillis;
+  }
+
+  /**
+   * Give a connection back to the pool. It becomes idle if its session state could be reset and
+   * the pool has room, otherwise it is closed.
+   *
+   * @param entry connection handed out by {@link #borrow()}
+   */
+  void release(Entry entry) {
+    try {
+      activeCount.decrementAndGet();
+      if (!closed && resetSessionState(entry)) {
+        if (idleCount.incrementAndGet() <= maxIdleConnections) {
+          entry.idleSinceMillis = System.currentTimeMillis();
+          idle.offerFirst(entry);
+          if (closed) {
+            // the pool was closed while the connection was put back
+            closeIdleConnections();
+          }
+          return;
+        }
+        idleCount.decrementAndGet();
+      }
+      closePhysicalConnection(entry);
+    } finally {
+      permits.release();
+    }
+  }
+
+  /** @return true if the connection is in the state after login again */
+  private boolean resetSessionState(Entry entry) {
+    try {
+      Connection connection = entry.connection;
+      if (connection.isClosed()) {
+        return false;
+      }
+      if (!connection.getAutoCommit()) {
+        connection.rollback();
+        connection.setAutoCommit(true);
+      }
+      String[] current = currentObjects(entry.session);
+      boolean reset = false;
+      for (int i = 0; i < USE_COMMANDS.length; i++) {
+        if (Objects.equals(entry.initialObjects[i], current[i])) {
+          continue;
+        }
+        if (entry.initialObjects[i] == null) {
+          // there is no command to unset the current object
+          return false;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(USE_COMMANDS[i])) {
+          statement.setString(1, quoteIdentifier(entry.initialObjects[i]));
+          statement.execute();
+        }
+        reset = true;
+      }
+      if (reset) {
+        resetCount.incrementAndGet();
+      }
+      return true;
+    } catch (SQLException ex) {
+      logger.debug("Failed to reset the pooled connection, closing it: {}", ex.getMessage());
+      return false;
+    }
+  }
+
+  private static String[] currentObjects(SFSession session) {
+    return new String[] {
+      session.getRole(), session.getWarehouse(), session.getDatabase(), session.getSchema()
+    };
+  }
+
+  /** Quote the name as stored in the session so that IDENTIFIER keeps its case */
+  private static String quoteIdentifier(String name) {
+    return '"' + name.replace("\"", "\"\"") + '"';
+  }
+
+  private void closePhysicalConnection(Entry entry) {
+    entry.session.stopPoolHeartbeat();
+    try {
+      entry.connection.close();
+    } catch (SQLException ex) {
+      logger.debug("Failed to close pooled connection: {}", ex.getMessage());
+    }
+    closedCount.incrementAndGet();
+  }
+
+  private void closeIdleConnections() {
+    Entry entry;
+    while ((entry = idle.pollFirst()) != null) {
+      idleCount.decrementAndGet();
+      closePhysicalConnection(entry);
+    }
+  }
+
+  /**
+   * Close the idle connections. Connections in use are closed when they are given back, and no
+   * connection can be borrowed anymore.
+   */
+  void close() {
+    closed = true;
+    closeIdleConnections();
+  }
+
+  /** @return snapshot of the pool counters */
+  SnowflakeConnectionPoolMetrics getMetrics() {
+    return new SnowflakeConnectionPoolMetrics(
+        activeCount.get(),
+        idleCount.get(),
+        createdCount.get(),
+        closedCount.get(),
+        borrowCount.get(),
+        reuseCount.get(),
+        resetCount.get(),
+        invalidCount.get(),
+        waitTimeoutCount.get());
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
  */
 package net.snowflake.client.pooling;
 
@@ -9,10 +9,48 @@ import javax.sql.ConnectionPoolDataSource;
 import javax.sql.PooledConnection;
 import net.snowflake.client.jdbc.SnowflakeBasicDataSource;
 
+/**
+ * Connection pool data source. By default every pooled connection opens its own physical
+ * connection and is left to be pooled by the application server.
+ *
+ * <p>With a positive {@link #setMaxPoolSize(int) maximum pool size} the data source keeps a pool of
+ * physical connections itself. {@link #getConnection()} and {@link #getPooledConnection()} then
+ * borrow from the pool, and closing the connection gives the physical connection back instead of
+ * logging out, so a borrow only pays for a login when no idle connection is left. Connections for
+ * other credentials passed to getConnection(user, password) are not pooled. The pool is created on
+ * the first borrow, so the connection properties should be set before.
+ */
 public class SnowflakeConnectionPoolDataSource extends SnowflakeBasicDataSource
-    implements ConnectionPoolDataSource {
+    implements ConnectionPoolDataSource, AutoCloseable {
+  /** maximum number of pooled connections in use at the same time, 0 disables the pool */
+  private int maxPoolSize = 0;
+
+  /** maximum number of idle connections kept, -1 for the maximum pool size */
+  private int maxIdleConnections = -1;
+
+  /** idle connections are closed after this many seconds, 0 for no limit */
+  private int maxIdleTime = 1800;
+
+  /** seconds a borrow waits when all connections are in use */
+  private int poolWaitTimeout = 30;
+
+  private transient SnowflakeConnectionPool pool;
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (maxPoolSize <= 0) {
+      return super.getConnection();
+    }
+    SnowflakePooledConnection pooledConnection = getPool().borrow();
+    pooledConnection.setCloseWithLogicalConnection(true);
+    return pooledConnection.getConnection();
+  }
+
   @Override
   public PooledConnection getPooledConnection() throws SQLException {
+    if (maxPoolSize > 0) {
+      return getPool().borrow();
+    }
     Connection connection = super.getConnection();
     return new SnowflakePooledConnection(connection);
   }
@@ -22,4 +60,70 @@ public class SnowflakeConnectionPoolDataSource extends SnowflakeBasicDataSource
     Connection connection = super.getConnection(user, password);
     return new SnowflakePooledConnection(connection);
   }
+
+  private synchronized SnowflakeConnectionPool getPool() {
+    if (pool == null) {
+      pool =
+          new SnowflakeConnectionPool(
+              SnowflakeConnectionPoolDataSource.super::getConnection,
+              maxPoolSize,
+              maxIdleConnections < 0 ? maxPoolSize : maxIdleConnections,
+              maxIdleTime,
+              poolWaitTimeout);
+    }
+    return pool;
+  }
+
+  /**
+   * Close the idle connections of the pool. Connections in use are closed when they are given
+   * back. A later borrow creates a new pool.
+   */
+  @Override
+  public synchronized void close() {
+    if (pool != null) {
+      pool.close();
+      pool = null;
+    }
+  }
+
+  /** @return counters of the pool, all 0 if the pool is disabled or not used yet */
+  public synchronized SnowflakeConnectionPoolMetrics getPoolMetrics() {
+    return pool == null ? SnowflakeConnectionPoolMetrics.EMPTY : pool.getMetrics();
+  }
+
+  public int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /** @param maxPoolSize maximum number of pooled connections in use, 0 disables the pool */
+  public void setMaxPoolSize(int maxPoolSize) {
+    this.maxPoolSize = maxPoolSize;
+  }
+
+  public int getMaxIdleConnections() {
+    return maxIdleConnections < 0 ? maxPoolSize : maxIdleConnections;
+  }
+
+  /** @param maxIdleConnections maximum number of idle connections kept for reuse */
+  public void setMaxIdleConnections(int maxIdleConnections) {
+    this.maxIdleConnections = maxIdleConnections;
+  }
+
+  public int getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  /** @param maxIdleTime seconds after which an idle connection is closed, 0 for no limit */
+  public void setMaxIdleTime(int maxIdleTime) {
+    this.maxIdleTime = maxIdleTime;
+  }
+
+  public int getPoolWaitTimeout() {
+    return poolWaitTimeout;
+  }
+
+  /** @param poolWaitTimeout seconds a borrow waits when all pooled connections are in use */
+  public void setPoolWaitTimeout(int poolWaitTimeout) {
+    this.poolWaitTimeout = poolWaitTimeout;
+  }
 }
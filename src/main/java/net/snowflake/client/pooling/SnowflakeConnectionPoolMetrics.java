@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.pooling;
+
+/** Snapshot of the counters of the pool of a {@link SnowflakeConnectionPoolDataSource} */
+public final class SnowflakeConnectionPoolMetrics {
+  static final SnowflakeConnectionPoolMetrics EMPTY =
+      new SnowflakeConnectionPoolMetrics(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+  private final int activeConnections;
+
+  private final int idleConnections;
+
+  private final long createdConnections;
+
+  private final long closedConnections;
+
+  private final long borrowCount;
+
+  private final long reuseCount;
+
+  private final long resetCount;
+
+  private final long invalidCount;
+
+  private final long waitTimeoutCount;
+
+  SnowflakeConnectionPoolMetrics(
+      int activeConnections,
+      int idleConnections,
+      long createdConnections,
+      long closedConnections,
+      long borrowCount,
+      long reuseCount,
+      long resetCount,
+      long invalidCount,
+      long waitTimeoutCount) {
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.createdConnections = createdConnections;
+    this.closedConnections = closedConnections;
+    this.borrowCount = borrowCount;
+    this.reuseCount = reuseCount;
+    this.resetCount = resetCount;
+    this.invalidCount = invalidCount;
+    this.waitTimeoutCount = waitTimeoutCount;
+  }
+
+  /** @return number of connections currently handed out */
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  /** @return number of connections waiting in the pool */
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /** @return number of physical connections opened, i.e. logins */
+  public long getCreatedConnections() {
+    return createdConnections;
+  }
+
+  /** @return number of physical connections closed by the pool */
+  public long getClosedConnections() {
+    return closedConnections;
+  }
+
+  /** @return number of connections handed out */
+  public long getBorrowCount() {
+    return borrowCount;
+  }
+
+  /** @return number of connections handed out without a new login */
+  public long getReuseCount() {
+    return reuseCount;
+  }
+
+  /** @return number of returned connections whose role, warehouse, database or schema was reset */
+  public long getResetCount() {
+    return resetCount;
+  }
+
+  /** @return number of idle connections dropped because they expired or their session failed */
+  public long getInvalidCount() {
+    return invalidCount;
+  }
+
+  /** @return number of borrows that gave up waiting for a connection */
+  public long getWaitTimeoutCount() {
+    return waitTimeoutCount;
+  }
+
+  @Override
+  public String toString() {
+    return "active="
+        + activeConnections
+        + ", idle="
+        + idleConnections
+        + ", created="
+        + createdConnections
+        + ", closed="
+        + closedConnections
+        + ", borrowed="
+        + borrowCount
+        + ", reused="
+        + reuseCount
+        + ", reset="
+        + resetCount
+        + ", invalid="
+        + invalidCount
+        + ", waitTimeouts="
+        + waitTimeoutCount;
+  }
+}
@@ -5,6 +5,7 @@ package net.snowflake.client.pooling;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 import javax.sql.ConnectionEvent;
@@ -20,9 +21,26 @@ public class SnowflakePooledConnection implements PooledConnection {
   /** list of event listener registered to listen for connection event */
   private final Set<ConnectionEventListener> eventListeners;
 
+  /** pool the physical connection goes back to on close, null if it is not pooled */
+  private final SnowflakeConnectionPool pool;
+
+  private final SnowflakeConnectionPool.Entry poolEntry;
+
+  /** whether closing the logical connection also closes this pooled connection */
+  private boolean closeWithLogicalConnection;
+
   SnowflakePooledConnection(Connection physicalConnection) {
+    this(physicalConnection, null, null);
+  }
+
+  SnowflakePooledConnection(
+      Connection physicalConnection,
+      SnowflakeConnectionPool pool,
+      SnowflakeConnectionPool.Entry poolEntry) {
     this.physicalConnection = physicalConnection;
     this.eventListeners = new HashSet<>();
+    this.pool = pool;
+    this.poolEntry = poolEntry;
   }
 
   @Override
@@ -34,11 +52,23 @@ public class SnowflakePooledConnection implements PooledConnection {
     return physicalConnection;
   }
 
+  /**
+   * Close this pooled connection together with its logical connection, used when the data source
+   * hands out connections of its own pool
+   */
+  void setCloseWithLogicalConnection(boolean closeWithLogicalConnection) {
+    this.closeWithLogicalConnection = closeWithLogicalConnection;
+  }
+
   /** Fire a connection has been closed event to event listener */
-  void fireConnectionCloseEvent() {
-    for (ConnectionEventListener connectionEventListener : eventListeners) {
+  void fireConnectionCloseEvent() throws SQLException {
+    // copy since a listener may close this pooled connection, which clears the listeners
+    for (ConnectionEventListener connectionEventListener : new ArrayList<>(eventListeners)) {
       connectionEventListener.connectionClosed(new ConnectionEvent(this));
     }
+    if (closeWithLogicalConnection) {
+      close();
+    }
   }
 
   void fireConnectionErrorEvent(SQLException e) {
@@ -55,7 +85,12 @@ public class SnowflakePooledConnection implements PooledConnection {
   @Override
   public void close() throws SQLException {
     if (this.physicalConnection != null) {
-      this.physicalConnection.close();
+      if (pool != null) {
+        // the physical connection is reused, or closed by the pool
+        pool.release(poolEntry);
+      } else {
+        this.physicalConnection.close();
+      }
       this.physicalConnection = null;
     }
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import org.junit.Test;
+
+public class DriverThreadsTest {
+  @Test
+  public void testPlatformThreadsByDefault() throws Exception {
+    // the suite may run with virtual threads enabled
+    String enabled = System.getProperty(DriverThreads.VIRTUAL_THREADS_PROPERTY);
+    System.clearProperty(DriverThreads.VIRTUAL_THREADS_PROPERTY);
+    try {
+      assertThat(DriverThreads.loadThreadFactory(), nullValue());
+    } finally {
+      if (enabled != null) {
+        System.setProperty(DriverThreads.VIRTUAL_THREADS_PROPERTY, enabled);
+      }
+    }
+
+    Thread thread = DriverThreads.newThread(() -> {});
+    assertThat(thread.getState(), is(Thread.State.NEW));
+    if (!DriverThreads.isVirtual()) {
+      assertThat(thread.isDaemon(), is(Thread.currentThread().isDaemon()));
+    }
+  }
+
+  @Test
+  public void testVirtualThreadFactory() throws Exception {
+    ThreadFactory factory = DriverThreads.loadVirtualThreadFactory();
+    Method isVirtual;
+    try {
+      isVirtual = Thread.class.getMethod("isVirtual");
+    } catch (NoSuchMethodException ex) {
+      // JVM without virtual threads, the driver falls back to platform threads
+      assertThat(factory, nullValue());
+      return;
+    }
+    assertThat(factory, notNullValue());
+    Thread thread = factory.newThread(() -> {});
+    assertThat(isVirtual.invoke(thread), is(true));
+    assertThat(thread.isDaemon(), is(true));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileDigestCacheTest {
+  private static final String CACHE_DIR_PROP = "net.snowflake.jdbc.fileDigestCacheDirTest";
+
+  @Rule public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private FileDigestCache newCache(File cacheDir) {
+    return newCache(cacheDir, FileDigestCache.MAX_ENTRIES);
+  }
+
+  private FileDigestCache newCache(File cacheDir, int maxEntries) {
+    System.setProperty(CACHE_DIR_PROP, cacheDir.getAbsolutePath());
+    try {
+      return new FileDigestCache(
+          FileCacheManager.builder()
+              .setCacheDirectorySystemProperty(CACHE_DIR_PROP)
+              .setBaseCacheFileName("file_digest_cache_test.json")
+              .setCacheExpirationInSeconds(3600)
+              .setCacheFileLockExpirationInSeconds(60)
+              .build(),
+          maxEntries);
+    } finally {
+      System.clearProperty(CACHE_DIR_PROP);
+    }
+  }
+
+  private File newFile(String name, String content, long lastModified) throws IOException {
+    File file = tmpFolder.newFile(name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    file.setLastModified(lastModified);
+    return file;
+  }
+
+  @Test
+  public void testDigestOfUnchangedFile() throws IOException {
+    File cacheDir = tmpFolder.newFolder();
+    FileDigestCache cache = newCache(cacheDir);
+    long lastModified = System.currentTimeMillis() - 60000;
+    File file = newFile("data.csv", "1,2,3", lastModified);
+
+    assertThat(cache.get(file, "sha256"), nullValue());
+    cache.put(file, "sha256", file.length(), file.lastModified(), "digest1");
+    assertThat(cache.get(file, "sha256"), is("digest1"));
+    assertThat(cache.get(file, "md5"), nullValue());
+
+    // read back by another process
+    cache.save();
+    assertThat(newCache(cacheDir).get(file, "sha256"), is("digest1"));
+
+    // same size, but modified
+    Files.write(file.toPath(), "4,5,6".getBytes(StandardCharsets.UTF_8));
+    file.setLastModified(lastModified + 1000);
+    assertThat(cache.get(file, "sha256"), nullValue());
+  }
+
+  @Test
+  public void testRecentlyModifiedFileNotCached() throws IOException {
+    FileDigestCache cache = newCache(tmpFolder.newFolder());
+    File file = newFile("data.csv", "1,2,3", System.currentTimeMillis());
+
+    cache.put(file, "sha256", file.length(), file.lastModified(), "digest1");
+    assertThat(cache.get(file, "sha256"), nullValue());
+  }
+
+  @Test
+  public void testConcurrentFirstReads() throws Exception {
+    File cacheDir = tmpFolder.newFolder();
+    File file = newFile("data.csv", "1,2,3", System.currentTimeMillis() - 60000);
+    FileDigestCache writer = newCache(cacheDir);
+    writer.put(file, "sha256", file.length(), file.lastModified(), "digest1");
+    writer.save();
+
+    // every first read waits for the cache file instead of seeing an empty cache
+    FileDigestCache cache = newCache(cacheDir);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<String>> digests = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        digests.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return cache.get(file, "sha256");
+                }));
+      }
+      start.countDown();
+      for (Future<String> digest : digests) {
+        assertThat(digest.get(), is("digest1"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSaveKeepsDigestsOfOtherProcesses() throws IOException {
+    File cacheDir = tmpFolder.newFolder();
+    long lastModified = System.currentTimeMillis() - 60000;
+    File file1 = newFile("data1.csv", "1,2,3", lastModified);
+    File file2 = newFile("data2.csv", "4,5,6", lastModified);
+
+    // both processes read the cache before either of them saved it
+    FileDigestCache cache1 = newCache(cacheDir);
+    FileDigestCache cache2 = newCache(cacheDir);
+    assertThat(cache1.get(file1, "sha256"), nullValue());
+    assertThat(cache2.get(file2, "sha256"), nullValue());
+
+    cache1.put(file1, "sha256", file1.length(), file1.lastModified(), "digest1");
+    cache2.put(file2, "sha256", file2.length(), file2.lastModified(), "digest2");
+    cache1.save();
+    cache2.save();
+
+    FileDigestCache cache3 = newCache(cacheDir);
+    assertThat(cache3.get(file1, "sha256"), is("digest1"));
+    assertThat(cache3.get(file2, "sha256"), is("digest2"));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedDigestsAreEvicted() throws Exception {
+    File cacheDir = tmpFolder.newFolder();
+    FileDigestCache cache = newCache(cacheDir, 10);
+    long lastModified = System.currentTimeMillis() - 60000;
+    File[] files = new File[11];
+    for (int i = 0; i < files.length; i++) {
+      files[i] = newFile("data" + i + ".csv", "1,2,3", lastModified);
+    }
+    for (int i = 0; i < 10; i++) {
+      cache.put(files[i], "sha256", files[i].length(), lastModified, "digest" + i);
+      Thread.sleep(2);
+    }
+    // using the first digest makes it the most recently used one
+    assertThat(cache.get(files[0], "sha256"), is("digest0"));
+    Thread.sleep(2);
+
+    cache.put(files[10], "sha256", files[10].length(), lastModified, "digest10");
+    assertThat(cache.get(files[0], "sha256"), is("digest0"));
+    assertThat(cache.get(files[1], "sha256"), nullValue());
+    assertThat(cache.get(files[2], "sha256"), nullValue());
+    assertThat(cache.get(files[3], "sha256"), is("digest3"));
+    assertThat(cache.get(files[10], "sha256"), is("digest10"));
+
+    // the limit also applies to the digests merged from the cache file, where the fourth digest
+    // is now the least recently used one
+    cache.save();
+    FileDigestCache other = newCache(cacheDir, 10);
+    other.put(files[1], "sha256", files[1].length(), lastModified, "digest1");
+    other.put(files[2], "sha256", files[2].length(), lastModified, "digest2");
+    other.save();
+    FileDigestCache reader = newCache(cacheDir, 10);
+    assertThat(reader.get(files[1], "sha256"), is("digest1"));
+    assertThat(reader.get(files[2], "sha256"), is("digest2"));
+    assertThat(reader.get(files[4], "sha256"), nullValue());
+    assertThat(reader.get(files[5], "sha256"), is("digest5"));
+    assertThat(reader.get(files[10], "sha256"), is("digest10"));
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    FileDigestCache cache = new FileDigestCache(null);
+    File file = newFile("data.csv", "1,2,3", System.currentTimeMillis() - 60000);
+
+    cache.put(file, "sha256", file.length(), file.lastModified(), "digest1");
+    assertThat(cache.isEnabled(), is(false));
+    assertThat(cache.get(file, "sha256"), nullValue());
+    cache.save();
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class QueryStatusMonitorTest {
+  private static final String QUERY_1 = "01234567-0123-0123-0123-0123456789a1";
+
+  private static final String QUERY_2 = "01234567-0123-0123-0123-0123456789a2";
+
+  private final List<QueryStatusMonitor> monitors = new ArrayList<>();
+
+  @After
+  public void shutdownMonitors() {
+    for (QueryStatusMonitor monitor : monitors) {
+      monitor.shutdown();
+    }
+  }
+
+  private QueryStatusMonitor newMonitor(
+      QueryStatusMonitor.StatusFetcher fetcher, long noDataTimeoutMillis) {
+    QueryStatusMonitor monitor = new QueryStatusMonitor(fetcher, noDataTimeoutMillis);
+    monitors.add(monitor);
+    return monitor;
+  }
+
+  private QueryStatusMonitor newMonitor(QueryStatusMonitor.StatusFetcher fetcher) {
+    return newMonitor(fetcher, QueryStatusMonitor.NO_DATA_TIMEOUT_MILLIS);
+  }
+
+  @Test
+  public void testCompleteWhenQueryFinishes() throws Exception {
+    ConcurrentHashMap<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+    QueryStatusMonitor monitor =
+        newMonitor(
+            (session, queryId) -> {
+              int count =
+                  polls.computeIfAbsent(queryId, id -> new AtomicInteger()).incrementAndGet();
+              if (QUERY_1.equals(queryId)) {
+                return count < 3 ? QueryStatus.RUNNING : QueryStatus.SUCCESS;
+              }
+              return QueryStatus.FAILED_WITH_ERROR;
+            });
+
+    CompletableFuture<QueryStatus> first = monitor.watch(null, QUERY_1);
+    CompletableFuture<QueryStatus> second = monitor.watch(null, QUERY_2);
+    // callers waiting for the same query share the watch
+    assertThat(monitor.watch(null, QUERY_1), sameInstance(first));
+
+    assertThat(first.get(10, TimeUnit.SECONDS), is(QueryStatus.SUCCESS));
+    assertThat(second.get(10, TimeUnit.SECONDS), is(QueryStatus.FAILED_WITH_ERROR));
+    assertThat(polls.get(QUERY_1).get(), is(3));
+    assertThat(polls.get(QUERY_2).get(), is(1));
+    assertThat(monitor.getWatchCount(), is(0));
+  }
+
+  @Test
+  public void testFailWhenStatusNotAvailable() throws Exception {
+    QueryStatusMonitor monitor =
+        newMonitor(
+            (session, queryId) -> {
+              throw new SQLException("monitoring endpoint not available");
+            });
+
+    try {
+      monitor.watch(null, QUERY_1).get(10, TimeUnit.SECONDS);
+      fail("status should not be available");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(SQLException.class));
+    }
+    assertThat(monitor.getWatchCount(), is(0));
+  }
+
+  @Test
+  public void testCompleteOutsidePollThreads() throws Exception {
+    AtomicBoolean stageAdded = new AtomicBoolean(false);
+    QueryStatusMonitor monitor =
+        newMonitor(
+            (session, queryId) -> stageAdded.get() ? QueryStatus.SUCCESS : QueryStatus.RUNNING);
+
+    CompletableFuture<String> thread =
+        monitor.watch(null, QUERY_1).thenApply(status -> Thread.currentThread().getName());
+    stageAdded.set(true);
+    assertThat(thread.get(10, TimeUnit.SECONDS).startsWith("query-status-completion-"), is(true));
+  }
+
+  @Test
+  public void testFailWhenNoDataAfterTimeout() throws Exception {
+    AtomicInteger polls = new AtomicInteger();
+    QueryStatusMonitor monitor =
+        newMonitor(
+            (session, queryId) -> {
+              polls.incrementAndGet();
+              return QueryStatus.NO_DATA;
+            },
+            600);
+
+    long start = System.currentTimeMillis();
+    try {
+      monitor.watch(null, QUERY_1).get(10, TimeUnit.SECONDS);
+      fail("status should not be available");
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(SQLException.class));
+    }
+    assertThat(System.currentTimeMillis() - start >= 600, is(true));
+    assertThat(polls.get() > 1, is(true));
+  }
+}
@@ -6,6 +6,7 @@ package net.snowflake.client.core;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -15,13 +16,16 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import net.snowflake.client.category.TestCategoryArrow;
 import net.snowflake.client.jdbc.ArrowResultChunk;
+import net.snowflake.client.jdbc.DoubleColumnReader;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.LongColumnReader;
 import net.snowflake.client.jdbc.SnowflakeResultChunk;
 import net.snowflake.client.jdbc.SnowflakeResultSetSerializableV1;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
@@ -226,6 +230,171 @@ public class SFArrowResultSetIT {
     assertThat(index, is(5500));
   }
 
+  /** All chunks are sorted when client side sorting is enabled */
+  @Test
+  public void testSortedFirstResponseAndOfflineData() throws Throwable {
+    // no memory limit is set, so the sorted chunks are written to disk
+    checkSortedResult(500, 10, 500, 0);
+  }
+
+  @Test
+  public void testSortedOfflineDataWithEmptyFirstResponse() throws Throwable {
+    checkSortedResult(0, 10, 500, 0);
+  }
+
+  @Test
+  public void testSortedOfflineDataInMemory() throws Throwable {
+    checkSortedResult(500, 10, 500, 100L * 1024 * 1024);
+  }
+
+  @Test
+  public void testSortedOfflineDataWithManyRunsOnDisk() throws Throwable {
+    // more than twice as many runs on disk as are read at the same time, groups of them are merged
+    // first
+    checkSortedResult(50, 138, 50, 0);
+  }
+
+  /**
+   * Sort a result of random integers and compare it with the rows sorted in memory
+   *
+   * @param firstChunkRowCount number of rows of the first chunk, which is empty if it is 0
+   * @param chunkCount number of chunks after the first chunk
+   * @param chunkRowCount number of rows of each chunk after the first chunk
+   * @param memoryLimit memory limit of the result set
+   */
+  private void checkSortedResult(
+      int firstChunkRowCount, int chunkCount, int chunkRowCount, long memoryLimit)
+      throws Throwable {
+    final int colCount = 2;
+
+    List<Field> fieldList = new ArrayList<>();
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("scale", "0");
+    FieldType type = new FieldType(false, Types.MinorType.INT.getType(), null, customFieldMeta);
+
+    for (int i = 0; i < colCount; i++) {
+      fieldList.add(new Field("col_" + i, type, null));
+    }
+    Schema schema = new Schema(fieldList);
+
+    List<String[]> rows = new ArrayList<>();
+
+    SnowflakeResultSetSerializableV1 resultSetSerializable = new SnowflakeResultSetSerializableV1();
+    if (firstChunkRowCount > 0) {
+      Object[][] firstChunkData = generateData(schema, firstChunkRowCount);
+      File arrowFile = createArrowFile("testSortedData_0", schema, firstChunkData, 10);
+      addRows(rows, firstChunkData);
+
+      byte[] dataBytes = new byte[(int) arrowFile.length()];
+      try (InputStream is = new FileInputStream(arrowFile)) {
+        is.read(dataBytes, 0, dataBytes.length);
+      }
+      resultSetSerializable.setFristChunkStringData(Base64.getEncoder().encodeToString(dataBytes));
+    }
+    resultSetSerializable.setChunkFileCount(chunkCount);
+    resultSetSerializable.setRootAllocator(new RootAllocator(Long.MAX_VALUE));
+    resultSetSerializable.setMemoryLimit(memoryLimit);
+    List<File> fileLists = new ArrayList<>();
+    for (int i = 0; i < chunkCount; i++) {
+      Object[][] data = generateData(schema, chunkRowCount);
+      // values shared by several chunks
+      for (int j = 0; j < chunkRowCount; j += 7) {
+        data[0][j] = j;
+      }
+      fileLists.add(createArrowFile("testSortedData_" + (i + 1), schema, data, 10));
+      addRows(rows, data);
+    }
+    resultSetSerializable.setChunkDownloader(new MockChunkDownloader(fileLists));
+
+    // the integers are compared by value
+    rows.sort(
+        Comparator.comparingInt((String[] row) -> Integer.parseInt(row[0]))
+            .thenComparingInt(row -> Integer.parseInt(row[1])));
+
+    SFArrowResultSet resultSet =
+        new SFArrowResultSet(resultSetSerializable, new NoOpTelemetryClient(), true);
+
+    int index = 0;
+    while (resultSet.next()) {
+      for (int i = 0; i < colCount; i++) {
+        assertThat(resultSet.getString(i + 1), is(rows.get(index)[i]));
+      }
+      index++;
+      assertThat(resultSet.isLast(), is(index == rows.size()));
+    }
+
+    assertThat(index, is(rows.size()));
+    assertThat(resultSet.isAfterLast(), is(true));
+    resultSet.close();
+  }
+
+  private static void addRows(List<String[]> rows, Object[][] data) {
+    for (int j = 0; j < data[0].length; j++) {
+      String[] row = new String[data.length];
+      for (int i = 0; i < data.length; i++) {
+        row[i] = String.valueOf(data[i][j]);
+      }
+      rows.add(row);
+    }
+  }
+
+  /** Column readers obtained before the first row keep following the cursor across chunks */
+  @Test
+  public void testColumnReaders() throws Throwable {
+    final int colCount = 2;
+    final int chunkCount = 3;
+
+    List<Field> fieldList = new ArrayList<>();
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("scale", "0");
+    FieldType type = new FieldType(false, Types.MinorType.INT.getType(), null, customFieldMeta);
+
+    for (int i = 0; i < colCount; i++) {
+      fieldList.add(new Field("col_" + i, type, null));
+    }
+    Schema schema = new Schema(fieldList);
+
+    List<Object[][]> dataLists = new ArrayList<>();
+    List<File> fileLists = new ArrayList<>();
+    for (int i = 0; i < chunkCount; i++) {
+      Object[][] data = generateData(schema, 500);
+      dataLists.add(data);
+      fileLists.add(createArrowFile("testColumnReaders_" + i, schema, data, 10));
+    }
+
+    SnowflakeResultSetSerializableV1 resultSetSerializable = new SnowflakeResultSetSerializableV1();
+    resultSetSerializable.setChunkDownloader(new MockChunkDownloader(fileLists));
+    resultSetSerializable.setChunkFileCount(chunkCount);
+
+    SFArrowResultSet resultSet =
+        new SFArrowResultSet(resultSetSerializable, new NoOpTelemetryClient(), false);
+    LongColumnReader longReader = resultSet.getLongColumnReader(1);
+    DoubleColumnReader doubleReader = resultSet.getDoubleColumnReader(2);
+    assertThat(longReader.getScale(), is(0));
+
+    int index = 0;
+    while (resultSet.next()) {
+      Integer expectedLong = (Integer) dataLists.get(index / 500)[0][index % 500];
+      Integer expectedDouble = (Integer) dataLists.get(index / 500)[1][index % 500];
+      assertThat(longReader.isNull(), is(false));
+      assertThat(longReader.getLong(), is((long) expectedLong));
+      assertThat(longReader.getUnscaledLong(), is((long) expectedLong));
+      assertThat(doubleReader.getDouble(), is((double) expectedDouble));
+      assertThat(resultSet.getLong(1), is((long) expectedLong));
+      index++;
+    }
+    assertThat(index, is(1500));
+
+    try {
+      resultSet.getLongColumnReader(colCount + 1);
+      fail("column does not exist");
+    } catch (SFException ex) {
+      assertThat(ex.getVendorCode(), is(ErrorCode.COLUMN_DOES_NOT_EXIST.getMessageCode()));
+    }
+  }
+
   /** Class to mock chunk downloader. It is just reading data from tmp directory one by one */
   private class MockChunkDownloader implements ChunkDownloader {
     private List<File> resultFileNames;
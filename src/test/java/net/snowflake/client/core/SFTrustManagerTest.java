@@ -1,9 +1,20 @@
 package net.snowflake.client.core;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.After;
 import org.junit.Test;
 
 public class SFTrustManagerTest {
@@ -99,4 +110,127 @@ public class SFTrustManagerTest {
       System.clearProperty("net.snowflake.jdbc.ocsp_activate_new_endpoint");
     }
   }
+
+  @After
+  public void clearVerifiedChains() {
+    SFTrustManager.clearVerifiedChains();
+  }
+
+  private static X509Certificate certificate(String encoded) throws Exception {
+    X509Certificate cert = mock(X509Certificate.class);
+    when(cert.getEncoded()).thenReturn(encoded.getBytes("UTF-8"));
+    return cert;
+  }
+
+  @Test
+  public void testVerifiedChainKey() throws Exception {
+    X509Certificate leaf = certificate("leaf");
+    X509Certificate intermediate = certificate("intermediate");
+    X509Certificate otherIntermediate = certificate("other intermediate");
+    String key =
+        SFTrustManager.getVerifiedChainKey(
+            new X509Certificate[] {leaf, intermediate}, "a1.snowflakecomputing.com");
+
+    assertThat(
+        SFTrustManager.getVerifiedChainKey(
+            new X509Certificate[] {leaf, intermediate}, "a1.snowflakecomputing.com"),
+        equalTo(key));
+    // every certificate of the chain and the peer host are part of the key
+    assertThat(
+        SFTrustManager.getVerifiedChainKey(
+            new X509Certificate[] {leaf, otherIntermediate}, "a1.snowflakecomputing.com"),
+        not(equalTo(key)));
+    assertThat(
+        SFTrustManager.getVerifiedChainKey(
+            new X509Certificate[] {leaf}, "a1.snowflakecomputing.com"),
+        not(equalTo(key)));
+    assertThat(
+        SFTrustManager.getVerifiedChainKey(
+            new X509Certificate[] {leaf, intermediate}, "a2.snowflakecomputing.com"),
+        not(equalTo(key)));
+
+    long now = System.currentTimeMillis();
+    assertThat(SFTrustManager.isVerifiedChain(key, now), is(false));
+    SFTrustManager.addVerifiedChain(key, now + 60000);
+    assertThat(SFTrustManager.isVerifiedChain(key, now), is(true));
+    assertThat(
+        SFTrustManager.isVerifiedChain(
+            SFTrustManager.getVerifiedChainKey(
+                new X509Certificate[] {leaf, otherIntermediate}, "a1.snowflakecomputing.com"),
+            now),
+        is(false));
+  }
+
+  @Test
+  public void testVerifiedChainExpires() {
+    long now = System.currentTimeMillis();
+    SFTrustManager.addVerifiedChain("chain", now + 60000);
+
+    // the certificates must be checked again once the OCSP responses may have been updated
+    assertThat(SFTrustManager.isVerifiedChain("chain", now + 59999), is(true));
+    assertThat(SFTrustManager.isVerifiedChain("chain", now + 60000), is(false));
+    assertThat(SFTrustManager.isVerifiedChain("chain", now), is(false));
+
+    // a verification that already expired is not remembered
+    SFTrustManager.addVerifiedChain("expired", now - 1);
+    assertThat(SFTrustManager.isVerifiedChain("expired", now - 1000), is(false));
+  }
+
+  @Test
+  public void testVerifiedChainsClearedWhenFull() {
+    long validUntil = System.currentTimeMillis() + 60000;
+    for (int i = 0; i < 1000; i++) {
+      SFTrustManager.addVerifiedChain("chain" + i, validUntil);
+    }
+    assertThat(SFTrustManager.isVerifiedChain("chain0", validUntil - 1), is(true));
+    assertThat(SFTrustManager.isVerifiedChain("chain999", validUntil - 1), is(true));
+
+    SFTrustManager.addVerifiedChain("chain1000", validUntil);
+    assertThat(SFTrustManager.isVerifiedChain("chain0", validUntil - 1), is(false));
+    assertThat(SFTrustManager.isVerifiedChain("chain999", validUntil - 1), is(false));
+    assertThat(SFTrustManager.isVerifiedChain("chain1000", validUntil - 1), is(true));
+  }
+
+  @Test
+  public void testParallelRevocationStatusChecks() throws Exception {
+    List<Callable<Long>> checks = new ArrayList<>();
+    for (long validUntil : new long[] {5000, 3000, 4000, 6000}) {
+      checks.add(
+          () -> {
+            Thread.sleep(10);
+            return validUntil;
+          });
+    }
+    assertThat(SFTrustManager.runRevocationStatusChecks(checks), is(3000L));
+
+    // no certificate to check, e.g. a chain of self-signed certificates
+    assertThat(SFTrustManager.runRevocationStatusChecks(Collections.emptyList()), is(0L));
+  }
+
+  @Test
+  public void testParallelRevocationStatusCheckFailure() throws Exception {
+    for (int failing = 0; failing < 4; failing++) {
+      List<Callable<Long>> checks = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        final int index = i;
+        final boolean fails = i >= failing;
+        checks.add(
+            () -> {
+              if (fails) {
+                // the later certificates fail first
+                Thread.sleep(10 * (4 - index));
+                throw new CertificateException("revoked " + index);
+              }
+              return 60000L;
+            });
+      }
+      try {
+        SFTrustManager.runRevocationStatusChecks(checks);
+        throw new AssertionError("one revoked certificate must fail the chain");
+      } catch (CertificateException ex) {
+        // the error of the first failed certificate in the chain
+        assertThat(ex.getMessage(), equalTo("revoked " + failing));
+      }
+    }
+  }
 }
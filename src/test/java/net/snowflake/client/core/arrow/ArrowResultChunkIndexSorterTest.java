@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core.arrow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.After;
+import org.junit.Test;
+
+public class ArrowResultChunkIndexSorterTest extends BaseConverterTest {
+  /** allocator for arrow */
+  private BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+
+  private Random random = new Random(42);
+
+  private final List<ValueVector> vectors = new ArrayList<>();
+
+  @After
+  public void closeVectors() {
+    vectors.forEach(ValueVector::close);
+    allocator.close();
+  }
+
+  private static Map<String, String> fixedMeta(String precision, String scale) {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("precision", precision);
+    customFieldMeta.put("scale", scale);
+    return customFieldMeta;
+  }
+
+  private IntVector intVector(Integer[] values) {
+    FieldType fieldType =
+        new FieldType(true, Types.MinorType.INT.getType(), null, fixedMeta("10", "0"));
+    IntVector vector = new IntVector("col_int", fieldType, allocator);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        vector.setNull(i);
+      } else {
+        vector.setSafe(i, values[i]);
+      }
+    }
+    vector.setValueCount(values.length);
+    vectors.add(vector);
+    return vector;
+  }
+
+  private VarCharVector varCharVector(String[] values) {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "TEXT");
+    FieldType fieldType =
+        new FieldType(true, Types.MinorType.VARCHAR.getType(), null, customFieldMeta);
+    VarCharVector vector = new VarCharVector("col_text", fieldType, allocator);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        vector.setNull(i);
+      } else {
+        vector.setSafe(i, values[i].getBytes(UTF_8));
+      }
+    }
+    vector.setValueCount(values.length);
+    vectors.add(vector);
+    return vector;
+  }
+
+  private DecimalVector decimalVector(BigDecimal[] values) {
+    FieldType fieldType =
+        new FieldType(true, new ArrowType.Decimal(38, 2), null, fixedMeta("38", "2"));
+    DecimalVector vector = new DecimalVector("col_decimal", fieldType, allocator);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        vector.setNull(i);
+      } else {
+        vector.setSafe(i, values[i]);
+      }
+    }
+    vector.setValueCount(values.length);
+    vectors.add(vector);
+    return vector;
+  }
+
+  /** Sort the rows and check that they are in the order of the comparator */
+  private <T> void assertSorted(
+      List<? extends ValueVector> batch,
+      List<ArrowVectorConverter> converters,
+      T[] rows,
+      Comparator<T> comparator)
+      throws SFException {
+    int[] sortedIndices =
+        new ArrowResultChunkIndexSorter(new ArrayList<>(batch), converters).sortIndices();
+
+    assertThat(sortedIndices.length, is(rows.length));
+    boolean[] seen = new boolean[rows.length];
+    for (int i = 0; i < sortedIndices.length; i++) {
+      assertThat(seen[sortedIndices[i]], is(false));
+      seen[sortedIndices[i]] = true;
+      if (i > 0) {
+        T previous = rows[sortedIndices[i - 1]];
+        T current = rows[sortedIndices[i]];
+        assertThat(comparator.compare(previous, current) <= 0, is(true));
+      }
+    }
+  }
+
+  private static <T extends Comparable<T>> Comparator<T> nullsLast() {
+    return Comparator.nullsLast(Comparator.naturalOrder());
+  }
+
+  @Test
+  public void testSortIntegersWithNulls() throws SFException {
+    // large enough for the radix sort, with negative numbers and many duplicates
+    for (int rowCount : new int[] {1, 10, 100, 5000}) {
+      Integer[] values = new Integer[rowCount];
+      for (int i = 0; i < rowCount; i++) {
+        if (random.nextInt(10) != 0) {
+          values[i] = i % 3 == 0 ? random.nextInt() : random.nextInt(100) - 50;
+        }
+      }
+      IntVector vector = intVector(values);
+      assertSorted(
+          Arrays.asList(vector),
+          Arrays.asList(new IntToFixedConverter(vector, 0, this)),
+          values,
+          nullsLast());
+    }
+  }
+
+  @Test
+  public void testSortSortedAndReversedIntegers() throws SFException {
+    int rowCount = 10000;
+    Integer[] ascending = new Integer[rowCount];
+    Integer[] descending = new Integer[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      ascending[i] = i;
+      descending[i] = rowCount - i;
+    }
+    for (Integer[] values : Arrays.asList(ascending, descending)) {
+      IntVector vector = intVector(values);
+      assertSorted(
+          Arrays.asList(vector),
+          Arrays.asList(new IntToFixedConverter(vector, 0, this)),
+          values,
+          nullsLast());
+    }
+  }
+
+  @Test
+  public void testSortTextInStringOrder() throws SFException {
+    // characters of one, two, three and four bytes in UTF-8, surrogate pairs sort before U+E000 in
+    // String.compareTo
+    String[] alphabet = {
+      "a", "b", "\u00e9", "\u4e2d", "\ue000", "\uffff", "\ud83d\ude00", "\uf8ff"
+    };
+    int rowCount = 3000;
+    String[] values = new String[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      if (random.nextInt(20) == 0) {
+        continue;
+      }
+      StringBuilder sb = new StringBuilder();
+      int length = random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        sb.append(alphabet[random.nextInt(alphabet.length)]);
+      }
+      values[i] = sb.toString();
+    }
+    VarCharVector vector = varCharVector(values);
+    assertSorted(
+        Arrays.asList(vector),
+        Arrays.asList(new VarCharConverter(vector, 0, this)),
+        values,
+        nullsLast());
+  }
+
+  @Test
+  public void testSortMultipleColumns() throws SFException {
+    int rowCount = 2000;
+    Integer[] ints = new Integer[rowCount];
+    BigDecimal[] decimals = new BigDecimal[rowCount];
+    Object[][] rows = new Object[rowCount][];
+    for (int i = 0; i < rowCount; i++) {
+      // few distinct values in the first column, so that the second one decides
+      ints[i] = random.nextInt(8) == 0 ? null : random.nextInt(5);
+      decimals[i] =
+          random.nextInt(8) == 0
+              ? null
+              : new BigDecimal(random.nextLong())
+                  .multiply(BigDecimal.valueOf(random.nextInt()))
+                  .movePointLeft(2);
+      rows[i] = new Object[] {ints[i], decimals[i]};
+    }
+    IntVector intVector = intVector(ints);
+    DecimalVector decimalVector = decimalVector(decimals);
+
+    Comparator<Integer> intOrder = nullsLast();
+    Comparator<BigDecimal> decimalOrder = nullsLast();
+    assertSorted(
+        Arrays.asList(intVector, decimalVector),
+        Arrays.asList(
+            new IntToFixedConverter(intVector, 0, this),
+            new DecimalToScaledFixedConverter(decimalVector, 1, this)),
+        rows,
+        Comparator.comparing((Object[] row) -> (Integer) row[0], intOrder)
+            .thenComparing(row -> (BigDecimal) row[1], decimalOrder));
+  }
+
+  @Test
+  public void testCompareRowsOfDifferentBatches() throws SFException {
+    // the same column may be stored in vectors of different types in different chunks
+    Integer[] ints = {-5, 100, null};
+    BigDecimal[] decimals = {new BigDecimal("-5"), new BigDecimal("99"), null};
+    IntVector intVector = intVector(ints);
+    FieldType fieldType =
+        new FieldType(true, new ArrowType.Decimal(38, 0), null, fixedMeta("38", "0"));
+    DecimalVector decimalVector = new DecimalVector("col_decimal", fieldType, allocator);
+    vectors.add(decimalVector);
+    for (int i = 0; i < decimals.length; i++) {
+      if (decimals[i] == null) {
+        decimalVector.setNull(i);
+      } else {
+        decimalVector.setSafe(i, decimals[i]);
+      }
+    }
+    decimalVector.setValueCount(decimals.length);
+
+    ArrowSortKeys intKeys =
+        new ArrowSortKeys(
+            Arrays.asList(intVector), Arrays.asList(new IntToFixedConverter(intVector, 0, this)));
+    ArrowSortKeys decimalKeys =
+        new ArrowSortKeys(
+            Arrays.asList(decimalVector),
+            Arrays.asList(new DecimalToScaledFixedConverter(decimalVector, 0, this)));
+
+    assertThat(ArrowSortKeys.compareRows(intKeys, 0, decimalKeys, 0), is(0));
+    assertThat(ArrowSortKeys.compareRows(intKeys, 0, decimalKeys, 1) < 0, is(true));
+    assertThat(ArrowSortKeys.compareRows(intKeys, 1, decimalKeys, 1) > 0, is(true));
+    assertThat(ArrowSortKeys.compareRows(intKeys, 1, decimalKeys, 2) < 0, is(true));
+    assertThat(ArrowSortKeys.compareRows(intKeys, 2, decimalKeys, 2), is(0));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core.bind;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class LongBindColumnTest {
+  @Test
+  public void testListView() {
+    LongBindColumn column = new LongBindColumn("FIXED");
+    for (String value :
+        Arrays.asList("0", "-1", null, "9223372036854775807", "-9223372036854775808")) {
+      assertThat(column.tryAdd(value), is(true));
+    }
+    assertThat(column.size(), is(5));
+    assertThat(
+        column,
+        is(Arrays.asList("0", "-1", null, "9223372036854775807", "-9223372036854775808")));
+    assertThat(column.isNull(2), is(true));
+    assertThat(column.getLong(2), is(0L));
+    assertThat(column.getLong(4), is(Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testRejectNonCanonicalValues() {
+    LongBindColumn column = new LongBindColumn("FIXED");
+    for (String value :
+        Arrays.asList(
+            "1.5", "1E+3", "", "-", "+1", "01", "-0", "9223372036854775808", "12a", "1 ")) {
+      assertThat(value, column.tryAdd(value), is(false));
+    }
+    assertThat(column.size(), is(0));
+  }
+
+  @Test
+  public void testGrow() {
+    LongBindColumn column = new LongBindColumn("FIXED");
+    for (int i = 0; i < 1000; i++) {
+      column.add(Integer.toString(i));
+    }
+    assertThat(column.size(), is(1000));
+    assertThat(column.get(999), is("999"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddNonInteger() {
+    new LongBindColumn("FIXED").add("1.5");
+  }
+
+  private static String format(BindUploader.CSVRecordBuffer record) {
+    return new String(record.bytes, 0, record.length, UTF_8);
+  }
+
+  @Test
+  public void testFormatTimestamp() {
+    BindUploader.CSVRecordBuffer record = new BindUploader.CSVRecordBuffer();
+    assertThat(record.appendTimestamp(1000000L), is(true));
+    assertThat(format(record), is("1970-01-01 00:00:00.001000000 +00:00"));
+
+    record.length = 0;
+    assertThat(record.appendTimestamp(-1L), is(true));
+    assertThat(format(record), is("1969-12-31 23:59:59.999999999 +00:00"));
+
+    record.length = 0;
+    assertThat(record.appendTimestamp(951782400123456789L), is(true));
+    assertThat(format(record), is("2000-02-29 00:00:00.123456789 +00:00"));
+  }
+
+  @Test
+  public void testFormatDate() {
+    BindUploader.CSVRecordBuffer record = new BindUploader.CSVRecordBuffer();
+    assertThat(record.appendDate(-86400000L), is(true));
+    assertThat(format(record), is("1969-12-31"));
+
+    record.length = 0;
+    assertThat(record.appendDate(253402214400000L), is(true));
+    assertThat(format(record), is("9999-12-31"));
+
+    // left to the date format, which switches to the Julian calendar
+    assertThat(record.appendDate(-12219292800001L), is(false));
+    assertThat(record.appendDate(253402300800000L), is(false));
+  }
+
+  @Test
+  public void testFormatLong() {
+    BindUploader.CSVRecordBuffer record = new BindUploader.CSVRecordBuffer();
+    for (long value : new long[] {0, 7, -42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      record.length = 0;
+      record.appendLong(value);
+      assertThat(format(record), is(Long.toString(value)));
+    }
+  }
+}
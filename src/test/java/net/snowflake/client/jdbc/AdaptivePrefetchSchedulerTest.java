@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AdaptivePrefetchSchedulerTest {
+  @Test
+  public void testUsesAllSlotsBeforeMeasurements() {
+    AdaptivePrefetchScheduler scheduler = new AdaptivePrefetchScheduler(2, 8);
+    assertEquals(8, scheduler.getTargetInFlight());
+
+    // only one side measured, still not enough information
+    scheduler.recordChunkFetched(100, 50);
+    assertEquals(8, scheduler.getTargetInFlight());
+  }
+
+  @Test
+  public void testShrinksForSlowConsumer() {
+    AdaptivePrefetchScheduler scheduler = new AdaptivePrefetchScheduler(2, 8);
+    scheduler.recordChunkFetched(80, 20);
+    scheduler.recordChunkDrained(1000);
+
+    // fetching is 10x faster than draining, the minimum is enough
+    assertEquals(2, scheduler.getTargetInFlight());
+  }
+
+  @Test
+  public void testGrowsForFastConsumer() {
+    AdaptivePrefetchScheduler scheduler = new AdaptivePrefetchScheduler(2, 8);
+    scheduler.recordChunkFetched(800, 200);
+    scheduler.recordChunkDrained(250);
+
+    // 1000ms / 250ms = 4 chunks plus the one being consumed
+    assertEquals(5, scheduler.getTargetInFlight());
+
+    // never exceed the configured slots
+    scheduler.recordChunkDrained(0);
+    scheduler.recordChunkDrained(0);
+    scheduler.recordChunkDrained(0);
+    assertEquals(8, scheduler.getTargetInFlight());
+  }
+
+  @Test
+  public void testStallBoostDecays() {
+    AdaptivePrefetchScheduler scheduler = new AdaptivePrefetchScheduler(1, 8);
+    scheduler.recordChunkFetched(100, 0);
+    scheduler.recordChunkDrained(100);
+    assertEquals(2, scheduler.getTargetInFlight());
+
+    scheduler.recordConsumerStall();
+    scheduler.recordConsumerStall();
+    assertEquals(4, scheduler.getTargetInFlight());
+
+    scheduler.recordChunkDrained(100);
+    assertEquals(3, scheduler.getTargetInFlight());
+    scheduler.recordChunkDrained(100);
+    assertEquals(2, scheduler.getTargetInFlight());
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GzipFileSourceTest {
+  @Rule public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private File writeFile(int size) throws IOException {
+    // half random, half repeated so that both stored and compressed blocks are written
+    byte[] data = new byte[size];
+    new Random(42).nextBytes(data);
+    for (int i = size / 2; i < size; i++) {
+      data[i] = (byte) (i % 7);
+    }
+    File file = tmpFolder.newFile();
+    Files.write(file.toPath(), data);
+    return file;
+  }
+
+  private static byte[] gzip(File file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out, true)) {
+      Files.copy(file.toPath(), gzip);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] readAll(InputStream in, int bufferSize) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[bufferSize];
+    int len;
+    while ((len = in.read(buf)) != -1) {
+      out.write(buf, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSameBytesAsGzipOutputStream() throws IOException {
+    File file = writeFile(500_000);
+    byte[] expected = gzip(file);
+    GzipFileSource source = new GzipFileSource(file);
+
+    // every stream returns the same bytes, whatever the size of the reads
+    try (InputStream in = source.openStream()) {
+      assertThat(readAll(in, 4093), is(expected));
+      assertThat(in.read(), is(-1));
+    }
+    try (InputStream in = source.openStream()) {
+      assertThat(readAll(in, 1 << 20), is(expected));
+    }
+    assertThat(source.size(), is((long) expected.length));
+
+    try (InputStream in = new GZIPInputStream(source.openStream())) {
+      assertThat(readAll(in, 8192), is(Files.readAllBytes(file.toPath())));
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    File file = writeFile(0);
+    try (InputStream in = new GzipFileSource(file).openStream()) {
+      assertThat(readAll(in, 10), is(gzip(file)));
+    }
+  }
+
+  @Test
+  public void testSingleByteReads() throws IOException {
+    File file = writeFile(5000);
+    byte[] expected = gzip(file);
+    try (InputStream in = new GzipFileSource(file).openStream()) {
+      for (byte b : expected) {
+        assertThat(in.read(), is(b & 0xff));
+      }
+      assertThat(in.read(), is(-1));
+    }
+  }
+
+  @Test
+  public void testIndependentStreams() throws IOException {
+    File file = writeFile(500_000);
+    byte[] expected = gzip(file);
+    GzipFileSource source = new GzipFileSource(file);
+
+    // e.g. ByteSource.contentEquals reads two streams of the same source at the same time
+    try (InputStream in1 = source.openStream();
+        InputStream in2 = source.openStream()) {
+      int n = in1.read(new byte[1000]);
+      assertThat(n > 0, is(true));
+      assertThat(readAll(in2, 8192), is(expected));
+      assertThat(in1.read(), is(expected[n] & 0xff));
+    }
+    assertThat(source.contentEquals(new GzipFileSource(file)), is(true));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class OffHeapChunkBufferPoolTest {
+  @Test
+  public void testSizeClasses() {
+    assertEquals(4096, OffHeapChunkBufferPool.getSizeClassCapacity(0));
+    assertEquals(4096, OffHeapChunkBufferPool.getSizeClassCapacity(1));
+    assertEquals(4096, OffHeapChunkBufferPool.getSizeClassCapacity(4096));
+    assertEquals(8192, OffHeapChunkBufferPool.getSizeClassCapacity(4097));
+    assertEquals(8192, OffHeapChunkBufferPool.getSizeClassCapacity(8192));
+    assertEquals(
+        OffHeapChunkBufferPool.MAX_BUFFER_SIZE,
+        OffHeapChunkBufferPool.getSizeClassCapacity(OffHeapChunkBufferPool.MAX_BUFFER_SIZE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooLargeBuffer() {
+    new OffHeapChunkBufferPool(1 << 20).acquire(OffHeapChunkBufferPool.MAX_BUFFER_SIZE + 1);
+  }
+
+  @Test
+  public void testReuseAndAccounting() {
+    OffHeapChunkBufferPool pool = new OffHeapChunkBufferPool(1 << 20);
+    long memoryBefore = SnowflakeChunkDownloader.getCurrentMemoryUsage();
+
+    ByteBuffer buffer = pool.acquire(10000);
+    assertTrue(buffer.isDirect());
+    assertEquals(16384, buffer.capacity());
+    assertEquals(16384, pool.getLeasedBytes());
+    assertEquals(0, pool.getIdleBytes());
+
+    // idle buffers are accounted in the chunk downloader memory usage
+    pool.release(buffer);
+    assertEquals(0, pool.getLeasedBytes());
+    assertEquals(16384, pool.getIdleBytes());
+    assertEquals(memoryBefore + 16384, SnowflakeChunkDownloader.getCurrentMemoryUsage());
+
+    // same size class is reused
+    assertSame(buffer, pool.acquire(9000));
+    assertEquals(memoryBefore, SnowflakeChunkDownloader.getCurrentMemoryUsage());
+    pool.release(buffer);
+
+    assertEquals(16384, pool.releaseIdleBuffers(1));
+    assertEquals(0, pool.getIdleBytes());
+    assertEquals(memoryBefore, SnowflakeChunkDownloader.getCurrentMemoryUsage());
+  }
+
+  @Test
+  public void testIdleLimit() {
+    OffHeapChunkBufferPool pool = new OffHeapChunkBufferPool(8192);
+    ByteBuffer first = pool.acquire(8192);
+    ByteBuffer second = pool.acquire(8192);
+    pool.release(first);
+    pool.release(second);
+
+    // only one buffer fits into the idle limit
+    assertEquals(8192, pool.getIdleBytes());
+    assertEquals(8192, pool.releaseIdleBuffers(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testIdleLimitWithConcurrentReleases() throws InterruptedException {
+    OffHeapChunkBufferPool pool = new OffHeapChunkBufferPool(10 * 4096);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 2000; j++) {
+                  ByteBuffer first = pool.acquire(4096);
+                  ByteBuffer second = pool.acquire(4096);
+                  pool.release(first);
+                  pool.release(second);
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // the idle bytes match the buffers in the pool and stay within the limit
+    assertEquals(0, pool.getLeasedBytes());
+    long idleBytes = pool.getIdleBytes();
+    assertTrue(idleBytes <= 10 * 4096);
+    assertEquals(idleBytes, pool.releaseIdleBuffers(Long.MAX_VALUE));
+    assertEquals(0, pool.getIdleBytes());
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import org.junit.Test;
+
+public class PipelinedInputStreamTest {
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] data = new byte[size];
+    new Random(42).nextBytes(data);
+    return data;
+  }
+
+  private static byte[] readAll(InputStream in, int bufferSize) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[bufferSize];
+    int len;
+    while ((len = in.read(buf)) != -1) {
+      out.write(buf, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testReadAcrossBlocks() throws IOException {
+    byte[] data = randomBytes(100_000);
+    // blocks smaller than the read buffer and a buffer that doesn't divide the block size
+    try (InputStream in =
+        new PipelinedInputStream(new ByteArrayInputStream(data), 1000, 3, executor)) {
+      assertThat(readAll(in, 4093), is(data));
+      assertThat(in.read(), is(-1));
+    }
+  }
+
+  @Test
+  public void testSingleByteReads() throws IOException {
+    byte[] data = randomBytes(5000);
+    try (InputStream in =
+        new PipelinedInputStream(new ByteArrayInputStream(data), 64, 2, executor)) {
+      for (byte b : data) {
+        assertThat(in.read(), is(b & 0xff));
+      }
+      assertThat(in.read(), is(-1));
+    }
+  }
+
+  @Test
+  public void testChainedAroundGzip() throws IOException {
+    byte[] data = randomBytes(300_000);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(data);
+    }
+
+    // receive, inflate and read on three different threads as the chunk downloader does
+    try (InputStream in =
+        new PipelinedInputStream(
+            new GZIPInputStream(
+                new PipelinedInputStream(
+                    new ByteArrayInputStream(compressed.toByteArray()), 4096, 4, executor)),
+            4096,
+            4,
+            executor)) {
+      assertThat(readAll(in, 8192), is(data));
+    }
+  }
+
+  @Test
+  public void testSourceFailure() throws IOException {
+    InputStream failing =
+        new InputStream() {
+          private int count = 0;
+
+          @Override
+          public int read() throws IOException {
+            if (count == 100) {
+              throw new IOException("connection reset");
+            }
+            count++;
+            return 'a';
+          }
+        };
+
+    try (InputStream in = new PipelinedInputStream(failing, 16, 2, executor)) {
+      // the data read before the failure is still delivered
+      for (int i = 0; i < 100; i++) {
+        assertThat(in.read(), is((int) 'a'));
+      }
+      in.read();
+      throw new AssertionError("expected the failure of the source");
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), is("connection reset"));
+    }
+  }
+
+  @Test
+  public void testCloseStopsProducer() throws Exception {
+    CountDownLatch sourceClosed = new CountDownLatch(1);
+    InputStream endless =
+        new InputStream() {
+          @Override
+          public int read() {
+            return 0;
+          }
+
+          @Override
+          public void close() {
+            sourceClosed.countDown();
+          }
+        };
+
+    InputStream in = new PipelinedInputStream(endless, 16, 2, executor);
+    assertThat(in.read(), is(0));
+    in.close();
+
+    // the producer is blocked on the full queue until the close wakes it up
+    assertThat(sourceClosed.await(10, TimeUnit.SECONDS), is(true));
+    try {
+      in.read();
+      throw new AssertionError("expected read after close to fail");
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), is("Stream closed"));
+    }
+  }
+
+  @Test
+  public void testSourceErrorEndsStream() throws IOException {
+    InputStream failing =
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new AssertionError("broken source");
+          }
+        };
+
+    // an Error of the source must not leave the reader waiting for a block forever
+    try (InputStream in = new PipelinedInputStream(failing, 16, 2, executor)) {
+      in.read();
+      throw new IllegalStateException("expected the failure of the source");
+    } catch (IOException ex) {
+      assertThat(ex.getCause() instanceof AssertionError, is(true));
+    }
+  }
+
+  @Test
+  public void testCloseBeforeProducerStarts() throws Exception {
+    CountDownLatch sourceClosed = new CountDownLatch(1);
+    InputStream source =
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new AssertionError("the source must not be read");
+          }
+
+          @Override
+          public void close() {
+            sourceClosed.countDown();
+          }
+        };
+
+    // the only thread of the executor is busy, the producer task stays queued
+    ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      singleThread.submit(
+          () -> {
+            release.await();
+            return null;
+          });
+      new PipelinedInputStream(source, 16, 2, singleThread).close();
+      assertThat(sourceClosed.await(10, TimeUnit.SECONDS), is(true));
+    } finally {
+      release.countDown();
+      singleThread.shutdownNow();
+    }
+  }
+}
@@ -270,4 +270,19 @@ public class RestRequestIT {
       }
     }
   }
+
+  @Test
+  public void testIsSuccessResponse() {
+    HttpGet request = new HttpGet("fakeurl.com");
+    HttpGet rangeRequest = new HttpGet("fakeurl.com");
+    rangeRequest.addHeader("Range", "bytes=1000-");
+
+    assertTrue(RestRequest.isSuccessResponse(request, anyStatusCodeResponse(200)));
+    assertTrue(RestRequest.isSuccessResponse(rangeRequest, anyStatusCodeResponse(200)));
+    // partial content is only the expected response to a range request
+    assertTrue(RestRequest.isSuccessResponse(rangeRequest, anyStatusCodeResponse(206)));
+    assertFalse(RestRequest.isSuccessResponse(request, anyStatusCodeResponse(206)));
+    assertFalse(RestRequest.isSuccessResponse(rangeRequest, anyStatusCodeResponse(412)));
+    assertFalse(RestRequest.isSuccessResponse(rangeRequest, null));
+  }
 }
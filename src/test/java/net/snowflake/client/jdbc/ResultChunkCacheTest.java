@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultChunkCacheTest {
+  @Rule public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private static byte[] randomBytes(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[1000];
+    int len;
+    while ((len = in.read(buf)) != -1) {
+      out.write(buf, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  /** Read part of a chunk, like a parser stopping at the end of an Arrow stream, and commit it */
+  private static void cache(ResultChunkCache cache, String key, byte[] data) throws IOException {
+    try (ResultChunkCache.RecordingInputStream in =
+        cache.record(key, new ByteArrayInputStream(data))) {
+      byte[] buf = new byte[data.length / 2];
+      assertThat(in.read(buf), is(buf.length));
+      in.commit();
+    }
+  }
+
+  @Test
+  public void testCachedChunk() throws IOException {
+    ResultChunkCache cache = new ResultChunkCache(tmpFolder.newFolder(), 1 << 20);
+    byte[] data = randomBytes(100000);
+
+    assertThat(cache.open("query1/0"), nullValue());
+    cache(cache, "query1/0", data);
+    try (InputStream in = cache.open("query1/0")) {
+      assertThat(readAll(in), is(data));
+    }
+    assertThat(cache.open("query1/1"), nullValue());
+
+    // read by another process
+    ResultChunkCache otherCache = new ResultChunkCache(cache.getFile("x").getParentFile(), 1 << 20);
+    try (InputStream in = otherCache.open("query1/0")) {
+      assertThat(readAll(in), is(data));
+    }
+  }
+
+  @Test
+  public void testUncommittedChunkIsNotCached() throws IOException {
+    File cacheDir = tmpFolder.newFolder();
+    ResultChunkCache cache = new ResultChunkCache(cacheDir, 1 << 20);
+    byte[] data = randomBytes(1000);
+    try (InputStream in = cache.record("query1/0", new ByteArrayInputStream(data))) {
+      assertThat(readAll(in), is(data));
+    }
+    assertThat(cache.open("query1/0"), nullValue());
+    assertThat(cacheDir.list().length, is(0));
+  }
+
+  @Test
+  public void testFailureAfterParsedChunkIsNotCached() throws IOException {
+    File cacheDir = tmpFolder.newFolder();
+    ResultChunkCache cache = new ResultChunkCache(cacheDir, 1 << 20);
+    byte[] data = randomBytes(1000);
+    // the connection fails after the bytes read by the parser
+    InputStream source =
+        new SequenceInputStream(
+            new ByteArrayInputStream(data),
+            new InputStream() {
+              @Override
+              public int read() throws IOException {
+                throw new IOException("Connection reset");
+              }
+            });
+    try (ResultChunkCache.RecordingInputStream in = cache.record("query1/0", source)) {
+      byte[] buf = new byte[data.length];
+      assertThat(in.read(buf), is(buf.length));
+      in.commit();
+    }
+    assertThat(cache.open("query1/0"), nullValue());
+    assertThat(cacheDir.list().length, is(0));
+  }
+
+  @Test
+  public void testCorruptedChunkIsDeleted() throws IOException {
+    ResultChunkCache cache = new ResultChunkCache(tmpFolder.newFolder(), 1 << 20);
+    cache(cache, "query1/0", randomBytes(1000));
+    File file = cache.getFile("query1/0");
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(ResultChunkCache.HEADER_SIZE + 10);
+      raf.write(raf.read() ^ 1);
+    }
+
+    assertThat(cache.open("query1/0"), nullValue());
+    assertThat(file.exists(), is(false));
+  }
+
+  @Test
+  public void testLeastRecentlyReadChunksAreEvicted() throws IOException {
+    ResultChunkCache cache = new ResultChunkCache(tmpFolder.newFolder(), 35000);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 3; i++) {
+      cache(cache, "query1/" + i, randomBytes(10000));
+      cache.getFile("query1/" + i).setLastModified(now - 100000 + i * 1000);
+    }
+    // reading the first chunk makes it the most recently used one
+    cache.open("query1/0").close();
+
+    cache(cache, "query1/3", randomBytes(10000));
+    assertThat(cache.getFile("query1/0").exists(), is(true));
+    assertThat(cache.getFile("query1/1").exists(), is(false));
+    assertThat(cache.getFile("query1/2").exists(), is(true));
+    assertThat(cache.getFile("query1/3").exists(), is(true));
+  }
+
+  @Test
+  public void testPrivateDirectory() throws IOException {
+    if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      return;
+    }
+    File dir = tmpFolder.newFolder();
+    Files.setPosixFilePermissions(dir.toPath(), PosixFilePermissions.fromString("rwx------"));
+    assertThat(ResultChunkCache.isPrivateDirectory(dir), is(true));
+
+    // e.g. a directory created in the temporary directory by another user for everybody
+    Files.setPosixFilePermissions(dir.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+    assertThat(ResultChunkCache.isPrivateDirectory(dir), is(false));
+    Files.setPosixFilePermissions(dir.toPath(), PosixFilePermissions.fromString("rwxr-x---"));
+    assertThat(ResultChunkCache.isPrivateDirectory(dir), is(false));
+
+    Files.setPosixFilePermissions(dir.toPath(), PosixFilePermissions.fromString("rwx------"));
+    File link = new File(tmpFolder.getRoot(), "link");
+    Files.createSymbolicLink(link.toPath(), dir.toPath());
+    assertThat(ResultChunkCache.isPrivateDirectory(link), is(false));
+    assertThat(ResultChunkCache.isPrivateDirectory(new File(dir, "missing")), is(false));
+  }
+}
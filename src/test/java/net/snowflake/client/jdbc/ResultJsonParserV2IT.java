@@ -100,6 +100,50 @@ public class ResultJsonParserV2IT {
     assertEquals("[1,2,3,4,5]", chunk.getCell(7, 1).toString());
   }
 
+  /**
+   * Unquoted values and escapes at every position of the eight byte words the parser scans, split
+   * into pieces of every size from one byte to the whole data
+   *
+   * @throws SnowflakeSQLException Will be thrown if parsing fails
+   */
+  @Test
+  public void wordBoundaryTest() throws SnowflakeSQLException {
+    SFSession session = null;
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 16; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append("[12345678901").append(i).append(", null ,\"");
+      for (int j = 0; j < i; j++) {
+        json.append("x");
+      }
+      json.append("\\\"0123456789abcdef\\\\\"]");
+    }
+    byte[] data = json.toString().getBytes(StandardCharsets.UTF_8);
+
+    for (int len = 1; len <= data.length; len++) {
+      JsonResultChunk chunk = new JsonResultChunk("", 16, 3, data.length, session);
+      ResultJsonParserV2 jp = new ResultJsonParserV2();
+      jp.startParsing(chunk, session);
+      for (int i = 0; i < data.length; i += len) {
+        jp.continueParsing(ByteBuffer.wrap(data, i, Math.min(len, data.length - i)), session);
+      }
+      jp.endParsing(session);
+
+      for (int i = 0; i < 16; i++) {
+        StringBuilder expected = new StringBuilder();
+        for (int j = 0; j < i; j++) {
+          expected.append("x");
+        }
+        expected.append("\"0123456789abcdef\\");
+        assertEquals("12345678901" + i, chunk.getCell(i, 0).toString());
+        assertNull(chunk.getCell(i, 1));
+        assertEquals(expected.toString(), chunk.getCell(i, 2).toString());
+      }
+    }
+  }
+
   /**
    * Test the largest column size 16 MB
    *
@@ -7,6 +7,7 @@ package net.snowflake.client.jdbc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -16,6 +17,9 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import net.snowflake.client.category.TestCategoryResultSet;
 import org.junit.Test;
@@ -169,4 +173,34 @@ public class ResultSetAsyncIT extends BaseJDBCTest {
     statement.close();
     connection.close();
   }
+
+  @Test
+  public void testExecuteQueryAsyncFuture() throws Exception {
+    Connection connection = getConnection();
+    Statement statement = connection.createStatement();
+    CompletableFuture<ResultSet> first =
+        statement.unwrap(SnowflakeStatement.class).executeQueryAsyncFuture("select 1");
+    CompletableFuture<ResultSet> second =
+        connection
+            .createStatement()
+            .unwrap(SnowflakeStatement.class)
+            .executeQueryAsyncFuture("select system$wait(2)");
+    ResultSet resultSet = first.get(60, TimeUnit.SECONDS);
+    assertTrue(resultSet.next());
+    assertEquals(1, resultSet.getInt(1));
+    assertFalse(resultSet.next());
+    assertTrue(second.get(60, TimeUnit.SECONDS).next());
+
+    // the future fails instead of the first call to next()
+    CompletableFuture<ResultSet> failed =
+        statement.unwrap(SnowflakeStatement.class).executeQueryAsyncFuture("select 1/0");
+    try {
+      failed.get(60, TimeUnit.SECONDS);
+      fail("query should fail");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof SQLException);
+    }
+    statement.close();
+    connection.close();
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ResumableInputStreamTest {
+  private static final long MIN_BACKOFF = 1;
+  private static final long MAX_BACKOFF = 10;
+
+  private final byte[] content = randomBytes(100000);
+
+  // offsets from which the content was requested again
+  private final List<Long> resumedOffsets = new ArrayList<>();
+
+  private static byte[] randomBytes(int size) {
+    byte[] data = new byte[size];
+    new Random(42).nextBytes(data);
+    return data;
+  }
+
+  /** Stream of the content from an offset, ending after a number of bytes */
+  private InputStream truncatedSource(long offset, int length) {
+    return new ByteArrayInputStream(
+        content, (int) offset, Math.min(length, content.length - (int) offset));
+  }
+
+  /** Stream of the content from an offset, failing after a number of bytes */
+  private InputStream failingSource(long offset, int failAfter) {
+    InputStream source = truncatedSource(offset, content.length);
+    return new InputStream() {
+      private int read = 0;
+
+      @Override
+      public int read() throws IOException {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (read >= failAfter) {
+          throw new IOException("Connection reset");
+        }
+        int n = source.read(b, off, Math.min(len, failAfter - read));
+        read += Math.max(n, 0);
+        return n;
+      }
+    };
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int len;
+    while ((len = in.read(buf)) != -1) {
+      out.write(buf, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testResumeAfterErrors() throws IOException {
+    InputStream in =
+        new ResumableInputStream(
+            failingSource(0, 30000),
+            content.length,
+            offset -> {
+              resumedOffsets.add(offset);
+              return failingSource(offset, 25000);
+            },
+            5,
+            MIN_BACKOFF,
+            MAX_BACKOFF);
+    assertThat(readAll(in), is(content));
+    assertThat(resumedOffsets, is(Arrays.asList(30000L, 55000L, 80000L)));
+  }
+
+  @Test
+  public void testResumeTruncatedContent() throws IOException {
+    InputStream in =
+        new ResumableInputStream(
+            truncatedSource(0, 60000),
+            content.length,
+            offset -> {
+              resumedOffsets.add(offset);
+              return truncatedSource(offset, content.length);
+            },
+            5,
+            MIN_BACKOFF,
+            MAX_BACKOFF);
+    assertThat(readAll(in), is(content));
+    assertThat(resumedOffsets, is(Arrays.asList(60000L)));
+  }
+
+  @Test
+  public void testResumeBeforeFirstByte() throws IOException {
+    InputStream in =
+        new ResumableInputStream(
+            failingSource(0, 0),
+            content.length,
+            offset -> {
+              resumedOffsets.add(offset);
+              if (resumedOffsets.size() < 3) {
+                return failingSource(offset, 0);
+              }
+              return truncatedSource(offset, content.length);
+            },
+            5,
+            MIN_BACKOFF,
+            MAX_BACKOFF);
+    assertThat(readAll(in), is(content));
+    assertThat(resumedOffsets, is(Arrays.asList(0L, 0L, 0L)));
+  }
+
+  @Test
+  public void testErrorAfterMaxResumes() throws IOException {
+    InputStream in =
+        new ResumableInputStream(
+            failingSource(0, 1000),
+            content.length,
+            offset -> {
+              resumedOffsets.add(offset);
+              if (resumedOffsets.size() == 2) {
+                throw new IOException("HTTP status=412");
+              }
+              return failingSource(offset, 1000);
+            },
+            3,
+            MIN_BACKOFF,
+            MAX_BACKOFF);
+    try {
+      readAll(in);
+      throw new AssertionError("the download should fail");
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), is("Connection reset"));
+    }
+    // a failed resume counts as an attempt
+    assertThat(resumedOffsets, is(Arrays.asList(1000L, 2000L, 2000L)));
+  }
+}
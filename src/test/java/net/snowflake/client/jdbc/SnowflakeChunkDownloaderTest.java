@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.message.BasicHeader;
+import org.junit.Test;
+
+public class SnowflakeChunkDownloaderTest {
+  private static HttpResponse response(int statusCode, String contentRange) {
+    StatusLine statusLine = mock(StatusLine.class);
+    when(statusLine.getStatusCode()).thenReturn(statusCode);
+
+    HttpResponse response = mock(HttpResponse.class);
+    when(response.getStatusLine()).thenReturn(statusLine);
+    if (contentRange != null) {
+      when(response.getFirstHeader("Content-Range"))
+          .thenReturn(new BasicHeader("Content-Range", contentRange));
+    }
+    return response;
+  }
+
+  @Test
+  public void testResumedContent() {
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(206, "bytes 1000-9999/10000"), 1000),
+        is(true));
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(206, "bytes 1000-9999/*"), 1000),
+        is(true));
+    // no byte was received yet
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(206, "bytes 0-9999/10000"), 0),
+        is(true));
+    assertThat(SnowflakeChunkDownloader.isResumedContent(response(200, null), 0), is(true));
+  }
+
+  @Test
+  public void testNotResumedContent() {
+    // the server ignored the range and sent the whole chunk
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(200, "bytes 0-9999/10000"), 1000),
+        is(false));
+    // another part of the chunk
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(206, "bytes 0-9999/10000"), 1000),
+        is(false));
+    assertThat(
+        SnowflakeChunkDownloader.isResumedContent(response(206, "bytes 10000-19999/20000"), 1000),
+        is(false));
+    assertThat(SnowflakeChunkDownloader.isResumedContent(response(206, null), 1000), is(false));
+    // the chunk changed since the download started
+    assertThat(SnowflakeChunkDownloader.isResumedContent(response(412, null), 1000), is(false));
+    assertThat(SnowflakeChunkDownloader.isResumedContent(null, 1000), is(false));
+  }
+}
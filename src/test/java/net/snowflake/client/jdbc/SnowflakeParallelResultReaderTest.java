@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class SnowflakeParallelResultReaderTest {
+  private final List<ResultSet> resultSets = new ArrayList<>();
+
+  private List<SnowflakeResultSetSerializable> createPieces(int count) throws SQLException {
+    List<SnowflakeResultSetSerializable> pieces = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ResultSet resultSet = mock(ResultSet.class);
+      SnowflakeResultSetSerializable piece = mock(SnowflakeResultSetSerializable.class);
+      when(piece.getResultSet(null)).thenReturn(resultSet);
+      resultSets.add(resultSet);
+      pieces.add(piece);
+    }
+    return pieces;
+  }
+
+  /** Earlier pieces take longer, so they complete out of order */
+  private int slowProcess(ResultSet resultSet) {
+    int index = resultSets.indexOf(resultSet);
+    try {
+      Thread.sleep((resultSets.size() - index) * 5);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    return index;
+  }
+
+  @Test
+  public void testOrdered() throws SQLException {
+    SnowflakeParallelResultReader reader =
+        new SnowflakeParallelResultReader(createPieces(20), 4, null);
+
+    List<Integer> values = reader.process(this::slowProcess);
+
+    assertThat(values.size(), is(20));
+    for (int i = 0; i < 20; i++) {
+      assertThat(values.get(i), is(i));
+      verify(resultSets.get(i)).close();
+    }
+  }
+
+  @Test
+  public void testUnordered() throws SQLException {
+    SnowflakeParallelResultReader reader =
+        new SnowflakeParallelResultReader(createPieces(20), 4, null);
+
+    List<Integer> values = Collections.synchronizedList(new ArrayList<>());
+    reader.process(this::slowProcess, values::add, false);
+
+    List<Integer> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    assertThat(sorted.size(), is(20));
+    for (int i = 0; i < 20; i++) {
+      assertThat(sorted.get(i), is(i));
+    }
+  }
+
+  @Test
+  public void testFailure() throws SQLException {
+    SnowflakeParallelResultReader reader =
+        new SnowflakeParallelResultReader(createPieces(10), 3, null);
+    try {
+      reader.process(
+          resultSet -> {
+            if (resultSets.indexOf(resultSet) == 5) {
+              throw new SQLException("bad piece");
+            }
+            return 0;
+          });
+      throw new AssertionError("expected the failure of the piece");
+    } catch (SQLException ex) {
+      assertThat(ex.getMessage(), is("bad piece"));
+    }
+  }
+
+  @Test
+  public void testErrorOfProcessor() throws SQLException {
+    SnowflakeParallelResultReader reader =
+        new SnowflakeParallelResultReader(createPieces(10), 3, null);
+    try {
+      // an Error is reported like an exception instead of leaving the caller waiting
+      reader.process(
+          resultSet -> {
+            if (resultSets.indexOf(resultSet) == 5) {
+              throw new OutOfMemoryError("piece too large");
+            }
+            return 0;
+          });
+      throw new AssertionError("expected the failure of the piece");
+    } catch (SQLException ex) {
+      assertThat(ex.getCause() instanceof OutOfMemoryError, is(true));
+    }
+  }
+
+  @Test
+  public void testFailureToOpenNextPiece() throws SQLException {
+    List<SnowflakeResultSetSerializable> pieces = createPieces(10);
+    when(pieces.get(7).getResultSet(null)).thenThrow(new SQLException("cannot open"));
+    SnowflakeParallelResultReader reader = new SnowflakeParallelResultReader(pieces, 3, null);
+    try {
+      reader.process(resultSet -> 0);
+      throw new AssertionError("expected the failure of the piece");
+    } catch (SQLException ex) {
+      assertThat(ex.getMessage(), is("cannot open"));
+    }
+  }
+}
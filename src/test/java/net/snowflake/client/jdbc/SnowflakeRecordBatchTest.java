@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.Test;
+
+public class SnowflakeRecordBatchTest {
+  /** allocator for arrow */
+  private BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+
+  private static FieldType fieldType(Types.MinorType type, String logicalType, int scale) {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", logicalType);
+    customFieldMeta.put("scale", String.valueOf(scale));
+    return new FieldType(true, type.getType(), null, customFieldMeta);
+  }
+
+  @Test
+  public void testColumnViews() throws SQLException {
+    BigIntVector fixed =
+        new BigIntVector("fixed", fieldType(Types.MinorType.BIGINT, "FIXED", 2), allocator);
+    Float8Vector real =
+        new Float8Vector("real", fieldType(Types.MinorType.FLOAT8, "REAL", 0), allocator);
+    VarCharVector text =
+        new VarCharVector("text", fieldType(Types.MinorType.VARCHAR, "TEXT", 0), allocator);
+
+    fixed.setSafe(0, 12345);
+    fixed.setNull(1);
+    fixed.setSafe(2, -1);
+    real.setSafe(0, 1.5);
+    real.setSafe(1, 2.5);
+    real.setNull(2);
+    text.setSafe(0, "abc".getBytes(StandardCharsets.UTF_8));
+    text.setNull(1);
+    text.setSafe(2, "de".getBytes(StandardCharsets.UTF_8));
+    fixed.setValueCount(3);
+    real.setValueCount(3);
+    text.setValueCount(3);
+
+    SnowflakeRecordBatch batch =
+        new SnowflakeRecordBatch(Arrays.<ValueVector>asList(fixed, real, text));
+    assertThat(batch.getRowCount(), is(3));
+    assertThat(batch.getColumnCount(), is(3));
+
+    SnowflakeColumnVector fixedColumn = batch.getColumn(1);
+    assertThat(fixedColumn.getName(), is("fixed"));
+    assertThat(fixedColumn.getLogicalType(), is(SnowflakeType.FIXED));
+    assertThat(fixedColumn.getScale(), is(2));
+    assertThat(fixedColumn.getNullCount(), is(1));
+    assertThat(fixedColumn.getValidityBitmap()[0] & 0x7, is(0x5));
+    long[] longs = fixedColumn.getLongs();
+    assertThat(longs[0], is(12345L));
+    assertThat(longs[2], is(-1L));
+    assertThat(fixedColumn.getDouble(0), is(123.45));
+
+    SnowflakeColumnVector realColumn = batch.getColumn(2);
+    assertThat(realColumn.hasLongValues(), is(false));
+    double[] doubles = realColumn.getDoubles(new double[8]);
+    assertThat(doubles[0], is(1.5));
+    assertThat(doubles[1], is(2.5));
+    assertThat(realColumn.isNull(2), is(true));
+
+    SnowflakeColumnVector textColumn = batch.getColumn(3);
+    assertThat(textColumn.hasByteValues(), is(true));
+    assertThat(textColumn.getString(0), is("abc"));
+    assertThat(textColumn.getString(1), is(nullValue()));
+    ByteBuffer data = textColumn.getDataBuffer();
+    assertThat(textColumn.getValueOffset(2), is(3));
+    assertThat(textColumn.getValueLength(2), is(2));
+    assertThat(data.get(textColumn.getValueOffset(2)), is((byte) 'd'));
+
+    for (ValueVector vector : Arrays.<ValueVector>asList(fixed, real, text)) {
+      vector.close();
+    }
+  }
+
+  private BigIntVector newBigIntVector(long... values) {
+    BigIntVector vector =
+        new BigIntVector("col_one", fieldType(Types.MinorType.BIGINT, "FIXED", 0), allocator);
+    for (int i = 0; i < values.length; i++) {
+      vector.setSafe(i, values[i]);
+    }
+    vector.setValueCount(values.length);
+    return vector;
+  }
+
+  @Test
+  public void testTransferToChildAllocator() throws SQLException {
+    BigIntVector vector = newBigIntVector(1, 2, 3);
+    SnowflakeRecordBatch batch = new SnowflakeRecordBatch(Arrays.<ValueVector>asList(vector));
+
+    BufferAllocator child = batch.getAllocator().newChildAllocator("consumer", 0, Long.MAX_VALUE);
+    long allocated = allocator.getAllocatedMemory();
+    try (VectorSchemaRoot root = batch.transferTo(child)) {
+      // same root, the buffers changed owner without copy
+      assertThat(allocator.getAllocatedMemory(), is(allocated));
+      assertThat(child.getAllocatedMemory() > 0, is(true));
+      assertThat(root.getRowCount(), is(3));
+      assertThat(((BigIntVector) root.getVector(0)).get(2), is(3L));
+      assertThat(
+          root.getSchema().getFields().get(0).getMetadata().get("logicalType"), is("FIXED"));
+    }
+    child.close();
+    vector.close();
+  }
+
+  @Test
+  public void testTransferToOtherRoot() throws SQLException {
+    BigIntVector vector = newBigIntVector(4, 5);
+    SnowflakeRecordBatch batch = new SnowflakeRecordBatch(Arrays.<ValueVector>asList(vector));
+
+    BufferAllocator otherRoot = new RootAllocator(Long.MAX_VALUE);
+    try (VectorSchemaRoot root = batch.transferTo(otherRoot)) {
+      assertThat(root.getRowCount(), is(2));
+      assertThat(((BigIntVector) root.getVector(0)).get(1), is(5L));
+    }
+    otherRoot.close();
+    vector.close();
+  }
+
+  @Test
+  public void testWriteArrowStream() throws Exception {
+    BigIntVector vector = newBigIntVector(7, 8, 9);
+    SnowflakeRecordBatch batch = new SnowflakeRecordBatch(Arrays.<ValueVector>asList(vector));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    batch.writeArrowStream(out);
+    // the batch stays readable after the export
+    assertThat(batch.getColumn(1).getLong(0), is(7L));
+
+    try (ArrowStreamReader reader =
+        new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      assertThat(reader.loadNextBatch(), is(true));
+      VectorSchemaRoot root = reader.getVectorSchemaRoot();
+      assertThat(root.getRowCount(), is(3));
+      assertThat(((BigIntVector) root.getVector(0)).get(2), is(9L));
+      assertThat(reader.loadNextBatch(), is(false));
+    }
+    vector.close();
+  }
+
+  @Test(expected = SnowflakeSQLException.class)
+  public void testReadAfterTransfer() throws SQLException {
+    BigIntVector vector = newBigIntVector(1);
+    SnowflakeRecordBatch batch = new SnowflakeRecordBatch(Arrays.<ValueVector>asList(vector));
+    batch.transferTo(allocator).close();
+    vector.close();
+    batch.getColumn(1);
+  }
+
+  @Test(expected = SnowflakeSQLException.class)
+  public void testUnsupportedView() throws SQLException {
+    VarCharVector text =
+        new VarCharVector("text", fieldType(Types.MinorType.VARCHAR, "TEXT", 0), allocator);
+    text.setSafe(0, "abc".getBytes(StandardCharsets.UTF_8));
+    text.setValueCount(1);
+    try {
+      new SnowflakeRecordBatch(Arrays.<ValueVector>asList(text)).getColumn(1).getLong(0);
+    } finally {
+      text.close();
+    }
+  }
+
+  @Test(expected = SnowflakeSQLException.class)
+  public void testColumnDoesNotExist() throws SQLException {
+    new SnowflakeRecordBatch(Arrays.<ValueVector>asList()).getColumn(1);
+  }
+}
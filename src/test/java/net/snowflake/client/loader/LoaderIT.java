@@ -113,6 +113,40 @@ public class LoaderIT extends LoaderBase {
     new TestDataConfigBuilder(testConnection, putConnection).setTestMode(true).populate();
   }
 
+  @Test
+  public void testLoaderInsertParallelEncoding() throws Exception {
+    // small files and buckets so that several stages and files are written concurrently
+    new TestDataConfigBuilder(testConnection, putConnection)
+        .setEncoderThreads(4)
+        .setCsvFileSize(64 * 1024)
+        .setCsvFileBucketSize(4)
+        .setNumberOfRows(20000)
+        .populate();
+  }
+
+  @Test
+  public void testLoaderInsertFromMemory() throws Exception {
+    new TestDataConfigBuilder(testConnection, putConnection)
+        .setUploadFromMemory(true)
+        .setCsvFileSize(64 * 1024)
+        .populate();
+    new TestDataConfigBuilder(testConnection, putConnection)
+        .setUploadFromMemory(true)
+        .setCompressDataBeforePut(false)
+        .setCompressFileByPut(true)
+        .populate();
+  }
+
+  @Test
+  public void testLoaderInsertPipelined() throws Exception {
+    // several stages, so that stages are copied while the previous one is ingested
+    new TestDataConfigBuilder(testConnection, putConnection)
+        .setPipelineProcessing(true)
+        .setCsvFileSize(16 * 1024)
+        .setCsvFileBucketSize(2)
+        .populate();
+  }
+
   @Test
   public void testLoadTime() throws Exception {
     String tableName = "LOADER_TIME_TEST";
@@ -38,6 +38,9 @@ class TestDataConfigBuilder {
   private String remoteStage = "~";
   private long csvFileBucketSize = 64;
   private long csvFileSize = 50 * 1024 * 1024;
+  private long encoderThreads = 1;
+  private boolean uploadFromMemory = false;
+  private boolean pipelineProcessing = false;
   private String onError = OnError.DEFAULT;
   private boolean startTransaction = false;
   private boolean truncateTable = true;
@@ -93,6 +96,21 @@ class TestDataConfigBuilder {
     return this;
   }
 
+  TestDataConfigBuilder setEncoderThreads(long encoderThreads) {
+    this.encoderThreads = encoderThreads;
+    return this;
+  }
+
+  TestDataConfigBuilder setUploadFromMemory(boolean uploadFromMemory) {
+    this.uploadFromMemory = uploadFromMemory;
+    return this;
+  }
+
+  TestDataConfigBuilder setPipelineProcessing(boolean pipelineProcessing) {
+    this.pipelineProcessing = pipelineProcessing;
+    return this;
+  }
+
   TestDataConfigBuilder setOnError(String onError) {
     this.onError = onError;
     return this;
@@ -268,9 +286,12 @@ class TestDataConfigBuilder {
     streamLoader.setProperty(LoaderProperty.csvFileBucketSize, Long.toString(csvFileBucketSize));
     // file batch
     streamLoader.setProperty(LoaderProperty.csvFileSize, Long.toString(csvFileSize));
+    streamLoader.setProperty(LoaderProperty.encoderThreads, Long.toString(encoderThreads));
     streamLoader.setProperty(LoaderProperty.compressFileByPut, compressFileByPut);
     streamLoader.setProperty(LoaderProperty.compressDataBeforePut, compressDataBeforePut);
     streamLoader.setProperty(LoaderProperty.compressLevel, compressLevel);
+    streamLoader.setProperty(LoaderProperty.uploadFromMemory, uploadFromMemory);
+    streamLoader.setProperty(LoaderProperty.pipelineProcessing, pipelineProcessing);
 
     // ON_ERROR option
     streamLoader.setProperty(LoaderProperty.onError, onError);
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2012-2020 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.pooling;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import net.snowflake.client.core.SFSession;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeConnectionV1;
+import org.junit.Test;
+
+public class SnowflakeConnectionPoolTest {
+  /** Opens mocked connections whose sessions start with role R1 */
+  private static class MockConnectionFactory implements SnowflakeConnectionPool.ConnectionFactory {
+    final List<SnowflakeConnectionV1> connections = new ArrayList<>();
+
+    final List<SFSession> sessions = new ArrayList<>();
+
+    @Override
+    public Connection newConnection() throws SQLException {
+      SnowflakeConnectionV1 connection = mock(SnowflakeConnectionV1.class);
+      SFSession session = mock(SFSession.class);
+      when(connection.unwrap(SnowflakeConnectionV1.class)).thenReturn(connection);
+      when(connection.getSfSession()).thenReturn(session);
+      when(connection.getAutoCommit()).thenReturn(true);
+      when(session.getRole()).thenReturn("R1");
+      connections.add(connection);
+      sessions.add(session);
+      return connection;
+    }
+  }
+
+  @Test
+  public void testReuseConnection() throws SQLException {
+    MockConnectionFactory factory = new MockConnectionFactory();
+    SnowflakeConnectionPool pool = new SnowflakeConnectionPool(factory, 2, 2, 0, 1);
+
+    SnowflakePooledConnection first = pool.borrow();
+    Connection physicalConnection = first.getPhysicalConnection();
+    first.close();
+    SnowflakePooledConnection second = pool.borrow();
+
+    assertThat(second.getPhysicalConnection(), sameInstance(physicalConnection));
+    assertThat(factory.connections.size(), is(1));
+    verify(factory.connections.get(0), never()).close();
+
+    SnowflakeConnectionPoolMetrics metrics = pool.getMetrics();
+    assertThat(metrics.getActiveConnections(), is(1));
+    assertThat(metrics.getIdleConnections(), is(0));
+    assertThat(metrics.getCreatedConnections(), is(1L));
+    assertThat(metrics.getBorrowCount(), is(2L));
+    assertThat(metrics.getReuseCount(), is(1L));
+
+    second.close();
+    pool.close();
+    verify(factory.connections.get(0)).close();
+    assertThat(pool.getMetrics().getClosedConnections(), is(1L));
+  }
+
+  @Test
+  public void testResetRoleOnRelease() throws SQLException {
+    MockConnectionFactory factory = new MockConnectionFactory();
+    SnowflakeConnectionPool pool = new SnowflakeConnectionPool(factory, 1, 1, 0, 1);
+
+    SnowflakePooledConnection pooledConnection = pool.borrow();
+    SnowflakeConnectionV1 connection = factory.connections.get(0);
+    PreparedStatement useRole = mock(PreparedStatement.class);
+    when(connection.prepareStatement("USE ROLE IDENTIFIER(?)")).thenReturn(useRole);
+    when(factory.sessions.get(0).getRole()).thenReturn("r2");
+
+    pooledConnection.close();
+
+    verify(useRole).setString(1, "\"R1\"");
+    verify(useRole).execute();
+    assertThat(pool.getMetrics().getResetCount(), is(1L));
+    assertThat(pool.getMetrics().getIdleConnections(), is(1));
+  }
+
+  @Test
+  public void testCloseConnectionThatCannotBeReset() throws SQLException {
+    MockConnectionFactory factory = new MockConnectionFactory();
+    SnowflakeConnectionPool pool = new SnowflakeConnectionPool(factory, 1, 1, 0, 1);
+
+    SnowflakePooledConnection pooledConnection = pool.borrow();
+    // no warehouse after login, so the warehouse can not be unset again
+    when(factory.sessions.get(0).getWarehouse()).thenReturn("WH");
+    pooledConnection.close();
+
+    verify(factory.connections.get(0)).close();
+    assertThat(pool.getMetrics().getIdleConnections(), is(0));
+  }
+
+  @Test
+  public void testDropSessionWithFailedHeartbeat() throws SQLException {
+    MockConnectionFactory factory = new MockConnectionFactory();
+    SnowflakeConnectionPool pool = new SnowflakeConnectionPool(factory, 1, 1, 0, 1);
+
+    SnowflakePooledConnection first = pool.borrow();
+    Connection physicalConnection = first.getPhysicalConnection();
+    first.close();
+    when(factory.sessions.get(0).isHeartbeatFailed()).thenReturn(true);
+
+    SnowflakePooledConnection second = pool.borrow();
+    assertThat(second.getPhysicalConnection(), not(sameInstance(physicalConnection)));
+    verify(factory.sessions.get(0)).stopPoolHeartbeat();
+    verify(factory.connections.get(0)).close();
+    assertThat(pool.getMetrics().getInvalidCount(), is(1L));
+  }
+
+  @Test
+  public void testPoolExhausted() throws SQLException {
+    SnowflakeConnectionPool pool =
+        new SnowflakeConnectionPool(new MockConnectionFactory(), 1, 1, 0, 0);
+    pool.borrow();
+    try {
+      pool.borrow();
+      fail("pool should be exhausted");
+    } catch (SQLException ex) {
+      assertThat(ex.getErrorCode(), is(ErrorCode.CONNECTION_POOL_EXHAUSTED.getMessageCode()));
+    }
+    assertThat(pool.getMetrics().getWaitTimeoutCount(), is(1L));
+  }
+
+  @Test
+  public void testCloseWithLogicalConnection() throws SQLException {
+    MockConnectionFactory factory = new MockConnectionFactory();
+    SnowflakeConnectionPool pool = new SnowflakeConnectionPool(factory, 1, 1, 0, 0);
+
+    SnowflakePooledConnection pooledConnection = pool.borrow();
+    pooledConnection.setCloseWithLogicalConnection(true);
+    pooledConnection.getConnection().close();
+
+    assertThat(pool.getMetrics().getActiveConnections(), is(0));
+    assertThat(pool.getMetrics().getIdleConnections(), is(1));
+    // the permit was given back, otherwise this would time out
+    pool.borrow();
+  }
+}